@@ -0,0 +1,341 @@
+/*
+ *  GeoServer-Manager - Simple Manager Library for GeoServer
+ *  
+ *  Copyright (C) 2007,2016 GeoSolutions S.A.S.
+ *  http://www.geo-solutions.it
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package it.geosolutions.geoserver.rest;
+
+import it.geosolutions.geoserver.rest.decoder.RESTLayer;
+import it.geosolutions.geoserver.rest.decoder.RESTLayerList;
+import it.geosolutions.geoserver.rest.decoder.RESTResource;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Fetches the details of many layers at once: for each layer name, the {@link RESTLayer} and then its {@link RESTResource} are loaded by a
+ * bounded number of concurrent calls, and handed back to the caller as soon as both are available, in completion order.
+ * <P>
+ * The calls go through the {@link GeoServerRESTReader} given, and hence through the connection pool, caches and limits of its HTTP engine; the
+ * parallelism should not exceed the number of calls its transport can run concurrently against a single host. The calls run on the daemon
+ * threads shared with the style searches of {@link Util}, unless an executor is given.
+ */
+public class GeoServerRESTBulkReader {
+  
+  private final static Logger LOGGER = LoggerFactory.getLogger(GeoServerRESTBulkReader.class);
+  
+  /**
+   * A layer and its resource.
+   */
+  public static class ExpandedLayer {
+    
+    private final String name;
+    
+    private final RESTLayer layer;
+    
+    private final RESTResource resource;
+    
+    ExpandedLayer(String name, RESTLayer layer, RESTResource resource) {
+      this.name = name;
+      this.layer = layer;
+      this.resource = resource;
+    }
+    
+    /**
+     * @return the name of the layer, as requested
+     */
+    public String getName() {
+      return name;
+    }
+    
+    /**
+     * @return the layer, or <TT>null</TT> if it could not be loaded
+     */
+    public RESTLayer getLayer() {
+      return layer;
+    }
+    
+    /**
+     * @return the resource of the layer, or <TT>null</TT> if it could not be loaded
+     */
+    public RESTResource getResource() {
+      return resource;
+    }
+    
+    /**
+     * @return whether both the layer and its resource were loaded
+     */
+    public boolean isResolved() {
+      return layer != null && resource != null;
+    }
+  }
+  
+  /**
+   * The layers being expanded, in completion order. Closing the iterator skips the layers not started yet; the calls running complete in the
+   * background.
+   */
+  public static class ExpandedLayerIterator implements Iterator<ExpandedLayer>, Closeable {
+    
+    private final BlockingQueue<ExpandedLayer> done = new LinkedBlockingQueue<ExpandedLayer>();
+    
+    private volatile boolean closed;
+    
+    private int remaining;
+    
+    ExpandedLayerIterator(int count) {
+      this.remaining = count;
+    }
+    
+    public boolean hasNext() {
+      return remaining > 0 && !closed;
+    }
+    
+    /**
+     * Blocks until the next layer has been expanded.
+     */
+    public ExpandedLayer next() {
+      if (!hasNext()) throw new NoSuchElementException();
+      try {
+        ExpandedLayer layer = done.take();
+        remaining--;
+        return layer;
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IllegalStateException("Interrupted while expanding the layers", e);
+      }
+    }
+    
+    public void remove() {
+      throw new UnsupportedOperationException();
+    }
+    
+    /**
+     * Stops expanding the layers; the ones already expanded and not consumed yet are discarded.
+     */
+    public void close() {
+      closed = true;
+      done.clear();
+    }
+  }
+  
+  /**
+   * Receives the layers expanded by a {@link GeoServerRESTBulkReader}.
+   */
+  public interface ExpandedLayerHandler {
+    
+    /**
+     * Called, on the thread which requested the expansion, for each layer as soon as it has been expanded.
+     */
+    void handle(ExpandedLayer layer);
+  }
+  
+  private final GeoServerRESTReader reader;
+  
+  private final int parallelism;
+  
+  private final Executor executor;
+  
+  /**
+   * Creates a bulk reader running at most {@link Util#DEFAULT_SEARCH_PARALLELISM} concurrent calls, or less if the reader's transport can not
+   * run as many calls against a single host.
+   */
+  public GeoServerRESTBulkReader(GeoServerRESTReader reader) {
+    this(reader, Math.max(1, Math.min(Util.DEFAULT_SEARCH_PARALLELISM, reader.getHTTPEngine().getTransport().getMaxConcurrentCallsPerHost())));
+  }
+  
+  /**
+   * @param reader
+   *          the reader performing the calls
+   * @param parallelism
+   *          the maximum number of concurrent calls
+   */
+  public GeoServerRESTBulkReader(GeoServerRESTReader reader, int parallelism) {
+    this(reader, parallelism, Util.searchPool());
+  }
+  
+  /**
+   * @param reader
+   *          the reader performing the calls
+   * @param parallelism
+   *          the maximum number of concurrent calls
+   * @param executor
+   *          the executor running the calls, possibly shared with other bulk readers
+   */
+  public GeoServerRESTBulkReader(GeoServerRESTReader reader, int parallelism, Executor executor) {
+    if (reader == null) throw new IllegalArgumentException("The reader may not be null");
+    if (parallelism < 1) throw new IllegalArgumentException("The parallelism must be positive");
+    if (executor == null) throw new IllegalArgumentException("The executor may not be null");
+    this.reader = reader;
+    this.parallelism = parallelism;
+    this.executor = executor;
+  }
+  
+  /**
+   * @return the maximum number of concurrent calls
+   */
+  public int getParallelism() {
+    return parallelism;
+  }
+  
+  /**
+   * Expands all the layers of the catalog.
+   * 
+   * @return the expanded layers, in completion order
+   */
+  public ExpandedLayerIterator expandLayers() {
+    return expandLayers(layerNames(null));
+  }
+  
+  /**
+   * Expands all the layers of a workspace.
+   * 
+   * @return the expanded layers, in completion order
+   */
+  public ExpandedLayerIterator expandLayers(String workspace) {
+    if (workspace == null || workspace.isEmpty()) throw new IllegalArgumentException("Workspace may not be null");
+    return expandLayers(layerNames(workspace));
+  }
+  
+  /**
+   * Expands the given layers.
+   * <P>
+   * The calls are started immediately; {@link Iterator#next()} blocks until the next layer has been expanded. Iterators not consumed to the end
+   * should be {@link ExpandedLayerIterator#close() closed}, so that the layers not started yet are skipped. A layer whose expansion failed
+   * unexpectedly is returned unresolved.
+   * 
+   * @param names
+   *          the layer names, qualified by their workspace (e.g. <TT>topp:states</TT>); names not qualified are not loaded
+   * @return the expanded layers, in completion order
+   */
+  public ExpandedLayerIterator expandLayers(Collection<String> names) {
+    final List<String> layers = new ArrayList<String>(names);
+    final ExpandedLayerIterator iterator = new ExpandedLayerIterator(layers.size());
+    // as many workers as the parallelism, each expanding the next layer not started yet
+    final AtomicInteger next = new AtomicInteger();
+    Runnable worker = new Runnable() {
+      public void run() {
+        boolean failed = true;
+        try {
+          for (int i = next.getAndIncrement(); i < layers.size() && !iterator.closed; i = next.getAndIncrement()) {
+            ExpandedLayer expanded = null;
+            try {
+              expanded = expand(layers.get(i));
+            } finally {
+              iterator.done.add(expanded != null ? expanded : new ExpandedLayer(layers.get(i), null, null));
+            }
+          }
+          failed = false;
+        } finally {
+          if (failed) {
+            // the other workers may be gone as well: the layers not started yet are reported unresolved rather than never
+            for (int i = next.getAndIncrement(); i < layers.size(); i = next.getAndIncrement()) {
+              iterator.done.add(new ExpandedLayer(layers.get(i), null, null));
+            }
+          }
+        }
+      }
+    };
+    for (int i = 0; i < Math.min(parallelism, layers.size()); i++) {
+      executor.execute(worker);
+    }
+    return iterator;
+  }
+  
+  /**
+   * Expands all the layers of the catalog, handing them to the handler on the current thread as they are expanded.
+   */
+  public void expandLayers(ExpandedLayerHandler handler) {
+    expandLayers(layerNames(null), handler);
+  }
+  
+  /**
+   * Expands all the layers of a workspace, handing them to the handler on the current thread as they are expanded.
+   */
+  public void expandLayers(String workspace, ExpandedLayerHandler handler) {
+    if (workspace == null || workspace.isEmpty()) throw new IllegalArgumentException("Workspace may not be null");
+    expandLayers(layerNames(workspace), handler);
+  }
+  
+  /**
+   * Expands the given layers, handing them to the handler on the current thread as they are expanded.
+   * 
+   * @see #expandLayers(Collection)
+   */
+  public void expandLayers(Collection<String> names, ExpandedLayerHandler handler) {
+    ExpandedLayerIterator layers = expandLayers(names);
+    try {
+      while (layers.hasNext()) {
+        handler.handle(layers.next());
+      }
+    } finally {
+      layers.close();
+    }
+  }
+  
+  private List<String> layerNames(String workspace) {
+    RESTLayerList list = reader.getLayers();
+    if (list == null) {
+      return Collections.emptyList();
+    }
+    List<String> names = list.getNames();
+    if (workspace != null) {
+      List<String> selected = new ArrayList<String>();
+      for (String name : names) {
+        if (name.startsWith(workspace + ":")) selected.add(name);
+      }
+      names = selected;
+    }
+    return names;
+  }
+  
+  private ExpandedLayer expand(String name) {
+    RESTLayer layer = null;
+    RESTResource resource = null;
+    try {
+      int colon = name.indexOf(':');
+      if (colon <= 0) {
+        LOGGER.warn("Unable to expand the layer " + name + ": not qualified by its workspace");
+        return new ExpandedLayer(name, null, null);
+      }
+      layer = reader.getLayer(name.substring(0, colon), name.substring(colon + 1));
+      if (layer != null) {
+        resource = reader.getResource(layer);
+      }
+    } catch (RuntimeException e) {
+      LOGGER.warn("Unable to expand the layer " + name + ": " + e);
+    }
+    return new ExpandedLayer(name, layer, resource);
+  }
+}
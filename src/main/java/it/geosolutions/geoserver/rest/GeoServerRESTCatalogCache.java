@@ -0,0 +1,759 @@
+/*
+ *  GeoServer-Manager - Simple Manager Library for GeoServer
+ *  
+ *  Copyright (C) 2007,2016 GeoSolutions S.A.S.
+ *  http://www.geo-solutions.it
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package it.geosolutions.geoserver.rest;
+
+import it.geosolutions.geoserver.rest.decoder.RESTCoverage;
+import it.geosolutions.geoserver.rest.decoder.RESTCoverageList;
+import it.geosolutions.geoserver.rest.decoder.RESTCoverageStore;
+import it.geosolutions.geoserver.rest.decoder.RESTCoverageStoreList;
+import it.geosolutions.geoserver.rest.decoder.RESTDataStore;
+import it.geosolutions.geoserver.rest.decoder.RESTDataStoreList;
+import it.geosolutions.geoserver.rest.decoder.RESTFeatureType;
+import it.geosolutions.geoserver.rest.decoder.RESTFeatureTypeList;
+import it.geosolutions.geoserver.rest.decoder.RESTLayer;
+import it.geosolutions.geoserver.rest.decoder.RESTLayer21;
+import it.geosolutions.geoserver.rest.decoder.RESTLayerGroup;
+import it.geosolutions.geoserver.rest.decoder.RESTLayerGroupList;
+import it.geosolutions.geoserver.rest.decoder.RESTLayerList;
+import it.geosolutions.geoserver.rest.decoder.RESTNamespace;
+import it.geosolutions.geoserver.rest.decoder.RESTNamespaceList;
+import it.geosolutions.geoserver.rest.decoder.RESTPublishedList;
+import it.geosolutions.geoserver.rest.decoder.RESTResource;
+import it.geosolutions.geoserver.rest.decoder.RESTStyle;
+import it.geosolutions.geoserver.rest.decoder.RESTStyleList;
+import it.geosolutions.geoserver.rest.decoder.RESTWms;
+import it.geosolutions.geoserver.rest.decoder.RESTWmsList;
+import it.geosolutions.geoserver.rest.decoder.RESTWmsStore;
+import it.geosolutions.geoserver.rest.decoder.RESTWmsStoreList;
+import it.geosolutions.geoserver.rest.decoder.RESTWorkspaceList;
+import it.geosolutions.geoserver.rest.decoder.utils.JDOMBuilder;
+import it.geosolutions.geoserver.rest.decoder.utils.NameLinkElem;
+import it.geosolutions.geoserver.rest.http.HTTPRequest;
+import it.geosolutions.geoserver.rest.http.HTTPWriteListener;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+import org.jdom.Element;
+import org.jdom.output.Format;
+import org.jdom.output.XMLOutputter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * In memory cache of the catalog objects (workspaces, stores, resources, layers, layer groups and styles) decoded by a
+ * {@link GeoServerRESTReader}, so that repeated questions about the catalog are answered without calling GeoServer.
+ * <P>
+ * Objects are kept by REST path (e.g. <TT>/rest/workspaces/topp/datastores/states.xml</TT>) for a fixed time to live, and evicted as soon as a
+ * write touching them is performed through an engine the cache is registered on (see {@link GeoServerRESTPublisher#setCatalogCache} and
+ * {@link it.geosolutions.geoserver.rest.manager.GeoServerRESTAbstractManager#setCatalogCache}). Eviction follows the catalog structure: e.g.
+ * removing a layer evicts the layer, the layer list and the layer groups containing it, while removing a store evicts the store, its resources and
+ * the cached layers publishing them. Changes made by other clients are only seen once the entries expire. The cache keeps a bounded number of
+ * objects, evicting the least recently used ones first, and drops the expired ones as new objects are cached.
+ * <P>
+ * The cached objects can be {@link #save(File) saved} to a compact binary snapshot and {@link #load(File) loaded} back when the application
+ * restarts, so that the catalog is available at once while it is {@link #revalidate(GeoServerRESTReader) revalidated} in the background.
+ * <P>
+ * Since full URLs are kept by their REST path as well, the cache also resolves the <TT>atom:link</TT> references of the decoded objects (e.g.
+ * {@link GeoServerRESTReader#getResource(it.geosolutions.geoserver.rest.decoder.RESTLayer)}): a linked object is fetched once per time to live,
+ * whichever reader or manager sharing the cache follows the link, and decoded again from the cached document when asked as another type (e.g. a
+ * {@link it.geosolutions.geoserver.rest.decoder.RESTFeatureType} cached as a plain resource).
+ * <P>
+ * A cache is meant for a single GeoServer instance and user. Cached objects are shared by all the callers, which must not modify them.
+ * 
+ * @see GeoServerRESTReader#setCatalogCache(GeoServerRESTCatalogCache)
+ */
+public class GeoServerRESTCatalogCache implements HTTPWriteListener {
+  
+  /** Default time to live of the cached objects, in milliseconds */
+  public static final long DEFAULT_TIME_TO_LIVE = 60000;
+  
+  public static final int DEFAULT_MAX_ENTRIES = 10000;
+  
+  private final static Logger LOGGER = LoggerFactory.getLogger(GeoServerRESTCatalogCache.class);
+  
+  private static final int SNAPSHOT_MAGIC = 0x47534d43;
+  
+  private static final int SNAPSHOT_VERSION = 1;
+  
+  private static final String REST = "/rest/";
+  
+  /** The decoders the objects of a snapshot can be rebuilt with, by class name: anything else found in a snapshot is skipped */
+  private static final Map<String, Class<?>> SNAPSHOT_DECODERS = new HashMap<String, Class<?>>();
+  
+  static {
+    Class<?>[] decoders = { RESTCoverage.class, RESTCoverageList.class, RESTCoverageStore.class, RESTCoverageStoreList.class, RESTDataStore.class, RESTDataStoreList.class, RESTFeatureType.class, RESTFeatureTypeList.class, RESTLayer.class, RESTLayer21.class, RESTLayerGroup.class, RESTLayerGroupList.class, RESTLayerList.class, RESTNamespace.class, RESTNamespaceList.class, RESTResource.class, RESTStyle.class, RESTStyleList.class, RESTWms.class, RESTWmsList.class, RESTWmsStore.class, RESTWmsStoreList.class, RESTWorkspaceList.class };
+    for (Class<?> decoder : decoders) {
+      SNAPSHOT_DECODERS.put(decoder.getName(), decoder);
+    }
+  }
+  
+  private static final String LAYERS = "/rest/layers/";
+  
+  private final long timeToLive;
+  
+  private final Map<String, Entry> entries;
+  
+  /** When the expired entries are purged next, at most once per time to live */
+  private long nextPurge;
+  
+  private final AtomicLong hits = new AtomicLong();
+  
+  private final AtomicLong misses = new AtomicLong();
+  
+  public GeoServerRESTCatalogCache() {
+    this(DEFAULT_TIME_TO_LIVE);
+  }
+  
+  /**
+   * @param timeToLive
+   *          how long, in milliseconds, an object is returned from the cache before being read again from GeoServer
+   */
+  public GeoServerRESTCatalogCache(long timeToLive) {
+    this(timeToLive, DEFAULT_MAX_ENTRIES);
+  }
+  
+  /**
+   * @param timeToLive
+   *          how long, in milliseconds, an object is returned from the cache before being read again from GeoServer
+   * @param maxEntries
+   *          the number of objects kept; the least recently used ones are evicted first.
+   */
+  public GeoServerRESTCatalogCache(long timeToLive, final int maxEntries) {
+    if (timeToLive <= 0) throw new IllegalArgumentException("The time to live must be positive");
+    if (maxEntries < 1) throw new IllegalArgumentException("The cache size must be positive");
+    this.timeToLive = timeToLive;
+    this.entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+      private static final long serialVersionUID = 1L;
+      
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+        return size() > maxEntries;
+      }
+    };
+  }
+  
+  public long getTimeToLive() {
+    return timeToLive;
+  }
+  
+  public synchronized int size() {
+    return entries.size();
+  }
+  
+  /**
+   * @return the number of reads answered by the cache
+   */
+  public long getHitCount() {
+    return hits.get();
+  }
+  
+  /**
+   * @return the number of reads which had to call GeoServer
+   */
+  public long getMissCount() {
+    return misses.get();
+  }
+  
+  /**
+   * @return hits / (hits + misses), or 0 if no read went through the cache yet
+   */
+  public double getHitRatio() {
+    long h = hits.get();
+    long total = h + misses.get();
+    return total == 0 ? 0 : (double) h / total;
+  }
+  
+  /**
+   * @param url
+   *          the REST path or the full URL of the object
+   * @param type
+   *          the expected class of the object
+   * @return the cached object, or <TT>null</TT> if it is not cached, it expired or it can not be decoded as the given type
+   */
+  public <T> T get(String url, Class<T> type) {
+    String key = keyOf(url);
+    if (key != null) {
+      synchronized (this) {
+        Entry entry = entries.get(key);
+        if (entry != null && entry.expires - now() > 0) {
+          T value = entry.view(type);
+          if (value != null) {
+            hits.incrementAndGet();
+            return value;
+          }
+        } else if (entry != null) {
+          entries.remove(key);
+        }
+      }
+    }
+    misses.incrementAndGet();
+    return null;
+  }
+  
+  /**
+   * Caches the object read from the given URL; <TT>null</TT> objects are ignored.
+   * 
+   * @param url
+   *          the REST path or the full URL of the object
+   * @param xml
+   *          the document the object was decoded from, kept for the {@link #save(OutputStream) snapshots}; may be <TT>null</TT>
+   * @param value
+   *          the decoded object
+   */
+  public void put(String url, Element xml, Object value) {
+    String key = keyOf(url);
+    if (key == null || value == null) return;
+    synchronized (this) {
+      long now = now();
+      if (now - nextPurge >= 0) {
+        purge(now);
+        nextPurge = now + timeToLive;
+      }
+      entries.put(key, new Entry(value, xml, now + timeToLive, false));
+    }
+  }
+  
+  /**
+   * Removes the expired entries, which would otherwise stay until they are read again or pushed out by newer ones.
+   */
+  private void purge(long now) {
+    Iterator<Entry> it = entries.values().iterator();
+    while (it.hasNext()) {
+      if (it.next().expires - now <= 0) it.remove();
+    }
+  }
+  
+  // ==========================================================================
+  // === SNAPSHOTS
+  // ==========================================================================
+  
+  /**
+   * Saves the cached objects to the given file, replacing it only once the snapshot is complete.
+   * 
+   * @return the number of objects saved
+   * @see #load(File)
+   */
+  public int save(File file) throws IOException {
+    File tmp = new File(file.getPath() + ".tmp");
+    OutputStream out = new FileOutputStream(tmp);
+    int count;
+    try {
+      count = save(out);
+    } finally {
+      out.close();
+    }
+    if (file.exists() && !file.delete()) throw new IOException("Unable to replace the snapshot " + file);
+    if (!tmp.renameTo(file)) throw new IOException("Unable to rename " + tmp + " to " + file);
+    return count;
+  }
+  
+  /**
+   * Writes the cached objects as a compressed binary snapshot: a header followed, for each object, by its REST path, its decoder class and the
+   * compact XML it was decoded from. Expiration times are not saved. The stream is not closed.
+   * 
+   * @return the number of objects saved
+   */
+  public int save(OutputStream out) throws IOException {
+    Map<String, Entry> copy;
+    synchronized (this) {
+      copy = new HashMap<String, Entry>(entries);
+    }
+    XMLOutputter outputter = new XMLOutputter(Format.getCompactFormat());
+    DeflaterOutputStream deflater = new DeflaterOutputStream(out);
+    DataOutputStream data = new DataOutputStream(new BufferedOutputStream(deflater));
+    int count = 0;
+    for (Entry entry : copy.values()) {
+      if (isSaved(entry)) count++;
+    }
+    data.writeInt(SNAPSHOT_MAGIC);
+    data.writeInt(SNAPSHOT_VERSION);
+    data.writeInt(count);
+    for (Map.Entry<String, Entry> entry : copy.entrySet()) {
+      if (!isSaved(entry.getValue())) continue;
+      Element xml = entry.getValue().xml;
+      data.writeUTF(entry.getKey());
+      data.writeUTF(entry.getValue().value.getClass().getName());
+      byte[] bytes = outputter.outputString(xml).getBytes("UTF-8");
+      data.writeInt(bytes.length);
+      data.write(bytes);
+    }
+    data.flush();
+    deflater.finish();
+    return count;
+  }
+  
+  /**
+   * @return whether the entry can be saved in a snapshot: only the objects of the catalog decoders can be loaded back
+   */
+  private static boolean isSaved(Entry entry) {
+    return entry.xml != null && SNAPSHOT_DECODERS.containsKey(entry.value.getClass().getName());
+  }
+  
+  /**
+   * Loads a snapshot written by {@link #save(File)}, e.g. at startup: the objects it contains are cached as if they had just been read, and are
+   * marked for {@link #revalidate(GeoServerRESTReader, Executor) revalidation}. Objects already cached are not replaced.
+   * 
+   * @return the number of objects loaded
+   */
+  public int load(File file) throws IOException {
+    InputStream in = new FileInputStream(file);
+    try {
+      return load(in);
+    } finally {
+      in.close();
+    }
+  }
+  
+  /**
+   * Loads a snapshot written by {@link #save(OutputStream)}. The stream is not closed.
+   * 
+   * @return the number of objects loaded
+   * @throws IOException
+   *           if the stream could not be read or is not a snapshot
+   */
+  public int load(InputStream in) throws IOException {
+    DataInputStream data = new DataInputStream(new BufferedInputStream(new InflaterInputStream(in)));
+    if (data.readInt() != SNAPSHOT_MAGIC) throw new IOException("Not a catalog snapshot");
+    int version = data.readInt();
+    if (version != SNAPSHOT_VERSION) throw new IOException("Unsupported catalog snapshot version: " + version);
+    int count = data.readInt();
+    int loaded = 0;
+    long expires = now() + timeToLive;
+    for (int i = 0; i < count; i++) {
+      String key = data.readUTF();
+      String type = data.readUTF();
+      byte[] bytes = new byte[data.readInt()];
+      data.readFully(bytes);
+      Element xml = JDOMBuilder.buildElement(new ByteArrayInputStream(bytes), "UTF-8");
+      Object value = decode(type, xml);
+      if (value == null) continue;
+      synchronized (this) {
+        if (!entries.containsKey(key)) {
+          entries.put(key, new Entry(value, xml, expires, true));
+          loaded++;
+        }
+      }
+    }
+    return loaded;
+  }
+  
+  /**
+   * Reads again, one at a time, the objects loaded from a snapshot, replacing them with their current version or evicting them if they no longer
+   * exist. Objects written or evicted in the meanwhile are skipped.
+   * 
+   * @param reader
+   *          the reader of the GeoServer the snapshot was taken from
+   * @param executor
+   *          the executor running the revalidation
+   * @return the number of objects revalidated, once done
+   */
+  public Future<Integer> revalidate(final GeoServerRESTReader reader, Executor executor) {
+    FutureTask<Integer> task = new FutureTask<Integer>(new Callable<Integer>() {
+      public Integer call() {
+        int revalidated = 0;
+        for (Map.Entry<String, Entry> stale : snapshotEntries().entrySet()) {
+          if (Thread.currentThread().isInterrupted()) break;
+          String key = stale.getKey();
+          Element xml = reader.loadCatalog(key);
+          Object value = xml == null ? null : decode(stale.getValue().value.getClass().getName(), xml);
+          synchronized (GeoServerRESTCatalogCache.this) {
+            if (entries.get(key) != stale.getValue()) continue;
+            if (value == null) {
+              entries.remove(key);
+            } else {
+              entries.put(key, new Entry(value, xml, now() + timeToLive, false));
+            }
+          }
+          revalidated++;
+        }
+        return revalidated;
+      }
+    });
+    executor.execute(task);
+    return task;
+  }
+  
+  /**
+   * Revalidates the objects loaded from a snapshot on a background daemon thread.
+   * 
+   * @see #revalidate(GeoServerRESTReader, Executor)
+   */
+  public Future<Integer> revalidate(GeoServerRESTReader reader) {
+    return revalidate(reader, new Executor() {
+      public void execute(Runnable command) {
+        Thread thread = new Thread(command, "geoserver-manager-catalog-revalidation");
+        thread.setDaemon(true);
+        thread.start();
+      }
+    });
+  }
+  
+  private synchronized Map<String, Entry> snapshotEntries() {
+    Map<String, Entry> stale = new LinkedHashMap<String, Entry>();
+    for (Map.Entry<String, Entry> entry : entries.entrySet()) {
+      if (entry.getValue().fromSnapshot) stale.put(entry.getKey(), entry.getValue());
+    }
+    return stale;
+  }
+  
+  /**
+   * Decodes the document through the static <TT>build(Element)</TT> method of the given decoder class.
+   * 
+   * @return the decoded object, or <TT>null</TT> if the class is not one of the {@link #SNAPSHOT_DECODERS}
+   */
+  private static Object decode(String type, Element xml) {
+    Class<?> decoder = SNAPSHOT_DECODERS.get(type);
+    if (decoder == null) {
+      LOGGER.warn("Skipping a " + type + " from the catalog snapshot: not a catalog decoder");
+      return null;
+    }
+    try {
+      Method build = decoder.getMethod("build", Element.class);
+      return build.invoke(null, xml);
+    } catch (Exception e) {
+      LOGGER.warn("Unable to decode a " + type + " from the catalog snapshot: " + e.getLocalizedMessage());
+      return null;
+    }
+  }
+  
+  /**
+   * Removes all the cached objects. The counters are left untouched.
+   */
+  public synchronized void clear() {
+    entries.clear();
+  }
+  
+  /**
+   * Invalidates the cached objects after a successful write.
+   */
+  public void written(HTTPRequest.Method method, String url) {
+    invalidate(url);
+  }
+  
+  /**
+   * Evicts the cached objects affected by a change of the given catalog URL, e.g. <TT>/rest/layers/topp:states</TT> evicts that layer, the layer
+   * list and the groups containing the layer. Calls to the whole catalog such as <TT>/rest/reload</TT> clear the cache.
+   * 
+   * @param url
+   *          the REST path or the full URL which was written
+   */
+  public synchronized void invalidate(String url) {
+    String path = keyOf(url);
+    if (path == null) return;
+    String[] segments = path.substring(REST.length()).split("/");
+    int last = segments.length - 1;
+    segments[last] = stripExtension(segments[last]);
+    String top = segments[0];
+    String name = segment(segments, 1);
+    
+    if (top.equals("reload") || top.equals("reset") || top.equals("imports") || top.startsWith("bkprst")) {
+      entries.clear();
+    } else if (top.equals("layers")) {
+      if (name == null) {
+        entries.remove("/rest/layers.xml");
+      } else {
+        evictLayer(name);
+      }
+    } else if (top.equals("layergroups")) {
+      evict("/rest/layergroups", name);
+    } else if (top.equals("styles")) {
+      evict("/rest/styles", name);
+      if (name != null) evictLayersWithStyle(null, name);
+    } else if (top.equals("workspaces") || top.equals("namespaces")) {
+      if (name == null) {
+        entries.remove("/rest/workspaces.xml");
+        entries.remove("/rest/namespaces.xml");
+      } else if (segments.length == 2 || top.equals("namespaces")) {
+        evictWorkspace(name);
+      } else {
+        invalidateInWorkspace(name, segments);
+      }
+    }
+  }
+  
+  private void invalidateInWorkspace(String workspace, String[] segments) {
+    String wsPath = REST + "workspaces/" + workspace;
+    String collection = segments[2];
+    String name = segment(segments, 3);
+    if (collection.equals("styles")) {
+      evict(wsPath + "/styles", name);
+      if (name != null) evictLayersWithStyle(workspace, name);
+    } else if (collection.equals("datastores") || collection.equals("coveragestores") || collection.equals("wmsstores")) {
+      String resources = segment(segments, 4);
+      if (segments.length > 6 && segments[6].equals("index")) {
+        // granules are not part of the cached catalog
+        return;
+      }
+      entries.remove(wsPath + "/featuretypes.xml");
+      entries.remove("/rest/layers.xml");
+      if (name == null) {
+        entries.remove(wsPath + "/" + collection + ".xml");
+        return;
+      }
+      String storePath = wsPath + "/" + collection + "/" + name;
+      if (isResourceCollection(resources)) {
+        String resource = segment(segments, 5);
+        evict(storePath + "/" + resources, resource);
+        if (resource != null) evictLayersOf(storePath + "/" + resources + "/" + resource);
+      } else {
+        // the store itself, or an upload into it which may have created new resources
+        evict(wsPath + "/" + collection, name);
+        evictLayersOf(storePath);
+      }
+    } else {
+      evict(wsPath + "/" + collection, name);
+    }
+  }
+  
+  private static boolean isResourceCollection(String segment) {
+    return "featuretypes".equals(segment) || "coverages".equals(segment) || "wmslayers".equals(segment);
+  }
+  
+  /**
+   * Evicts the list of a catalog collection and, if a name is given, the named object with all the objects below it.
+   */
+  private void evict(String collection, String name) {
+    entries.remove(collection + ".xml");
+    if (name != null) {
+      evictPrefix(collection + "/" + name + ".");
+      evictPrefix(collection + "/" + name + "/");
+    }
+  }
+  
+  private void evictPrefix(String prefix) {
+    Iterator<String> keys = entries.keySet().iterator();
+    while (keys.hasNext()) {
+      if (keys.next().startsWith(prefix)) keys.remove();
+    }
+  }
+  
+  private void evictWorkspace(String workspace) {
+    entries.remove("/rest/workspaces.xml");
+    entries.remove("/rest/namespaces.xml");
+    evictPrefix(REST + "workspaces/" + workspace + ".");
+    evictPrefix(REST + "workspaces/" + workspace + "/");
+    evictPrefix(REST + "namespaces/" + workspace + ".");
+    evictLayersOf(REST + "workspaces/" + workspace);
+    evictPrefix(LAYERS + workspace + ":");
+    entries.remove("/rest/layers.xml");
+    evictGroupsContaining(workspace, null);
+  }
+  
+  /**
+   * Evicts a layer, given its name qualified or not by the workspace, together with the layer list and the groups containing the layer.
+   */
+  private void evictLayer(String name) {
+    int colon = name.indexOf(':');
+    String workspace = colon < 0 ? null : name.substring(0, colon);
+    String local = name.substring(colon + 1);
+    entries.remove(LAYERS + name + ".xml");
+    entries.remove(LAYERS + local + ".xml");
+    if (workspace == null) {
+      Iterator<String> keys = entries.keySet().iterator();
+      while (keys.hasNext()) {
+        String key = keys.next();
+        if (key.startsWith(LAYERS) && key.endsWith(":" + local + ".xml")) keys.remove();
+      }
+    }
+    entries.remove("/rest/layers.xml");
+    evictGroupsContaining(workspace, local);
+  }
+  
+  /**
+   * Evicts the cached layers publishing the resources at or below the given path.
+   */
+  private void evictLayersOf(String resourcePath) {
+    List<String> evicted = new ArrayList<String>();
+    Iterator<Map.Entry<String, Entry>> it = entries.entrySet().iterator();
+    while (it.hasNext()) {
+      Map.Entry<String, Entry> entry = it.next();
+      Object value = entry.getValue().value;
+      if (value instanceof RESTLayer) {
+        String resource = keyOf(((RESTLayer) value).getResourceUrl());
+        if (resource != null && (resource.startsWith(resourcePath + ".") || resource.startsWith(resourcePath + "/"))) {
+          it.remove();
+          String key = entry.getKey();
+          evicted.add(key.substring(LAYERS.length(), key.length() - ".xml".length()));
+        }
+      }
+    }
+    for (String name : evicted) {
+      int colon = name.indexOf(':');
+      evictGroupsContaining(colon < 0 ? null : name.substring(0, colon), name.substring(colon + 1));
+    }
+    entries.remove("/rest/layers.xml");
+  }
+  
+  private void evictLayersWithStyle(String workspace, String style) {
+    Iterator<Entry> it = entries.values().iterator();
+    while (it.hasNext()) {
+      Object value = it.next().value;
+      if (value instanceof RESTLayer) {
+        RESTLayer layer = (RESTLayer) value;
+        String styleWorkspace = layer.getDefaultStyleWorkspace();
+        if (style.equals(layer.getDefaultStyle()) && (workspace == null ? styleWorkspace == null : workspace.equals(styleWorkspace))) {
+          it.remove();
+        }
+      }
+    }
+  }
+  
+  /**
+   * Evicts the cached groups publishing the given layer or, if no layer name is given, any layer of the given workspace.
+   */
+  private void evictGroupsContaining(String workspace, String layer) {
+    Iterator<Entry> it = entries.values().iterator();
+    while (it.hasNext()) {
+      Object value = it.next().value;
+      if (value instanceof RESTLayerGroup && contains((RESTLayerGroup) value, workspace, layer)) {
+        it.remove();
+      }
+    }
+  }
+  
+  private static boolean contains(RESTLayerGroup group, String workspace, String layer) {
+    if (matches(group.getRootLayer(), workspace, layer)) return true;
+    RESTPublishedList published = group.getPublishedList();
+    if (published != null) {
+      for (NameLinkElem elem : published) {
+        if (matches(elem.getName(), workspace, layer)) return true;
+      }
+    }
+    RESTLayerList layers = group.getLayerList();
+    if (layers != null) {
+      for (NameLinkElem elem : layers) {
+        if (matches(elem.getName(), workspace, layer)) return true;
+      }
+    }
+    return false;
+  }
+  
+  private static boolean matches(String published, String workspace, String layer) {
+    if (published == null) return false;
+    if (layer == null) return published.startsWith(workspace + ":");
+    if (published.equals(layer)) return true;
+    return workspace == null ? published.endsWith(":" + layer) : published.equals(workspace + ":" + layer);
+  }
+  
+  private static String segment(String[] segments, int index) {
+    return index < segments.length && segments[index].length() > 0 ? segments[index] : null;
+  }
+  
+  private static String stripExtension(String segment) {
+    int dot = segment.lastIndexOf('.');
+    if (dot > 0) {
+      String ext = segment.substring(dot + 1);
+      if (ext.equals("xml") || ext.equals("json") || ext.equals("sld") || ext.equals("html")) return segment.substring(0, dot);
+    }
+    return segment;
+  }
+  
+  /**
+   * @return the REST path of the given URL, without query string, or <TT>null</TT> if it is not a REST URL
+   */
+  private static String keyOf(String url) {
+    if (url == null) return null;
+    int rest = url.indexOf(REST);
+    if (rest < 0) return null;
+    int query = url.indexOf('?', rest);
+    return query < 0 ? url.substring(rest) : url.substring(rest, query);
+  }
+  
+  /**
+   * @return the current time in milliseconds
+   */
+  protected long now() {
+    return System.currentTimeMillis();
+  }
+  
+  private static class Entry {
+    
+    final Object value;
+    
+    final Element xml;
+    
+    final long expires;
+    
+    /** Loaded from a snapshot and not revalidated yet */
+    final boolean fromSnapshot;
+    
+    /** The document decoded as other types than the value's; <TT>null</TT> values for the types it can not be decoded as */
+    private Map<Class<?>, Object> views;
+    
+    Entry(Object value, Element xml, long expires, boolean fromSnapshot) {
+      this.value = value;
+      this.xml = xml;
+      this.expires = expires;
+      this.fromSnapshot = fromSnapshot;
+    }
+    
+    /**
+     * @return the object as the given type, decoding the document again through the static <TT>build(Element)</TT> method of the type if
+     *         needed, or <TT>null</TT> if it can not be decoded as such. Called while holding the cache lock.
+     */
+    <T> T view(Class<T> type) {
+      if (type.isInstance(value)) return type.cast(value);
+      if (views != null && views.containsKey(type)) return type.cast(views.get(type));
+      if (xml == null) return null;
+      Object decoded = null;
+      try {
+        Method build = type.getMethod("build", Element.class);
+        if (Modifier.isStatic(build.getModifiers())) decoded = build.invoke(null, xml);
+      } catch (Exception e) {
+        // not a decoder
+      }
+      if (!type.isInstance(decoded)) decoded = null;
+      if (views == null) views = new HashMap<Class<?>, Object>(2);
+      views.put(type, decoded);
+      return type.cast(decoded);
+    }
+  }
+}
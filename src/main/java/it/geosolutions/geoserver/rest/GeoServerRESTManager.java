@@ -24,6 +24,9 @@
  */
 package it.geosolutions.geoserver.rest;
 
+import it.geosolutions.geoserver.rest.http.HTTPEngine;
+import it.geosolutions.geoserver.rest.http.HTTPNotFoundCache;
+import it.geosolutions.geoserver.rest.http.HTTPTransport;
 import it.geosolutions.geoserver.rest.manager.GeoServerRESTAbstractManager;
 import it.geosolutions.geoserver.rest.manager.GeoServerRESTStoreManager;
 import it.geosolutions.geoserver.rest.manager.GeoServerRESTStructuredGridCoverageReaderManager;
@@ -72,14 +75,83 @@ public class GeoServerRESTManager extends GeoServerRESTAbstractManager {
    *           {@link GeoServerRESTAbstractManager#GeoServerRESTAbstractManager(URL, String, String)}
    */
   public GeoServerRESTManager(URL restURL, String username, String password) throws IllegalArgumentException {
-    super(restURL, username, password);
+    this(restURL, username, password, new HTTPEngine());
+  }
+  
+  /**
+   * Indicates connection parameters to remote GeoServer instance and the HTTP transport used by all the components, e.g. the
+   * {@link it.geosolutions.geoserver.rest.http.CommonsHTTPTransport commons-httpclient} one (the default) or, on Java 21, the
+   * <TT>JDKHTTPTransport</TT> backed by the JDK HTTP client.
+   * 
+   * @param restURL
+   *          GeoServer REST API endpoint
+   * @param username
+   *          GeoServer REST API authorized username
+   * @param password
+   *          GeoServer REST API password for the former username
+   * @param transport
+   *          the HTTP transport performing all the calls
+   * @throws IllegalArgumentException
+   *           {@link GeoServerRESTAbstractManager#GeoServerRESTAbstractManager(URL, String, String, HTTPEngine)}
+   */
+  public GeoServerRESTManager(URL restURL, String username, String password, HTTPTransport transport) throws IllegalArgumentException {
+    this(restURL, username, password, new HTTPEngine(transport));
+  }
+  
+  /**
+   * Indicates connection parameters to remote GeoServer instance and the HTTP engine shared by all the components.
+   * <P>
+   * The engine is thread-safe, so a single manager can be used concurrently by many threads; errors are reported per call and per thread.
+   * 
+   * @param restURL
+   *          GeoServer REST API endpoint
+   * @param username
+   *          GeoServer REST API authorized username
+   * @param password
+   *          GeoServer REST API password for the former username
+   * @param engine
+   *          the HTTP engine used by the reader, the publisher and all the managers
+   * @throws IllegalArgumentException
+   *           {@link GeoServerRESTAbstractManager#GeoServerRESTAbstractManager(URL, String, String, HTTPEngine)}
+   */
+  public GeoServerRESTManager(URL restURL, String username, String password, HTTPEngine engine) throws IllegalArgumentException {
+    super(restURL, username, password, engine);
     
     // Internal publisher and reader, provide simple access methods.
-    publisher = new GeoServerRESTPublisher(restURL.toString(), username, password);
-    reader = new GeoServerRESTReader(restURL, username, password);
-    structuredGridCoverageReader = new GeoServerRESTStructuredGridCoverageReaderManager(restURL, username, password);
-    storeManager = new GeoServerRESTStoreManager(restURL, gsuser, gspass);
-    styleManager = new GeoServerRESTStyleManager(restURL, gsuser, gspass);
+    publisher = new GeoServerRESTPublisher(restURL.toString(), username, password, http);
+    reader = new GeoServerRESTReader(restURL, username, password, http);
+    structuredGridCoverageReader = new GeoServerRESTStructuredGridCoverageReaderManager(restURL, username, password, http);
+    storeManager = new GeoServerRESTStoreManager(restURL, gsuser, gspass, http);
+    styleManager = new GeoServerRESTStyleManager(restURL, gsuser, gspass, http);
+  }
+  
+  /**
+   * Shares a catalog cache among the components of this manager: the reader answers from it, and the writes of the publisher and of the managers
+   * evict the affected objects.
+   * 
+   * @param cache
+   *          the cache, or <TT>null</TT> to disable catalog caching
+   */
+  @Override
+  public synchronized void setCatalogCache(GeoServerRESTCatalogCache cache) {
+    super.setCatalogCache(cache);
+    reader.setCatalogCache(cache);
+    publisher.setCatalogCache(cache);
+    storeManager.setCatalogCache(cache);
+    styleManager.setCatalogCache(cache);
+    structuredGridCoverageReader.setCatalogCache(cache);
+  }
+  
+  /**
+   * Shares a cache of the objects found missing between the reader and the style manager; objects created by the publisher or the managers are
+   * evicted from it.
+   * 
+   * @param cache
+   *          the cache, or <TT>null</TT> to disable it
+   */
+  public void setNotFoundCache(HTTPNotFoundCache cache) {
+    reader.setNotFoundCache(cache);
+    styleManager.setNotFoundCache(cache);
   }
   
   public GeoServerRESTPublisher getPublisher() {
@@ -39,6 +39,7 @@ import it.geosolutions.geoserver.rest.encoder.GSWorkspaceEncoder;
 import it.geosolutions.geoserver.rest.encoder.coverage.GSCoverageEncoder;
 import it.geosolutions.geoserver.rest.encoder.datastore.GSPostGISDatastoreEncoder;
 import it.geosolutions.geoserver.rest.encoder.feature.GSFeatureTypeEncoder;
+import it.geosolutions.geoserver.rest.http.HTTPEngine;
 import it.geosolutions.geoserver.rest.manager.GeoServerRESTImporterManager;
 import it.geosolutions.geoserver.rest.manager.GeoServerRESTStructuredGridCoverageReaderManager;
 import it.geosolutions.geoserver.rest.manager.GeoServerRESTStructuredGridCoverageReaderManager.ConfigureCoveragesOption;
@@ -92,10 +93,17 @@ public class GeoServerRESTPublisher {
    */
   private final String gspass;
   
+  /**
+   * HTTP engine all the calls go through
+   */
+  private final HTTPEngine http;
+  
   private final GeoServerRESTStyleManager styleManager;
   
   private final GeoServerRESTImporterManager importerManager;
   
+  private volatile GeoServerRESTCatalogCache catalogCache;
+  
   /**
    * Creates a <TT>GeoServerRESTPublisher</TT> to connect against a GeoServer instance with the given URL and user credentials.
    * 
@@ -107,9 +115,28 @@ public class GeoServerRESTPublisher {
    *          auth credential
    */
   public GeoServerRESTPublisher(String restURL, String username, String password) {
+    this(restURL, username, password, new HTTPEngine());
+  }
+  
+  /**
+   * Creates a <TT>GeoServerRESTPublisher</TT> to connect against a GeoServer instance with the given URL and user credentials, performing its calls
+   * through the given HTTP engine.
+   * 
+   * @param restURL
+   *          the base GeoServer URL (e.g.: <TT>http://localhost:8080/geoserver</TT>)
+   * @param username
+   *          auth credential
+   * @param password
+   *          auth credential
+   * @param engine
+   *          the HTTP engine used for all the calls
+   */
+  public GeoServerRESTPublisher(String restURL, String username, String password, HTTPEngine engine) {
+    if (engine == null) throw new IllegalArgumentException("The HTTP engine may not be null");
     this.restURL = HTTPUtils.decurtSlash(restURL);
     this.gsuser = username;
     this.gspass = password;
+    this.http = engine;
     
     URL url = null;
     try {
@@ -117,8 +144,37 @@ public class GeoServerRESTPublisher {
     } catch (MalformedURLException ex) {
       LOGGER.error("Bad URL: Calls to GeoServer are going to fail", ex);
     }
-    styleManager = new GeoServerRESTStyleManager(url, username, password);
-    importerManager = new GeoServerRESTImporterManager(url, username, password);
+    styleManager = new GeoServerRESTStyleManager(url, username, password, engine);
+    importerManager = new GeoServerRESTImporterManager(url, username, password, engine);
+  }
+  
+  /**
+   * @return the HTTP engine used by this publisher
+   */
+  public HTTPEngine getHTTPEngine() {
+    return http;
+  }
+  
+  /**
+   * @return the catalog cache invalidated by the writes of this publisher, or <TT>null</TT>
+   */
+  public GeoServerRESTCatalogCache getCatalogCache() {
+    return catalogCache;
+  }
+  
+  /**
+   * Registers a catalog cache on the HTTP engine of this publisher, so that every successful write (publishing, configuring or removing catalog
+   * objects) evicts the cached objects it affects. As the cache listens to the engine, writes performed by other components sharing it are tracked
+   * as well. Each component holds its own registration, so unsetting the cache here keeps it registered for the others.
+   * 
+   * @param cache
+   *          the cache to keep in sync, or <TT>null</TT> to release the registration of the current one
+   * @see GeoServerRESTReader#setCatalogCache(GeoServerRESTCatalogCache)
+   */
+  public synchronized void setCatalogCache(GeoServerRESTCatalogCache cache) {
+    if (catalogCache != null) http.removeWriteListener(catalogCache);
+    if (cache != null) http.addWriteListener(cache);
+    this.catalogCache = cache;
   }
   
   // ==========================================================================
@@ -179,7 +235,7 @@ public class GeoServerRESTPublisher {
     bkpenc.setIncludeData(includedata);
     bkpenc.setIncludeGwc(includegwc);
     bkpenc.setIncludeLog(includelog);
-    final String result = HTTPUtils.post(bkpUrl.toString(), bkpenc.toString(), "text/xml", gsuser, gspass);
+    final String result = http.post(bkpUrl.toString(), bkpenc.toString(), "text/xml", gsuser, gspass);
     
     return result;
   }
@@ -209,7 +265,7 @@ public class GeoServerRESTPublisher {
     
     final GSBackupEncoder bkpenc = new GSBackupEncoder(backupDir);
     
-    final String result = HTTPUtils.post(bkpUrl.toString(), bkpenc.toString(), "text/xml", gsuser, gspass);
+    final String result = http.post(bkpUrl.toString(), bkpenc.toString(), "text/xml", gsuser, gspass);
     
     return result;
   }
@@ -237,7 +293,7 @@ public class GeoServerRESTPublisher {
     final String sUrl = restURL + "/rest/workspaces";
     final GSWorkspaceEncoder wsenc = new GSWorkspaceEncoder(workspace);
     final String wsxml = wsenc.toString();
-    final String result = HTTPUtils.postXml(sUrl, wsxml, gsuser, gspass);
+    final String result = http.postXml(sUrl, wsxml, gsuser, gspass);
     return result != null;
   }
   
@@ -279,7 +335,7 @@ public class GeoServerRESTPublisher {
     final String sUrl = restURL + "/rest/namespaces";
     final GSNamespaceEncoder nsenc = new GSNamespaceEncoder(prefix, uri);
     final String nsxml = nsenc.toString();
-    final String result = HTTPUtils.postXml(sUrl, nsxml, gsuser, gspass);
+    final String result = http.postXml(sUrl, nsxml, gsuser, gspass);
     return result != null;
   }
   
@@ -299,7 +355,7 @@ public class GeoServerRESTPublisher {
     final String sUrl = restURL + "/rest/namespaces/" + encode(prefix);
     final GSNamespaceEncoder nsenc = new GSNamespaceEncoder(prefix, uri);
     final String nsxml = nsenc.toString();
-    final String result = HTTPUtils.put(sUrl, nsxml, "application/xml", gsuser, gspass);
+    final String result = http.put(sUrl, nsxml, "application/xml", gsuser, gspass);
     return result != null;
   }
   
@@ -894,12 +950,12 @@ public class GeoServerRESTPublisher {
     if (method.equals(UploadMethod.FILE)) {
       final File file = new File(uri);
       if (!file.exists()) throw new FileNotFoundException("unable to locate file: " + file);
-      sentResult = HTTPUtils.put(sbUrl.toString(), file, mimeType, gsuser, gspass);
+      sentResult = http.put(sbUrl.toString(), file, mimeType, gsuser, gspass);
     } else if (method.equals(UploadMethod.EXTERNAL)) {
-      sentResult = HTTPUtils.put(sbUrl.toString(), uri.toString(), mimeType, gsuser, gspass);
+      sentResult = http.put(sbUrl.toString(), uri.toString(), mimeType, gsuser, gspass);
     } else if (method.equals(UploadMethod.URL)) {
       // TODO check
-      sentResult = HTTPUtils.put(sbUrl.toString(), uri.toString(), mimeType, gsuser, gspass);
+      sentResult = http.put(sbUrl.toString(), uri.toString(), mimeType, gsuser, gspass);
     }
     
     if (sentResult != null) {
@@ -989,7 +1045,7 @@ public class GeoServerRESTPublisher {
   public boolean createPostGISDatastore(String workspace, GSPostGISDatastoreEncoder datastoreEncoder) {
     String sUrl = restURL + "/rest/workspaces/" + workspace + "/datastores/";
     String xml = datastoreEncoder.toString();
-    String result = HTTPUtils.postXml(sUrl, xml, gsuser, gspass);
+    String result = http.postXml(sUrl, xml, gsuser, gspass);
     return result != null;
   }
   
@@ -1038,7 +1094,7 @@ public class GeoServerRESTPublisher {
       return false;
     }
     
-    String configuredResult = HTTPUtils.postXml(postUrl.toString(), ftypeXml, this.gsuser, this.gspass);
+    String configuredResult = http.postXml(postUrl.toString(), ftypeXml, this.gsuser, this.gspass);
     boolean published = configuredResult != null;
     boolean configured = false;
     
@@ -1773,7 +1829,7 @@ public class GeoServerRESTPublisher {
     if (configureLayer(workspace, coverageName, layerEncoder)) {
       GeoServerRESTReader reader;
       try {
-        reader = new GeoServerRESTReader(this.restURL, this.gsuser, this.gspass);
+        reader = new GeoServerRESTReader(new URL(this.restURL), this.gsuser, this.gspass, http);
         return reader.getCoverageStore(workspace, storeName);
       } catch (MalformedURLException e) {
         LOGGER.error(e.getMessage(), e);
@@ -1981,7 +2037,7 @@ public class GeoServerRESTPublisher {
     if (configureLayer(workspace, coverageName, layerEncoder)) {
       GeoServerRESTReader reader;
       try {
-        reader = new GeoServerRESTReader(this.restURL, this.gsuser, this.gspass);
+        reader = new GeoServerRESTReader(new URL(this.restURL), this.gsuser, this.gspass, http);
         return reader.getCoverageStore(workspace, storeName);
       } catch (MalformedURLException e) {
         LOGGER.error(e.getMessage(), e);
@@ -2102,7 +2158,7 @@ public class GeoServerRESTPublisher {
     }
     
     String sUrl = restURL + "/rest/workspaces/" + workspace + "/coveragestores/" + storeName + "/external.imagemosaic?configure=" + configure.toString() + "&update=" + update.toString();
-    String sendResult = HTTPUtils.put(sUrl, mosaicDir.toURI().toString(), "text/plain", gsuser, gspass);
+    String sendResult = http.put(sUrl, mosaicDir.toURI().toString(), "text/plain", gsuser, gspass);
     return RESTCoverageStore.build(sendResult);
   }
   
@@ -2229,7 +2285,7 @@ public class GeoServerRESTPublisher {
       if (LOGGER.isDebugEnabled()) {
         LOGGER.debug("Going to delete " + "/rest/layers/" + fqLayerName);
       }
-      boolean layerDeleted = HTTPUtils.delete(deleteLayerUrl.toExternalForm(), gsuser, gspass);
+      boolean layerDeleted = http.delete(deleteLayerUrl.toExternalForm(), gsuser, gspass);
       if (!layerDeleted) {
         LOGGER.warn("Could not delete layer '" + fqLayerName + "'");
         return false;
@@ -2239,7 +2295,7 @@ public class GeoServerRESTPublisher {
       if (LOGGER.isDebugEnabled()) {
         LOGGER.debug("Going to delete " + "/rest/workspaces/" + workspace + "/coveragestores/" + storename + "/coverages/" + layerName);
       }
-      boolean covDeleted = HTTPUtils.delete(deleteCovUrl.toExternalForm(), gsuser, gspass);
+      boolean covDeleted = http.delete(deleteCovUrl.toExternalForm(), gsuser, gspass);
       if (!covDeleted) {
         LOGGER.warn("Could not delete coverage " + workspace + ":" + storename + "/" + layerName + ", but layer was deleted.");
       } else {
@@ -2281,14 +2337,14 @@ public class GeoServerRESTPublisher {
       }
       // delete related layer
       URL deleteLayerUrl = new URL(restURL + "/rest/layers/" + fqLayerName);
-      boolean layerDeleted = HTTPUtils.delete(deleteLayerUrl.toExternalForm(), gsuser, gspass);
+      boolean layerDeleted = http.delete(deleteLayerUrl.toExternalForm(), gsuser, gspass);
       if (!layerDeleted) {
         LOGGER.warn("Could not delete layer '" + fqLayerName + "'");
         return false;
       }
       // delete the coverage
       URL deleteFtUrl = new URL(restURL + "/rest/workspaces/" + workspace + "/datastores/" + storename + "/featuretypes/" + layerName);
-      boolean ftDeleted = HTTPUtils.delete(deleteFtUrl.toExternalForm(), gsuser, gspass);
+      boolean ftDeleted = http.delete(deleteFtUrl.toExternalForm(), gsuser, gspass);
       if (!ftDeleted) {
         LOGGER.warn("Could not delete featuretype " + workspace + ":" + storename + "/" + layerName + ", but layer was deleted.");
       } else {
@@ -2427,7 +2483,7 @@ public class GeoServerRESTPublisher {
       
       final URL deleteStore = new URL(url.toString());
       
-      boolean deleted = HTTPUtils.delete(deleteStore.toExternalForm(), gsuser, gspass);
+      boolean deleted = http.delete(deleteStore.toExternalForm(), gsuser, gspass);
       if (!deleted) {
         LOGGER.warn("Could not delete store " + workspace + ":" + storename);
       } else {
@@ -2475,7 +2531,7 @@ public class GeoServerRESTPublisher {
       deleteStylesForWorkspace(workspace); // !!! workaround
       
       final URL deleteUrl = new URL(url.toString());
-      boolean deleted = HTTPUtils.delete(deleteUrl.toExternalForm(), gsuser, gspass);
+      boolean deleted = http.delete(deleteUrl.toExternalForm(), gsuser, gspass);
       if (!deleted) {
         LOGGER.warn("Could not delete Workspace " + workspace);
       } else {
@@ -2519,7 +2575,7 @@ public class GeoServerRESTPublisher {
     
     try {
       URL deleteUrl = new URL(url);
-      boolean deleted = HTTPUtils.delete(deleteUrl.toExternalForm(), gsuser, gspass);
+      boolean deleted = http.delete(deleteUrl.toExternalForm(), gsuser, gspass);
       if (!deleted) {
         if (LOGGER.isWarnEnabled()) LOGGER.warn("Could not delete layergroup " + name);
       } else {
@@ -2576,7 +2632,7 @@ public class GeoServerRESTPublisher {
     
     final String url = restURL + "/rest/layers/" + fqLayerName;
     
-    boolean result = HTTPUtils.delete(url, gsuser, gspass);
+    boolean result = http.delete(url, gsuser, gspass);
     if (result) {
       if (LOGGER.isInfoEnabled()) {
         LOGGER.info("Layer successfully removed: " + fqLayerName);
@@ -2606,7 +2662,7 @@ public class GeoServerRESTPublisher {
    */
   public boolean reloadStore(String workspace, final String storeName, StoreType storeType) throws IllegalArgumentException, MalformedURLException {
     final String url = HTTPUtils.append(this.restURL, "/rest/workspaces/", workspace, "/", storeType.toString(), "/", storeName, ".xml").toString();
-    final String store = HTTPUtils.get(url, this.gsuser, this.gspass);
+    final String store = http.get(url, this.gsuser, this.gspass);
     
     if (store != null) {
       String storeTag = storeType.getTypeName();
@@ -2625,7 +2681,7 @@ public class GeoServerRESTPublisher {
       int start = store.indexOf(startTag);
       String endTag = "</" + storeTag + ">";
       int stop = store.indexOf(endTag) + endTag.length();
-      return HTTPUtils.putXml(url, store.subSequence(0, start) + store.substring(stop), this.gsuser, this.gspass) != null ? true : false;
+      return http.putXml(url, store.subSequence(0, start) + store.substring(stop), this.gsuser, this.gspass) != null ? true : false;
     } else return false;
   }
   
@@ -2638,7 +2694,7 @@ public class GeoServerRESTPublisher {
    */
   public boolean reload() {
     String sUrl = restURL + "/rest/reload";
-    String result = HTTPUtils.post(sUrl, "", "text/plain", gsuser, gspass);
+    String result = http.post(sUrl, "", "text/plain", gsuser, gspass);
     return result != null;
   }
   
@@ -2651,7 +2707,7 @@ public class GeoServerRESTPublisher {
    */
   public boolean reset() {
     String sUrl = restURL + "/rest/reset";
-    String result = HTTPUtils.post(sUrl, "", "text/plain", gsuser, gspass);
+    String result = http.post(sUrl, "", "text/plain", gsuser, gspass);
     return result != null;
   }
   
@@ -2688,7 +2744,7 @@ public class GeoServerRESTPublisher {
     final String url = restURL + "/rest/layers/" + fqLayerName;
     
     String layerXml = layer.toString();
-    String sendResult = HTTPUtils.putXml(url, layerXml, gsuser, gspass);
+    String sendResult = http.putXml(url, layerXml, gsuser, gspass);
     if (sendResult != null) {
       if (LOGGER.isInfoEnabled()) {
         LOGGER.info("Layer successfully configured: " + fqLayerName);
@@ -2735,7 +2791,7 @@ public class GeoServerRESTPublisher {
     
     group.setName(name);
     
-    String sendResult = HTTPUtils.postXml(url, group.toString(), gsuser, gspass);
+    String sendResult = http.postXml(url, group.toString(), gsuser, gspass);
     if (sendResult != null) {
       if (LOGGER.isInfoEnabled()) {
         LOGGER.info("LayerGroup successfully configured: " + name);
@@ -2779,7 +2835,7 @@ public class GeoServerRESTPublisher {
       url += "/workspaces/" + workspace + "/layergroups/" + name;
     }
     
-    String sendResult = HTTPUtils.putXml(url, group.toString(), gsuser, gspass);
+    String sendResult = http.putXml(url, group.toString(), gsuser, gspass);
     if (sendResult != null) {
       if (LOGGER.isInfoEnabled()) {
         LOGGER.info("LayerGroup successfully configured: " + name);
@@ -2827,7 +2883,7 @@ public class GeoServerRESTPublisher {
     // retrieve coverage name
     GeoServerRESTReader reader;
     try {
-      reader = new GeoServerRESTReader(restURL, gsuser, gspass);
+      reader = new GeoServerRESTReader(new URL(restURL), gsuser, gspass, http);
     } catch (MalformedURLException e) {
       if (LOGGER.isErrorEnabled()) LOGGER.error(e.getLocalizedMessage(), e);
       return false;
@@ -2859,7 +2915,7 @@ public class GeoServerRESTPublisher {
     final String url = restURL + "/rest/workspaces/" + wsname + "/coveragestores/" + csname + "/coverages/" + coverageName + ".xml";
     
     final String xmlBody = ce.toString();
-    final String sendResult = HTTPUtils.putXml(url, xmlBody, gsuser, gspass);
+    final String sendResult = http.putXml(url, xmlBody, gsuser, gspass);
     if (sendResult != null) {
       if (LOGGER.isDebugEnabled()) {
         LOGGER.debug("Coverage successfully configured " + wsname + ":" + csname + ":" + coverageName);
@@ -2926,7 +2982,7 @@ public class GeoServerRESTPublisher {
     }
     
     final String xmlBody = re.toString();
-    final String sendResult = HTTPUtils.postXml(sbUrl.toString(), xmlBody, gsuser, gspass);
+    final String sendResult = http.postXml(sbUrl.toString(), xmlBody, gsuser, gspass);
     if (sendResult != null) {
       if (LOGGER.isDebugEnabled()) {
         LOGGER.debug(dsType + " successfully created " + workspace + ":" + storeName + ":" + resourceName);
@@ -3033,7 +3089,7 @@ public class GeoServerRESTPublisher {
    */
   public boolean harvestExternal(String workspace, String coverageStore, String format, String path) {
     try {
-      GeoServerRESTStructuredGridCoverageReaderManager manager = new GeoServerRESTStructuredGridCoverageReaderManager(new URL(restURL), gsuser, gspass);
+      GeoServerRESTStructuredGridCoverageReaderManager manager = new GeoServerRESTStructuredGridCoverageReaderManager(new URL(restURL), gsuser, gspass, http);
       return manager.harvestExternal(workspace, coverageStore, format, path);
     } catch (IllegalArgumentException e) {
       if (LOGGER.isInfoEnabled()) {
@@ -3127,7 +3183,7 @@ public class GeoServerRESTPublisher {
     String sUrl = ss.toString();
     
     // POST request
-    String result = HTTPUtils.put(sUrl, zipFile, "application/zip", gsuser, gspass);
+    String result = http.put(sUrl, zipFile, "application/zip", gsuser, gspass);
     return result != null;
   }
   
@@ -3150,7 +3206,7 @@ public class GeoServerRESTPublisher {
    */
   public boolean removeGranuleById(final String workspace, String coverageStore, String coverage, String granuleId) {
     try {
-      GeoServerRESTStructuredGridCoverageReaderManager manager = new GeoServerRESTStructuredGridCoverageReaderManager(new URL(restURL), gsuser, gspass);
+      GeoServerRESTStructuredGridCoverageReaderManager manager = new GeoServerRESTStructuredGridCoverageReaderManager(new URL(restURL), gsuser, gspass, http);
       return manager.removeGranuleById(workspace, coverageStore, coverage, granuleId);
     } catch (IllegalArgumentException e) {
       if (LOGGER.isInfoEnabled()) {
@@ -3183,7 +3239,7 @@ public class GeoServerRESTPublisher {
    */
   public boolean removeGranulesByCQL(final String workspace, String coverageStore, String coverage, String filter) throws UnsupportedEncodingException {
     try {
-      GeoServerRESTStructuredGridCoverageReaderManager manager = new GeoServerRESTStructuredGridCoverageReaderManager(new URL(restURL), gsuser, gspass);
+      GeoServerRESTStructuredGridCoverageReaderManager manager = new GeoServerRESTStructuredGridCoverageReaderManager(new URL(restURL), gsuser, gspass, http);
       return manager.removeGranulesByCQL(workspace, coverageStore, coverage, filter);
     } catch (IllegalArgumentException e) {
       if (LOGGER.isInfoEnabled()) {
@@ -25,6 +25,8 @@
 
 package it.geosolutions.geoserver.rest;
 
+import it.geosolutions.geoserver.rest.decoder.RESTAbstractList;
+import it.geosolutions.geoserver.rest.decoder.RESTCompactList;
 import it.geosolutions.geoserver.rest.decoder.RESTCoverage;
 import it.geosolutions.geoserver.rest.decoder.RESTCoverageList;
 import it.geosolutions.geoserver.rest.decoder.RESTCoverageStore;
@@ -51,6 +53,11 @@ import it.geosolutions.geoserver.rest.decoder.RESTWmsStore;
 import it.geosolutions.geoserver.rest.decoder.RESTWmsStoreList;
 import it.geosolutions.geoserver.rest.decoder.RESTWorkspaceList;
 import it.geosolutions.geoserver.rest.decoder.about.GSVersionDecoder;
+import it.geosolutions.geoserver.rest.decoder.utils.CompactListResponseHandler;
+import it.geosolutions.geoserver.rest.decoder.utils.JDOMResponseHandler;
+import it.geosolutions.geoserver.rest.http.HTTPEngine;
+import it.geosolutions.geoserver.rest.http.HTTPNotFoundCache;
+import it.geosolutions.geoserver.rest.http.HTTPResponseCache;
 import it.geosolutions.geoserver.rest.manager.GeoServerRESTStructuredGridCoverageReaderManager;
 import it.geosolutions.geoserver.rest.manager.GeoServerRESTStyleManager;
 
@@ -58,9 +65,16 @@ import java.io.UnsupportedEncodingException;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
+import org.jdom.Element;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -74,12 +88,50 @@ public class GeoServerRESTReader {
   
   private final static Logger LOGGER = LoggerFactory.getLogger(GeoServerRESTReader.class);
   
+  /**
+   * The number of candidate names from which the bulk existence checks load a listing of unknown size rather than checking each name.
+   */
+  public static final int DEFAULT_BULK_EXISTS_THRESHOLD = 8;
+  
+  /**
+   * The number of listing entries costing about as much as checking a single name: a HEAD request is a round trip with no body, while a
+   * listing entry is a few hundred bytes to transfer and parse.
+   */
+  static final int LISTING_ENTRIES_PER_CHECK = 32;
+  
+  /** The number of listings whose size is remembered */
+  private static final int MAX_LISTING_SIZES = 256;
+  
   private final String baseurl;
   private String username;
   private String password;
   
+  private HTTPEngine http;
+  
   private GeoServerRESTStyleManager styleManager;
   
+  private volatile HTTPResponseCache responseCache;
+  
+  private volatile GeoServerRESTCatalogCache catalogCache;
+  
+  private volatile HTTPNotFoundCache notFoundCache;
+  
+  private volatile int bulkExistsThreshold = DEFAULT_BULK_EXISTS_THRESHOLD;
+  
+  /** The number of entries of the listings last loaded by the bulk existence checks, by REST path */
+  private final Map<String, Integer> listingSizes = Collections.synchronizedMap(new LinkedHashMap<String, Integer>(16, 0.75f, true) {
+    private static final long serialVersionUID = 1L;
+    
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<String, Integer> eldest) {
+      return size() > MAX_LISTING_SIZES;
+    }
+  });
+  
+  private volatile GSVersionDecoder version;
+  
+  private final Object versionLock = new Object();
+  
   /**
    * Creates a <TT>GeoServerRESTReader</TT> for a given GeoServer instance and no auth credentials.
    * <P>
@@ -89,7 +141,7 @@ public class GeoServerRESTReader {
    *          the base GeoServer URL(e.g.: <TT>http://localhost:8080/geoserver</TT>)
    */
   public GeoServerRESTReader(URL gsUrl) {
-    baseurl = init(gsUrl, null, null);
+    baseurl = init(gsUrl, null, null, new HTTPEngine());
   }
   
   /**
@@ -129,60 +181,264 @@ public class GeoServerRESTReader {
    *          password auth credential
    */
   public GeoServerRESTReader(URL gsUrl, String username, String password) {
-    baseurl = init(gsUrl, username, password);
+    baseurl = init(gsUrl, username, password, new HTTPEngine());
+  }
+  
+  /**
+   * Creates a <TT>GeoServerRESTReader</TT> for a given GeoServer instance with the given auth credentials, performing its calls through the given
+   * HTTP engine.
+   *
+   * @param gsUrl
+   *          the base GeoServer URL (e.g.: <TT>http://localhost:8080/geoserver</TT>)
+   * @param username
+   *          username auth credential
+   * @param password
+   *          password auth credential
+   * @param engine
+   *          the HTTP engine used for all the calls
+   */
+  public GeoServerRESTReader(URL gsUrl, String username, String password, HTTPEngine engine) {
+    if (engine == null) throw new IllegalArgumentException("The HTTP engine may not be null");
+    baseurl = init(gsUrl, username, password, engine);
   }
   
   private String init(String gsUrl, String username, String password) throws MalformedURLException {
-    return init(new URL(gsUrl), username, password);
+    return init(new URL(gsUrl), username, password, new HTTPEngine());
   }
   
-  private String init(URL gsUrl, String username, String password) {
+  private String init(URL gsUrl, String username, String password, HTTPEngine engine) {
     String restUrl = gsUrl.toExternalForm();
     String cleanUrl = restUrl.endsWith("/") ? restUrl.substring(0, restUrl.length() - 1) : restUrl;
     this.username = username;
     this.password = password;
+    this.http = engine;
     
-    styleManager = new GeoServerRESTStyleManager(gsUrl, username, password);
+    styleManager = new GeoServerRESTStyleManager(gsUrl, username, password, engine);
     
     return cleanUrl;
   }
   
-  private String load(String url) {
+  private Element load(String url) {
     LOGGER.info("Loading from REST path " + url);
-    String response = HTTPUtils.get(baseurl + url, username, password);
-    return response;
+    return http.get(baseurl + url, username, password, JDOMResponseHandler.INSTANCE, responseCache);
   }
   
-  private String loadFullURL(String url) {
+  private Element loadFullURL(String url) {
     LOGGER.info("Loading from REST path " + url);
-    String response = HTTPUtils.get(url, username, password);
-    return response;
+    return http.get(url, username, password, JDOMResponseHandler.INSTANCE, responseCache);
+  }
+  
+  /**
+   * @return the cache revalidating the documents read by this reader, or <TT>null</TT> if caching is disabled
+   */
+  public HTTPResponseCache getResponseCache() {
+    return responseCache;
+  }
+  
+  /**
+   * Enables the revalidation cache: documents returned with an <TT>ETag</TT> or <TT>Last-Modified</TT> header are kept, already parsed, and
+   * requested again with a conditional GET, so that repeated calls such as {@link #getLayers()} or {@link #getStyles()} only parse the document
+   * again when it changed on the server.
+   * 
+   * @param cache
+   *          the cache, possibly shared with other readers, or <TT>null</TT> to disable caching
+   */
+  public void setResponseCache(HTTPResponseCache cache) {
+    this.responseCache = cache;
+  }
+  
+  /**
+   * @return the cache of the catalog objects read by this reader, or <TT>null</TT> if catalog caching is disabled
+   */
+  public GeoServerRESTCatalogCache getCatalogCache() {
+    return catalogCache;
+  }
+  
+  /**
+   * Enables the catalog cache: the workspaces, stores, resources, layers, layer groups and styles read are kept, decoded, until they expire or a
+   * write through a publisher or manager the cache is registered on invalidates them.
+   * <P>
+   * Unlike the {@link #setResponseCache(HTTPResponseCache) revalidation cache}, cached objects are returned without calling GeoServer at all.
+   * 
+   * @param cache
+   *          the cache, or <TT>null</TT> to disable catalog caching
+   * @see GeoServerRESTManager#setCatalogCache(GeoServerRESTCatalogCache)
+   */
+  public void setCatalogCache(GeoServerRESTCatalogCache cache) {
+    styleManager.setCatalogCache(cache);
+    this.catalogCache = cache;
+  }
+  
+  /**
+   * @return the cache of the objects found missing by the <TT>exists</TT> methods, or <TT>null</TT> if disabled
+   */
+  public HTTPNotFoundCache getNotFoundCache() {
+    return notFoundCache;
+  }
+  
+  /**
+   * Enables the caching of the objects found missing by the <TT>exists</TT> methods (workspaces, stores, resources, layers, styles...): asking
+   * again for a missing object returns <TT>false</TT> without calling GeoServer until the entry expires.
+   * <P>
+   * The cache is registered on the HTTP engine of this reader, so that objects created through the engine (e.g. by the publisher of the same
+   * {@link GeoServerRESTManager}) are no longer reported missing. Hit ratios are reported by {@link HTTPEngine#getMetrics()}.
+   * 
+   * @param cache
+   *          the cache, possibly shared with other readers, or <TT>null</TT> to always ask GeoServer
+   */
+  public void setNotFoundCache(HTTPNotFoundCache cache) {
+    styleManager.setNotFoundCache(cache);
+    this.notFoundCache = cache;
+  }
+  
+  /**
+   * @return the number of candidate names from which the bulk existence checks load a listing of unknown size
+   */
+  public int getBulkExistsThreshold() {
+    return bulkExistsThreshold;
+  }
+  
+  /**
+   * Sets the number of candidate names from which the bulk existence checks (e.g. {@link #existingFeatureTypes(String, String, Collection)})
+   * load the whole listing once instead of checking each name with a HEAD request. The threshold only applies to the listings whose size is
+   * not known yet: a listing held by the catalog cache is always used, and a listing loaded before is used again if checking the names would
+   * cost more than transferring its entries (see {@link #LISTING_ENTRIES_PER_CHECK}).
+   * 
+   * @param threshold
+   *          the number of names; 0 always loads the listing, {@link Integer#MAX_VALUE} never does.
+   */
+  public void setBulkExistsThreshold(int threshold) {
+    if (threshold < 0) throw new IllegalArgumentException("The threshold may not be negative");
+    this.bulkExistsThreshold = threshold;
+  }
+  
+  /**
+   * @return the candidates in <TT>listed</TT>, in the order of the candidates
+   */
+  private static Set<String> retain(Collection<String> candidates, Collection<String> listed) {
+    Set<String> index = new HashSet<String>(listed);
+    Set<String> existing = new LinkedHashSet<String>();
+    for (String name : candidates) {
+      if (index.contains(name)) existing.add(name);
+    }
+    return existing;
+  }
+  
+  /**
+   * Decides whether a bulk existence check loads the listing at <TT>url</TT> or checks each of the candidates.
+   * 
+   * @param threshold
+   *          the number of candidates from which a listing is loaded, or a negative value to compare the candidates with the size of the
+   *          listing when known
+   */
+  private boolean useListing(String url, Class<?> type, int candidates, int threshold) {
+    if (threshold >= 0) return candidates >= threshold;
+    if (cached(url, type) != null) return true;
+    Integer size = listingSizes.get(url);
+    if (size != null) return (long) candidates * LISTING_ENTRIES_PER_CHECK >= size;
+    return candidates >= bulkExistsThreshold;
+  }
+  
+  /**
+   * @return the names of the listing, after remembering its size
+   */
+  private List<String> listed(String url, RESTAbstractList<?> list) {
+    listingSizes.put(url, list.size());
+    return list.getNames();
+  }
+  
+  private <T> T cached(String url, Class<T> type) {
+    GeoServerRESTCatalogCache cache = catalogCache;
+    return cache != null ? cache.get(url, type) : null;
+  }
+  
+  private <T> T cache(String url, Element xml, T value) {
+    GeoServerRESTCatalogCache cache = catalogCache;
+    if (cache != null) cache.put(url, xml, value);
+    return value;
+  }
+  
+  /**
+   * Loads the catalog document at the given REST path, bypassing the catalog cache.
+   */
+  Element loadCatalog(String path) {
+    return load(path);
+  }
+  
+  /**
+   * Reads a listing of summary data, such as <TT>/rest/layers.xml</TT> or <TT>/rest/workspaces/{ws}/styles.xml</TT>, into a
+   * {@link RESTCompactList}: the response is decoded as it is read and only the names and links of the items are kept. This is meant for large
+   * listings; the lists are not kept by the catalog cache.
+   * 
+   * @param path
+   *          the REST path of the listing, starting with <TT>/rest/</TT>
+   * @return the compact list, or <TT>null</TT> if the listing could not be read
+   */
+  public RESTCompactList getCompactList(String path) {
+    if (path == null || !path.startsWith("/rest/")) {
+      throw new IllegalArgumentException("The path must start with /rest/");
+    }
+    LOGGER.info("Loading from REST path " + path);
+    return http.get(baseurl + path, username, password, CompactListResponseHandler.INSTANCE, responseCache);
+  }
+  
+  /**
+   * @return the HTTP engine used by this reader
+   */
+  public HTTPEngine getHTTPEngine() {
+    return http;
   }
   
   /**
    * Check if a GeoServer instance is running at the given URL. <BR>
    * Return <TT>true</TT> if the configured GeoServer is up and replies to REST requests. <BR>
-   * Send a HTTP GET request to the configured URL.<BR>
+   * Send a HTTP HEAD request (or GET, if HEAD is not supported) to the configured URL.<BR>
    * Return <TT>true</TT> if a HTTP 200 code (OK) is read from the HTTP response; any other response code, or connection error, will return a <TT>false</TT> boolean.
    *
    * @return true if a GeoServer instance was found at the configured URL.
    */
   public boolean existGeoserver() {
-    return HTTPUtils.httpPing(baseurl + "/rest/", username, password);
+    return http.httpPing(baseurl + "/rest/", username, password);
   }
   
   /**
-   * Return the version of the target GeoServer
+   * Return the version of the target GeoServer.
+   * <P>
+   * The version is probed once per reader and then returned from memory; use {@link #refreshGeoserverVersion()} after an upgrade of the
+   * server. The returned decoder is shared and must not be modified.
    */
   public GSVersionDecoder getGeoserverVersion() {
-    final String url = "/rest/about/version.xml";
-    String xml = load(url);
-    if (xml == null) {
-      GSVersionDecoder v = new GSVersionDecoder();
-      v.getGeoServer().setVersion(GSVersionDecoder.VERSION.UNRECOGNIZED.toString());
+    GSVersionDecoder v = version;
+    if (v == null) {
+      synchronized (versionLock) {
+        v = version;
+        if (v == null) v = refreshGeoserverVersion();
+      }
+    }
+    return v;
+  }
+  
+  /**
+   * Probes again the version of the target GeoServer, replacing the one returned by {@link #getGeoserverVersion()}.
+   * <P>
+   * A missing version document is remembered as {@link GSVersionDecoder.VERSION#UNRECOGNIZED} only if GeoServer itself answers, so that a
+   * temporary failure does not pin the reader to the older formats.
+   * 
+   * @return the version of the target GeoServer
+   */
+  public GSVersionDecoder refreshGeoserverVersion() {
+    synchronized (versionLock) {
+      Element xml = load("/rest/about/version.xml");
+      GSVersionDecoder v;
+      if (xml == null) {
+        v = new GSVersionDecoder();
+        v.getGeoServer().setVersion(GSVersionDecoder.VERSION.UNRECOGNIZED.toString());
+        version = existGeoserver() ? v : null;
+      } else {
+        v = GSVersionDecoder.build(xml);
+        version = v;
+      }
       return v;
-    } else {
-      return GSVersionDecoder.build(load(url));
     }
   }
   
@@ -242,6 +498,20 @@ public class GeoServerRESTReader {
     return styleManager.getStyle(workspace, name);
   }
   
+  /**
+   * Get detailed info about the default Style of a Layer, following the link of the layer.
+   *
+   * @return the default style, or <TT>null</TT> if the layer has none or it could not be loaded
+   */
+  public RESTStyle getDefaultStyle(RESTLayer layer) {
+    String url = layer.getDefaultStyleUrl();
+    if (url == null) return null;
+    RESTStyle hit = cached(url, RESTStyle.class);
+    if (hit != null) return hit;
+    Element xml = loadFullURL(url);
+    return cache(url, xml, RESTStyle.build(xml));
+  }
+  
   /**
    * Get summary info about all Styles.
    *
@@ -291,7 +561,10 @@ public class GeoServerRESTReader {
     if (LOGGER.isDebugEnabled()) {
       LOGGER.debug("### Retrieving DS list from " + url);
     }
-    return RESTDataStoreList.build(load(url));
+    RESTDataStoreList hit = cached(url, RESTDataStoreList.class);
+    if (hit != null) return hit;
+    Element xml = load(url);
+    return cache(url, xml, RESTDataStoreList.build(xml));
   }
   
   /**
@@ -308,9 +581,10 @@ public class GeoServerRESTReader {
     if (LOGGER.isDebugEnabled()) {
       LOGGER.debug("### Retrieving DS from " + url);
     }
-    String response = load(url);
-    // System.out.println("DATASTORE " + workspace+":"+dsName+"\n"+response);
-    return RESTDataStore.build(response);
+    RESTDataStore hit = cached(url, RESTDataStore.class);
+    if (hit != null) return hit;
+    Element xml = load(url);
+    return cache(url, xml, RESTDataStore.build(xml));
   }
   
   /**
@@ -326,8 +600,10 @@ public class GeoServerRESTReader {
     if (LOGGER.isDebugEnabled()) {
       LOGGER.debug("### Retrieving DS from fullurl " + url);
     }
-    String response = loadFullURL(url);
-    return RESTDataStore.build(response);
+    RESTDataStore hit = cached(url, RESTDataStore.class);
+    if (hit != null) return hit;
+    Element xml = loadFullURL(url);
+    return cache(url, xml, RESTDataStore.build(xml));
   }
   
   /**
@@ -357,7 +633,7 @@ public class GeoServerRESTReader {
   public boolean existsDatastore(String workspace, String dsName, boolean quietOnNotFound) {
     String url = baseurl + "/rest/workspaces/" + workspace + "/datastores/" + dsName + ".xml";
     String composed = Util.appendQuietOnNotFound(quietOnNotFound, url);
-    return HTTPUtils.exists(composed, username, password);
+    return http.exists(composed, username, password, notFoundCache);
   }
   
   // ==========================================================================
@@ -375,8 +651,11 @@ public class GeoServerRESTReader {
   public RESTFeatureType getFeatureType(RESTLayer layer) {
     if (layer.getType() != RESTLayer.Type.VECTOR) throw new RuntimeException("Bad layer type for layer " + layer.getName());
     
-    String response = loadFullURL(layer.getResourceUrl());
-    return RESTFeatureType.build(response);
+    String url = layer.getResourceUrl();
+    RESTFeatureType hit = cached(url, RESTFeatureType.class);
+    if (hit != null) return hit;
+    Element xml = loadFullURL(url);
+    return cache(url, xml, RESTFeatureType.build(xml));
   }
   
   /**
@@ -410,7 +689,76 @@ public class GeoServerRESTReader {
   public boolean existsFeatureType(String workspace, String dsName, String ftName, boolean quietOnNotFound) {
     String url = baseurl + "/rest/workspaces/" + workspace + "/datastores/" + dsName + "/featuretypes/" + ftName + ".xml";
     String composed = Util.appendQuietOnNotFound(quietOnNotFound, url);
-    return HTTPUtils.exists(composed, username, password);
+    return http.exists(composed, username, password, notFoundCache);
+  }
+  
+  /**
+   * Get summary info about the FeatureTypes of a datastore.
+   *
+   * @param workspace
+   *          The name of the workspace
+   * @param dsName
+   *          The name of the datastore
+   * @return summary info about the FeatureTypes as a {@link RESTFeatureTypeList}
+   */
+  public RESTFeatureTypeList getFeatureTypes(String workspace, String dsName) {
+    String url = "/rest/workspaces/" + workspace + "/datastores/" + dsName + "/featuretypes.xml";
+    if (LOGGER.isDebugEnabled()) {
+      LOGGER.debug("### Retrieving featuretypes from " + url);
+    }
+    RESTFeatureTypeList hit = cached(url, RESTFeatureTypeList.class);
+    if (hit != null) return hit;
+    Element xml = load(url);
+    return cache(url, xml, RESTFeatureTypeList.build(xml));
+  }
+  
+  /**
+   * Checks which of the given FeatureTypes are present in a datastore. <BR>
+   * The featuretypes of the datastore are listed once when the listing is cached, when it is known to be cheaper than checking the names one by
+   * one, or from {@link #getBulkExistsThreshold()} names on when its size is unknown; otherwise each name is checked.
+   *
+   * @param workspace
+   *          workspace of the datastore
+   * @param dsName
+   *          name of the datastore
+   * @param ftNames
+   *          names of the featuretypes
+   * @return the names of the featuretypes which exist, in the order given; empty if the datastore does not exist
+   */
+  public Set<String> existingFeatureTypes(String workspace, String dsName, Collection<String> ftNames) {
+    return existingFeatureTypes(workspace, dsName, ftNames, -1);
+  }
+  
+  /**
+   * Checks which of the given FeatureTypes are present in a datastore, listing the featuretypes from the given number of names on.
+   *
+   * @param workspace
+   *          workspace of the datastore
+   * @param dsName
+   *          name of the datastore
+   * @param ftNames
+   *          names of the featuretypes
+   * @param threshold
+   *          the number of names from which the featuretypes are listed: 0 always lists them, {@link Integer#MAX_VALUE} never does, a negative value decides
+   *          as the bulk check without a threshold
+   * @return the names of the featuretypes which exist, in the order given; empty if the datastore does not exist
+   */
+  public Set<String> existingFeatureTypes(String workspace, String dsName, Collection<String> ftNames, int threshold) {
+    String url = "/rest/workspaces/" + workspace + "/datastores/" + dsName + "/featuretypes.xml";
+    if (useListing(url, RESTFeatureTypeList.class, ftNames.size(), threshold)) {
+      RESTFeatureTypeList list = getFeatureTypes(workspace, dsName);
+      if (list != null) {
+        return retain(ftNames, listed(url, list));
+      }
+      if (!existsDatastore(workspace, dsName, true)) {
+        return Collections.emptySet();
+      }
+    }
+    Set<String> existing = new LinkedHashSet<String>();
+    for (String ftName : ftNames) {
+      if (existsFeatureType(workspace, dsName, ftName, true)) existing.add(ftName);
+    }
+    return existing;
   }
   
   // ==========================================================================
@@ -430,7 +778,10 @@ public class GeoServerRESTReader {
     if (LOGGER.isDebugEnabled()) {
       LOGGER.debug("### Retrieving CS list from " + url);
     }
-    return RESTCoverageStoreList.build(load(url));
+    RESTCoverageStoreList hit = cached(url, RESTCoverageStoreList.class);
+    if (hit != null) return hit;
+    Element xml = load(url);
+    return cache(url, xml, RESTCoverageStoreList.build(xml));
   }
   
   /**
@@ -447,7 +798,10 @@ public class GeoServerRESTReader {
     if (LOGGER.isDebugEnabled()) {
       LOGGER.debug("### Retrieving CS from " + url);
     }
-    return RESTCoverageStore.build(load(url));
+    RESTCoverageStore hit = cached(url, RESTCoverageStore.class);
+    if (hit != null) return hit;
+    Element xml = load(url);
+    return cache(url, xml, RESTCoverageStore.build(xml));
   }
   
   /**
@@ -463,8 +817,10 @@ public class GeoServerRESTReader {
     if (LOGGER.isDebugEnabled()) {
       LOGGER.debug("### Retrieving CS from fullurl " + url);
     }
-    String response = loadFullURL(url);
-    return RESTCoverageStore.build(response);
+    RESTCoverageStore hit = cached(url, RESTCoverageStore.class);
+    if (hit != null) return hit;
+    Element xml = loadFullURL(url);
+    return cache(url, xml, RESTCoverageStore.build(xml));
   }
   
   /**
@@ -481,7 +837,7 @@ public class GeoServerRESTReader {
   public boolean existsCoveragestore(String workspace, String csName, boolean quietOnNotFound) {
     String url = baseurl + "/rest/workspaces/" + workspace + "/coveragestores/" + csName + ".xml";
     String composed = Util.appendQuietOnNotFound(quietOnNotFound, url);
-    return HTTPUtils.exists(composed, username, password);
+    return http.exists(composed, username, password, notFoundCache);
   }
   
   /**
@@ -516,7 +872,10 @@ public class GeoServerRESTReader {
     if (LOGGER.isDebugEnabled()) {
       LOGGER.debug("### Retrieving Covs from " + url);
     }
-    return RESTCoverageList.build(load(url));
+    RESTCoverageList hit = cached(url, RESTCoverageList.class);
+    if (hit != null) return hit;
+    Element xml = load(url);
+    return cache(url, xml, RESTCoverageList.build(xml));
   }
   
   /**
@@ -535,7 +894,10 @@ public class GeoServerRESTReader {
     if (LOGGER.isDebugEnabled()) {
       LOGGER.debug("### Retrieving Coverage from " + url);
     }
-    return RESTCoverage.build(load(url));
+    RESTCoverage hit = cached(url, RESTCoverage.class);
+    if (hit != null) return hit;
+    Element xml = load(url);
+    return cache(url, xml, RESTCoverage.build(xml));
   }
   
   /**
@@ -554,7 +916,7 @@ public class GeoServerRESTReader {
   public boolean existsCoverage(String workspace, String store, String name, boolean quietOnNotFound) {
     String url = baseurl + "/rest/workspaces/" + workspace + "/coveragestores/" + store + "/coverages/" + name + ".xml";
     String composed = Util.appendQuietOnNotFound(quietOnNotFound, url);
-    return HTTPUtils.exists(composed, username, password);
+    return http.exists(composed, username, password, notFoundCache);
   }
   
   /**
@@ -572,6 +934,55 @@ public class GeoServerRESTReader {
     return existsCoverage(workspace, store, name, Util.DEFAULT_QUIET_ON_NOT_FOUND);
   }
   
+  /**
+   * Checks which of the given Coverages are present in a coveragestore. <BR>
+   * The coverages of the coveragestore are listed once when the listing is cached, when it is known to be cheaper than checking the names one
+   * by one, or from {@link #getBulkExistsThreshold()} names on when its size is unknown; otherwise each name is checked.
+   *
+   * @param workspace
+   *          workspace of the coveragestore
+   * @param store
+   *          name of the coveragestore
+   * @param names
+   *          names of the coverages
+   * @return the names of the coverages which exist, in the order given; empty if the coveragestore does not exist
+   */
+  public Set<String> existingCoverages(String workspace, String store, Collection<String> names) {
+    return existingCoverages(workspace, store, names, -1);
+  }
+  
+  /**
+   * Checks which of the given Coverages are present in a coveragestore, listing the coverages from the given number of names on.
+   *
+   * @param workspace
+   *          workspace of the coveragestore
+   * @param store
+   *          name of the coveragestore
+   * @param names
+   *          names of the coverages
+   * @param threshold
+   *          the number of names from which the coverages are listed: 0 always lists them, {@link Integer#MAX_VALUE} never does, a negative value decides
+   *          as the bulk check without a threshold
+   * @return the names of the coverages which exist, in the order given; empty if the coveragestore does not exist
+   */
+  public Set<String> existingCoverages(String workspace, String store, Collection<String> names, int threshold) {
+    String url = "/rest/workspaces/" + workspace + "/coveragestores/" + store + "/coverages.xml";
+    if (useListing(url, RESTCoverageList.class, names.size(), threshold)) {
+      RESTCoverageList list = getCoverages(workspace, store);
+      if (list != null) {
+        return retain(names, listed(url, list));
+      }
+      if (!existsCoveragestore(workspace, store, true)) {
+        return Collections.emptySet();
+      }
+    }
+    Set<String> existing = new LinkedHashSet<String>();
+    for (String name : names) {
+      if (existsCoverage(workspace, store, name, true)) existing.add(name);
+    }
+    return existing;
+  }
+  
   /**
    * Get detailed info about a Coverage given the Layer where it's published with.
    *
@@ -582,8 +993,11 @@ public class GeoServerRESTReader {
   public RESTCoverage getCoverage(RESTLayer layer) {
     if (layer.getType() != RESTLayer.Type.RASTER) throw new RuntimeException("Bad layer type for layer " + layer.getName());
     
-    String response = loadFullURL(layer.getResourceUrl());
-    return RESTCoverage.build(response);
+    String url = layer.getResourceUrl();
+    RESTCoverage hit = cached(url, RESTCoverage.class);
+    if (hit != null) return hit;
+    Element xml = loadFullURL(url);
+    return cache(url, xml, RESTCoverage.build(xml));
   }
   
   // ==========================================================================
@@ -603,7 +1017,10 @@ public class GeoServerRESTReader {
     if (LOGGER.isDebugEnabled()) {
       LOGGER.debug("### Retrieving CS list from " + url);
     }
-    return RESTWmsStoreList.build(load(url));
+    RESTWmsStoreList hit = cached(url, RESTWmsStoreList.class);
+    if (hit != null) return hit;
+    Element xml = load(url);
+    return cache(url, xml, RESTWmsStoreList.build(xml));
   }
   
   /**
@@ -620,7 +1037,10 @@ public class GeoServerRESTReader {
     if (LOGGER.isDebugEnabled()) {
       LOGGER.debug("### Retrieving CS from " + url);
     }
-    return RESTWmsStore.build(load(url));
+    RESTWmsStore hit = cached(url, RESTWmsStore.class);
+    if (hit != null) return hit;
+    Element xml = load(url);
+    return cache(url, xml, RESTWmsStore.build(xml));
   }
   
   /**
@@ -635,8 +1055,10 @@ public class GeoServerRESTReader {
     if (LOGGER.isDebugEnabled()) {
       LOGGER.debug("### Retrieving CS from fullurl " + url);
     }
-    String response = loadFullURL(url);
-    return RESTWmsStore.build(response);
+    RESTWmsStore hit = cached(url, RESTWmsStore.class);
+    if (hit != null) return hit;
+    Element xml = loadFullURL(url);
+    return cache(url, xml, RESTWmsStore.build(xml));
   }
   
   /**
@@ -653,7 +1075,7 @@ public class GeoServerRESTReader {
   public boolean existsWmsstore(String workspace, String wsName, boolean quietOnNotFound) {
     String url = baseurl + "/rest/workspaces/" + workspace + "/wmsstores/" + wsName + ".xml";
     String composed = Util.appendQuietOnNotFound(quietOnNotFound, url);
-    return HTTPUtils.exists(composed, username, password);
+    return http.exists(composed, username, password, notFoundCache);
   }
   
   /**
@@ -687,7 +1109,10 @@ public class GeoServerRESTReader {
     if (LOGGER.isDebugEnabled()) {
       LOGGER.debug("### Retrieving Wmss from " + url);
     }
-    return RESTWmsList.build(load(url));
+    RESTWmsList hit = cached(url, RESTWmsList.class);
+    if (hit != null) return hit;
+    Element xml = load(url);
+    return cache(url, xml, RESTWmsList.build(xml));
   }
   
   /**
@@ -706,7 +1131,10 @@ public class GeoServerRESTReader {
     if (LOGGER.isDebugEnabled()) {
       LOGGER.debug("### Retrieving Wmss from " + url);
     }
-    return RESTWms.build(load(url));
+    RESTWms hit = cached(url, RESTWms.class);
+    if (hit != null) return hit;
+    Element xml = load(url);
+    return cache(url, xml, RESTWms.build(xml));
   }
   
   /**
@@ -725,7 +1153,7 @@ public class GeoServerRESTReader {
   public boolean existsWms(String workspace, String store, String name, boolean quietOnNotFound) {
     String url = baseurl + "/rest/workspaces/" + workspace + "/wmsstores/" + store + "/wmslayers/" + name + ".xml";
     String composed = Util.appendQuietOnNotFound(quietOnNotFound, url);
-    return HTTPUtils.exists(composed, username, password);
+    return http.exists(composed, username, password, notFoundCache);
   }
   
   /**
@@ -751,8 +1179,11 @@ public class GeoServerRESTReader {
    * @return Wms details as a {@link RESTWms}
    */
   public RESTWms getWms(RESTLayer layer) {
-    String response = loadFullURL(layer.getResourceUrl());
-    return RESTWms.build(response);
+    String url = layer.getResourceUrl();
+    RESTWms hit = cached(url, RESTWms.class);
+    if (hit != null) return hit;
+    Element xml = loadFullURL(url);
+    return cache(url, xml, RESTWms.build(xml));
   }
   
   // ==========================================================================
@@ -764,8 +1195,11 @@ public class GeoServerRESTReader {
    * @return Resource details as a {@link RESTResource}
    */
   public RESTResource getResource(RESTLayer layer) {
-    String response = loadFullURL(layer.getResourceUrl());
-    return RESTResource.build(response);
+    String url = layer.getResourceUrl();
+    RESTResource hit = cached(url, RESTResource.class);
+    if (hit != null) return hit;
+    Element xml = loadFullURL(url);
+    return cache(url, xml, RESTResource.build(xml));
   }
   
   // ==========================================================================
@@ -790,7 +1224,10 @@ public class GeoServerRESTReader {
     if (LOGGER.isDebugEnabled()) {
       LOGGER.debug("### Retrieving layergroups from " + url);
     }
-    return RESTLayerGroupList.build(load(url));
+    RESTLayerGroupList hit = cached(url, RESTLayerGroupList.class);
+    if (hit != null) return hit;
+    Element xml = load(url);
+    return cache(url, xml, RESTLayerGroupList.build(xml));
   }
   
   /**
@@ -813,7 +1250,10 @@ public class GeoServerRESTReader {
     if (LOGGER.isDebugEnabled()) {
       LOGGER.debug("### Retrieving layergroup from " + url);
     }
-    return RESTLayerGroup.build(load(url));
+    RESTLayerGroup hit = cached(url, RESTLayerGroup.class);
+    if (hit != null) return hit;
+    Element xml = load(url);
+    return cache(url, xml, RESTLayerGroup.build(xml));
   }
   
   /**
@@ -855,7 +1295,7 @@ public class GeoServerRESTReader {
       url = baseurl + "/rest/workspaces/" + workspace + "/layergroups/" + name + ".xml";
     }
     String composed = Util.appendQuietOnNotFound(quietOnNotFound, url);
-    return HTTPUtils.exists(composed, username, password);
+    return http.exists(composed, username, password, notFoundCache);
   }
   
   /**
@@ -885,7 +1325,10 @@ public class GeoServerRESTReader {
     if (LOGGER.isDebugEnabled()) {
       LOGGER.debug("### Retrieving layers from " + url);
     }
-    return RESTLayerList.build(load(url));
+    RESTLayerList hit = cached(url, RESTLayerList.class);
+    if (hit != null) return hit;
+    Element xml = load(url);
+    return cache(url, xml, RESTLayerList.build(xml));
   }
   
   /**
@@ -898,7 +1341,10 @@ public class GeoServerRESTReader {
     if (LOGGER.isDebugEnabled()) {
       LOGGER.debug("### Retrieving featuretypes from " + url);
     }
-    return RESTFeatureTypeList.build(load(url));
+    RESTFeatureTypeList hit = cached(url, RESTFeatureTypeList.class);
+    if (hit != null) return hit;
+    Element xml = load(url);
+    return cache(url, xml, RESTFeatureTypeList.build(xml));
   }
   
   /**
@@ -915,7 +1361,10 @@ public class GeoServerRESTReader {
     if (LOGGER.isDebugEnabled()) {
       LOGGER.debug("### Retrieving layer from " + url);
     }
-    return RESTLayer.build(load(url));
+    RESTLayer hit = cached(url, RESTLayer.class);
+    if (hit != null) return hit;
+    Element xml = load(url);
+    return cache(url, xml, RESTLayer.build(xml));
   }
   
   /**
@@ -935,13 +1384,17 @@ public class GeoServerRESTReader {
       LOGGER.debug("### Retrieving layer from " + url);
     }
     
-    RESTLayer layer = null;
+    RESTLayer layer = cached(url, RESTLayer.class);
+    if (layer != null) {
+      return layer;
+    }
+    Element xml = load(url);
     if (this.getGeoserverVersion().getVersion().equals(GSVersionDecoder.VERSION.UNRECOGNIZED)) {
-      layer = RESTLayer21.build(load(url));
+      layer = RESTLayer21.build(xml);
     } else {
-      layer = RESTLayer.build(load(url));
+      layer = RESTLayer.build(xml);
     }
-    return layer;
+    return cache(url, xml, layer);
   }
   
   /**
@@ -963,7 +1416,7 @@ public class GeoServerRESTReader {
       url = baseurl + "/rest/layers/" + workspace + ":" + name + ".xml";
     }
     String composed = Util.appendQuietOnNotFound(quietOnNotFound, url);
-    return HTTPUtils.exists(composed, username, password);
+    return http.exists(composed, username, password, notFoundCache);
   }
   
   /**
@@ -979,6 +1432,56 @@ public class GeoServerRESTReader {
     return existsLayer(workspace, name, Util.DEFAULT_QUIET_ON_NOT_FOUND);
   }
   
+  /**
+   * Checks which of the given Layers are present. <BR>
+   * All the layers are listed once when the listing is cached, when it is known to be cheaper than checking the names one by one, or from
+   * {@link #getBulkExistsThreshold()} names on when its size is unknown; otherwise each name is checked.
+   *
+   * @param workspace
+   *          workspace of the Layers, or <TT>null</TT> if the names are qualified (e.g. <TT>topp:states</TT>)
+   * @param names
+   *          names of the Layers
+   * @return the names of the Layers which exist, in the order given
+   */
+  public Set<String> existingLayers(String workspace, Collection<String> names) {
+    return existingLayers(workspace, names, -1);
+  }
+  
+  /**
+   * Checks which of the given Layers are present, listing all the layers from the given number of names on.
+   *
+   * @param workspace
+   *          workspace of the Layers, or <TT>null</TT> if the names are qualified (e.g. <TT>topp:states</TT>)
+   * @param names
+   *          names of the Layers
+   * @param threshold
+   *          the number of names from which the layers are listed: 0 always lists them, {@link Integer#MAX_VALUE} never does, a negative value decides
+   *          as the bulk check without a threshold
+   * @return the names of the Layers which exist, in the order given
+   */
+  public Set<String> existingLayers(String workspace, Collection<String> names, int threshold) {
+    String url = "/rest/layers.xml";
+    if (useListing(url, RESTLayerList.class, names.size(), threshold)) {
+      RESTLayerList list = getLayers();
+      if (list != null) {
+        List<String> listed = listed(url, list);
+        if (workspace == null) {
+          return retain(names, listed);
+        }
+        Set<String> local = new HashSet<String>();
+        for (String layer : listed) {
+          if (layer.startsWith(workspace + ":")) local.add(layer.substring(workspace.length() + 1));
+        }
+        return retain(names, local);
+      }
+    }
+    Set<String> existing = new LinkedHashSet<String>();
+    for (String name : names) {
+      if (existsLayer(workspace, name, true)) existing.add(name);
+    }
+    return existing;
+  }
+  
   // ==========================================================================
   // === NAMESPACES
   // ==========================================================================
@@ -999,7 +1502,10 @@ public class GeoServerRESTReader {
     if (LOGGER.isDebugEnabled()) {
       LOGGER.debug("### Getting namespace from " + url);
     }
-    return RESTNamespace.build(load(url));
+    RESTNamespace hit = cached(url, RESTNamespace.class);
+    if (hit != null) return hit;
+    Element xml = load(url);
+    return cache(url, xml, RESTNamespace.build(xml));
   }
   
   /**
@@ -1012,7 +1518,10 @@ public class GeoServerRESTReader {
     if (LOGGER.isDebugEnabled()) {
       LOGGER.debug("### Retrieving namespaces from " + url);
     }
-    return RESTNamespaceList.build(load(url));
+    RESTNamespaceList hit = cached(url, RESTNamespaceList.class);
+    if (hit != null) return hit;
+    Element xml = load(url);
+    return cache(url, xml, RESTNamespaceList.build(xml));
   }
   
   /**
@@ -1045,7 +1554,7 @@ public class GeoServerRESTReader {
     }
     String url = baseurl + "/rest/namespaces/" + prefix + ".xml";
     String composed = Util.appendQuietOnNotFound(quietOnNotFound, url);
-    return HTTPUtils.exists(composed, username, password);
+    return http.exists(composed, username, password, notFoundCache);
   }
   
   /**
@@ -1074,7 +1583,10 @@ public class GeoServerRESTReader {
       LOGGER.debug("### Retrieving workspaces from " + url);
     }
     
-    return RESTWorkspaceList.build(load(url));
+    RESTWorkspaceList hit = cached(url, RESTWorkspaceList.class);
+    if (hit != null) return hit;
+    Element xml = load(url);
+    return cache(url, xml, RESTWorkspaceList.build(xml));
   }
   
   /**
@@ -1110,7 +1622,7 @@ public class GeoServerRESTReader {
     }
     String url = baseurl + "/rest/workspaces/" + prefix + ".xml";
     String composed = Util.appendQuietOnNotFound(quietOnNotFound, url);
-    return HTTPUtils.exists(composed, username, password);
+    return http.exists(composed, username, password, notFoundCache);
   }
   
   /**
@@ -1149,7 +1661,7 @@ public class GeoServerRESTReader {
    */
   public RESTStructuredCoverageGranulesList getGranuleById(final String workspace, String coverageStore, String coverage, String id) throws MalformedURLException, UnsupportedEncodingException {
     try {
-      GeoServerRESTStructuredGridCoverageReaderManager manager = new GeoServerRESTStructuredGridCoverageReaderManager(new URL(baseurl), username, password);
+      GeoServerRESTStructuredGridCoverageReaderManager manager = new GeoServerRESTStructuredGridCoverageReaderManager(new URL(baseurl), username, password, http);
       return manager.getGranuleById(workspace, coverageStore, coverage, id);
     } catch (IllegalArgumentException e) {
       if (LOGGER.isInfoEnabled()) {
@@ -1181,7 +1693,7 @@ public class GeoServerRESTReader {
   public boolean existsGranule(String workspace, String coverageStore, String coverage, String id, boolean quietOnNotFound) {
     String url = baseurl + "/rest/workspaces/" + workspace + "/coveragestores/" + coverageStore + "/coverages/" + coverage + "/index/granules/" + id + ".xml";
     String composed = Util.appendQuietOnNotFound(quietOnNotFound, url);
-    return HTTPUtils.exists(composed, username, password);
+    return http.exists(composed, username, password, notFoundCache);
   }
   
   /**
@@ -1218,7 +1730,7 @@ public class GeoServerRESTReader {
    */
   public RESTStructuredCoverageIndexSchema getGranuleIndexSchema(final String workspace, String coverageStore, String coverage) throws MalformedURLException {
     try {
-      GeoServerRESTStructuredGridCoverageReaderManager manager = new GeoServerRESTStructuredGridCoverageReaderManager(new URL(baseurl), username, password);
+      GeoServerRESTStructuredGridCoverageReaderManager manager = new GeoServerRESTStructuredGridCoverageReaderManager(new URL(baseurl), username, password, http);
       return manager.getGranuleIndexSchema(workspace, coverageStore, coverage);
     } catch (IllegalArgumentException e) {
       if (LOGGER.isInfoEnabled()) {
@@ -1255,7 +1767,7 @@ public class GeoServerRESTReader {
    */
   public RESTStructuredCoverageGranulesList getGranules(final String workspace, String coverageStore, String coverage, String filter, Integer offset, Integer limit) throws MalformedURLException, UnsupportedEncodingException {
     try {
-      GeoServerRESTStructuredGridCoverageReaderManager manager = new GeoServerRESTStructuredGridCoverageReaderManager(new URL(baseurl), username, password);
+      GeoServerRESTStructuredGridCoverageReaderManager manager = new GeoServerRESTStructuredGridCoverageReaderManager(new URL(baseurl), username, password, http);
       return manager.getGranules(workspace, coverageStore, coverage, filter, offset, limit);
     } catch (IllegalArgumentException e) {
       if (LOGGER.isInfoEnabled()) {
@@ -0,0 +1,337 @@
+/*
+ *  GeoServer-Manager - Simple Manager Library for GeoServer
+ *  
+ *  Copyright (C) 2007,2016 GeoSolutions S.A.S.
+ *  http://www.geo-solutions.it
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package it.geosolutions.geoserver.rest;
+
+import it.geosolutions.geoserver.rest.decoder.RESTStyle;
+import it.geosolutions.geoserver.rest.decoder.RESTStyleList;
+import it.geosolutions.geoserver.rest.http.HTTPRequest;
+import it.geosolutions.geoserver.rest.http.HTTPWriteListener;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * An index of the style names defined globally and in each workspace, answering style searches without probing every workspace.
+ * <P>
+ * The index is built from the style listings, fetched at most <TT>parallelism</TT> at a time, and rebuilt once its time to live expires or
+ * after a style or workspace is written through the HTTP engine of the reader, which the index listens to from its {@link #create creation}
+ * until {@link #close() closed}. A single build runs at a time, the concurrent searches waiting for its result. An index missing some
+ * listings (e.g. a workspace failing to list its styles) is used for at most {@link #INCOMPLETE_TIME_TO_LIVE} milliseconds before the
+ * listings are tried again.
+ * 
+ * @see Util#searchStyles(GeoServerRESTReader, String)
+ */
+public class GeoServerRESTStyleIndex implements HTTPWriteListener {
+  
+  private final static Logger LOGGER = LoggerFactory.getLogger(GeoServerRESTStyleIndex.class);
+  
+  /**
+   * The default time to live of the index, in milliseconds.
+   */
+  public static final long DEFAULT_TIME_TO_LIVE = 60000;
+  
+  /**
+   * The time to live of an index missing some listings, in milliseconds.
+   */
+  public static final long INCOMPLETE_TIME_TO_LIVE = 5000;
+  
+  private final GeoServerRESTReader reader;
+  
+  private final long timeToLive;
+  
+  private final int parallelism;
+  
+  private volatile Index index;
+  
+  /** Incremented on each invalidation, so that an index built meanwhile is not published */
+  private long generation;
+  
+  /** The build in progress, which the searches finding no index wait for */
+  private FutureTask<Index> building;
+  
+  /**
+   * Creates an index living {@link #DEFAULT_TIME_TO_LIVE} milliseconds, built with {@link Util#DEFAULT_SEARCH_PARALLELISM} concurrent listings.
+   */
+  public static GeoServerRESTStyleIndex create(GeoServerRESTReader reader) {
+    return create(reader, DEFAULT_TIME_TO_LIVE, Util.DEFAULT_SEARCH_PARALLELISM);
+  }
+  
+  /**
+   * Creates an index listening to the writes of the reader's HTTP engine.
+   * 
+   * @param reader
+   *          the reader listing the styles
+   * @param timeToLive
+   *          the time after which the index is rebuilt, in milliseconds
+   * @param parallelism
+   *          the maximum number of style listings fetched concurrently
+   */
+  public static GeoServerRESTStyleIndex create(GeoServerRESTReader reader, long timeToLive, int parallelism) {
+    GeoServerRESTStyleIndex index = new GeoServerRESTStyleIndex(reader, timeToLive, parallelism);
+    reader.getHTTPEngine().addWriteListener(index);
+    return index;
+  }
+  
+  /**
+   * Creates an index not listening to the writes: it has to be registered on the reader's HTTP engine once constructed, as the factory methods
+   * do.
+   * 
+   * @see #create(GeoServerRESTReader, long, int)
+   */
+  protected GeoServerRESTStyleIndex(GeoServerRESTReader reader, long timeToLive, int parallelism) {
+    if (reader == null) throw new IllegalArgumentException("The reader may not be null");
+    if (parallelism < 1) throw new IllegalArgumentException("The parallelism must be positive");
+    this.reader = reader;
+    this.timeToLive = timeToLive;
+    this.parallelism = parallelism;
+  }
+  
+  /**
+   * @return whether a global style with the given name exists
+   */
+  public boolean isGlobal(String stylename) {
+    return index().global.contains(stylename);
+  }
+  
+  /**
+   * @return the names of the workspaces defining a style with the given name, in the order of {@link GeoServerRESTReader#getWorkspaceNames()}
+   */
+  public List<String> getWorkspaces(String stylename) {
+    List<String> workspaces = index().workspaces.get(stylename);
+    return workspaces != null ? Collections.unmodifiableList(workspaces) : Collections.<String> emptyList();
+  }
+  
+  /**
+   * Search for a stylename in global and in all workspaces, only fetching the styles listed in the index.
+   * 
+   * @return the global style, if any, followed by the ones of the workspaces
+   * @see Util#searchStyles(GeoServerRESTReader, String)
+   */
+  public List<RESTStyle> searchStyles(final String stylename) {
+    Index current = index();
+    List<Callable<RESTStyle>> lookups = new ArrayList<Callable<RESTStyle>>();
+    if (current.global.contains(stylename)) {
+      lookups.add(new Callable<RESTStyle>() {
+        public RESTStyle call() {
+          return reader.getStyle(stylename);
+        }
+      });
+    }
+    List<String> workspaces = current.workspaces.get(stylename);
+    if (workspaces != null) {
+      for (final String workspace : workspaces) {
+        lookups.add(new Callable<RESTStyle>() {
+          public RESTStyle call() {
+            return reader.getStyle(workspace, stylename);
+          }
+        });
+      }
+    }
+    List<RESTStyle> styles = new ArrayList<RESTStyle>();
+    for (RESTStyle style : Util.fanOut(lookups, parallelism, false)) {
+      if (style != null) styles.add(style);
+    }
+    return styles;
+  }
+  
+  /**
+   * Rebuilds the index now.
+   */
+  public void refresh() {
+    long started = currentGeneration();
+    publish(build(), started);
+  }
+  
+  /**
+   * Discards the index, which is rebuilt on the next search. An index being built concurrently is used by its own search only.
+   */
+  public synchronized void invalidate() {
+    generation++;
+    index = null;
+    building = null;
+  }
+  
+  /**
+   * Stops listening to the writes of the reader's HTTP engine.
+   */
+  public void close() {
+    reader.getHTTPEngine().removeWriteListener(this);
+  }
+  
+  /**
+   * Discards the index if a style or a workspace was written.
+   */
+  public void written(HTTPRequest.Method method, String url) {
+    int rest = url.indexOf("/rest/");
+    if (rest < 0) return;
+    String path = url.substring(rest + "/rest/".length());
+    int query = path.indexOf('?');
+    if (query >= 0) path = path.substring(0, query);
+    String[] parts = path.split("/");
+    if (parts[0].startsWith("styles") || parts[0].startsWith("reload") || parts[0].startsWith("reset")
+        || (parts[0].startsWith("workspaces") && (parts.length <= 2 || parts[2].startsWith("styles")))) {
+      invalidate();
+    }
+  }
+  
+  /**
+   * @return the current time in milliseconds; overridable for testing
+   */
+  protected long now() {
+    return System.currentTimeMillis();
+  }
+  
+  private Index index() {
+    Index current = index;
+    if (current != null && current.expires > now()) return current;
+    FutureTask<Index> flight;
+    boolean leader = false;
+    synchronized (this) {
+      current = index;
+      if (current != null && current.expires > now()) return current;
+      flight = building;
+      if (flight == null) {
+        final long started = generation;
+        flight = new FutureTask<Index>(new Callable<Index>() {
+          public Index call() {
+            Index built = build();
+            publish(built, started);
+            return built;
+          }
+        });
+        building = flight;
+        leader = true;
+      }
+    }
+    if (leader) {
+      try {
+        flight.run();
+      } finally {
+        synchronized (this) {
+          if (building == flight) building = null;
+        }
+      }
+    }
+    return await(flight);
+  }
+  
+  private static Index await(FutureTask<Index> flight) {
+    boolean interrupted = false;
+    try {
+      while (true) {
+        try {
+          return flight.get();
+        } catch (InterruptedException e) {
+          interrupted = true;
+        }
+      }
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+      if (cause instanceof Error) throw (Error) cause;
+      throw new IllegalStateException(cause);
+    } finally {
+      if (interrupted) Thread.currentThread().interrupt();
+    }
+  }
+  
+  private synchronized long currentGeneration() {
+    return generation;
+  }
+  
+  /**
+   * Publishes an index unless a write invalidated the listings since the given generation: such an index is used for the searches waiting for
+   * its build only.
+   */
+  private synchronized void publish(Index built, long started) {
+    if (generation == started) index = built;
+  }
+  
+  private Index build() {
+    final List<String> names = reader.getWorkspaceNames();
+    List<Callable<RESTStyleList>> listings = new ArrayList<Callable<RESTStyleList>>(names.size() + 1);
+    listings.add(new Callable<RESTStyleList>() {
+      public RESTStyleList call() {
+        return reader.getStyles();
+      }
+    });
+    for (final String workspace : names) {
+      listings.add(new Callable<RESTStyleList>() {
+        public RESTStyleList call() {
+          return reader.getStyles(workspace);
+        }
+      });
+    }
+    List<RESTStyleList> lists = Util.fanOut(listings, parallelism, false);
+    
+    Index built = new Index();
+    boolean complete = true;
+    if (lists.get(0) != null) {
+      built.global.addAll(lists.get(0).getNames());
+    } else {
+      complete = false;
+    }
+    for (int i = 0; i < names.size(); i++) {
+      RESTStyleList list = lists.get(i + 1);
+      if (list == null) {
+        complete = false;
+        continue;
+      }
+      for (String style : list.getNames()) {
+        List<String> workspaces = built.workspaces.get(style);
+        if (workspaces == null) built.workspaces.put(style, workspaces = new ArrayList<String>(1));
+        workspaces.add(names.get(i));
+      }
+    }
+    if (complete) {
+      built.expires = now() + timeToLive;
+    } else {
+      LOGGER.warn("Some style listings could not be loaded, the style index is incomplete");
+      built.expires = now() + Math.min(timeToLive, INCOMPLETE_TIME_TO_LIVE);
+    }
+    return built;
+  }
+  
+  private static class Index {
+    
+    long expires;
+    
+    final Set<String> global = new HashSet<String>();
+    
+    final Map<String, List<String>> workspaces = new HashMap<String, List<String>>();
+  }
+}
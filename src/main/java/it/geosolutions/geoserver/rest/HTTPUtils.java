@@ -25,52 +25,35 @@
 
 package it.geosolutions.geoserver.rest;
 
-import java.io.ByteArrayOutputStream;
+import it.geosolutions.geoserver.rest.http.HTTPConnectionPool;
+import it.geosolutions.geoserver.rest.http.HTTPEngine;
+
 import java.io.File;
-import java.io.IOException;
-import java.io.InputStream;
-import java.io.UnsupportedEncodingException;
-import java.net.ConnectException;
-import java.net.HttpURLConnection;
 import java.net.MalformedURLException;
 import java.net.URL;
-import java.util.ArrayList;
-import java.util.List;
 
-import org.apache.commons.httpclient.Credentials;
-import org.apache.commons.httpclient.HttpClient;
-import org.apache.commons.httpclient.HttpConnectionManager;
-import org.apache.commons.httpclient.HttpStatus;
-import org.apache.commons.httpclient.UsernamePasswordCredentials;
-import org.apache.commons.httpclient.auth.AuthScope;
-import org.apache.commons.httpclient.methods.DeleteMethod;
-import org.apache.commons.httpclient.methods.EntityEnclosingMethod;
 import org.apache.commons.httpclient.methods.FileRequestEntity;
-import org.apache.commons.httpclient.methods.GetMethod;
-import org.apache.commons.httpclient.methods.PostMethod;
-import org.apache.commons.httpclient.methods.PutMethod;
 import org.apache.commons.httpclient.methods.RequestEntity;
-import org.apache.commons.httpclient.methods.StringRequestEntity;
-import org.apache.commons.httpclient.methods.multipart.FilePart;
-import org.apache.commons.httpclient.methods.multipart.MultipartRequestEntity;
-import org.apache.commons.httpclient.methods.multipart.Part;
-import org.apache.commons.io.IOUtils;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
 import com.google.gson.JsonElement;
 import com.google.gson.JsonParser;
 
 /**
  * Low level HTTP utilities.
+ * <P>
+ * All the calls share the keep-alive connections of the {@link HTTPConnectionPool#getDefault() default connection pool}. They are backed by a
+ * shared {@link HTTPEngine}; use an engine directly to get per-call {@link it.geosolutions.geoserver.rest.http.HTTPResponse results}.
  */
 public class HTTPUtils {
-  private static final Logger LOGGER = LoggerFactory.getLogger(HTTPUtils.class);
-  
-  private static String lastError = null;
+  /** Engine backing the static calls, bound to the default connection pool */
+  private static final HTTPEngine ENGINE = new HTTPEngine();
   
+  /**
+   * @return the error of the last call made by the current thread, or <TT>null</TT> if that call succeeded.
+   * @see HTTPEngine#getLastError()
+   */
   public static String getLastError() {
-    return lastError;
+    return ENGINE.getLastError();
   }
   
   /**
@@ -99,43 +82,7 @@ public class HTTPUtils {
    * @throws MalformedURLException
    */
   public static String get(String url, String username, String pw) {
-    
-    lastError = null;
-    GetMethod httpMethod = null;
-    HttpClient client = new HttpClient();
-    HttpConnectionManager connectionManager = client.getHttpConnectionManager();
-    try {
-      setAuth(client, url, username, pw);
-      httpMethod = new GetMethod(url);
-      connectionManager.getParams().setConnectionTimeout(5000);
-      int status = client.executeMethod(httpMethod);
-      if (status == HttpStatus.SC_OK) {
-        InputStream is = httpMethod.getResponseBodyAsStream();
-        String response = IOUtils.toString(is);
-        IOUtils.closeQuietly(is);
-        if (response.trim().length() == 0) { // sometime gs rest fails
-          LOGGER.warn("ResponseBody is empty");
-          lastError = "ResponseBody is empty";
-          return null;
-        } else {
-          return response;
-        }
-      } else {
-        LOGGER.info("(" + status + ") " + HttpStatus.getStatusText(status) + " -- " + url);
-        lastError = "(" + status + ") " + HttpStatus.getStatusText(status) + " -- " + url;
-      }
-    } catch (ConnectException e) {
-      LOGGER.info("Couldn't connect to [" + url + "]");
-      lastError = "Couldn't connect to [" + url + "]";
-    } catch (IOException e) {
-      LOGGER.info("Error talking to [" + url + "]", e);
-      lastError = "Error talking to [" + url + "]";
-    } finally {
-      if (httpMethod != null) httpMethod.releaseConnection();
-      connectionManager.closeIdleConnections(0);
-    }
-    
-    return null;
+    return ENGINE.get(url, username, pw);
   }
   
   /**
@@ -196,13 +143,7 @@ public class HTTPUtils {
    * @return the HTTP response or <TT>null</TT> on errors.
    */
   public static String put(String url, String content, String contentType, String username, String pw) {
-    try {
-      return put(url, new StringRequestEntity(content, contentType, null), username, pw);
-    } catch (UnsupportedEncodingException ex) {
-      LOGGER.error("Cannot PUT " + url, ex);
-      lastError = "Cannot PUT " + url;
-      return null;
-    }
+    return ENGINE.put(url, content, contentType, username, pw);
   }
   
   /**
@@ -262,7 +203,7 @@ public class HTTPUtils {
    * @return the HTTP response or <TT>null</TT> on errors.
    */
   public static String put(String url, RequestEntity requestEntity, String username, String pw) {
-    return send(new PutMethod(url), url, requestEntity, username, pw);
+    return ENGINE.put(url, requestEntity, username, pw);
   }
   
   /**
@@ -306,13 +247,7 @@ public class HTTPUtils {
    * @return the HTTP response or <TT>null</TT> on errors.
    */
   public static String post(String url, String content, String contentType, String username, String pw) {
-    try {
-      return post(url, new StringRequestEntity(content, contentType, null), username, pw);
-    } catch (UnsupportedEncodingException ex) {
-      LOGGER.error("Cannot POST " + url, ex);
-      lastError = "Cannot POST " + url;
-      return null;
-    }
+    return ENGINE.post(url, content, contentType, username, pw);
   }
   
   /**
@@ -332,23 +267,7 @@ public class HTTPUtils {
    * @return the HTTP response or <TT>null</TT> on errors.
    */
   public static String postMultipartForm(String url, File dir, String username, String pw) {
-    lastError = null;
-    try {
-      List<Part> parts = new ArrayList<Part>();
-      for (File f : dir.listFiles()) {
-        parts.add(new FilePart(f.getName(), f));
-      }
-      MultipartRequestEntity multipart = new MultipartRequestEntity(parts.toArray(new Part[parts.size()]), new PostMethod().getParams());
-      
-      ByteArrayOutputStream bout = new ByteArrayOutputStream();
-      multipart.writeRequest(bout);
-      
-      return post(url, multipart, username, pw);
-    } catch (Exception ex) {
-      LOGGER.error("Cannot POST " + url, ex);
-      lastError = "Cannot POST " + url;
-      return null;
-    }
+    return ENGINE.postMultipartForm(url, dir, username, pw);
   }
   
   /**
@@ -408,105 +327,12 @@ public class HTTPUtils {
    * @return the HTTP response or <TT>null</TT> on errors.
    */
   public static String post(String url, RequestEntity requestEntity, String username, String pw) {
-    return send(new PostMethod(url), url, requestEntity, username, pw);
+    return ENGINE.post(url, requestEntity, username, pw);
   }
   
-  /**
-   * Send an HTTP request (PUT or POST) to a server. <BR>
-   * Basic auth is used if both username and pw are not null.
-   * <P>
-   * Only
-   * <UL>
-   * <LI>200: OK</LI>
-   * <LI>201: ACCEPTED</LI>
-   * <LI>202: CREATED</LI>
-   * </UL>
-   * are accepted as successful codes; in these cases the response string will be returned.
-   *
-   * @return the HTTP response or <TT>null</TT> on errors.
-   */
-  private static String send(final EntityEnclosingMethod httpMethod, String url, RequestEntity requestEntity, String username, String pw) {
-    lastError = null;
-    HttpClient client = new HttpClient();
-    HttpConnectionManager connectionManager = client.getHttpConnectionManager();
-    try {
-      setAuth(client, url, username, pw);
-      connectionManager.getParams().setConnectionTimeout(5000);
-      if (requestEntity != null) httpMethod.setRequestEntity(requestEntity);
-      int status = client.executeMethod(httpMethod);
-      
-      InputStream responseBody;
-      switch (status) {
-        case HttpURLConnection.HTTP_OK:
-        case HttpURLConnection.HTTP_CREATED:
-        case HttpURLConnection.HTTP_ACCEPTED:
-          String response = IOUtils.toString(httpMethod.getResponseBodyAsStream());
-          // LOGGER.info("================= POST " + url);
-          if (LOGGER.isInfoEnabled()) LOGGER.info("HTTP " + httpMethod.getStatusText() + ": " + response);
-          return response;
-        default:
-          responseBody = httpMethod.getResponseBodyAsStream();
-          String res = null;
-          if (responseBody != null) {
-            res = IOUtils.toString(responseBody);
-          }
-          LOGGER.warn("Bad response: code[" + status + "]" + " msg[" + httpMethod.getStatusText() + "]" + " url[" + url + "]" + " method[" + httpMethod.getClass().getSimpleName() + "]");
-          lastError = res;
-          return null;
-      }
-    } catch (ConnectException e) {
-      LOGGER.info("Couldn't connect to [" + url + "]");
-      lastError = "Couldn't connect to [" + url + "]";
-      return null;
-    } catch (IOException e) {
-      LOGGER.error("Error talking to " + url + " : " + e.getLocalizedMessage());
-      lastError = "Error talking to " + url + " : " + e.getLocalizedMessage();
-      return null;
-    } finally {
-      if (httpMethod != null) httpMethod.releaseConnection();
-      connectionManager.closeIdleConnections(0);
-    }
-  }
   
   public static boolean delete(String url, final String user, final String pw) {
-    
-    lastError = null;
-    DeleteMethod httpMethod = null;
-    HttpClient client = new HttpClient();
-    HttpConnectionManager connectionManager = client.getHttpConnectionManager();
-    try {
-      setAuth(client, url, user, pw);
-      httpMethod = new DeleteMethod(url);
-      connectionManager.getParams().setConnectionTimeout(5000);
-      int status = client.executeMethod(httpMethod);
-      String response = "";
-      if (status == HttpStatus.SC_OK) {
-        InputStream is = httpMethod.getResponseBodyAsStream();
-        response = IOUtils.toString(is);
-        IOUtils.closeQuietly(is);
-        if (response.trim().equals("")) {
-          if (LOGGER.isTraceEnabled()) LOGGER.trace("ResponseBody is empty (this may be not an error since we just performed a DELETE call)");
-          return true;
-        }
-        if (LOGGER.isDebugEnabled()) LOGGER.debug("(" + status + ") " + httpMethod.getStatusText() + " -- " + url);
-        return true;
-      } else {
-        LOGGER.info("(" + status + ") " + httpMethod.getStatusText() + " -- " + url);
-        LOGGER.info("Response: '" + response + "'");
-        lastError = "(" + status + ") " + httpMethod.getStatusText() + " -- " + url;
-      }
-    } catch (ConnectException e) {
-      LOGGER.info("Couldn't connect to [" + url + "]");
-      lastError = "Couldn't connect to [" + url + "]";
-    } catch (IOException e) {
-      LOGGER.info("Error talking to [" + url + "]", e);
-      lastError = "Error talking to [" + url + "]";
-    } finally {
-      if (httpMethod != null) httpMethod.releaseConnection();
-      connectionManager.closeIdleConnections(0);
-    }
-    
-    return false;
+    return ENGINE.delete(url, user, pw);
   }
   
   /**
@@ -517,34 +343,7 @@ public class HTTPUtils {
   }
   
   public static boolean httpPing(String url, String username, String pw) {
-    
-    lastError = null;
-    GetMethod httpMethod = null;
-    HttpClient client = new HttpClient();
-    HttpConnectionManager connectionManager = client.getHttpConnectionManager();
-    try {
-      setAuth(client, url, username, pw);
-      httpMethod = new GetMethod(url);
-      connectionManager.getParams().setConnectionTimeout(2000);
-      int status = client.executeMethod(httpMethod);
-      if (status != HttpStatus.SC_OK) {
-        LOGGER.warn("PING failed at '" + url + "': (" + status + ") " + httpMethod.getStatusText());
-        lastError = "PING failed at '" + url + "': (" + status + ") " + httpMethod.getStatusText();
-        return false;
-      } else {
-        return true;
-      }
-    } catch (ConnectException e) {
-      lastError = "Couldn't connect to [" + url + "]";
-      return false;
-    } catch (IOException e) {
-      LOGGER.error(e.getLocalizedMessage(), e);
-      lastError = "Error talking to [" + url + "]";
-      return false;
-    } finally {
-      if (httpMethod != null) httpMethod.releaseConnection();
-      connectionManager.closeIdleConnections(0);
-    }
+    return ENGINE.httpPing(url, username, pw);
   }
   
   /**
@@ -559,51 +358,9 @@ public class HTTPUtils {
    *           on unhandled status or exceptions.
    */
   public static boolean exists(String url, String username, String pw) {
-    
-    lastError = null;
-    GetMethod httpMethod = null;
-    HttpClient client = new HttpClient();
-    HttpConnectionManager connectionManager = client.getHttpConnectionManager();
-    try {
-      setAuth(client, url, username, pw);
-      httpMethod = new GetMethod(url);
-      connectionManager.getParams().setConnectionTimeout(2000);
-      int status = client.executeMethod(httpMethod);
-      switch (status) {
-        case HttpStatus.SC_OK:
-          return true;
-        case HttpStatus.SC_NOT_FOUND:
-          return false;
-        default:
-          throw new RuntimeException("Unhandled response status at '" + url + "': (" + status + ") " + httpMethod.getStatusText());
-      }
-    } catch (ConnectException e) {
-      throw new RuntimeException(e);
-    } catch (IOException e) {
-      throw new RuntimeException(e);
-    } finally {
-      if (httpMethod != null) httpMethod.releaseConnection();
-      connectionManager.closeIdleConnections(0);
-    }
+    return ENGINE.exists(url, username, pw);
   }
   
-  private static void setAuth(HttpClient client, String url, String username, String pw) throws MalformedURLException {
-    URL u = new URL(url);
-    lastError = null;
-    if (username != null && pw != null) {
-      Credentials defaultcreds = new UsernamePasswordCredentials(username, pw);
-      client.getState().setCredentials(new AuthScope(u.getHost(), u.getPort()), defaultcreds);
-      client.getParams().setAuthenticationPreemptive(true); // GS2 by
-                                                            // default
-                                                            // always
-                                                            // requires
-                                                            // authentication
-    } else {
-      if (LOGGER.isDebugEnabled()) {
-        LOGGER.debug("Not setting credentials to access to " + url);
-      }
-    }
-  }
   
   /**
    * @param geoserverURL
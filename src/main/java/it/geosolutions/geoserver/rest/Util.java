@@ -32,6 +32,17 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 /**
  *
@@ -44,27 +55,186 @@ public class Util {
   public static final boolean DEFAULT_QUIET_ON_NOT_FOUND = true;
   
   /**
-   * Search for a stylename in global and in all workspaces.
+   * The maximum number of concurrent lookups performed by {@link #searchStyles(GeoServerRESTReader, String)}.
+   */
+  public static final int DEFAULT_SEARCH_PARALLELISM = 8;
+  
+  /**
+   * When a style search completes.
+   */
+  public enum StyleSearch {
+    /** As soon as a style is found, in any workspace */
+    FIRST_MATCH,
+    /** Once all the workspaces have been searched */
+    ALL_MATCHES
+  }
+  
+  private static final ThreadFactory SEARCH_THREADS = daemonThreads("geoserver-manager-search-");
+  
+  /** The threads running the concurrent lookups, shared by all the searches and lazily created */
+  private static ExecutorService searchPool;
+  
+  /**
+   * @return a factory of daemon threads named after the given prefix and a sequence number
+   */
+  static ThreadFactory daemonThreads(final String prefix) {
+    return new ThreadFactory() {
+      
+      private final AtomicInteger count = new AtomicInteger();
+      
+      public Thread newThread(Runnable r) {
+        Thread t = new Thread(r, prefix + count.incrementAndGet());
+        t.setDaemon(true);
+        return t;
+      }
+    };
+  }
+  
+  /**
+   * Search for a stylename in global and in all workspaces. <BR>
+   * The workspaces are searched concurrently, running at most {@link #DEFAULT_SEARCH_PARALLELISM} lookups (or less, if the reader's transport
+   * can not run as many calls against a single host).
+   * 
+   * @return the global style, if any, followed by the ones of the workspaces in the order of {@link GeoServerRESTReader#getWorkspaceNames()}
+   * @see GeoServerRESTStyleIndex#searchStyles(String)
    */
   public static List<RESTStyle> searchStyles(GeoServerRESTReader reader, String stylename) {
+    int parallelism = Math.max(1, Math.min(DEFAULT_SEARCH_PARALLELISM, reader.getHTTPEngine().getTransport().getMaxConcurrentCallsPerHost()));
+    return searchStyles(reader, stylename, parallelism, StyleSearch.ALL_MATCHES);
+  }
+  
+  /**
+   * Search for a stylename in global and in all workspaces, running at most <TT>parallelism</TT> lookups at a time.
+   * 
+   * @param parallelism
+   *          the maximum number of concurrent lookups; 1 searches the workspaces one after the other.
+   * @param search
+   *          whether to stop at the first style found or to search all the workspaces
+   * @return the styles found, in the order of {@link #searchStyles(GeoServerRESTReader, String)}; with {@link StyleSearch#FIRST_MATCH}, a single
+   *         style: the first, in that order, of the ones found before the search stopped.
+   */
+  public static List<RESTStyle> searchStyles(final GeoServerRESTReader reader, final String stylename, int parallelism, StyleSearch search) {
+    List<Callable<RESTStyle>> lookups = new ArrayList<Callable<RESTStyle>>();
+    lookups.add(new Callable<RESTStyle>() {
+      public RESTStyle call() {
+        RESTStyle style = reader.getStyle(stylename);
+        // We don't want geoserver to be lenient here: take only the real global style if it exists
+        if (style != null && (style.getWorkspace() == null || style.getWorkspace().isEmpty())) {
+          return style;
+        }
+        return null;
+      }
+    });
+    for (final String workspace : reader.getWorkspaceNames()) {
+      lookups.add(new Callable<RESTStyle>() {
+        public RESTStyle call() {
+          return reader.getStyle(workspace, stylename);
+        }
+      });
+    }
     
     List<RESTStyle> styles = new ArrayList<RESTStyle>();
+    for (RESTStyle style : fanOut(lookups, parallelism, search == StyleSearch.FIRST_MATCH)) {
+      if (style != null) styles.add(style);
+    }
+    return styles;
+  }
+  
+  /**
+   * @return the pool of daemon threads shared by the concurrent lookups, the {@link GeoServerRESTBulkReader bulk reads} and the granule
+   *         cursors; idle threads are released after a minute. The pool must not be shut down.
+   */
+  public static synchronized ExecutorService searchPool() {
+    if (searchPool == null) searchPool = Executors.newCachedThreadPool(SEARCH_THREADS);
+    return searchPool;
+  }
+  
+  /**
+   * Runs the given calls, at most <TT>parallelism</TT> at a time, on the {@link #searchPool() shared daemon threads}.
+   * 
+   * @param firstOnly
+   *          whether to stop as soon as a call returns a non <TT>null</TT> result; the calls not started yet are then skipped.
+   * @return the results of the calls, in the same order; <TT>null</TT> for the calls skipped. If the current thread is interrupted, the results
+   *         collected so far.
+   */
+  static <T> List<T> fanOut(final List<? extends Callable<T>> calls, int parallelism, final boolean firstOnly) {
+    if (parallelism < 1) throw new IllegalArgumentException("The parallelism must be positive");
+    final AtomicReferenceArray<T> results = new AtomicReferenceArray<T>(calls.size());
+    final AtomicBoolean done = new AtomicBoolean();
     
-    RESTStyle style = reader.getStyle(stylename);
-    
-    // We don't want geoserver to be lenient here: take only the real global style if it exists
-    if (style != null) {
-      if (style.getWorkspace() == null || style.getWorkspace().isEmpty()) {
-        styles.add(style);
+    if (parallelism == 1 || calls.size() <= 1) {
+      for (int i = 0; i < calls.size() && !done.get(); i++) {
+        results.set(i, call(calls.get(i)));
+        done.set(firstOnly && results.get(i) != null);
       }
+      return toList(results);
     }
     
-    for (String workspace : reader.getWorkspaceNames()) {
-      style = reader.getStyle(workspace, stylename);
-      if (style != null) styles.add(style);
+    // as many workers as the parallelism, each running the next call not started yet
+    int workers = Math.min(parallelism, calls.size());
+    final AtomicInteger next = new AtomicInteger();
+    CompletionService<Boolean> completion = new ExecutorCompletionService<Boolean>(searchPool());
+    List<Future<Boolean>> running = new ArrayList<Future<Boolean>>(workers);
+    try {
+      for (int i = 0; i < workers; i++) {
+        running.add(completion.submit(new Callable<Boolean>() {
+          public Boolean call() {
+            for (int index = next.getAndIncrement(); index < calls.size() && !done.get(); index = next.getAndIncrement()) {
+              results.set(index, Util.call(calls.get(index)));
+              if (firstOnly && results.get(index) != null) {
+                done.set(true);
+                return Boolean.TRUE;
+              }
+            }
+            return Boolean.FALSE;
+          }
+        }));
+      }
+      for (int i = 0; i < workers; i++) {
+        if (completion.take().get()) break;
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof Error) throw (Error) cause;
+      throw (RuntimeException) cause;
+    } finally {
+      // the calls in progress complete in the background, the others are skipped
+      done.set(true);
+      for (Future<Boolean> worker : running) {
+        worker.cancel(false);
+      }
     }
     
-    return styles;
+    List<T> list = toList(results);
+    if (firstOnly) {
+      // other calls may have succeeded meanwhile: keep the first one, in the order of the calls
+      boolean found = false;
+      for (int i = 0; i < list.size(); i++) {
+        if (list.get(i) != null && found) list.set(i, null);
+        found |= list.get(i) != null;
+      }
+    }
+    return list;
+  }
+  
+  private static <T> T call(Callable<T> call) {
+    try {
+      return call.call();
+    } catch (RuntimeException e) {
+      throw e;
+    } catch (Exception e) {
+      throw new RuntimeException(e);
+    }
+  }
+  
+  private static <T> List<T> toList(AtomicReferenceArray<T> array) {
+    List<T> list = new ArrayList<T>(array.length());
+    for (int i = 0; i < array.length(); i++) {
+      list.add(array.get(i));
+    }
+    return list;
   }
   
   /**
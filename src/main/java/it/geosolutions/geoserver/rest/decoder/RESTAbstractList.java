@@ -97,12 +97,19 @@ public class RESTAbstractList<ELEM extends NameLinkElem> implements Iterable<ELE
   
   public List<String> getNames() {
     List<String> names = new ArrayList<String>(elementList.size());
-    for (ELEM elem : this) {
-      names.add(elem.getName());
+    for (Element elem : elementList) {
+      names.add(elem.getChildText("name"));
     }
     return names;
   }
   
+  /**
+   * Extracts the names and links of the items into a {@link RESTCompactList}, which does not retain the XML of this list.
+   */
+  public RESTCompactList compact() {
+    return new RESTCompactList(elementList);
+  }
+  
   private class RESTAbstractListIterator extends JDOMListIterator<ELEM> {
     
     public RESTAbstractListIterator(List<Element> orig) {
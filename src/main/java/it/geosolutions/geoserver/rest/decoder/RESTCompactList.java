@@ -0,0 +1,215 @@
+/*
+ *  GeoServer-Manager - Simple Manager Library for GeoServer
+ *  
+ *  Copyright (C) 2007,2016 GeoSolutions S.A.S.
+ *  http://www.geo-solutions.it
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package it.geosolutions.geoserver.rest.decoder;
+
+import it.geosolutions.geoserver.rest.decoder.utils.JDOMBuilder;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import org.jdom.Element;
+import org.jdom.Namespace;
+
+/**
+ * Compact form of a list of summary data, such as the layers, styles or workspaces listings: the names and the links of the items are extracted
+ * once into flat arrays and the XML is not retained, so that large listings take a fraction of the memory of a {@link RESTAbstractList} and can be
+ * walked by index without creating any object.
+ * 
+ * <P>
+ * This is the XML REST representation:
+ * 
+ * <PRE>
+ *   {@code
+ * <ELEMENTs>
+ *       <ELEMENT>
+ *         <name>elem1</name>
+ *         <atom:link xmlns:atom="http://www.w3.org/2005/Atom" rel="alternate" href="url1" type="application/xml"/>
+ *       </ELEMENT>
+ * </ELEMENTs>
+ * }
+ * </PRE>
+ * 
+ * @see it.geosolutions.geoserver.rest.decoder.utils.CompactListResponseHandler
+ */
+public class RESTCompactList implements Iterable<String> {
+  
+  private static final Namespace ATOM = Namespace.getNamespace("atom", "http://www.w3.org/2005/Atom");
+  
+  private final String itemName;
+  
+  private final String[] names;
+  
+  private final String[] links;
+  
+  /**
+   * @param itemName
+   *          the name of the XML element of the items, e.g. <TT>layer</TT>; <TT>null</TT> if the list is empty
+   * @param names
+   *          the names of the items
+   * @param links
+   *          the <TT>href</TT> of the links of the items, with the same length as <TT>names</TT>; entries may be <TT>null</TT>
+   */
+  public RESTCompactList(String itemName, String[] names, String[] links) {
+    if (names == null || links == null || names.length != links.length) {
+      throw new IllegalArgumentException("Names and links must be arrays of the same length");
+    }
+    this.itemName = itemName;
+    this.names = names;
+    this.links = links;
+  }
+  
+  public static RESTCompactList build(String response) {
+    if (response == null) return null;
+    
+    Element elem = JDOMBuilder.buildElement(response);
+    return elem == null ? null : new RESTCompactList(elem);
+  }
+  
+  public static RESTCompactList build(Element elem) {
+    return elem == null ? null : new RESTCompactList(elem);
+  }
+  
+  @SuppressWarnings("unchecked")
+  protected RESTCompactList(Element list) {
+    this((List<Element>) list.getChildren());
+  }
+  
+  /**
+   * Extracts the names and links of the given items.
+   */
+  RESTCompactList(List<Element> items) {
+    names = new String[items.size()];
+    links = new String[items.size()];
+    String baseName = null;
+    int i = 0;
+    for (Element listItem : items) {
+      if (baseName == null) baseName = listItem.getName();
+      else if (!baseName.equals(listItem.getName())) {
+        throw new RuntimeException("List elements mismatching (" + baseName + "," + listItem.getName() + ")");
+      }
+      names[i] = listItem.getChildText("name");
+      Element link = listItem.getChild("link", ATOM);
+      links[i] = link != null ? link.getAttributeValue("href") : null;
+      i++;
+    }
+    itemName = baseName;
+  }
+  
+  /**
+   * @return the name of the XML element of the items, e.g. <TT>layer</TT>, or <TT>null</TT> if the list is empty
+   */
+  public String getItemName() {
+    return itemName;
+  }
+  
+  public int size() {
+    return names.length;
+  }
+  
+  public boolean isEmpty() {
+    return names.length == 0;
+  }
+  
+  public String getName(int index) {
+    return names[index];
+  }
+  
+  /**
+   * @return the <TT>href</TT> of the link of the item, or <TT>null</TT> if it has none
+   */
+  public String getLink(int index) {
+    return links[index];
+  }
+  
+  /**
+   * @return the index of the first item with the given name, or -1 if there is none
+   */
+  public int indexOf(String name) {
+    for (int i = 0; i < names.length; i++) {
+      if (names[i] != null && names[i].equals(name)) return i;
+    }
+    return -1;
+  }
+  
+  public boolean contains(String name) {
+    return indexOf(name) >= 0;
+  }
+  
+  /**
+   * @return an unmodifiable view of the names, backed by this list
+   */
+  public List<String> getNames() {
+    return new AbstractList<String>() {
+      @Override
+      public String get(int index) {
+        return names[index];
+      }
+      
+      @Override
+      public int size() {
+        return names.length;
+      }
+    };
+  }
+  
+  /**
+   * @return a copy of the names of the items, in order
+   */
+  public String[] getNameArray() {
+    return names.clone();
+  }
+  
+  /**
+   * Iterates over the names of the items.
+   */
+  public Iterator<String> iterator() {
+    return new Iterator<String>() {
+      private int next;
+      
+      public boolean hasNext() {
+        return next < names.length;
+      }
+      
+      public String next() {
+        if (next >= names.length) throw new NoSuchElementException();
+        return names[next++];
+      }
+      
+      public void remove() {
+        throw new UnsupportedOperationException("Not supported.");
+      }
+    };
+  }
+  
+  @Override
+  public String toString() {
+    List<String> shown = new ArrayList<String>(getNames().subList(0, Math.min(names.length, 10)));
+    return "RESTCompactList [itemName=" + itemName + ", size=" + names.length + ", names=" + shown + (names.length > 10 ? "..." : "") + "]";
+  }
+}
@@ -160,6 +160,10 @@ public class RESTCoverage extends RESTResource {
     return elem == null ? null : new RESTCoverage(elem);
   }
   
+  public static RESTCoverage build(Element elem) {
+    return elem == null ? null : new RESTCoverage(elem);
+  }
+  
   public RESTCoverage(Element resource) {
     super(resource);
   }
@@ -168,6 +172,14 @@ public class RESTCoverage extends RESTResource {
     super(resource.rootElem);
   }
   
+  /**
+   * Decodes this coverage into an immutable snapshot, which does not retain the XML.
+   */
+  @Override
+  public RESTCoverageSnapshot snapshot() {
+    return new RESTCoverageSnapshot(rootElem);
+  }
+  
   // public String getName() {
   // return rootElem.getChildText("name");
   // }
@@ -60,6 +60,10 @@ public class RESTCoverageList extends RESTAbstractList<NameLinkElem> {
     return elem == null ? null : new RESTCoverageList(elem);
   }
   
+  public static RESTCoverageList build(Element elem) {
+    return elem == null ? null : new RESTCoverageList(elem);
+  }
+  
   protected RESTCoverageList(Element list) {
     super(list);
   }
@@ -0,0 +1,84 @@
+/*
+ *  GeoServer-Manager - Simple Manager Library for GeoServer
+ *  
+ *  Copyright (C) 2007,2016 GeoSolutions S.A.S.
+ *  http://www.geo-solutions.it
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package it.geosolutions.geoserver.rest.decoder;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.jdom.Element;
+
+/**
+ * Immutable snapshot of a coverage, decoded once from the representation read by {@link RESTCoverage}; the parameters are kept as a map.
+ * 
+ * @see RESTCoverage#snapshot()
+ */
+public class RESTCoverageSnapshot extends RESTResourceSnapshot {
+  
+  private final String nativeCoverageName;
+  
+  private final String nativeFormat;
+  
+  private final Map<String, String> parameters;
+  
+  @SuppressWarnings("unchecked")
+  protected RESTCoverageSnapshot(Element coverage) {
+    super(coverage);
+    nativeCoverageName = coverage.getChildText("nativeCoverageName");
+    nativeFormat = coverage.getChildText("nativeFormat");
+    Map<String, String> params = new LinkedHashMap<String, String>();
+    Element paramsRoot = coverage.getChild("parameters");
+    if (paramsRoot != null) {
+      for (Element param : (List<Element>) paramsRoot.getChildren()) {
+        List<Element> values = param.getChildren();
+        if (values.size() == 2) {
+          params.put(values.get(0).getValue(), values.get(1).getValue());
+        }
+      }
+    }
+    parameters = Collections.unmodifiableMap(params);
+  }
+  
+  public static RESTCoverageSnapshot build(Element elem) {
+    return elem == null ? null : new RESTCoverageSnapshot(elem);
+  }
+  
+  public String getNativeCoverageName() {
+    return nativeCoverageName;
+  }
+  
+  public String getNativeFormat() {
+    return nativeFormat;
+  }
+  
+  /**
+   * @return the unmodifiable parameters of the coverage, by name
+   */
+  public Map<String, String> getParameters() {
+    return parameters;
+  }
+}
@@ -74,6 +74,10 @@ public class RESTCoverageStore {
     else return null;
   }
   
+  public static RESTCoverageStore build(Element elem) {
+    return elem == null ? null : new RESTCoverageStore(elem);
+  }
+  
   public String getName() {
     return cs.getChildText("name");
   }
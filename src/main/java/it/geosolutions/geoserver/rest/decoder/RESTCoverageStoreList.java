@@ -59,6 +59,10 @@ public class RESTCoverageStoreList extends RESTAbstractList<NameLinkElem> {
     return elem == null ? null : new RESTCoverageStoreList(elem);
   }
   
+  public static RESTCoverageStoreList build(Element elem) {
+    return elem == null ? null : new RESTCoverageStoreList(elem);
+  }
+  
   protected RESTCoverageStoreList(Element list) {
     super(list);
   }
@@ -105,10 +105,21 @@ public class RESTDataStore {
     }
   }
   
+  public static RESTDataStore build(Element elem) {
+    return elem == null ? null : new RESTDataStore(elem);
+  }
+  
   protected RESTDataStore(Element dsElem) {
     this.dsElem = dsElem;
   }
   
+  /**
+   * Decodes this datastore into an immutable snapshot, which does not retain the XML.
+   */
+  public RESTDataStoreSnapshot snapshot() {
+    return new RESTDataStoreSnapshot(dsElem);
+  }
+  
   public String getName() {
     return dsElem.getChildText("name");
   }
@@ -42,6 +42,10 @@ public class RESTDataStoreList extends RESTAbstractList<NameLinkElem> {
     return elem == null ? null : new RESTDataStoreList(elem);
   }
   
+  public static RESTDataStoreList build(Element elem) {
+    return elem == null ? null : new RESTDataStoreList(elem);
+  }
+  
   protected RESTDataStoreList(Element list) {
     super(list);
   }
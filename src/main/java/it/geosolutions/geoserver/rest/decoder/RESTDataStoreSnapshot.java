@@ -0,0 +1,129 @@
+/*
+ *  GeoServer-Manager - Simple Manager Library for GeoServer
+ *  
+ *  Copyright (C) 2007,2016 GeoSolutions S.A.S.
+ *  http://www.geo-solutions.it
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package it.geosolutions.geoserver.rest.decoder;
+
+import it.geosolutions.geoserver.rest.decoder.RESTDataStore.DBType;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.jdom.Element;
+
+/**
+ * Immutable snapshot of a datastore, decoded once from the representation read by {@link RESTDataStore}; the connection parameters are kept as a
+ * map and the XML is not retained.
+ * 
+ * @see RESTDataStore#snapshot()
+ */
+public class RESTDataStoreSnapshot {
+  
+  private final String name;
+  
+  private final String storeType;
+  
+  private final String description;
+  
+  private final boolean enabled;
+  
+  private final String workspaceName;
+  
+  private final Map<String, String> connectionParameters;
+  
+  @SuppressWarnings("unchecked")
+  protected RESTDataStoreSnapshot(Element dataStore) {
+    String name = null, storeType = null, description = null, workspaceName = null;
+    boolean enabled = false;
+    Map<String, String> params = null;
+    for (Element child : (List<Element>) dataStore.getChildren()) {
+      String tag = child.getName();
+      if (tag.equals("name")) {
+        name = child.getText();
+      } else if (tag.equals("type")) {
+        storeType = child.getText();
+      } else if (tag.equals("description")) {
+        description = child.getText();
+      } else if (tag.equals("enabled")) {
+        enabled = Boolean.parseBoolean(child.getText());
+      } else if (tag.equals("workspace")) {
+        workspaceName = child.getChildText("name");
+      } else if (tag.equals("connectionParameters")) {
+        params = new LinkedHashMap<String, String>();
+        for (Element entry : (List<Element>) child.getChildren("entry")) {
+          params.put(entry.getAttributeValue("key"), entry.getTextTrim());
+        }
+        params = Collections.unmodifiableMap(params);
+      }
+    }
+    this.name = name;
+    this.storeType = storeType;
+    this.description = description;
+    this.enabled = enabled;
+    this.workspaceName = workspaceName;
+    this.connectionParameters = params;
+  }
+  
+  public static RESTDataStoreSnapshot build(Element elem) {
+    return elem == null ? null : new RESTDataStoreSnapshot(elem);
+  }
+  
+  public String getName() {
+    return name;
+  }
+  
+  public String getStoreType() {
+    return storeType;
+  }
+  
+  public String getDescription() {
+    return description;
+  }
+  
+  public boolean isEnabled() {
+    return enabled;
+  }
+  
+  public String getWorkspaceName() {
+    return workspaceName;
+  }
+  
+  /**
+   * @return the unmodifiable connection parameters, or <TT>null</TT> if the datastore has none
+   */
+  public Map<String, String> getConnectionParameters() {
+    return connectionParameters;
+  }
+  
+  public DBType getType() {
+    return DBType.get(connectionParameters == null ? null : connectionParameters.get("dbtype"));
+  }
+  
+  @Override
+  public String toString() {
+    return "RESTDataStoreSnapshot [name=" + name + ", workspace=" + workspaceName + ", type=" + storeType + ", enabled=" + enabled + "]";
+  }
+}
@@ -168,6 +168,10 @@ public class RESTFeatureType extends RESTResource {
     return elem == null ? null : new RESTFeatureType(elem);
   }
   
+  public static RESTFeatureType build(Element elem) {
+    return elem == null ? null : new RESTFeatureType(elem);
+  }
+  
   public RESTFeatureType(Element resource) {
     super(resource);
   }
@@ -176,6 +180,14 @@ public class RESTFeatureType extends RESTResource {
     super(resource.rootElem);
   }
   
+  /**
+   * Decodes this feature type into an immutable snapshot, which does not retain the XML.
+   */
+  @Override
+  public RESTFeatureTypeSnapshot snapshot() {
+    return new RESTFeatureTypeSnapshot(rootElem);
+  }
+  
   // public String getName() {
   // return rootElem.getChildText("name");
   // }
@@ -57,6 +57,10 @@ public class RESTFeatureTypeList extends RESTAbstractList<NameLinkElem> {
     return elem == null ? null : new RESTFeatureTypeList(elem);
   }
   
+  public static RESTFeatureTypeList build(Element elem) {
+    return elem == null ? null : new RESTFeatureTypeList(elem);
+  }
+  
   protected RESTFeatureTypeList(Element list) {
     super(list);
   }
@@ -0,0 +1,101 @@
+/*
+ *  GeoServer-Manager - Simple Manager Library for GeoServer
+ *  
+ *  Copyright (C) 2007,2016 GeoSolutions S.A.S.
+ *  http://www.geo-solutions.it
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package it.geosolutions.geoserver.rest.decoder;
+
+import it.geosolutions.geoserver.rest.encoder.feature.FeatureTypeAttribute;
+
+import java.util.List;
+
+import org.jdom.Element;
+
+/**
+ * Immutable snapshot of a feature type, decoded once from the representation read by {@link RESTFeatureType}; the properties of the attributes
+ * are kept as arrays, one per {@link FeatureTypeAttribute}.
+ * 
+ * @see RESTFeatureType#snapshot()
+ */
+public class RESTFeatureTypeSnapshot extends RESTResourceSnapshot {
+  
+  private static final FeatureTypeAttribute[] PROPERTIES = FeatureTypeAttribute.values();
+  
+  /** The properties of the attributes, indexed by property ordinal and then by attribute */
+  private final String[][] attributes;
+  
+  @SuppressWarnings("unchecked")
+  protected RESTFeatureTypeSnapshot(Element featureType) {
+    super(featureType);
+    Element attrsRoot = featureType.getChild("attributes");
+    List<Element> attrs = attrsRoot != null ? (List<Element>) attrsRoot.getChildren() : null;
+    int count = attrs != null ? attrs.size() : 0;
+    attributes = new String[PROPERTIES.length][count];
+    for (int i = 0; i < count; i++) {
+      for (Element property : (List<Element>) attrs.get(i).getChildren()) {
+        for (FeatureTypeAttribute known : PROPERTIES) {
+          if (known.name().equals(property.getName())) {
+            attributes[known.ordinal()][i] = property.getText();
+            break;
+          }
+        }
+      }
+    }
+  }
+  
+  public static RESTFeatureTypeSnapshot build(Element elem) {
+    return elem == null ? null : new RESTFeatureTypeSnapshot(elem);
+  }
+  
+  public int getAttributeCount() {
+    return attributes[0].length;
+  }
+  
+  /**
+   * @return the given property of the attribute at the given index, or <TT>null</TT> if it is not set
+   */
+  public String getAttribute(int index, FeatureTypeAttribute property) {
+    return attributes[property.ordinal()][index];
+  }
+  
+  /**
+   * @return a copy of the given property of all the attributes, in order
+   */
+  public String[] getAttributes(FeatureTypeAttribute property) {
+    return attributes[property.ordinal()].clone();
+  }
+  
+  /**
+   * @return a copy of the names of the attributes, in order
+   */
+  public String[] getAttributeNames() {
+    return getAttributes(FeatureTypeAttribute.name);
+  }
+  
+  /**
+   * @return a copy of the bindings of the attributes, in order
+   */
+  public String[] getAttributeBindings() {
+    return getAttributes(FeatureTypeAttribute.binding);
+  }
+}
@@ -118,10 +118,21 @@ public class RESTLayer {
     else return null;
   }
   
+  public static RESTLayer build(Element elem) {
+    return elem == null ? null : new RESTLayer(elem);
+  }
+  
   public RESTLayer(Element layerElem) {
     this.layerElem = layerElem;
   }
   
+  /**
+   * Decodes this layer into an immutable snapshot, which does not retain the XML.
+   */
+  public RESTLayerSnapshot snapshot() {
+    return new RESTLayerSnapshot(layerElem, getAdvertised());
+  }
+  
   public boolean getEnabled() {
     return Boolean.parseBoolean(layerElem.getChildText("enabled"));
   }
@@ -165,6 +176,16 @@ public class RESTLayer {
     return defaultStyle == null ? null : defaultStyle.getChildText("workspace");
   }
   
+  /**
+   * Get the URL to retrieve the default style, or <TT>null</TT> if the layer has no default style or the link is missing.
+   */
+  public String getDefaultStyleUrl() {
+    Element defaultStyle = layerElem.getChild("defaultStyle");
+    if (defaultStyle == null) return null;
+    Element atom = defaultStyle.getChild("link", Namespace.getNamespace("atom", "http://www.w3.org/2005/Atom"));
+    return atom == null ? null : atom.getAttributeValue("href");
+  }
+  
   public String getTitle() {
     Element resource = layerElem.getChild("resource");
     return resource.getChildText("title");
@@ -65,6 +65,10 @@ public class RESTLayer21 extends RESTLayer {
     else return null;
   }
   
+  public static RESTLayer21 build(Element elem) {
+    return elem == null ? null : new RESTLayer21(elem);
+  }
+  
   /**
    * Decodes the advertised property from the Geoserver Layer
    * 
@@ -88,6 +88,10 @@ public class RESTLayerGroup {
     return elem == null ? null : new RESTLayerGroup(elem);
   }
   
+  public static RESTLayerGroup build(Element elem) {
+    return elem == null ? null : new RESTLayerGroup(elem);
+  }
+  
   public RESTLayerGroup(Element layerElem) {
     this.rootElem = layerElem;
   }
@@ -64,6 +64,10 @@ public class RESTLayerGroupList extends RESTAbstractList<NameLinkElem> {
     return elem == null ? null : new RESTLayerGroupList(elem);
   }
   
+  public static RESTLayerGroupList build(Element elem) {
+    return elem == null ? null : new RESTLayerGroupList(elem);
+  }
+  
   protected RESTLayerGroupList(Element list) {
     super(list);
   }
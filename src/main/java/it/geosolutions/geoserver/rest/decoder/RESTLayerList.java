@@ -59,6 +59,10 @@ public class RESTLayerList extends RESTAbstractList<NameLinkElem> {
     return elem == null ? null : new RESTLayerList(elem);
   }
   
+  public static RESTLayerList build(Element elem) {
+    return elem == null ? null : new RESTLayerList(elem);
+  }
+  
   protected RESTLayerList(Element list) {
     super(list);
   }
@@ -0,0 +1,209 @@
+/*
+ *  GeoServer-Manager - Simple Manager Library for GeoServer
+ *  
+ *  Copyright (C) 2007,2016 GeoSolutions S.A.S.
+ *  http://www.geo-solutions.it
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package it.geosolutions.geoserver.rest.decoder;
+
+import it.geosolutions.geoserver.rest.decoder.RESTLayer.Type;
+
+import java.util.List;
+
+import org.jdom.Element;
+
+/**
+ * Immutable snapshot of a layer, decoded once from the representation read by {@link RESTLayer}. Unlike the decoder, the snapshot does not retain
+ * the XML: all the properties are extracted in a single pass, the styles as an array of names.
+ * 
+ * @see RESTLayer#snapshot()
+ */
+public class RESTLayerSnapshot {
+  
+  private final String name;
+  
+  private final String typeString;
+  
+  private final boolean enabled;
+  
+  private final boolean queryable;
+  
+  private final boolean advertised;
+  
+  private final String defaultStyle;
+  
+  private final String defaultStyleWorkspace;
+  
+  private final String defaultStyleUrl;
+  
+  private final String[] styles;
+  
+  private final String resourceName;
+  
+  private final String resourceClass;
+  
+  private final String resourceUrl;
+  
+  private final String title;
+  
+  private final String abstrct;
+  
+  private final String nameSpace;
+  
+  /**
+   * @param layer
+   *          the layer element
+   * @param advertised
+   *          whether the layer is advertised, which is encoded differently by the GeoServer versions
+   */
+  @SuppressWarnings("unchecked")
+  protected RESTLayerSnapshot(Element layer, boolean advertised) {
+    String name = null, typeString = null, defaultStyle = null, defaultStyleWorkspace = null, defaultStyleUrl = null;
+    String resourceName = null, resourceClass = null, resourceUrl = null, title = null, abstrct = null, nameSpace = null;
+    boolean enabled = false, queryable = false;
+    String[] styles = null;
+    for (Element child : (List<Element>) layer.getChildren()) {
+      String tag = child.getName();
+      if (tag.equals("name")) {
+        name = child.getText();
+      } else if (tag.equals("type")) {
+        typeString = child.getText();
+      } else if (tag.equals("enabled")) {
+        enabled = Boolean.parseBoolean(child.getText());
+      } else if (tag.equals("queryable")) {
+        queryable = Boolean.parseBoolean(child.getText());
+      } else if (tag.equals("defaultStyle")) {
+        defaultStyle = child.getChildText("name");
+        defaultStyleWorkspace = child.getChildText("workspace");
+        defaultStyleUrl = RESTResourceSnapshot.link(child);
+      } else if (tag.equals("styles")) {
+        List<Element> items = child.getChildren();
+        styles = new String[items.size()];
+        for (int i = 0; i < styles.length; i++) {
+          styles[i] = items.get(i).getChildText("name");
+        }
+      } else if (tag.equals("resource")) {
+        resourceName = child.getChildText("name");
+        resourceClass = child.getAttributeValue("class");
+        resourceUrl = RESTResourceSnapshot.link(child);
+        title = child.getChildText("title");
+        abstrct = child.getChildText("abstract");
+        Element namespace = child.getChild("namespace");
+        nameSpace = namespace == null ? null : namespace.getChildText("name");
+      }
+    }
+    this.name = name;
+    this.typeString = typeString;
+    this.enabled = enabled;
+    this.queryable = queryable;
+    this.advertised = advertised;
+    this.defaultStyle = defaultStyle;
+    this.defaultStyleWorkspace = defaultStyleWorkspace;
+    this.defaultStyleUrl = defaultStyleUrl;
+    this.styles = styles;
+    this.resourceName = resourceName;
+    this.resourceClass = resourceClass;
+    this.resourceUrl = resourceUrl;
+    this.title = title;
+    this.abstrct = abstrct;
+    this.nameSpace = nameSpace;
+  }
+  
+  public static RESTLayerSnapshot build(Element elem) {
+    return elem == null ? null : new RESTLayerSnapshot(elem, Boolean.parseBoolean(elem.getChildText("advertised")));
+  }
+  
+  public String getName() {
+    return name;
+  }
+  
+  public String getTypeString() {
+    return typeString;
+  }
+  
+  public Type getType() {
+    return Type.get(typeString);
+  }
+  
+  public boolean getEnabled() {
+    return enabled;
+  }
+  
+  public boolean getQueryable() {
+    return queryable;
+  }
+  
+  public boolean getAdvertised() {
+    return advertised;
+  }
+  
+  public String getDefaultStyle() {
+    return defaultStyle;
+  }
+  
+  public String getDefaultStyleWorkspace() {
+    return defaultStyleWorkspace;
+  }
+  
+  public String getDefaultStyleUrl() {
+    return defaultStyleUrl;
+  }
+  
+  /**
+   * @return a copy of the names of the styles of the layer, or <TT>null</TT> if it has no <TT>styles</TT> element
+   */
+  public String[] getStyles() {
+    return styles == null ? null : styles.clone();
+  }
+  
+  public String getResourceName() {
+    return resourceName;
+  }
+  
+  /**
+   * @return the class of the resource, <TT>featureType</TT> or <TT>coverage</TT>
+   */
+  public String getResourceClass() {
+    return resourceClass;
+  }
+  
+  public String getResourceUrl() {
+    return resourceUrl;
+  }
+  
+  public String getTitle() {
+    return title;
+  }
+  
+  public String getAbstract() {
+    return abstrct;
+  }
+  
+  public String getNameSpace() {
+    return nameSpace;
+  }
+  
+  @Override
+  public String toString() {
+    return "RESTLayerSnapshot [name=" + name + ", type=" + typeString + ", defaultStyle=" + defaultStyle + ", resource=" + resourceName + "]";
+  }
+}
@@ -72,6 +72,10 @@ public class RESTNamespace {
     else return null;
   }
   
+  public static RESTNamespace build(Element elem) {
+    return elem == null ? null : new RESTNamespace(elem);
+  }
+  
   /**
    * Create a RESTNamespace from a XML element.
    * 
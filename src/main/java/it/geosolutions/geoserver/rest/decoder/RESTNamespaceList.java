@@ -52,6 +52,10 @@ public class RESTNamespaceList implements Iterable<RESTNamespaceList.RESTShortNa
     else return null;
   }
   
+  public static RESTNamespaceList build(Element elem) {
+    return elem == null ? null : new RESTNamespaceList(elem);
+  }
+  
   @SuppressWarnings("unchecked")
   protected RESTNamespaceList(Element wslistroot) {
     List<Element> tmpList = new ArrayList<Element>();
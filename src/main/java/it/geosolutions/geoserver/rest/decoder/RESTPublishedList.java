@@ -58,6 +58,10 @@ public class RESTPublishedList extends RESTAbstractList<RESTPublished> {
     return elem == null ? null : new RESTPublishedList(elem);
   }
   
+  public static RESTPublishedList build(Element elem) {
+    return elem == null ? null : new RESTPublishedList(elem);
+  }
+  
   protected RESTPublishedList(Element list) {
     super(list);
   }
@@ -55,10 +55,21 @@ public class RESTResource {
     return elem == null ? null : new RESTCoverage(elem);
   }
   
+  public static RESTResource build(Element elem) {
+    return elem == null ? null : new RESTCoverage(elem);
+  }
+  
   public RESTResource(Element resource) {
     this.rootElem = resource;
   }
   
+  /**
+   * Decodes this resource into an immutable snapshot, which does not retain the XML.
+   */
+  public RESTResourceSnapshot snapshot() {
+    return new RESTResourceSnapshot(rootElem);
+  }
+  
   public String getName() {
     return rootElem.getChildText("name");
   }
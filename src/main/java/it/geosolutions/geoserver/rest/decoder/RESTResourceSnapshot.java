@@ -0,0 +1,288 @@
+/*
+ *  GeoServer-Manager - Simple Manager Library for GeoServer
+ *  
+ *  Copyright (C) 2007,2016 GeoSolutions S.A.S.
+ *  http://www.geo-solutions.it
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package it.geosolutions.geoserver.rest.decoder;
+
+import java.util.List;
+
+import org.jdom.Element;
+import org.jdom.Namespace;
+
+/**
+ * Immutable snapshot of a resource (a feature type or a coverage), decoded once from the REST representation read by {@link RESTResource}. Unlike
+ * the decoder, the snapshot does not retain the XML: all the properties are extracted in a single pass, the bounding boxes as <TT>double</TT>s, so
+ * that many snapshots can be kept in memory and read without walking the document again.
+ * 
+ * @see RESTResource#snapshot()
+ */
+public class RESTResourceSnapshot {
+  
+  static final Namespace ATOM = Namespace.getNamespace("atom", "http://www.w3.org/2005/Atom");
+  
+  private final String name;
+  
+  private final String nativeName;
+  
+  private final String title;
+  
+  private final String abstrct;
+  
+  private final String[] keywords;
+  
+  private final String nameSpace;
+  
+  private final String storeName;
+  
+  private final String storeType;
+  
+  private final String storeUrl;
+  
+  private final String nativeCRS;
+  
+  private final String srs;
+  
+  private final boolean enabled;
+  
+  private final BoundingBox nativeBoundingBox;
+  
+  private final BoundingBox latLonBoundingBox;
+  
+  @SuppressWarnings("unchecked")
+  protected RESTResourceSnapshot(Element resource) {
+    String name = null, nativeName = null, title = null, abstrct = null, nameSpace = null, storeName = null, storeType = null, storeUrl = null;
+    String nativeCRS = null, srs = null;
+    String[] keywords = null;
+    boolean enabled = false;
+    BoundingBox nativeBoundingBox = null, latLonBoundingBox = null;
+    for (Element child : (List<Element>) resource.getChildren()) {
+      String tag = child.getName();
+      if (tag.equals("name")) {
+        name = child.getText();
+      } else if (tag.equals("nativeName")) {
+        nativeName = child.getText();
+      } else if (tag.equals("title")) {
+        title = child.getText();
+      } else if (tag.equals("abstract")) {
+        abstrct = child.getText();
+      } else if (tag.equals("keywords")) {
+        List<Element> items = child.getChildren();
+        keywords = new String[items.size()];
+        for (int i = 0; i < keywords.length; i++) {
+          keywords[i] = items.get(i).getValue();
+        }
+      } else if (tag.equals("namespace")) {
+        nameSpace = child.getChildText("name");
+      } else if (tag.equals("store")) {
+        storeName = child.getChildText("name");
+        storeType = child.getAttributeValue("class");
+        storeUrl = link(child);
+      } else if (tag.equals("nativeCRS")) {
+        nativeCRS = child.getText();
+      } else if (tag.equals("srs")) {
+        srs = child.getText();
+      } else if (tag.equals("enabled")) {
+        enabled = Boolean.parseBoolean(child.getText());
+      } else if (tag.equals("nativeBoundingBox")) {
+        nativeBoundingBox = new BoundingBox(child);
+      } else if (tag.equals("latLonBoundingBox")) {
+        latLonBoundingBox = new BoundingBox(child);
+      }
+    }
+    this.name = name;
+    this.nativeName = nativeName;
+    this.title = title;
+    this.abstrct = abstrct;
+    this.keywords = keywords;
+    this.nameSpace = nameSpace;
+    this.storeName = storeName;
+    this.storeType = storeType;
+    this.storeUrl = storeUrl;
+    this.nativeCRS = nativeCRS;
+    this.srs = srs;
+    this.enabled = enabled;
+    this.nativeBoundingBox = nativeBoundingBox;
+    this.latLonBoundingBox = latLonBoundingBox;
+  }
+  
+  public static RESTResourceSnapshot build(Element elem) {
+    return elem == null ? null : new RESTResourceSnapshot(elem);
+  }
+  
+  /**
+   * @return the <TT>href</TT> of the atom link of the given element, or <TT>null</TT>
+   */
+  static String link(Element elem) {
+    Element atom = elem.getChild("link", ATOM);
+    return atom == null ? null : atom.getAttributeValue("href");
+  }
+  
+  public String getName() {
+    return name;
+  }
+  
+  public String getNativeName() {
+    return nativeName;
+  }
+  
+  public String getTitle() {
+    return title;
+  }
+  
+  public String getAbstract() {
+    return abstrct;
+  }
+  
+  /**
+   * @return a copy of the keywords, or <TT>null</TT> if the resource has none
+   */
+  public String[] getKeywords() {
+    return keywords == null ? null : keywords.clone();
+  }
+  
+  public String getNameSpace() {
+    return nameSpace;
+  }
+  
+  public String getStoreName() {
+    return storeName;
+  }
+  
+  public String getStoreType() {
+    return storeType;
+  }
+  
+  public String getStoreUrl() {
+    return storeUrl;
+  }
+  
+  public String getNativeCRS() {
+    return nativeCRS;
+  }
+  
+  public String getSRS() {
+    return srs;
+  }
+  
+  public boolean isEnabled() {
+    return enabled;
+  }
+  
+  /**
+   * @return the native bounding box, or <TT>null</TT> if the resource has none
+   */
+  public BoundingBox getNativeBoundingBox() {
+    return nativeBoundingBox;
+  }
+  
+  /**
+   * @return the lat/lon bounding box, or <TT>null</TT> if the resource has none
+   */
+  public BoundingBox getLatLonBoundingBox() {
+    return latLonBoundingBox;
+  }
+  
+  @Override
+  public String toString() {
+    return getClass().getSimpleName() + " [name=" + name + ", nameSpace=" + nameSpace + ", store=" + storeName + ", srs=" + srs + ", latLonBoundingBox="
+        + latLonBoundingBox + "]";
+  }
+  
+  /**
+   * Immutable bounding box, with its edges parsed once.
+   */
+  public static final class BoundingBox {
+    
+    private final String crs;
+    
+    private final double minX;
+    
+    private final double maxX;
+    
+    private final double minY;
+    
+    private final double maxY;
+    
+    public BoundingBox(String crs, double minX, double maxX, double minY, double maxY) {
+      this.crs = crs;
+      this.minX = minX;
+      this.maxX = maxX;
+      this.minY = minY;
+      this.maxY = maxY;
+    }
+    
+    BoundingBox(Element bbox) {
+      this(bbox.getChildText("crs"), edge(bbox, "minx"), edge(bbox, "maxx"), edge(bbox, "miny"), edge(bbox, "maxy"));
+    }
+    
+    private static double edge(Element bbox, String edge) {
+      String text = bbox.getChildText(edge);
+      return text == null ? Double.NaN : Double.parseDouble(text);
+    }
+    
+    public String getCRS() {
+      return crs;
+    }
+    
+    public double getMinX() {
+      return minX;
+    }
+    
+    public double getMaxX() {
+      return maxX;
+    }
+    
+    public double getMinY() {
+      return minY;
+    }
+    
+    public double getMaxY() {
+      return maxY;
+    }
+    
+    @Override
+    public boolean equals(Object obj) {
+      if (this == obj) return true;
+      if (!(obj instanceof BoundingBox)) return false;
+      BoundingBox other = (BoundingBox) obj;
+      return (crs == null ? other.crs == null : crs.equals(other.crs)) && Double.compare(minX, other.minX) == 0 && Double.compare(maxX, other.maxX) == 0
+          && Double.compare(minY, other.minY) == 0 && Double.compare(maxY, other.maxY) == 0;
+    }
+    
+    @Override
+    public int hashCode() {
+      int hash = crs == null ? 0 : crs.hashCode();
+      long[] edges = { Double.doubleToLongBits(minX), Double.doubleToLongBits(maxX), Double.doubleToLongBits(minY), Double.doubleToLongBits(maxY) };
+      for (long edge : edges) {
+        hash = 31 * hash + (int) (edge ^ (edge >>> 32));
+      }
+      return hash;
+    }
+    
+    @Override
+    public String toString() {
+      return "[" + minX + "," + minY + " " + maxX + "," + maxY + " " + crs + "]";
+    }
+  }
+}
@@ -0,0 +1,459 @@
+/*
+ *  GeoServer-Manager - Simple Manager Library for GeoServer
+ *  
+ *  Copyright (C) 2007,2016 GeoSolutions S.A.S.
+ *  http://www.geo-solutions.it
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package it.geosolutions.geoserver.rest.decoder;
+
+import it.geosolutions.geoserver.rest.decoder.RESTStructuredCoverageGranulesList.GranuleHandler;
+import it.geosolutions.geoserver.rest.decoder.RESTStructuredCoverageGranulesList.RESTStructuredCoverageGranule;
+import it.geosolutions.geoserver.rest.decoder.RESTStructuredCoverageIndexSchema.RESTStructuredCoverageIndexAttribute;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+import org.jdom.Element;
+
+/**
+ * Columnar view of the granules of a structured coverage index: the attributes of the granules are decoded once, according to the bindings of the
+ * {@link RESTStructuredCoverageIndexSchema}, into one primitive array per attribute. Times are kept as epoch milliseconds, integers as
+ * <TT>long</TT> and decimals as <TT>double</TT>, so that analytics over many granules (time ranges, counts per day, ...) run over plain arrays
+ * instead of parsing the text of each granule.
+ * 
+ * <P>
+ * The columns are filled either by handing it the granules as a {@link GranuleHandler}, or directly from the response by
+ * {@link it.geosolutions.geoserver.rest.decoder.utils.GranuleColumnsResponseHandler}, which does not build the granules at all. Geometries are
+ * not decoded.
+ */
+public class RESTStructuredCoverageGranulesColumns implements GranuleHandler {
+  
+  /**
+   * The way the values of an attribute are stored.
+   */
+  public enum ColumnType {
+    /** Dates and timestamps, as epoch milliseconds: {@link RESTStructuredCoverageGranulesColumns#getTime(int, int)} */
+    TIME,
+    /** Integral numbers: {@link RESTStructuredCoverageGranulesColumns#getLong(int, int)} */
+    INTEGER,
+    /** Decimal numbers: {@link RESTStructuredCoverageGranulesColumns#getDouble(int, int)} */
+    DOUBLE,
+    /** Anything else kept as text: {@link RESTStructuredCoverageGranulesColumns#getString(int, int)} */
+    STRING,
+    /** Not decoded, such as geometries */
+    OTHER;
+    
+    /**
+     * @param binding
+     *          the Java binding of an attribute of the index schema
+     * @return the column type storing the values of the attribute
+     */
+    public static ColumnType forBinding(String binding) {
+      if (binding == null) return OTHER;
+      if (binding.equals("java.sql.Timestamp") || binding.equals("java.util.Date") || binding.equals("java.sql.Date")) return TIME;
+      if (binding.equals("java.lang.Integer") || binding.equals("java.lang.Long") || binding.equals("java.lang.Short") || binding.equals("java.lang.Byte")
+          || binding.equals("java.math.BigInteger")) return INTEGER;
+      if (binding.equals("java.lang.Double") || binding.equals("java.lang.Float") || binding.equals("java.math.BigDecimal")) return DOUBLE;
+      if (binding.startsWith("java.lang.") || binding.equals("java.sql.Time")) return STRING;
+      return OTHER;
+    }
+  }
+  
+  private static final int INITIAL_CAPACITY = 64;
+  
+  private final String[] names;
+  
+  private final ColumnType[] types;
+  
+  private final Map<String, Integer> columns;
+  
+  private final long[][] longs;
+  
+  private final double[][] doubles;
+  
+  private final String[][] strings;
+  
+  /** The rows holding a value, per column */
+  private final BitSet[] present;
+  
+  private String[] fids = new String[INITIAL_CAPACITY];
+  
+  private int size;
+  
+  /**
+   * Creates empty columns for the attributes of the given schema.
+   * 
+   * @param schema
+   *          the index schema
+   */
+  public RESTStructuredCoverageGranulesColumns(RESTStructuredCoverageIndexSchema schema) {
+    if (schema == null) throw new IllegalArgumentException("The index schema may not be null");
+    int count = schema.size();
+    names = new String[count];
+    types = new ColumnType[count];
+    columns = new HashMap<String, Integer>(count * 2);
+    longs = new long[count][];
+    doubles = new double[count][];
+    strings = new String[count][];
+    present = new BitSet[count];
+    for (int i = 0; i < count; i++) {
+      RESTStructuredCoverageIndexAttribute attribute = schema.get(i);
+      names[i] = attribute.getName();
+      types[i] = ColumnType.forBinding(attribute.getBinding());
+      columns.put(names[i], i);
+      present[i] = new BitSet();
+      switch (types[i]) {
+      case TIME:
+      case INTEGER:
+        longs[i] = new long[INITIAL_CAPACITY];
+        break;
+      case DOUBLE:
+        doubles[i] = new double[INITIAL_CAPACITY];
+        break;
+      case STRING:
+        strings[i] = new String[INITIAL_CAPACITY];
+        break;
+      default:
+        break;
+      }
+    }
+  }
+  
+  /**
+   * Adds the attributes of a granule as a new row.
+   */
+  @SuppressWarnings("unchecked")
+  public boolean handle(RESTStructuredCoverageGranule granule) {
+    addRow(granule.getFid());
+    for (Iterator<Element> it = granule.getAttributesIterator(); it.hasNext();) {
+      Element attribute = it.next();
+      int column = getColumnIndex(attribute.getName());
+      if (column >= 0) {
+        setValue(column, attribute.getTextTrim());
+      }
+    }
+    return true;
+  }
+  
+  /**
+   * Starts a new row, with no values; meant for the decoders filling the columns.
+   * 
+   * @param fid
+   *          the feature id of the granule
+   * @return the index of the new row
+   */
+  public int addRow(String fid) {
+    if (size == fids.length) {
+      int capacity = size * 2;
+      fids = Arrays.copyOf(fids, capacity);
+      for (int i = 0; i < types.length; i++) {
+        if (longs[i] != null) longs[i] = Arrays.copyOf(longs[i], capacity);
+        if (doubles[i] != null) doubles[i] = Arrays.copyOf(doubles[i], capacity);
+        if (strings[i] != null) strings[i] = Arrays.copyOf(strings[i], capacity);
+      }
+    }
+    fids[size] = fid;
+    return size++;
+  }
+  
+  /**
+   * Sets the value of a column in the last row; meant for the decoders filling the columns. Values that cannot be parsed according to the type of
+   * the column are left null.
+   * 
+   * @param column
+   *          the index of the column
+   * @param text
+   *          the text of the attribute
+   */
+  public void setValue(int column, CharSequence text) {
+    if (size == 0) throw new IllegalStateException("No row to set the value in");
+    if (text == null || text.length() == 0) return;
+    int row = size - 1;
+    try {
+      switch (types[column]) {
+      case TIME:
+        longs[column][row] = parseTime(text);
+        break;
+      case INTEGER:
+        longs[column][row] = parseLong(text);
+        break;
+      case DOUBLE:
+        doubles[column][row] = Double.parseDouble(text.toString());
+        break;
+      case STRING:
+        strings[column][row] = text.toString();
+        break;
+      default:
+        return;
+      }
+      present[column].set(row);
+    } catch (NumberFormatException e) {
+      // not a value of this column: left null
+    }
+  }
+  
+  /**
+   * @return the number of granules
+   */
+  public int size() {
+    return size;
+  }
+  
+  public int getColumnCount() {
+    return names.length;
+  }
+  
+  public String getColumnName(int column) {
+    return names[column];
+  }
+  
+  public ColumnType getColumnType(int column) {
+    return types[column];
+  }
+  
+  /**
+   * @param name
+   *          the name of an attribute of the index schema
+   * @return the index of its column, or -1 if the schema has no such attribute
+   */
+  public int getColumnIndex(String name) {
+    Integer column = columns.get(name);
+    return column != null ? column : -1;
+  }
+  
+  public String getFid(int row) {
+    checkRow(row);
+    return fids[row];
+  }
+  
+  /**
+   * @return whether the granule had no (valid) value for the attribute
+   */
+  public boolean isNull(int column, int row) {
+    checkRow(row);
+    return !present[column].get(row);
+  }
+  
+  /**
+   * @return the value of a {@link ColumnType#TIME} column as epoch milliseconds, 0 if {@link #isNull(int, int) null}
+   */
+  public long getTime(int column, int row) {
+    return longColumn(column, ColumnType.TIME)[checkRow(row)];
+  }
+  
+  /**
+   * @return the value of an {@link ColumnType#INTEGER} column, 0 if {@link #isNull(int, int) null}
+   */
+  public long getLong(int column, int row) {
+    return longColumn(column, ColumnType.INTEGER)[checkRow(row)];
+  }
+  
+  /**
+   * @return the value of a {@link ColumnType#DOUBLE} column, 0 if {@link #isNull(int, int) null}
+   */
+  public double getDouble(int column, int row) {
+    checkType(column, ColumnType.DOUBLE);
+    return doubles[column][checkRow(row)];
+  }
+  
+  /**
+   * @return the value of a {@link ColumnType#STRING} column, <TT>null</TT> if {@link #isNull(int, int) null}
+   */
+  public String getString(int column, int row) {
+    checkType(column, ColumnType.STRING);
+    return strings[column][checkRow(row)];
+  }
+  
+  /**
+   * @return a copy of the values of the given {@link ColumnType#TIME} column, as epoch milliseconds
+   */
+  public long[] getTimes(String name) {
+    return Arrays.copyOf(longColumn(column(name), ColumnType.TIME), size);
+  }
+  
+  /**
+   * @return a copy of the values of the given {@link ColumnType#INTEGER} column
+   */
+  public long[] getLongs(String name) {
+    return Arrays.copyOf(longColumn(column(name), ColumnType.INTEGER), size);
+  }
+  
+  /**
+   * @return a copy of the values of the given {@link ColumnType#DOUBLE} column
+   */
+  public double[] getDoubles(String name) {
+    int column = column(name);
+    checkType(column, ColumnType.DOUBLE);
+    return Arrays.copyOf(doubles[column], size);
+  }
+  
+  /**
+   * @return a copy of the values of the given {@link ColumnType#STRING} column
+   */
+  public String[] getStrings(String name) {
+    int column = column(name);
+    checkType(column, ColumnType.STRING);
+    return Arrays.copyOf(strings[column], size);
+  }
+  
+  private int column(String name) {
+    int column = getColumnIndex(name);
+    if (column < 0) throw new IllegalArgumentException("No such attribute: " + name);
+    return column;
+  }
+  
+  private long[] longColumn(int column, ColumnType type) {
+    checkType(column, type);
+    return longs[column];
+  }
+  
+  private void checkType(int column, ColumnType type) {
+    if (types[column] != type) {
+      throw new IllegalArgumentException("Attribute " + names[column] + " is " + types[column] + ", not " + type);
+    }
+  }
+  
+  private int checkRow(int row) {
+    if (row < 0 || row >= size) throw new IndexOutOfBoundsException("Row " + row + " of " + size);
+    return row;
+  }
+  
+  /**
+   * Parses a decimal integer like {@link Long#parseLong(String)}, without copying the text first.
+   * 
+   * @throws NumberFormatException
+   *           if the text is not an integer, or out of the range of a <TT>long</TT>
+   */
+  static long parseLong(CharSequence text) {
+    int length = text.length();
+    int i = 0;
+    boolean negative = false;
+    if (text.charAt(0) == '-' || text.charAt(0) == '+') {
+      negative = text.charAt(0) == '-';
+      i++;
+    }
+    if (i == length) throw new NumberFormatException(text.toString());
+    // accumulated negatively, as the range of negative values is the larger
+    long limit = negative ? Long.MIN_VALUE : -Long.MAX_VALUE;
+    long value = 0;
+    for (; i < length; i++) {
+      char c = text.charAt(i);
+      if (c < '0' || c > '9') throw new NumberFormatException(text.toString());
+      int digit = c - '0';
+      if (value < limit / 10 || value * 10 < limit + digit) throw new NumberFormatException("Out of range: " + text);
+      value = value * 10 - digit;
+    }
+    return negative ? value : -value;
+  }
+  
+  /**
+   * Parses an ISO 8601 date or date-time, such as <TT>2013-03-01T23:00:00.125Z</TT> or <TT>2013-03-01T23:00:00+01:00</TT>, as epoch
+   * milliseconds; times without a zone are taken as UTC, which is what GeoServer returns.
+   */
+  static long parseTime(CharSequence text) {
+    int length = text.length();
+    int[] pos = new int[1];
+    int year = digits(text, pos, 4, length);
+    expect(text, pos, '-');
+    int month = digits(text, pos, 2, length);
+    expect(text, pos, '-');
+    int day = digits(text, pos, 2, length);
+    if (month < 1 || month > 12 || day < 1 || day > 31) throw new NumberFormatException(text.toString());
+    long millis = daysFromCivil(year, month, day) * 86400000L;
+    if (pos[0] < length && (text.charAt(pos[0]) == 'T' || text.charAt(pos[0]) == ' ')) {
+      pos[0]++;
+      int hour = digits(text, pos, 2, length);
+      expect(text, pos, ':');
+      int minute = digits(text, pos, 2, length);
+      int second = 0;
+      if (pos[0] < length && text.charAt(pos[0]) == ':') {
+        pos[0]++;
+        second = digits(text, pos, 2, length);
+      }
+      millis += hour * 3600000L + minute * 60000L + second * 1000L;
+      if (pos[0] < length && text.charAt(pos[0]) == '.') {
+        pos[0]++;
+        int scale = 100;
+        int start = pos[0];
+        while (pos[0] < length && Character.isDigit(text.charAt(pos[0]))) {
+          millis += (text.charAt(pos[0]++) - '0') * scale;
+          scale /= 10;
+        }
+        if (pos[0] == start) throw new NumberFormatException(text.toString());
+      }
+    }
+    if (pos[0] < length) {
+      char zone = text.charAt(pos[0]++);
+      if (zone == '+' || zone == '-') {
+        int hours = digits(text, pos, 2, length);
+        if (pos[0] < length && text.charAt(pos[0]) == ':') pos[0]++;
+        int minutes = pos[0] < length ? digits(text, pos, 2, length) : 0;
+        long offset = hours * 3600000L + minutes * 60000L;
+        millis -= zone == '+' ? offset : -offset;
+      } else if (zone != 'Z') {
+        throw new NumberFormatException(text.toString());
+      }
+      if (pos[0] < length) throw new NumberFormatException(text.toString());
+    }
+    return millis;
+  }
+  
+  private static int digits(CharSequence text, int[] pos, int count, int length) {
+    if (pos[0] + count > length) throw new NumberFormatException(text.toString());
+    int value = 0;
+    for (int i = 0; i < count; i++) {
+      char c = text.charAt(pos[0]++);
+      if (c < '0' || c > '9') throw new NumberFormatException(text.toString());
+      value = value * 10 + (c - '0');
+    }
+    return value;
+  }
+  
+  private static void expect(CharSequence text, int[] pos, char c) {
+    if (pos[0] >= text.length() || text.charAt(pos[0]) != c) throw new NumberFormatException(text.toString());
+    pos[0]++;
+  }
+  
+  /**
+   * @return the days since 1970-01-01 of the given date of the proleptic Gregorian calendar
+   */
+  private static long daysFromCivil(int year, int month, int day) {
+    int y = month <= 2 ? year - 1 : year;
+    int era = (y >= 0 ? y : y - 399) / 400;
+    int yearOfEra = y - era * 400;
+    int dayOfYear = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+    int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+    return era * 146097L + dayOfEra - 719468;
+  }
+  
+  @Override
+  public String toString() {
+    StringBuilder builder = new StringBuilder("RESTStructuredCoverageGranulesColumns [size=").append(size).append(", columns={");
+    for (int i = 0; i < names.length; i++) {
+      builder.append(i > 0 ? ", " : "").append(names[i]).append('=').append(types[i]);
+    }
+    return builder.append("}]").toString();
+  }
+}
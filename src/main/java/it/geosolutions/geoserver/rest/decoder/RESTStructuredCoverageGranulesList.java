@@ -136,6 +136,10 @@ public class RESTStructuredCoverageGranulesList implements Iterable<RESTStructur
     }
   }
   
+  public static RESTStructuredCoverageGranulesList build(Element elem) {
+    return elem == null ? null : new RESTStructuredCoverageGranulesList(elem);
+  }
+  
   public int size() {
     return granulesList.size();
   }
@@ -158,6 +162,21 @@ public class RESTStructuredCoverageGranulesList implements Iterable<RESTStructur
     return granulesList.iterator();
   }
   
+  /**
+   * Receives the granules of an index one at a time, as they are streamed from GeoServer.
+   * 
+   * @see it.geosolutions.geoserver.rest.decoder.utils.GranulesResponseHandler
+   */
+  public interface GranuleHandler {
+    
+    /**
+     * @param granule
+     *          the granule just read
+     * @return <TT>true</TT> to go on with the next granule, <TT>false</TT> to stop reading
+     */
+    boolean handle(RESTStructuredCoverageGranule granule);
+  }
+  
   /**
    * Generic granule of the index.
    * 
@@ -139,6 +139,10 @@ public class RESTStructuredCoverageIndexSchema implements Iterable<RESTStructure
     }
   }
   
+  public static RESTStructuredCoverageIndexSchema build(Element elem) {
+    return elem == null ? null : new RESTStructuredCoverageIndexSchema(elem);
+  }
+  
   public int size() {
     return attributeList.size();
   }
@@ -48,6 +48,10 @@ public class RESTStyle {
     }
   }
   
+  public static RESTStyle build(Element elem) {
+    return elem == null ? null : new RESTStyle(elem);
+  }
+  
   protected RESTStyle(Element elem) {
     this.elem = elem;
   }
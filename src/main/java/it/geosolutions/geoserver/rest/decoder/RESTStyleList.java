@@ -62,6 +62,10 @@ public class RESTStyleList extends RESTAbstractList<NameLinkElem> {
     return elem == null ? null : new RESTStyleList(elem);
   }
   
+  public static RESTStyleList build(Element elem) {
+    return elem == null ? null : new RESTStyleList(elem);
+  }
+  
   protected RESTStyleList(Element list) {
     super(list);
   }
@@ -96,6 +96,10 @@ public class RESTWms extends RESTResource {
     return elem == null ? null : new RESTWms(elem);
   }
   
+  public static RESTWms build(Element elem) {
+    return elem == null ? null : new RESTWms(elem);
+  }
+  
   public RESTWms(Element resource) {
     super(resource);
   }
@@ -56,6 +56,10 @@ public class RESTWmsList extends RESTAbstractList<NameLinkElem> {
     return elem == null ? null : new RESTWmsList(elem);
   }
   
+  public static RESTWmsList build(Element elem) {
+    return elem == null ? null : new RESTWmsList(elem);
+  }
+  
   protected RESTWmsList(Element list) {
     super(list);
   }
@@ -81,6 +81,10 @@ public class RESTWmsStore {
     else return null;
   }
   
+  public static RESTWmsStore build(Element elem) {
+    return elem == null ? null : new RESTWmsStore(elem);
+  }
+  
   public String getName() {
     return cs.getChildText("name");
   }
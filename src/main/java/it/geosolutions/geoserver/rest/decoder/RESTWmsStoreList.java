@@ -57,6 +57,10 @@ public class RESTWmsStoreList extends RESTAbstractList<NameLinkElem> {
     return elem == null ? null : new RESTWmsStoreList(elem);
   }
   
+  public static RESTWmsStoreList build(Element elem) {
+    return elem == null ? null : new RESTWmsStoreList(elem);
+  }
+  
   protected RESTWmsStoreList(Element list) {
     super(list);
   }
@@ -53,6 +53,10 @@ public class RESTWorkspaceList implements Iterable<RESTWorkspaceList.RESTShortWo
     else return null;
   }
   
+  public static RESTWorkspaceList build(Element elem) {
+    return elem == null ? null : new RESTWorkspaceList(elem);
+  }
+  
   @SuppressWarnings("unchecked")
   protected RESTWorkspaceList(Element wslistroot) {
     List<Element> tmpList = new ArrayList<Element>();
@@ -99,7 +99,15 @@ public class GSVersionDecoder extends XmlElement {
    * @param document
    */
   public GSVersionDecoder(String document) {
-    Element root = JDOMBuilder.buildElement(document);
+    this(JDOMBuilder.buildElement(document));
+  }
+  
+  /**
+   * Load the already parsed representation into this encoder
+   * 
+   * @param root
+   */
+  protected GSVersionDecoder(Element root) {
     if (root != null) {
       setRoot(root);
       geoserver = new GSAboutResource(ElementUtils.contains(this.getRoot(), GSAboutResource.RESOURCE));
@@ -140,6 +148,10 @@ public class GSVersionDecoder extends XmlElement {
     return new GSVersionDecoder(response);
   }
   
+  public static GSVersionDecoder build(Element response) {
+    return new GSVersionDecoder(response);
+  }
+  
   public enum VERSION {
     v22(22, "2\\.2([^0-9]|$).*"), v23(23, "2\\.3([^0-9]|$).*"), v24(24, "2\\.4([^0-9]|$).*"), v25(25, "2\\.5([^0-9]|$).*"), v26(26, "2\\.6([^0-9]|$).*"), v27(27, "2\\.7([^0-9]|$).*"), v28(28, "2\\.8([^0-9]|$).*"), ABOVE(9999, "2\\..+"), UNRECOGNIZED(-1, null);
     
@@ -0,0 +1,130 @@
+/*
+ *  GeoServer-Manager - Simple Manager Library for GeoServer
+ *  
+ *  Copyright (C) 2007,2016 GeoSolutions S.A.S.
+ *  http://www.geo-solutions.it
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package it.geosolutions.geoserver.rest.decoder.utils;
+
+import it.geosolutions.geoserver.rest.decoder.RESTCompactList;
+import it.geosolutions.geoserver.rest.http.HTTPResponseHandler;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * Decodes a listing of summary data straight from the connection into a {@link RESTCompactList}: only the names and the links of the items are
+ * kept, and no document is built.
+ */
+public class CompactListResponseHandler implements HTTPResponseHandler<RESTCompactList> {
+  
+  public static final CompactListResponseHandler INSTANCE = new CompactListResponseHandler();
+  
+  private static final String ATOM = "http://www.w3.org/2005/Atom";
+  
+  public RESTCompactList handle(InputStream body, String charset) throws IOException {
+    return parse(body, charset);
+  }
+  
+  /**
+   * Parses the listing read from the given stream.
+   * 
+   * @param in
+   *          the stream to read; it is not closed by this method.
+   * @param charset
+   *          the charset declared by the transport, or <TT>null</TT> to let the parser detect it from the XML prolog.
+   * @return the compact list
+   * @throws IOException
+   *           if the document could not be read or its items do not have the same element name
+   */
+  public static RESTCompactList parse(InputStream in, String charset) throws IOException {
+    List<String> names = new ArrayList<String>();
+    List<String> links = new ArrayList<String>();
+    String itemName = null;
+    StringBuilder text = new StringBuilder();
+    XMLStreamReader xml = null;
+    try {
+      xml = charset != null ? GranulesResponseHandler.XML_INPUT.createXMLStreamReader(in, charset) : GranulesResponseHandler.XML_INPUT.createXMLStreamReader(in);
+      int depth = 0;
+      boolean inName = false;
+      String name = null;
+      String link = null;
+      while (xml.hasNext()) {
+        switch (xml.next()) {
+        case XMLStreamConstants.START_ELEMENT:
+          depth++;
+          if (depth == 2) {
+            if (itemName == null) itemName = xml.getLocalName();
+            else if (!itemName.equals(xml.getLocalName())) {
+              throw new IOException("List elements mismatching (" + itemName + "," + xml.getLocalName() + ")");
+            }
+            name = null;
+            link = null;
+          } else if (depth == 3) {
+            if ("name".equals(xml.getLocalName()) && (xml.getNamespaceURI() == null || xml.getNamespaceURI().isEmpty())) {
+              inName = true;
+              text.setLength(0);
+            } else if ("link".equals(xml.getLocalName()) && ATOM.equals(xml.getNamespaceURI()) && link == null) {
+              link = xml.getAttributeValue(null, "href");
+            }
+          }
+          break;
+        case XMLStreamConstants.CHARACTERS:
+        case XMLStreamConstants.CDATA:
+          if (inName) {
+            text.append(xml.getTextCharacters(), xml.getTextStart(), xml.getTextLength());
+          }
+          break;
+        case XMLStreamConstants.END_ELEMENT:
+          if (inName && depth == 3) {
+            name = text.toString();
+            inName = false;
+          } else if (depth == 2) {
+            names.add(name);
+            links.add(link);
+          }
+          depth--;
+          break;
+        default:
+          break;
+        }
+      }
+    } catch (XMLStreamException e) {
+      throw new IOException("Error parsing the list: " + e.getLocalizedMessage());
+    } finally {
+      if (xml != null) {
+        try {
+          xml.close();
+        } catch (XMLStreamException e) {
+          // ignore
+        }
+      }
+    }
+    return new RESTCompactList(itemName, names.toArray(new String[names.size()]), links.toArray(new String[links.size()]));
+  }
+}
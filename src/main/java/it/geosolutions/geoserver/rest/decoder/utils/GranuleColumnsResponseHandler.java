@@ -0,0 +1,145 @@
+/*
+ *  GeoServer-Manager - Simple Manager Library for GeoServer
+ *  
+ *  Copyright (C) 2007,2016 GeoSolutions S.A.S.
+ *  http://www.geo-solutions.it
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package it.geosolutions.geoserver.rest.decoder.utils;
+
+import it.geosolutions.geoserver.rest.decoder.RESTStructuredCoverageGranulesColumns;
+import it.geosolutions.geoserver.rest.decoder.RESTStructuredCoverageIndexSchema;
+import it.geosolutions.geoserver.rest.http.HTTPResponseHandler;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * Decodes the granules of a structured coverage index (a WFS <TT>FeatureCollection</TT>) straight from the connection into
+ * {@link RESTStructuredCoverageGranulesColumns}: the attributes are parsed as they are read, without building the granules, so that only the
+ * columns are kept in memory.
+ */
+public class GranuleColumnsResponseHandler implements HTTPResponseHandler<RESTStructuredCoverageGranulesColumns> {
+  
+  private static final String GML = "http://www.opengis.net/gml";
+  
+  private final RESTStructuredCoverageIndexSchema schema;
+  
+  /**
+   * @param schema
+   *          the index schema giving the bindings of the attributes
+   */
+  public GranuleColumnsResponseHandler(RESTStructuredCoverageIndexSchema schema) {
+    if (schema == null) throw new IllegalArgumentException("The index schema may not be null");
+    this.schema = schema;
+  }
+  
+  public RESTStructuredCoverageGranulesColumns handle(InputStream body, String charset) throws IOException {
+    return parse(body, charset, schema);
+  }
+  
+  /**
+   * Parses the granules read from the given stream into columns.
+   * 
+   * @param in
+   *          the stream to read; it is not closed by this method.
+   * @param charset
+   *          the charset declared by the transport, or <TT>null</TT> to let the parser detect it from the XML prolog.
+   * @param schema
+   *          the index schema giving the bindings of the attributes
+   * @return the columns of the granules
+   * @throws IOException
+   *           if the document could not be read or is not a feature collection
+   */
+  public static RESTStructuredCoverageGranulesColumns parse(InputStream in, String charset, RESTStructuredCoverageIndexSchema schema) throws IOException {
+    RESTStructuredCoverageGranulesColumns columns = new RESTStructuredCoverageGranulesColumns(schema);
+    StringBuilder text = new StringBuilder();
+    XMLStreamReader xml = null;
+    try {
+      xml = charset != null ? GranulesResponseHandler.XML_INPUT.createXMLStreamReader(in, charset) : GranulesResponseHandler.XML_INPUT.createXMLStreamReader(in);
+      int depth = 0;
+      boolean member = false;
+      // the column of the attribute being read, if any
+      int column = -1;
+      while (xml.hasNext()) {
+        switch (xml.next()) {
+        case XMLStreamConstants.START_ELEMENT:
+          depth++;
+          if (depth == 1 && !"FeatureCollection".equals(xml.getLocalName())) {
+            throw new IOException("Root element should be wfs:FeatureCollection");
+          }
+          if (depth == 2) {
+            member = "featureMember".equals(xml.getLocalName()) && GML.equals(xml.getNamespaceURI());
+          } else if (member && depth == 3) {
+            columns.addRow(xml.getAttributeValue(null, "fid"));
+          } else if (member && depth == 4) {
+            column = columns.getColumnIndex(xml.getLocalName());
+            text.setLength(0);
+          }
+          break;
+        case XMLStreamConstants.CHARACTERS:
+        case XMLStreamConstants.CDATA:
+          if (column >= 0 && depth == 4) {
+            text.append(xml.getTextCharacters(), xml.getTextStart(), xml.getTextLength());
+          }
+          break;
+        case XMLStreamConstants.END_ELEMENT:
+          if (column >= 0 && depth == 4) {
+            columns.setValue(column, trim(text));
+            column = -1;
+          }
+          depth--;
+          break;
+        default:
+          break;
+        }
+      }
+      return columns;
+    } catch (XMLStreamException e) {
+      throw new IOException("Error parsing the granules: " + e.getLocalizedMessage());
+    } finally {
+      if (xml != null) {
+        try {
+          xml.close();
+        } catch (XMLStreamException e) {
+          // ignore
+        }
+      }
+    }
+  }
+  
+  private static StringBuilder trim(StringBuilder text) {
+    int end = text.length();
+    while (end > 0 && Character.isWhitespace(text.charAt(end - 1))) {
+      end--;
+    }
+    text.setLength(end);
+    int start = 0;
+    while (start < end && Character.isWhitespace(text.charAt(start))) {
+      start++;
+    }
+    return start > 0 ? text.delete(0, start) : text;
+  }
+}
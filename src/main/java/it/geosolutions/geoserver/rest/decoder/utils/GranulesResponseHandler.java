@@ -0,0 +1,161 @@
+/*
+ *  GeoServer-Manager - Simple Manager Library for GeoServer
+ *  
+ *  Copyright (C) 2007,2016 GeoSolutions S.A.S.
+ *  http://www.geo-solutions.it
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package it.geosolutions.geoserver.rest.decoder.utils;
+
+import it.geosolutions.geoserver.rest.decoder.RESTStructuredCoverageGranulesList.GranuleHandler;
+import it.geosolutions.geoserver.rest.decoder.RESTStructuredCoverageGranulesList.RESTStructuredCoverageGranule;
+import it.geosolutions.geoserver.rest.http.HTTPResponseBody;
+import it.geosolutions.geoserver.rest.http.HTTPResponseHandler;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.jdom.Attribute;
+import org.jdom.Element;
+import org.jdom.Namespace;
+import org.jdom.Text;
+
+/**
+ * Streams the granules of a structured coverage index (a WFS <TT>FeatureCollection</TT>) straight from the connection to a {@link GranuleHandler},
+ * one <TT>gml:featureMember</TT> at a time: only the granule being handled is kept in memory, whatever the size of the response. The decoded
+ * object is the number of granules handled.
+ */
+public class GranulesResponseHandler implements HTTPResponseHandler<Integer> {
+  
+  private static final String GML = "http://www.opengis.net/gml";
+  
+  static final XMLInputFactory XML_INPUT = XMLInputFactory.newInstance();
+  
+  static {
+    XML_INPUT.setProperty(XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
+    XML_INPUT.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, Boolean.FALSE);
+    XML_INPUT.setProperty(XMLInputFactory.IS_COALESCING, Boolean.TRUE);
+  }
+  
+  private final GranuleHandler handler;
+  
+  public GranulesResponseHandler(GranuleHandler handler) {
+    if (handler == null) throw new IllegalArgumentException("The granule handler may not be null");
+    this.handler = handler;
+  }
+  
+  public Integer handle(InputStream body, String charset) throws IOException {
+    return parse(body, charset, handler);
+  }
+  
+  /**
+   * Parses the granules read from the given stream, handing each one to the handler as soon as it has been read.
+   * 
+   * @param in
+   *          the stream to read; it is not closed by this method.
+   * @param charset
+   *          the charset declared by the transport, or <TT>null</TT> to let the parser detect it from the XML prolog.
+   * @return the number of granules handled, including the one the handler stopped at, if any; if it stopped, a response body read through an
+   *         engine is {@link HTTPResponseBody#abort aborted}
+   * @throws IOException
+   *           if the document could not be read or is not a feature collection
+   */
+  public static int parse(InputStream in, String charset, GranuleHandler handler) throws IOException {
+    XMLStreamReader xml = null;
+    try {
+      xml = charset != null ? XML_INPUT.createXMLStreamReader(in, charset) : XML_INPUT.createXMLStreamReader(in);
+      int count = 0;
+      int depth = 0;
+      Element current = null;
+      while (xml.hasNext()) {
+        switch (xml.next()) {
+        case XMLStreamConstants.START_ELEMENT:
+          depth++;
+          if (depth == 1 && !"FeatureCollection".equals(xml.getLocalName())) {
+            throw new IOException("Root element should be wfs:FeatureCollection");
+          }
+          if (current != null) {
+            Element child = element(xml);
+            current.addContent(child);
+            current = child;
+          } else if (depth == 2 && "featureMember".equals(xml.getLocalName()) && GML.equals(xml.getNamespaceURI())) {
+            current = element(xml);
+          }
+          break;
+        case XMLStreamConstants.CHARACTERS:
+        case XMLStreamConstants.CDATA:
+          if (current != null && !xml.isWhiteSpace()) {
+            current.addContent(new Text(xml.getText()));
+          }
+          break;
+        case XMLStreamConstants.END_ELEMENT:
+          depth--;
+          if (current != null) {
+            Element parent = current.getParentElement();
+            if (parent == null) {
+              count++;
+              if (!handler.handle(new RESTStructuredCoverageGranule(current))) {
+                // the rest of the granules is not read
+                HTTPResponseBody.abort(in);
+                return count;
+              }
+            }
+            current = parent;
+          }
+          break;
+        default:
+          break;
+        }
+      }
+      return count;
+    } catch (XMLStreamException e) {
+      throw new IOException("Error parsing the granules: " + e.getLocalizedMessage());
+    } finally {
+      if (xml != null) {
+        try {
+          xml.close();
+        } catch (XMLStreamException e) {
+          // ignore
+        }
+      }
+    }
+  }
+  
+  private static Element element(XMLStreamReader xml) {
+    Element element = new Element(xml.getLocalName(), namespace(xml.getPrefix(), xml.getNamespaceURI()));
+    for (int i = 0; i < xml.getAttributeCount(); i++) {
+      String prefix = xml.getAttributePrefix(i);
+      Namespace ns = prefix == null || prefix.isEmpty() ? Namespace.NO_NAMESPACE : namespace(prefix, xml.getAttributeNamespace(i));
+      element.setAttribute(new Attribute(xml.getAttributeLocalName(i), xml.getAttributeValue(i), ns));
+    }
+    return element;
+  }
+  
+  private static Namespace namespace(String prefix, String uri) {
+    if (uri == null || uri.isEmpty()) return Namespace.NO_NAMESPACE;
+    return Namespace.getNamespace(prefix == null ? "" : prefix, uri);
+  }
+}
@@ -26,6 +26,8 @@
 package it.geosolutions.geoserver.rest.decoder.utils;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.io.StringReader;
 
 import org.jdom.Document;
@@ -59,4 +61,29 @@ public class JDOMBuilder {
     return null;
   }
   
+  /**
+   * Parses the XML document read from the given stream, without buffering it into a String.
+   * 
+   * @param in the stream to read; it is not closed by this method.
+   * @param charset the charset declared by the transport, or <TT>null</TT> to let the
+   *          parser detect it from the XML prolog.
+   * @return the root element, or <TT>null</TT> on errors.
+   */
+  public static Element buildElement(InputStream in, String charset) {
+    if (in == null) return null;
+    
+    try {
+      SAXBuilder builder = new SAXBuilder();
+      Document doc = charset != null ? builder.build(new InputStreamReader(in, charset))
+          : builder.build(in);
+      return doc.getRootElement();
+    } catch (JDOMException ex) {
+      LOGGER.warn("Ex parsing response", ex);
+    } catch (IOException ex) {
+      LOGGER.warn("Ex loading response", ex);
+    }
+    
+    return null;
+  }
+  
 }
@@ -0,0 +1,165 @@
+/*
+ *  GeoServer-Manager - Simple Manager Library for GeoServer
+ *  
+ *  Copyright (C) 2007,2016 GeoSolutions S.A.S.
+ *  http://www.geo-solutions.it
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package it.geosolutions.geoserver.rest.http;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.util.Map;
+
+import org.apache.commons.httpclient.Credentials;
+import org.apache.commons.httpclient.Header;
+import org.apache.commons.httpclient.HttpClient;
+import org.apache.commons.httpclient.HttpMethod;
+import org.apache.commons.httpclient.UsernamePasswordCredentials;
+import org.apache.commons.httpclient.auth.AuthScope;
+import org.apache.commons.httpclient.methods.DeleteMethod;
+import org.apache.commons.httpclient.methods.EntityEnclosingMethod;
+import org.apache.commons.httpclient.methods.GetMethod;
+import org.apache.commons.httpclient.methods.HeadMethod;
+import org.apache.commons.httpclient.methods.PostMethod;
+import org.apache.commons.httpclient.methods.PutMethod;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * {@link HTTPTransport} backed by commons-httpclient 3.1, taking its keep-alive connections from a {@link HTTPConnectionPool}. <BR>
+ * This is the default transport: HTTP/1.1 only, one call per connection.
+ */
+public class CommonsHTTPTransport implements HTTPTransport {
+  
+  private static final Logger LOGGER = LoggerFactory.getLogger(CommonsHTTPTransport.class);
+  
+  private final HTTPConnectionPool pool;
+  
+  /**
+   * Creates a transport using the default connection pool.
+   */
+  public CommonsHTTPTransport() {
+    this(null);
+  }
+  
+  /**
+   * @param pool
+   *          the pool connections are taken from, or <TT>null</TT> to use the default one.
+   */
+  public CommonsHTTPTransport(HTTPConnectionPool pool) {
+    this.pool = pool;
+  }
+  
+  /**
+   * @return the pool connections are taken from
+   */
+  public HTTPConnectionPool getPool() {
+    return pool != null ? pool : HTTPConnectionPool.getDefault();
+  }
+  
+  public int getMaxConcurrentCallsPerHost() {
+    return getPool().getMaxConnectionsPerHost();
+  }
+  
+  public HTTPTransportResponse execute(HTTPRequest request) throws IOException {
+    HttpMethod httpMethod = createMethod(request);
+    for (Map.Entry<String, String> header : request.getHeaders().entrySet()) {
+      httpMethod.setRequestHeader(header.getKey(), header.getValue());
+    }
+    HttpClient client = request.isProbe() ? getPool().createProbeClient() : getPool().createClient();
+    try {
+      setAuth(client, request);
+      client.executeMethod(httpMethod);
+      return new Response(httpMethod);
+    } catch (IOException e) {
+      httpMethod.releaseConnection();
+      throw e;
+    } catch (RuntimeException e) {
+      httpMethod.releaseConnection();
+      throw e;
+    }
+  }
+  
+  private static HttpMethod createMethod(HTTPRequest request) {
+    String url = request.getUrl();
+    switch (request.getMethod()) {
+      case GET:
+        return new GetMethod(url);
+      case HEAD:
+        return new HeadMethod(url);
+      case DELETE:
+        return new DeleteMethod(url);
+      default:
+        EntityEnclosingMethod method = request.getMethod() == HTTPRequest.Method.PUT ? new PutMethod(url) : new PostMethod(url);
+        if (request.getBody() != null) method.setRequestEntity(request.getBody());
+        return method;
+    }
+  }
+  
+  private static void setAuth(HttpClient client, HTTPRequest request) throws IOException {
+    if (request.hasCredentials()) {
+      URL u = new URL(request.getUrl());
+      Credentials defaultcreds = new UsernamePasswordCredentials(request.getUsername(), request.getPassword());
+      client.getState().setCredentials(new AuthScope(u.getHost(), u.getPort()), defaultcreds);
+      client.getParams().setAuthenticationPreemptive(true); // GS2 by default always requires authentication
+    } else {
+      if (LOGGER.isDebugEnabled()) {
+        LOGGER.debug("Not setting credentials to access to " + request.getUrl());
+      }
+    }
+  }
+  
+  private static class Response implements HTTPTransportResponse {
+    
+    private final HttpMethod httpMethod;
+    
+    Response(HttpMethod httpMethod) {
+      this.httpMethod = httpMethod;
+    }
+    
+    public int getStatus() {
+      return httpMethod.getStatusCode();
+    }
+    
+    public String getStatusText() {
+      return httpMethod.getStatusText();
+    }
+    
+    public String getHeader(String name) {
+      Header header = httpMethod.getResponseHeader(name);
+      return header != null ? header.getValue() : null;
+    }
+    
+    public InputStream getBody() throws IOException {
+      return httpMethod.getResponseBodyAsStream();
+    }
+    
+    public void close() {
+      httpMethod.releaseConnection();
+    }
+    
+    public void abort() {
+      httpMethod.abort();
+    }
+  }
+}
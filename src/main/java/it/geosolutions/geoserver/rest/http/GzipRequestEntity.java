@@ -0,0 +1,72 @@
+/*
+ *  GeoServer-Manager - Simple Manager Library for GeoServer
+ *  
+ *  Copyright (C) 2007,2016 GeoSolutions S.A.S.
+ *  http://www.geo-solutions.it
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package it.geosolutions.geoserver.rest.http;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.commons.httpclient.methods.RequestEntity;
+
+/**
+ * Gzips another request entity while it is written to the connection. <BR>
+ * The compressed length is not known in advance, so the body is sent chunked; the request must carry a <TT>Content-Encoding: gzip</TT> header.
+ */
+public class GzipRequestEntity implements RequestEntity {
+  
+  private final RequestEntity entity;
+  
+  public GzipRequestEntity(RequestEntity entity) {
+    if (entity == null) throw new IllegalArgumentException("The entity may not be null");
+    this.entity = entity;
+  }
+  
+  /**
+   * @return the uncompressed entity
+   */
+  public RequestEntity getEntity() {
+    return entity;
+  }
+  
+  public boolean isRepeatable() {
+    return entity.isRepeatable();
+  }
+  
+  public void writeRequest(OutputStream out) throws IOException {
+    GZIPOutputStream gzip = new GZIPOutputStream(out);
+    entity.writeRequest(gzip);
+    gzip.finish();
+    gzip.flush();
+  }
+  
+  public long getContentLength() {
+    return -1;
+  }
+  
+  public String getContentType() {
+    return entity.getContentType();
+  }
+}
@@ -0,0 +1,174 @@
+/*
+ *  GeoServer-Manager - Simple Manager Library for GeoServer
+ *  
+ *  Copyright (C) 2007,2016 GeoSolutions S.A.S.
+ *  http://www.geo-solutions.it
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package it.geosolutions.geoserver.rest.http;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Per-host circuit breaker used by an {@link HTTPEngine}.
+ * <P>
+ * After <TT>failureThreshold</TT> consecutive failures (the server could not be reached, timed out, or answered 502, 503 or 504) the circuit of
+ * the host opens: calls to it fail immediately with a {@link HTTPCircuitOpenException}, without touching the network. Once <TT>openTime</TT>
+ * milliseconds have elapsed a single trial call is let through: if it succeeds the circuit closes again, otherwise it stays open for another
+ * <TT>openTime</TT>.
+ */
+public class HTTPCircuitBreaker {
+  
+  public static final int DEFAULT_FAILURE_THRESHOLD = 5;
+  
+  /** Time a circuit stays open, in milliseconds */
+  public static final long DEFAULT_OPEN_TIME = 30000;
+  
+  public enum State {
+    CLOSED, OPEN, HALF_OPEN
+  }
+  
+  private final int failureThreshold;
+  
+  private final long openTime;
+  
+  private final ConcurrentMap<String, Circuit> circuits = new ConcurrentHashMap<String, Circuit>();
+  
+  public HTTPCircuitBreaker() {
+    this(DEFAULT_FAILURE_THRESHOLD, DEFAULT_OPEN_TIME);
+  }
+  
+  /**
+   * @param failureThreshold
+   *          the number of consecutive failures opening the circuit
+   * @param openTime
+   *          the time, in milliseconds, before a trial call is let through an open circuit
+   */
+  public HTTPCircuitBreaker(int failureThreshold, long openTime) {
+    if (failureThreshold < 1) throw new IllegalArgumentException("The failure threshold must be positive");
+    if (openTime < 0) throw new IllegalArgumentException("The open time may not be negative");
+    this.failureThreshold = failureThreshold;
+    this.openTime = openTime;
+  }
+  
+  public int getFailureThreshold() {
+    return failureThreshold;
+  }
+  
+  public long getOpenTime() {
+    return openTime;
+  }
+  
+  /**
+   * @return <TT>true</TT> if a call to the given host may be performed
+   */
+  public boolean allowRequest(String host) {
+    return circuit(host).allowRequest();
+  }
+  
+  public void recordSuccess(String host) {
+    circuit(host).recordSuccess();
+  }
+  
+  public void recordFailure(String host) {
+    circuit(host).recordFailure();
+  }
+  
+  public State getState(String host) {
+    Circuit circuit = circuits.get(host);
+    return circuit == null ? State.CLOSED : circuit.getState();
+  }
+  
+  /**
+   * Closes the circuit of the given host.
+   */
+  public void reset(String host) {
+    circuits.remove(host);
+  }
+  
+  /**
+   * @return the current time in milliseconds
+   */
+  protected long now() {
+    return System.currentTimeMillis();
+  }
+  
+  private Circuit circuit(String host) {
+    Circuit circuit = circuits.get(host);
+    if (circuit == null) {
+      Circuit created = new Circuit();
+      circuit = circuits.putIfAbsent(host, created);
+      if (circuit == null) {
+        circuit = created;
+      }
+    }
+    return circuit;
+  }
+  
+  private class Circuit {
+    
+    private int failures;
+    
+    private long openedAt;
+    
+    private State state = State.CLOSED;
+    
+    private boolean trialRunning;
+    
+    synchronized boolean allowRequest() {
+      switch (getState()) {
+        case CLOSED:
+          return true;
+        case HALF_OPEN:
+          if (trialRunning) {
+            return false;
+          }
+          trialRunning = true;
+          return true;
+        default:
+          return false;
+      }
+    }
+    
+    synchronized void recordSuccess() {
+      failures = 0;
+      trialRunning = false;
+      state = State.CLOSED;
+    }
+    
+    synchronized void recordFailure() {
+      failures++;
+      if (trialRunning || failures >= failureThreshold) {
+        trialRunning = false;
+        state = State.OPEN;
+        openedAt = now();
+      }
+    }
+    
+    synchronized State getState() {
+      if (state == State.OPEN && now() - openedAt >= openTime) {
+        state = State.HALF_OPEN;
+      }
+      return state;
+    }
+  }
+}
@@ -0,0 +1,107 @@
+/*
+ *  GeoServer-Manager - Simple Manager Library for GeoServer
+ *  
+ *  Copyright (C) 2007,2016 GeoSolutions S.A.S.
+ *  http://www.geo-solutions.it
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package it.geosolutions.geoserver.rest.http;
+
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Bounds the number of concurrent calls made to each GeoServer instance, identified by the protocol, host and port of the called URL.
+ * <P>
+ * Callers exceeding the limit wait for a free slot. Waiting is done on a {@link Semaphore}, so that cheap threads (such as virtual threads) park
+ * without holding a carrier thread. Keeping the limit not above the per-host limit of the {@link HTTPConnectionPool} also ensures that callers never
+ * wait inside the connection pool itself.
+ */
+public class HTTPConcurrencyLimiter {
+  
+  private final int maxConcurrentCalls;
+  
+  private final ConcurrentMap<String, Semaphore> permits = new ConcurrentHashMap<String, Semaphore>();
+  
+  /**
+   * @param maxConcurrentCalls
+   *          the maximum number of concurrent calls to each GeoServer instance
+   */
+  public HTTPConcurrencyLimiter(int maxConcurrentCalls) {
+    if (maxConcurrentCalls < 1) throw new IllegalArgumentException("The maximum number of concurrent calls must be positive");
+    this.maxConcurrentCalls = maxConcurrentCalls;
+  }
+  
+  public int getMaxConcurrentCalls() {
+    return maxConcurrentCalls;
+  }
+  
+  /**
+   * Waits for a free slot on the server of the given URL.
+   * 
+   * @throws InterruptedException
+   *           if the thread was interrupted while waiting; no slot is then taken.
+   */
+  public void acquire(String url) throws InterruptedException {
+    semaphore(url).acquire();
+  }
+  
+  /**
+   * Frees a slot previously taken with {@link #acquire(String)}.
+   */
+  public void release(String url) {
+    semaphore(url).release();
+  }
+  
+  /**
+   * @return the number of calls currently running against the server of the given URL
+   */
+  public int getActiveCalls(String url) {
+    Semaphore semaphore = permits.get(serverKey(url));
+    return semaphore == null ? 0 : maxConcurrentCalls - semaphore.availablePermits();
+  }
+  
+  private Semaphore semaphore(String url) {
+    String key = serverKey(url);
+    Semaphore semaphore = permits.get(key);
+    if (semaphore == null) {
+      Semaphore created = new Semaphore(maxConcurrentCalls, true);
+      semaphore = permits.putIfAbsent(key, created);
+      if (semaphore == null) {
+        semaphore = created;
+      }
+    }
+    return semaphore;
+  }
+  
+  private static String serverKey(String url) {
+    try {
+      URL u = new URL(url);
+      int port = u.getPort() != -1 ? u.getPort() : u.getDefaultPort();
+      return u.getProtocol() + "://" + u.getHost().toLowerCase() + ":" + port;
+    } catch (MalformedURLException e) {
+      return url;
+    }
+  }
+}
@@ -0,0 +1,268 @@
+/*
+ *  GeoServer-Manager - Simple Manager Library for GeoServer
+ *  
+ *  Copyright (C) 2007,2016 GeoSolutions S.A.S.
+ *  http://www.geo-solutions.it
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package it.geosolutions.geoserver.rest.http;
+
+import org.apache.commons.httpclient.DefaultHttpMethodRetryHandler;
+import org.apache.commons.httpclient.HostConfiguration;
+import org.apache.commons.httpclient.HttpClient;
+import org.apache.commons.httpclient.HttpConnectionManager;
+import org.apache.commons.httpclient.HttpMethodRetryHandler;
+import org.apache.commons.httpclient.MultiThreadedHttpConnectionManager;
+import org.apache.commons.httpclient.params.HttpConnectionManagerParams;
+import org.apache.commons.httpclient.params.HttpMethodParams;
+import org.apache.commons.httpclient.util.IdleConnectionTimeoutThread;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A long-lived pool of keep-alive HTTP connections.
+ * <P>
+ * Connections are kept open per host and reused across calls, so that only the first request to a GeoServer instance pays for the TCP connect (and
+ * TLS handshake). Connections idle for longer than the configured idle timeout are evicted by a background daemon thread.
+ * <P>
+ * A single {@link #getDefault() default pool} is shared by {@link it.geosolutions.geoserver.rest.HTTPUtils}, and thus by the
+ * {@link it.geosolutions.geoserver.rest.GeoServerRESTReader}, the {@link it.geosolutions.geoserver.rest.GeoServerRESTPublisher} and all the
+ * {@link it.geosolutions.geoserver.rest.manager.GeoServerRESTAbstractManager} subclasses.
+ */
+public class HTTPConnectionPool {
+  
+  private final static Logger LOGGER = LoggerFactory.getLogger(HTTPConnectionPool.class);
+  
+  public static final int DEFAULT_MAX_TOTAL_CONNECTIONS = 100;
+  
+  public static final int DEFAULT_MAX_CONNECTIONS_PER_HOST = 20;
+  
+  /** Connection timeout in milliseconds */
+  public static final int DEFAULT_CONNECTION_TIMEOUT = 5000;
+  
+  /** Connection timeout in milliseconds of the liveness and existence checks */
+  public static final int DEFAULT_PROBE_CONNECTION_TIMEOUT = 2000;
+  
+  /** Time in milliseconds a call may wait for data from the server; 0 waits forever */
+  public static final int DEFAULT_READ_TIMEOUT = 0;
+  
+  /** Time in milliseconds after which an unused connection is closed */
+  public static final long DEFAULT_IDLE_TIMEOUT = 60000;
+  
+  private static final HttpMethodRetryHandler NO_RETRY = new DefaultHttpMethodRetryHandler(0, false);
+  
+  private static HTTPConnectionPool defaultPool;
+  
+  private final MultiThreadedHttpConnectionManager connectionManager;
+  
+  /** The connections of the {@link HTTPRequest#isProbe() probes}, opened with a shorter timeout */
+  private final MultiThreadedHttpConnectionManager probeConnectionManager;
+  
+  private final IdleConnectionTimeoutThread idleEvictor;
+  
+  /**
+   * @return the pool used when no other one is explicitly set. It is lazily created using the default limits.
+   */
+  public static synchronized HTTPConnectionPool getDefault() {
+    if (defaultPool == null) {
+      defaultPool = new HTTPConnectionPool();
+    }
+    return defaultPool;
+  }
+  
+  /**
+   * Replaces the default pool. The previous default pool, if any, is shut down.
+   * 
+   * @param pool
+   *          the new default pool
+   */
+  public static synchronized void setDefault(HTTPConnectionPool pool) {
+    if (pool == null) throw new IllegalArgumentException("The connection pool may not be null");
+    if (defaultPool != null && defaultPool != pool) {
+      defaultPool.shutdown();
+    }
+    defaultPool = pool;
+  }
+  
+  /**
+   * Creates a pool using the default limits.
+   */
+  public HTTPConnectionPool() {
+    this(DEFAULT_MAX_TOTAL_CONNECTIONS, DEFAULT_MAX_CONNECTIONS_PER_HOST, DEFAULT_CONNECTION_TIMEOUT, DEFAULT_IDLE_TIMEOUT);
+  }
+  
+  /**
+   * @param maxTotalConnections
+   *          max number of open connections in the pool, across all hosts
+   * @param maxConnectionsPerHost
+   *          max number of open connections to a single host
+   * @param connectionTimeout
+   *          timeout in milliseconds until a connection is established
+   * @param idleTimeout
+   *          time in milliseconds after which an unused connection is closed
+   */
+  public HTTPConnectionPool(int maxTotalConnections, int maxConnectionsPerHost, int connectionTimeout, long idleTimeout) {
+    this(maxTotalConnections, maxConnectionsPerHost, connectionTimeout, DEFAULT_READ_TIMEOUT, idleTimeout);
+  }
+  
+  /**
+   * @param maxTotalConnections
+   *          max number of open connections in the pool, across all hosts
+   * @param maxConnectionsPerHost
+   *          max number of open connections to a single host
+   * @param connectionTimeout
+   *          timeout in milliseconds until a connection is established
+   * @param readTimeout
+   *          timeout in milliseconds waiting for data from the server once connected, or 0 to wait forever. A call timing out fails with a
+   *          {@link java.net.SocketTimeoutException}, which the {@link HTTPEngine} retries according to its {@link HTTPRetryPolicy}.
+   * @param idleTimeout
+   *          time in milliseconds after which an unused connection is closed
+   */
+  public HTTPConnectionPool(int maxTotalConnections, int maxConnectionsPerHost, int connectionTimeout, int readTimeout, long idleTimeout) {
+    if (maxTotalConnections < 1 || maxConnectionsPerHost < 1) throw new IllegalArgumentException("Connection limits must be positive");
+    if (readTimeout < 0) throw new IllegalArgumentException("The read timeout may not be negative");
+    if (idleTimeout < 1) throw new IllegalArgumentException("The idle timeout must be positive");
+    
+    HttpConnectionManagerParams params = new HttpConnectionManagerParams();
+    params.setMaxTotalConnections(maxTotalConnections);
+    params.setDefaultMaxConnectionsPerHost(maxConnectionsPerHost);
+    params.setConnectionTimeout(connectionTimeout);
+    params.setSoTimeout(readTimeout);
+    params.setStaleCheckingEnabled(true);
+    
+    connectionManager = new MultiThreadedHttpConnectionManager();
+    connectionManager.setParams(params);
+    
+    HttpConnectionManagerParams probeParams = new HttpConnectionManagerParams();
+    probeParams.setMaxTotalConnections(maxTotalConnections);
+    probeParams.setDefaultMaxConnectionsPerHost(maxConnectionsPerHost);
+    probeParams.setConnectionTimeout(Math.min(connectionTimeout, DEFAULT_PROBE_CONNECTION_TIMEOUT));
+    probeParams.setSoTimeout(readTimeout);
+    probeParams.setStaleCheckingEnabled(true);
+    probeConnectionManager = new MultiThreadedHttpConnectionManager();
+    probeConnectionManager.setParams(probeParams);
+    
+    idleEvictor = new IdleConnectionTimeoutThread();
+    idleEvictor.setName("geoserver-manager-idle-evictor");
+    idleEvictor.setDaemon(true);
+    idleEvictor.setConnectionTimeout(idleTimeout);
+    idleEvictor.setTimeoutInterval(Math.max(1000, idleTimeout / 2));
+    idleEvictor.addConnectionManager(connectionManager);
+    idleEvictor.addConnectionManager(probeConnectionManager);
+    idleEvictor.start();
+  }
+  
+  /**
+   * Creates a lightweight client backed by this pool. <BR>
+   * Clients do not share their state (e.g. credentials), only the underlying connections. They do not retry failed calls themselves: retries
+   * are left to the {@link HTTPRetryPolicy} of the {@link HTTPEngine}, so that they are counted and seen by its circuit breaker.
+   */
+  public HttpClient createClient() {
+    return createClient(connectionManager);
+  }
+  
+  /**
+   * Creates a client for the liveness and existence checks, whose connections are opened with the {@link #getProbeConnectionTimeout() probe
+   * connection timeout}, so that an unreachable host is reported quickly.
+   */
+  public HttpClient createProbeClient() {
+    return createClient(probeConnectionManager);
+  }
+  
+  private static HttpClient createClient(HttpConnectionManager manager) {
+    HttpClient client = new HttpClient(manager);
+    client.getParams().setParameter(HttpMethodParams.RETRY_HANDLER, NO_RETRY);
+    return client;
+  }
+  
+  public HttpConnectionManager getConnectionManager() {
+    return connectionManager;
+  }
+  
+  /**
+   * Overrides the max number of connections to the given host.
+   * 
+   * @param host
+   *          the host name
+   * @param port
+   *          the port, or -1 for the protocol default
+   * @param protocol
+   *          <TT>http</TT> or <TT>https</TT>
+   * @param maxConnections
+   *          max number of open connections to that host
+   */
+  public void setMaxConnectionsPerHost(String host, int port, String protocol, int maxConnections) {
+    HostConfiguration hostConfiguration = new HostConfiguration();
+    hostConfiguration.setHost(host, port, protocol);
+    connectionManager.getParams().setMaxConnectionsPerHost(hostConfiguration, maxConnections);
+    probeConnectionManager.getParams().setMaxConnectionsPerHost(hostConfiguration, maxConnections);
+  }
+  
+  /**
+   * @return the timeout in milliseconds until a connection is established, for the liveness and existence checks
+   */
+  public int getProbeConnectionTimeout() {
+    return probeConnectionManager.getParams().getConnectionTimeout();
+  }
+  
+  /**
+   * Sets the timeout until a connection is established for the liveness and existence checks (by default
+   * {@link #DEFAULT_PROBE_CONNECTION_TIMEOUT}, or the connection timeout of the pool if shorter).
+   */
+  public void setProbeConnectionTimeout(int timeout) {
+    if (timeout < 0) throw new IllegalArgumentException("The timeout may not be negative");
+    probeConnectionManager.getParams().setConnectionTimeout(timeout);
+  }
+  
+  public int getMaxTotalConnections() {
+    return connectionManager.getParams().getMaxTotalConnections();
+  }
+  
+  /**
+   * @return the timeout in milliseconds waiting for data from the server, 0 if none
+   */
+  public int getReadTimeout() {
+    return connectionManager.getParams().getSoTimeout();
+  }
+  
+  public int getMaxConnectionsPerHost() {
+    return connectionManager.getParams().getDefaultMaxConnectionsPerHost();
+  }
+  
+  /**
+   * @return the number of open connections, either in use or idle
+   */
+  public int getConnectionsInPool() {
+    return connectionManager.getConnectionsInPool() + probeConnectionManager.getConnectionsInPool();
+  }
+  
+  /**
+   * Closes all the open connections and stops the idle eviction thread. <BR>
+   * The pool can not be used anymore after this call.
+   */
+  public void shutdown() {
+    if (LOGGER.isDebugEnabled()) {
+      LOGGER.debug("Shutting down HTTP connection pool");
+    }
+    idleEvictor.shutdown();
+    connectionManager.shutdown();
+    probeConnectionManager.shutdown();
+  }
+}
@@ -0,0 +1,1174 @@
+/*
+ *  GeoServer-Manager - Simple Manager Library for GeoServer
+ *  
+ *  Copyright (C) 2007,2016 GeoSolutions S.A.S.
+ *  http://www.geo-solutions.it
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package it.geosolutions.geoserver.rest.http;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.PushbackInputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.ConnectException;
+import java.net.HttpURLConnection;
+import java.net.MalformedURLException;
+import java.net.NoRouteToHostException;
+import java.net.SocketTimeoutException;
+import java.net.URL;
+import java.nio.charset.Charset;
+import java.nio.charset.IllegalCharsetNameException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+import org.apache.commons.httpclient.ConnectTimeoutException;
+import org.apache.commons.httpclient.HeaderElement;
+import org.apache.commons.httpclient.HttpStatus;
+import org.apache.commons.httpclient.NameValuePair;
+import org.apache.commons.httpclient.methods.FileRequestEntity;
+import org.apache.commons.httpclient.methods.PostMethod;
+import org.apache.commons.httpclient.methods.RequestEntity;
+import org.apache.commons.httpclient.methods.StringRequestEntity;
+import org.apache.commons.httpclient.methods.multipart.FilePart;
+import org.apache.commons.httpclient.methods.multipart.MultipartRequestEntity;
+import org.apache.commons.httpclient.methods.multipart.Part;
+import org.apache.commons.io.IOUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParser;
+
+/**
+ * Instance based HTTP engine.
+ * <P>
+ * An engine holds no per-call state, so a single instance can be shared by any number of threads. Each call returns its own {@link HTTPResponse};
+ * the String/boolean convenience methods, which mirror the ones in {@link it.geosolutions.geoserver.rest.HTTPUtils}, also record the error of the
+ * last call performed by the <I>current thread</I>, which is then available through {@link #getLastError()}.
+ * <P>
+ * The calls are performed by a {@link HTTPTransport}; if none is given, a {@link CommonsHTTPTransport} taking its connections from the
+ * {@link HTTPConnectionPool#getDefault() default pool} is used.
+ */
+public class HTTPEngine {
+  
+  private static final Logger LOGGER = LoggerFactory.getLogger(HTTPEngine.class);
+  
+  /** Error of the last call made by the current thread */
+  private static final ThreadLocal<String> LAST_ERROR = new ThreadLocal<String>();
+  
+  private final HTTPTransport transport;
+  
+  private volatile HTTPConcurrencyLimiter limiter;
+  
+  private volatile boolean acceptCompressed = true;
+  
+  private volatile long requestCompressionThreshold = -1;
+  
+  private volatile HTTPRetryPolicy retryPolicy;
+  
+  private volatile HTTPCircuitBreaker circuitBreaker;
+  
+  private final HTTPMetrics metrics = new HTTPMetrics();
+  
+  private volatile boolean coalesceReads = true;
+  
+  /** The GETs in progress, joined by the identical ones */
+  private final ConcurrentHashMap<FlightKey, Flight> flights = new ConcurrentHashMap<FlightKey, Flight>();
+  
+  private final CopyOnWriteArrayList<HTTPWriteListener> writeListeners = new CopyOnWriteArrayList<HTTPWriteListener>();
+  
+  /** The number of registrations of each write listener, guarding the updates of {@link #writeListeners} */
+  private final Map<HTTPWriteListener, Integer> writeListenerCounts = new HashMap<HTTPWriteListener, Integer>();
+  
+  private volatile boolean useHead = true;
+  
+  /** Endpoints answering 405 or 501 to HEAD requests */
+  private final Set<String> headUnsupported = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+  
+  /** Hosts which refused a gzipped request body */
+  private final Set<String> uncompressedHosts = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+  
+  /**
+   * Creates an engine using the default connection pool.
+   */
+  public HTTPEngine() {
+    this(new CommonsHTTPTransport());
+  }
+  
+  /**
+   * @param pool
+   *          the pool connections are taken from, or <TT>null</TT> to use the default one.
+   */
+  public HTTPEngine(HTTPConnectionPool pool) {
+    this(new CommonsHTTPTransport(pool));
+  }
+  
+  /**
+   * @param transport
+   *          the transport performing the calls
+   */
+  public HTTPEngine(HTTPTransport transport) {
+    if (transport == null) throw new IllegalArgumentException("The HTTP transport may not be null");
+    this.transport = transport;
+  }
+  
+  /**
+   * @return the transport performing the calls
+   */
+  public HTTPTransport getTransport() {
+    return transport;
+  }
+  
+  /**
+   * @return the limiter bounding the concurrent calls to each GeoServer instance, or <TT>null</TT> if calls are not limited.
+   */
+  public HTTPConcurrencyLimiter getConcurrencyLimiter() {
+    return limiter;
+  }
+  
+  /**
+   * Sets the limiter bounding the concurrent calls to each GeoServer instance. The same limiter may be shared by several engines talking to the
+   * same servers.
+   * 
+   * @param limiter
+   *          the limiter, or <TT>null</TT> to not limit the calls.
+   */
+  public void setConcurrencyLimiter(HTTPConcurrencyLimiter limiter) {
+    this.limiter = limiter;
+  }
+  
+  /**
+   * @return whether gzip and deflate compressed responses are requested
+   */
+  public boolean isAcceptCompressed() {
+    return acceptCompressed;
+  }
+  
+  /**
+   * Sets whether compressed responses are requested (through the <TT>Accept-Encoding</TT> header). Compressed responses are always decompressed
+   * while they are read from the connection. Enabled by default.
+   */
+  public void setAcceptCompressed(boolean acceptCompressed) {
+    this.acceptCompressed = acceptCompressed;
+  }
+  
+  /**
+   * @return the size in bytes from which textual request bodies are gzipped, or a negative value if request bodies are never compressed.
+   */
+  public long getRequestCompressionThreshold() {
+    return requestCompressionThreshold;
+  }
+  
+  /**
+   * Enables the compression of large PUT and POST bodies (e.g. layer group or SLD documents). <BR>
+   * Only XML, JSON and text bodies of known length are compressed; binary uploads (such as zip archives) are sent as they are. The server must
+   * accept gzipped request bodies: a host answering <TT>415 Unsupported Media Type</TT> to a compressed body gets the same body uncompressed,
+   * and is not sent compressed bodies anymore. Disabled by default.
+   * 
+   * @param threshold
+   *          the size in bytes from which request bodies are compressed, or a negative value to never compress them
+   */
+  public void setRequestCompressionThreshold(long threshold) {
+    this.requestCompressionThreshold = threshold;
+  }
+  
+  /**
+   * @return whether identical concurrent GETs are coalesced into a single request
+   */
+  public boolean isCoalesceReads() {
+    return coalesceReads;
+  }
+  
+  /**
+   * Sets whether identical concurrent GETs (same URL, credentials and response handler) are coalesced: while one is in progress, the others wait
+   * for it and receive the same decoded object instead of sending their own request, so that GeoServer is not flooded when many threads ask for
+   * the same object at once. Enabled by default.
+   * <P>
+   * The decoded objects are then shared between the callers, which must not modify them.
+   * 
+   * @see #get(String, String, String, HTTPResponseHandler, HTTPResponseCache)
+   */
+  public void setCoalesceReads(boolean coalesceReads) {
+    this.coalesceReads = coalesceReads;
+  }
+  
+  /**
+   * @return whether existence checks and pings are performed through HTTP HEAD requests
+   */
+  public boolean isUseHead() {
+    return useHead;
+  }
+  
+  /**
+   * Sets whether existence checks and pings are performed through HTTP HEAD requests, so that the checked resource is not serialized nor
+   * transferred. Endpoints not supporting HEAD are automatically checked through GET. Enabled by default.
+   */
+  public void setUseHead(boolean useHead) {
+    this.useHead = useHead;
+  }
+  
+  /**
+   * @return the policy retrying the calls which failed temporarily, or <TT>null</TT> if calls are never retried
+   */
+  public HTTPRetryPolicy getRetryPolicy() {
+    return retryPolicy;
+  }
+  
+  /**
+   * Sets the policy retrying idempotent calls which failed temporarily (connection failures, timeouts, 502, 503 and 504 responses).
+   * 
+   * @param retryPolicy
+   *          the policy, or <TT>null</TT> to never retry (the default)
+   */
+  public void setRetryPolicy(HTTPRetryPolicy retryPolicy) {
+    this.retryPolicy = retryPolicy;
+  }
+  
+  /**
+   * @return the circuit breaker failing fast the calls to hosts known to be down, or <TT>null</TT> if none is used
+   */
+  public HTTPCircuitBreaker getCircuitBreaker() {
+    return circuitBreaker;
+  }
+  
+  /**
+   * Sets the circuit breaker failing fast the calls to hosts known to be down. The refused calls fail as if the host could not be reached.
+   * 
+   * @param circuitBreaker
+   *          the circuit breaker, or <TT>null</TT> to always try to reach the host (the default)
+   */
+  public void setCircuitBreaker(HTTPCircuitBreaker circuitBreaker) {
+    this.circuitBreaker = circuitBreaker;
+  }
+  
+  /**
+   * Registers a listener notified of every successful PUT, POST or DELETE performed through this engine. Registrations are counted: a listener
+   * added by several components sharing the engine (e.g. a catalog cache set on the reader, the publisher and the managers) is notified once, and
+   * stays registered until each of them has removed it.
+   */
+  public void addWriteListener(HTTPWriteListener listener) {
+    if (listener == null) throw new IllegalArgumentException("The listener may not be null");
+    synchronized (writeListenerCounts) {
+      Integer count = writeListenerCounts.get(listener);
+      writeListenerCounts.put(listener, count == null ? 1 : count + 1);
+      if (count == null) writeListeners.add(listener);
+    }
+  }
+  
+  /**
+   * Releases a registration made through {@link #addWriteListener(HTTPWriteListener)}; the listener is no longer notified once all of its
+   * registrations are released.
+   */
+  public void removeWriteListener(HTTPWriteListener listener) {
+    synchronized (writeListenerCounts) {
+      Integer count = writeListenerCounts.get(listener);
+      if (count == null) return;
+      if (count > 1) {
+        writeListenerCounts.put(listener, count - 1);
+      } else {
+        writeListenerCounts.remove(listener);
+        writeListeners.remove(listener);
+      }
+    }
+  }
+  
+  private void fireWritten(HTTPRequest.Method method, String url) {
+    for (HTTPWriteListener listener : writeListeners) {
+      try {
+        listener.written(method, url);
+      } catch (RuntimeException e) {
+        LOGGER.warn("Write listener failed on " + url, e);
+      }
+    }
+  }
+  
+  /**
+   * @return the counters of the calls performed by this engine
+   */
+  public HTTPMetrics getMetrics() {
+    return metrics;
+  }
+  
+  /**
+   * @return the error of the last call made through any engine by the current thread, or <TT>null</TT> if that call succeeded.
+   */
+  public String getLastError() {
+    return LAST_ERROR.get();
+  }
+  
+  /**
+   * Records the outcome of a call as the last error of the current thread.
+   */
+  protected HTTPResponse record(HTTPResponse response) {
+    LAST_ERROR.set(response.getError());
+    return response;
+  }
+  
+  // ==========================================================================
+  // === Per-call results
+  // ==========================================================================
+  
+  /**
+   * Creates a request, negotiating response compression if enabled.
+   */
+  protected HTTPRequest newRequest(HTTPRequest.Method method, String url, String username, String pw) {
+    HTTPRequest request = new HTTPRequest(method, url, username, pw);
+    if (acceptCompressed) {
+      request.setHeader("Accept-Encoding", "gzip, deflate");
+    }
+    return request;
+  }
+  
+  /**
+   * Performs an HTTP GET on the given URL. <BR>
+   * Basic auth is used if both username and pw are not null.
+   * 
+   * @return a successful response if the HTTP response code was 200 (OK) and the body is not empty.
+   */
+  public HTTPResponse executeGet(String url, String username, String pw) {
+    try {
+      HTTPResponse response = execute(newRequest(HTTPRequest.Method.GET, url, username, pw), true);
+      int status = response.getStatus();
+      if (status == HttpStatus.SC_OK) {
+        if (response.getBody().trim().length() == 0) { // sometime gs rest fails
+          LOGGER.warn("ResponseBody is empty");
+          return new HTTPResponse(status, response.getStatusText(), response.getBody(), "ResponseBody is empty");
+        }
+        return response;
+      } else {
+        String error = "(" + status + ") " + HttpStatus.getStatusText(status) + " -- " + url;
+        LOGGER.info(error);
+        return new HTTPResponse(status, response.getStatusText(), response.getBody(), error);
+      }
+    } catch (ConnectException e) {
+      LOGGER.info("Couldn't connect to [" + url + "]");
+      return HTTPResponse.failure("Couldn't connect to [" + url + "]");
+    } catch (IOException e) {
+      LOGGER.info("Error talking to [" + url + "]", e);
+      return HTTPResponse.failure("Error talking to [" + url + "]");
+    }
+  }
+  
+  /**
+   * Performs an HTTP GET on the given URL, streaming the response body to the given handler. <BR>
+   * The body is never materialized as a String: the handler reads it straight from the connection. <BR>
+   * Basic auth is used if both username and pw are not null.
+   * 
+   * @param handler
+   *          the handler decoding the response body; it is only called if the HTTP response code was 200 (OK).
+   * @return the object decoded by the handler, or <TT>null</TT> on errors.
+   */
+  public <T> T get(String url, String username, String pw, HTTPResponseHandler<T> handler) {
+    return get(url, username, pw, handler, null);
+  }
+  
+  /**
+   * Performs an HTTP GET on the given URL, streaming the response body to the given handler, and revalidating the object decoded by a previous
+   * call through a conditional request. <BR>
+   * Basic auth is used if both username and pw are not null.
+   * 
+   * @param handler
+   *          the handler decoding the response body; it is only called if the HTTP response code was 200 (OK).
+   * @param cache
+   *          the cache holding the previously decoded objects, or <TT>null</TT> to always download the document
+   * @return the object decoded by the handler, the cached one if the server answered 304 (Not Modified), or <TT>null</TT> on errors.
+   * @see #setCoalesceReads(boolean)
+   */
+  @SuppressWarnings("unchecked")
+  public <T> T get(String url, String username, String pw, HTTPResponseHandler<T> handler, HTTPResponseCache cache) {
+    if (!coalesceReads) {
+      return fetch(url, username, pw, handler, cache);
+    }
+    Flight flight = new Flight(new FlightKey(url, username, pw, handler, cache));
+    Flight leader = flights.putIfAbsent(flight.key, flight);
+    if (leader != null) {
+      metrics.coalesced();
+      return (T) leader.await();
+    }
+    try {
+      T result = fetch(url, username, pw, handler, cache);
+      flight.complete(result, LAST_ERROR.get(), null);
+      return result;
+    } catch (RuntimeException e) {
+      flight.complete(null, null, e);
+      throw e;
+    } catch (Error e) {
+      flight.complete(null, null, e);
+      throw e;
+    } finally {
+      flights.remove(flight.key, flight);
+    }
+  }
+  
+  @SuppressWarnings("unchecked")
+  private <T> T fetch(String url, String username, String pw, HTTPResponseHandler<T> handler, HTTPResponseCache cache) {
+    HTTPConcurrencyLimiter permit = null;
+    try {
+      permit = acquire(url);
+      HTTPRequest request = newRequest(HTTPRequest.Method.GET, url, username, pw);
+      HTTPResponseCache.Entry cached = cache != null ? cache.lookup(url, username, handler) : null;
+      if (cached != null) {
+        if (cached.etag != null) request.setHeader("If-None-Match", cached.etag);
+        if (cached.lastModified != null) request.setHeader("If-Modified-Since", cached.lastModified);
+      }
+      HTTPTransportResponse response = send(request);
+      try {
+        int status = response.getStatus();
+        if (status == HttpStatus.SC_NOT_MODIFIED && cached != null) {
+          if (LOGGER.isDebugEnabled()) LOGGER.debug("Not modified, using the cached response for " + url);
+          cache.hit();
+          record(new HTTPResponse(status, response.getStatusText(), null, null));
+          return (T) cached.value;
+        }
+        if (cache != null) {
+          cache.miss();
+          if (cached != null) cache.remove(url, username);
+        }
+        if (status != HttpStatus.SC_OK) {
+          String error = "(" + status + ") " + HttpStatus.getStatusText(status) + " -- " + url;
+          LOGGER.info(error);
+          record(new HTTPResponse(status, response.getStatusText(), null, error));
+          return null;
+        }
+        InputStream body = openBody(response);
+        if (body == null) {
+          LOGGER.warn("ResponseBody is empty");
+          record(new HTTPResponse(status, response.getStatusText(), null, "ResponseBody is empty"));
+          return null;
+        }
+        HTTPResponseBody is = new HTTPResponseBody(body);
+        try {
+          T result = handler.handle(is, getCharset(response.getHeader("Content-Type")));
+          if (cache != null && result != null) {
+            String etag = response.getHeader("ETag");
+            String lastModified = response.getHeader("Last-Modified");
+            if (etag != null || lastModified != null) {
+              cache.store(url, username, new HTTPResponseCache.Entry(handler, etag, lastModified, result));
+            }
+          }
+          record(new HTTPResponse(status, response.getStatusText(), null, result == null ? "Unable to decode the response from " + url : null));
+          return result;
+        } finally {
+          // closing the body would drain it
+          if (is.isAborted()) response.abort();
+          IOUtils.closeQuietly(is);
+        }
+      } finally {
+        response.close();
+      }
+    } catch (ConnectException e) {
+      LOGGER.info("Couldn't connect to [" + url + "]");
+      record(HTTPResponse.failure("Couldn't connect to [" + url + "]"));
+    } catch (IOException e) {
+      LOGGER.info("Error talking to [" + url + "]", e);
+      record(HTTPResponse.failure("Error talking to [" + url + "]"));
+    } finally {
+      if (permit != null) {
+        permit.release(url);
+      }
+    }
+    return null;
+  }
+  
+  /**
+   * Performs a PUT to the given URL. <BR>
+   * Basic auth is used if both username and pw are not null.
+   * 
+   * @see #executeSend(HTTPRequest.Method, String, RequestEntity, String, String)
+   */
+  public HTTPResponse executePut(String url, RequestEntity requestEntity, String username, String pw) {
+    return executeSend(HTTPRequest.Method.PUT, url, requestEntity, username, pw);
+  }
+  
+  /**
+   * Performs a POST to the given URL. <BR>
+   * Basic auth is used if both username and pw are not null.
+   * 
+   * @see #executeSend(HTTPRequest.Method, String, RequestEntity, String, String)
+   */
+  public HTTPResponse executePost(String url, RequestEntity requestEntity, String username, String pw) {
+    return executeSend(HTTPRequest.Method.POST, url, requestEntity, username, pw);
+  }
+  
+  /**
+   * Send an HTTP request (PUT or POST) to a server. <BR>
+   * Basic auth is used if both username and pw are not null.
+   * <P>
+   * Only
+   * <UL>
+   * <LI>200: OK</LI>
+   * <LI>201: CREATED</LI>
+   * <LI>202: ACCEPTED</LI>
+   * </UL>
+   * are accepted as successful codes. On other codes the error is the response body, if any.
+   */
+  protected HTTPResponse executeSend(HTTPRequest.Method method, String url, RequestEntity requestEntity, String username, String pw) {
+    try {
+      HTTPRequest request = newRequest(method, url, username, pw);
+      boolean compressed = compress(request, requestEntity);
+      HTTPResponse response = execute(request, true);
+      if (compressed && response.getStatus() == HttpStatus.SC_UNSUPPORTED_MEDIA_TYPE && requestEntity.isRepeatable()) {
+        LOGGER.info("Compressed request bodies are not supported by " + hostOf(url) + ", sending it uncompressed");
+        uncompressedHosts.add(hostOf(url));
+        response = execute(newRequest(method, url, username, pw).setBody(requestEntity), true);
+      }
+      int status = response.getStatus();
+      switch (status) {
+        case HttpURLConnection.HTTP_OK:
+        case HttpURLConnection.HTTP_CREATED:
+        case HttpURLConnection.HTTP_ACCEPTED:
+          if (LOGGER.isInfoEnabled()) LOGGER.info("HTTP " + response.getStatusText() + ": " + response.getBody());
+          fireWritten(method, url);
+          return response;
+        default:
+          LOGGER.warn("Bad response: code[" + status + "]" + " msg[" + response.getStatusText() + "]" + " url[" + url + "]" + " method[" + method + "]");
+          String error = response.getBody() != null ? response.getBody() : "(" + status + ") " + response.getStatusText() + " -- " + url;
+          return new HTTPResponse(status, response.getStatusText(), response.getBody(), error);
+      }
+    } catch (ConnectException e) {
+      LOGGER.info("Couldn't connect to [" + url + "]");
+      return HTTPResponse.failure("Couldn't connect to [" + url + "]");
+    } catch (IOException e) {
+      LOGGER.error("Error talking to " + url + " : " + e.getLocalizedMessage());
+      return HTTPResponse.failure("Error talking to " + url + " : " + e.getLocalizedMessage());
+    }
+  }
+  
+  /**
+   * Performs an HTTP DELETE on the given URL. <BR>
+   * Basic auth is used if both username and pw are not null.
+   * 
+   * @return a successful response if the HTTP response code was 200 (OK).
+   */
+  public HTTPResponse executeDelete(String url, String username, String pw) {
+    try {
+      HTTPResponse response = execute(newRequest(HTTPRequest.Method.DELETE, url, username, pw), true);
+      int status = response.getStatus();
+      if (status == HttpStatus.SC_OK) {
+        if (response.getBody().trim().length() == 0) {
+          if (LOGGER.isTraceEnabled()) LOGGER.trace("ResponseBody is empty (this may be not an error since we just performed a DELETE call)");
+        } else if (LOGGER.isDebugEnabled()) {
+          LOGGER.debug("(" + status + ") " + response.getStatusText() + " -- " + url);
+        }
+        fireWritten(HTTPRequest.Method.DELETE, url);
+        return response;
+      } else {
+        String error = "(" + status + ") " + response.getStatusText() + " -- " + url;
+        LOGGER.info(error);
+        LOGGER.info("Response: '" + response.getBody() + "'");
+        return new HTTPResponse(status, response.getStatusText(), response.getBody(), error);
+      }
+    } catch (ConnectException e) {
+      LOGGER.info("Couldn't connect to [" + url + "]");
+      return HTTPResponse.failure("Couldn't connect to [" + url + "]");
+    } catch (IOException e) {
+      LOGGER.info("Error talking to [" + url + "]", e);
+      return HTTPResponse.failure("Error talking to [" + url + "]");
+    }
+  }
+  
+  /**
+   * Checks the given URL without downloading its body: an HTTP HEAD is sent, or a GET whose body is discarded if HEAD is disabled or not
+   * supported on that endpoint.
+   * 
+   * @return a successful response if the HTTP response code was 200 (OK).
+   */
+  public HTTPResponse executePing(String url, String username, String pw) {
+    try {
+      HTTPResponse response = probe(url, username, pw);
+      if (response.getStatus() != HttpStatus.SC_OK) {
+        String error = "PING failed at '" + url + "': (" + response.getStatus() + ") " + response.getStatusText();
+        LOGGER.warn(error);
+        return new HTTPResponse(response.getStatus(), response.getStatusText(), null, error);
+      }
+      return response;
+    } catch (ConnectException e) {
+      return HTTPResponse.failure("Couldn't connect to [" + url + "]");
+    } catch (IOException e) {
+      LOGGER.error(e.getLocalizedMessage(), e);
+      return HTTPResponse.failure("Error talking to [" + url + "]");
+    }
+  }
+  
+  /**
+   * Sends a HEAD to the given URL, falling back to a GET (whose body is not read) if the server answers 405 (Method Not Allowed) or 501 (Not
+   * Implemented). The endpoints not supporting HEAD are remembered, and only receive GETs afterwards. The requests are {@link HTTPRequest#isProbe()
+   * probes}, connecting with the shorter timeout of the transport.
+   */
+  protected HTTPResponse probe(String url, String username, String pw) throws IOException {
+    String endpoint = endpointOf(url);
+    if (useHead && !headUnsupported.contains(endpoint)) {
+      HTTPResponse response = execute(newRequest(HTTPRequest.Method.HEAD, url, username, pw).setProbe(true), false);
+      int status = response.getStatus();
+      if (status != HttpStatus.SC_METHOD_NOT_ALLOWED && status != HttpStatus.SC_NOT_IMPLEMENTED) {
+        return response;
+      }
+      if (LOGGER.isDebugEnabled()) LOGGER.debug("HEAD not supported on " + endpoint + ", falling back to GET");
+      headUnsupported.add(endpoint);
+    }
+    return execute(newRequest(HTTPRequest.Method.GET, url, username, pw).setProbe(true), false);
+  }
+  
+  /**
+   * @return the URL without query and last path segment, e.g. <TT>http://host/geoserver/rest/layers/</TT> for any layer URL.
+   */
+  private static String endpointOf(String url) {
+    int query = url.indexOf('?');
+    String path = query >= 0 ? url.substring(0, query) : url;
+    return path.substring(0, path.lastIndexOf('/') + 1);
+  }
+  
+  /**
+   * Executes the given request on the transport.
+   * 
+   * @param readBody
+   *          whether the response body should be read
+   * @return the raw response; no error is recorded here, since the accepted status codes depend on the caller.
+   * @throws IOException
+   *           if the server could not be reached or the response could not be read
+   */
+  protected HTTPResponse execute(HTTPRequest request, boolean readBody) throws IOException {
+    String url = request.getUrl();
+    HTTPConcurrencyLimiter permit = acquire(url);
+    try {
+      HTTPTransportResponse response = send(request);
+      try {
+        String body = null;
+        if (readBody) {
+          InputStream is = openBody(response);
+          if (is != null) {
+            try {
+              body = IOUtils.toString(is, getCharset(response.getHeader("Content-Type")));
+            } finally {
+              IOUtils.closeQuietly(is);
+            }
+          } else {
+            body = "";
+          }
+        }
+        return new HTTPResponse(response.getStatus(), response.getStatusText(), body, null);
+      } finally {
+        response.close();
+      }
+    } finally {
+      if (permit != null) {
+        permit.release(url);
+      }
+    }
+  }
+  
+  /**
+   * Sends the request on the transport, retrying it and tracking the health of its host according to the configured retry policy and circuit
+   * breaker.
+   */
+  private HTTPTransportResponse send(HTTPRequest request) throws IOException {
+    metrics.request();
+    String host = hostOf(request.getUrl());
+    HTTPRetryPolicy policy = retryPolicy;
+    HTTPCircuitBreaker breaker = circuitBreaker;
+    boolean idempotent = policy != null && policy.isRetryable(request);
+    int retry = 0;
+    while (true) {
+      if (breaker != null && !breaker.allowRequest(host)) {
+        metrics.shortCircuit();
+        throw new HTTPCircuitOpenException(host);
+      }
+      long delay;
+      // whether the outcome of the call was recorded: any other exit counts as a failure, so that a half-open trial is always settled
+      boolean recorded = false;
+      try {
+        HTTPTransportResponse response = transport.execute(request);
+        int status = response.getStatus();
+        if (!isTemporaryFailure(status)) {
+          if (breaker != null) breaker.recordSuccess(host);
+          recorded = true;
+          return response;
+        }
+        if (breaker != null) breaker.recordFailure(host);
+        recorded = true;
+        if (!idempotent || retry >= policy.getMaxRetries()) {
+          return response;
+        }
+        delay = policy.getDelay(retry + 1, getRetryAfter(response));
+        response.close();
+        LOGGER.info("(" + status + ") " + HttpStatus.getStatusText(status) + " -- " + request + ", retrying in " + delay + "ms");
+      } catch (IOException e) {
+        if (!isTemporaryFailure(e)) {
+          throw e;
+        }
+        if (breaker != null) breaker.recordFailure(host);
+        recorded = true;
+        if (!idempotent || retry >= policy.getMaxRetries()) {
+          throw e;
+        }
+        delay = policy.getDelay(retry + 1, -1);
+        LOGGER.info(e.getClass().getSimpleName() + " -- " + request + ", retrying in " + delay + "ms");
+      } finally {
+        if (!recorded && breaker != null) {
+          breaker.recordFailure(host);
+        }
+      }
+      retry++;
+      metrics.retry();
+      try {
+        Thread.sleep(delay);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new InterruptedIOException("Interrupted while waiting to retry " + request);
+      }
+    }
+  }
+  
+  private boolean isTemporaryFailure(int status) {
+    HTTPRetryPolicy policy = retryPolicy;
+    return policy != null ? policy.isRetryable(status)
+        : status == HttpStatus.SC_BAD_GATEWAY || status == HttpStatus.SC_SERVICE_UNAVAILABLE || status == HttpStatus.SC_GATEWAY_TIMEOUT;
+  }
+  
+  private static boolean isTemporaryFailure(IOException e) {
+    return e instanceof ConnectException || e instanceof SocketTimeoutException || e instanceof ConnectTimeoutException
+        || e instanceof NoRouteToHostException;
+  }
+  
+  /**
+   * @return the delay requested by a <TT>Retry-After</TT> header in seconds, converted to milliseconds, or -1 if none was sent
+   */
+  private static long getRetryAfter(HTTPTransportResponse response) {
+    String retryAfter = response.getHeader("Retry-After");
+    if (retryAfter != null) {
+      try {
+        return Long.parseLong(retryAfter.trim()) * 1000;
+      } catch (NumberFormatException e) {
+        // HTTP dates are not supported
+      }
+    }
+    return -1;
+  }
+  
+  /**
+   * Sets the body of the request, gzipping it if request compression is enabled and the body is eligible.
+   * 
+   * @return <TT>true</TT> if the body was compressed
+   */
+  private boolean compress(HTTPRequest request, RequestEntity entity) {
+    long threshold = requestCompressionThreshold;
+    if (entity == null || threshold < 0 || entity.getContentLength() < threshold || !isCompressible(entity.getContentType())
+        || uncompressedHosts.contains(hostOf(request.getUrl()))) {
+      request.setBody(entity);
+      return false;
+    }
+    request.setBody(new GzipRequestEntity(entity));
+    request.setHeader("Content-Encoding", "gzip");
+    return true;
+  }
+  
+  private static boolean isCompressible(String contentType) {
+    if (contentType == null) {
+      return false;
+    }
+    String type = contentType.toLowerCase();
+    return type.startsWith("text/") || type.contains("xml") || type.contains("json");
+  }
+  
+  private static String hostOf(String url) {
+    try {
+      URL u = new URL(url);
+      return u.getHost() + ":" + u.getPort();
+    } catch (MalformedURLException e) {
+      return url;
+    }
+  }
+  
+  /**
+   * Opens the response body, decompressing it if the server compressed it.
+   * 
+   * @return the (decompressed) body, or <TT>null</TT> if the response has none
+   */
+  private static InputStream openBody(HTTPTransportResponse response) throws IOException {
+    InputStream body = response.getBody();
+    String encoding = response.getHeader("Content-Encoding");
+    if (body == null || encoding == null) {
+      return body;
+    }
+    encoding = encoding.trim().toLowerCase();
+    if (!encoding.equals("gzip") && !encoding.equals("x-gzip") && !encoding.equals("deflate")) {
+      return body;
+    }
+    // an empty body can not be decompressed
+    PushbackInputStream in = new PushbackInputStream(body);
+    int first = in.read();
+    if (first == -1) {
+      return in;
+    }
+    in.unread(first);
+    return encoding.equals("deflate") ? new InflaterInputStream(in) : new GZIPInputStream(in);
+  }
+  
+  /**
+   * Waits for a free slot on the target server, if a concurrency limiter is set.
+   * 
+   * @return the limiter the slot was taken from, to be released once the call is over; <TT>null</TT> if calls are not limited.
+   */
+  private HTTPConcurrencyLimiter acquire(String url) throws InterruptedIOException {
+    HTTPConcurrencyLimiter current = limiter;
+    if (current == null) {
+      return null;
+    }
+    try {
+      current.acquire(url);
+      return current;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while waiting to call " + url);
+    }
+  }
+  
+  /**
+   * @param contentType
+   *          the value of the <TT>Content-Type</TT> response header, may be <TT>null</TT>
+   * @return the charset declared in the header, or <TT>null</TT> if none (or an unsupported one) was declared.
+   */
+  protected static String getCharset(String contentType) {
+    if (contentType == null) {
+      return null;
+    }
+    for (HeaderElement element : HeaderElement.parseElements(contentType)) {
+      NameValuePair charset = element.getParameterByName("charset");
+      if (charset != null && charset.getValue() != null) {
+        String name = charset.getValue().trim();
+        try {
+          if (Charset.isSupported(name)) {
+            return name;
+          }
+        } catch (IllegalCharsetNameException e) {
+          LOGGER.debug("Illegal charset in response: " + name);
+        }
+      }
+    }
+    return null;
+  }
+  
+  // ==========================================================================
+  // === Convenience methods
+  // ==========================================================================
+  
+  /**
+   * Performs an HTTP GET on the given URL. <BR>
+   * Basic auth is used if both username and pw are not null.
+   * 
+   * @return The HTTP response as a String if the HTTP response code was 200 (OK), <TT>null</TT> otherwise.
+   */
+  public String get(String url, String username, String pw) {
+    HTTPResponse response = record(executeGet(url, username, pw));
+    return response.isSuccess() ? response.getBody() : null;
+  }
+  
+  /**
+   * Executes a request using the GET method and parses the result as a json object.
+   */
+  public JsonElement getAsJSON(String url, String username, String pw) throws Exception {
+    String response = get(url, username, pw);
+    return new JsonParser().parse(response);
+  }
+  
+  /**
+   * PUTs a File to the given URL.
+   * 
+   * @return the HTTP response or <TT>null</TT> on errors.
+   */
+  public String put(String url, File file, String contentType, String username, String pw) {
+    return put(url, new FileRequestEntity(file, contentType), username, pw);
+  }
+  
+  /**
+   * PUTs a String to the given URL.
+   * 
+   * @return the HTTP response or <TT>null</TT> on errors.
+   */
+  public String put(String url, String content, String contentType, String username, String pw) {
+    try {
+      return put(url, new StringRequestEntity(content, contentType, null), username, pw);
+    } catch (UnsupportedEncodingException ex) {
+      LOGGER.error("Cannot PUT " + url, ex);
+      record(HTTPResponse.failure("Cannot PUT " + url));
+      return null;
+    }
+  }
+  
+  /**
+   * PUTs a String representing an XML document to the given URL.
+   * 
+   * @return the HTTP response or <TT>null</TT> on errors.
+   */
+  public String putXml(String url, String content, String username, String pw) {
+    return put(url, content, "text/xml", username, pw);
+  }
+  
+  /**
+   * PUTs a String representing an JSON Object to the given URL.
+   * 
+   * @return the HTTP response or <TT>null</TT> on errors.
+   */
+  public String putJson(String url, String content, String username, String pw) {
+    return put(url, content, "application/json", username, pw);
+  }
+  
+  /**
+   * Performs a PUT to the given URL.
+   * 
+   * @return the HTTP response or <TT>null</TT> on errors.
+   */
+  public String put(String url, RequestEntity requestEntity, String username, String pw) {
+    HTTPResponse response = record(executePut(url, requestEntity, username, pw));
+    return response.isSuccess() ? response.getBody() : null;
+  }
+  
+  /**
+   * POSTs a File to the given URL.
+   * 
+   * @return the HTTP response or <TT>null</TT> on errors.
+   */
+  public String post(String url, File file, String contentType, String username, String pw) {
+    return post(url, new FileRequestEntity(file, contentType), username, pw);
+  }
+  
+  /**
+   * POSTs a String to the given URL.
+   * 
+   * @return the HTTP response or <TT>null</TT> on errors.
+   */
+  public String post(String url, String content, String contentType, String username, String pw) {
+    try {
+      return post(url, new StringRequestEntity(content, contentType, null), username, pw);
+    } catch (UnsupportedEncodingException ex) {
+      LOGGER.error("Cannot POST " + url, ex);
+      record(HTTPResponse.failure("Cannot POST " + url));
+      return null;
+    }
+  }
+  
+  /**
+   * POSTs a list of files as attachments to the given URL.
+   * 
+   * @param dir
+   *          The folder containing the attachments.
+   * @return the HTTP response or <TT>null</TT> on errors.
+   */
+  public String postMultipartForm(String url, File dir, String username, String pw) {
+    try {
+      List<Part> parts = new ArrayList<Part>();
+      for (File f : dir.listFiles()) {
+        parts.add(new FilePart(f.getName(), f));
+      }
+      MultipartRequestEntity multipart = new MultipartRequestEntity(parts.toArray(new Part[parts.size()]), new PostMethod().getParams());
+      return post(url, multipart, username, pw);
+    } catch (Exception ex) {
+      LOGGER.error("Cannot POST " + url, ex);
+      record(HTTPResponse.failure("Cannot POST " + url));
+      return null;
+    }
+  }
+  
+  /**
+   * POSTs a String representing an XML document to the given URL.
+   * 
+   * @return the HTTP response or <TT>null</TT> on errors.
+   */
+  public String postXml(String url, String content, String username, String pw) {
+    return post(url, content, "text/xml", username, pw);
+  }
+  
+  /**
+   * POSTs a String representing an JSON Object to the given URL.
+   * 
+   * @return the HTTP response or <TT>null</TT> on errors.
+   */
+  public String postJson(String url, String content, String username, String pw) {
+    return post(url, content, "application/json", username, pw);
+  }
+  
+  /**
+   * Performs a POST to the given URL.
+   * 
+   * @return the HTTP response or <TT>null</TT> on errors.
+   */
+  public String post(String url, RequestEntity requestEntity, String username, String pw) {
+    HTTPResponse response = record(executePost(url, requestEntity, username, pw));
+    return response.isSuccess() ? response.getBody() : null;
+  }
+  
+  /**
+   * @return true if the resource has been deleted (HTTP 200)
+   */
+  public boolean delete(String url, String username, String pw) {
+    return record(executeDelete(url, username, pw)).isSuccess();
+  }
+  
+  /**
+   * @return true if the server response was an HTTP_OK
+   */
+  public boolean httpPing(String url, String username, String pw) {
+    return record(executePing(url, username, pw)).isSuccess();
+  }
+  
+  /**
+   * Used to query for REST resources. The resource is checked through an HTTP HEAD (see {@link #setUseHead(boolean)}), falling back to GET
+   * where HEAD is not supported.
+   * 
+   * @param url
+   *          The URL of the REST resource to query about.
+   * @return true on 200, false on 404.
+   * @throws RuntimeException
+   *           on unhandled status or exceptions.
+   */
+  public boolean exists(String url, String username, String pw) {
+    return exists(url, username, pw, null);
+  }
+  
+  /**
+   * Used to query for REST resources, remembering the missing ones for a while.
+   * 
+   * @param url
+   *          The URL of the REST resource to query about.
+   * @param cache
+   *          the cache of the resources found missing, or <TT>null</TT> to always ask the server
+   * @return true on 200, false on 404 or if the cache knows the resource is missing.
+   * @throws RuntimeException
+   *           on unhandled status or exceptions.
+   * @see #exists(String, String, String)
+   */
+  public boolean exists(String url, String username, String pw, HTTPNotFoundCache cache) {
+    LAST_ERROR.remove();
+    if (cache != null) {
+      if (cache.isMissing(url, username)) {
+        metrics.notFoundHit();
+        return false;
+      }
+      metrics.notFoundMiss();
+    }
+    HTTPResponse response;
+    try {
+      response = probe(url, username, pw);
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+    switch (response.getStatus()) {
+      case HttpStatus.SC_OK:
+        if (cache != null) cache.found(url, username);
+        return true;
+      case HttpStatus.SC_NOT_FOUND:
+        if (cache != null) cache.missing(url, username);
+        return false;
+      default:
+        throw new RuntimeException("Unhandled response status at '" + url + "': (" + response.getStatus() + ") " + response.getStatusText());
+    }
+  }
+  
+  /**
+   * A GET in progress, and the outcome shared with the callers who joined it.
+   */
+  private static class Flight {
+    
+    final FlightKey key;
+    
+    private final CountDownLatch done = new CountDownLatch(1);
+    
+    private Object result;
+    
+    private String error;
+    
+    private Throwable failure;
+    
+    Flight(FlightKey key) {
+      this.key = key;
+    }
+    
+    void complete(Object result, String error, Throwable failure) {
+      this.result = result;
+      this.error = error;
+      this.failure = failure;
+      done.countDown();
+    }
+    
+    /**
+     * Waits for the outcome of the GET, recording its error as the last one of the current thread.
+     */
+    Object await() {
+      try {
+        done.await();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        LAST_ERROR.set("Interrupted while waiting for " + key.url);
+        return null;
+      }
+      if (failure instanceof RuntimeException) throw (RuntimeException) failure;
+      if (failure instanceof Error) throw (Error) failure;
+      LAST_ERROR.set(error);
+      return result;
+    }
+  }
+  
+  private static class FlightKey {
+    
+    final String url;
+    
+    final String username;
+    
+    final String password;
+    
+    final HTTPResponseHandler<?> handler;
+    
+    /** The cache the leader revalidates against and stores into, so that callers of different caches do not share a GET */
+    final HTTPResponseCache cache;
+    
+    FlightKey(String url, String username, String password, HTTPResponseHandler<?> handler, HTTPResponseCache cache) {
+      this.url = url;
+      this.username = username != null ? username : "";
+      this.password = password != null ? password : "";
+      this.handler = handler;
+      this.cache = cache;
+    }
+    
+    @Override
+    public boolean equals(Object obj) {
+      if (!(obj instanceof FlightKey)) return false;
+      FlightKey other = (FlightKey) obj;
+      return url.equals(other.url) && username.equals(other.username) && password.equals(other.password) && handler == other.handler
+          && cache == other.cache;
+    }
+    
+    @Override
+    public int hashCode() {
+      return 31 * (31 * (31 * url.hashCode() + username.hashCode()) + System.identityHashCode(handler)) + System.identityHashCode(cache);
+    }
+  }
+}
@@ -0,0 +1,139 @@
+/*
+ *  GeoServer-Manager - Simple Manager Library for GeoServer
+ *  
+ *  Copyright (C) 2007,2016 GeoSolutions S.A.S.
+ *  http://www.geo-solutions.it
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package it.geosolutions.geoserver.rest.http;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counters of the calls performed by an {@link HTTPEngine}.
+ */
+public class HTTPMetrics {
+  
+  private final AtomicLong requests = new AtomicLong();
+  
+  private final AtomicLong retries = new AtomicLong();
+  
+  private final AtomicLong shortCircuits = new AtomicLong();
+  
+  private final AtomicLong coalesced = new AtomicLong();
+  
+  private final AtomicLong notFoundHits = new AtomicLong();
+  
+  private final AtomicLong notFoundMisses = new AtomicLong();
+  
+  /**
+   * @return the number of calls, not counting their retries
+   */
+  public long getRequestCount() {
+    return requests.get();
+  }
+  
+  /**
+   * @return the number of retries performed after a temporary failure
+   */
+  public long getRetryCount() {
+    return retries.get();
+  }
+  
+  /**
+   * @return the number of calls refused because the circuit of their host was open
+   */
+  public long getShortCircuitCount() {
+    return shortCircuits.get();
+  }
+  
+  /**
+   * @return the number of GETs which joined an identical one in progress instead of sending their own request
+   */
+  public long getCoalescedCount() {
+    return coalesced.get();
+  }
+  
+  /**
+   * @return the number of existence checks answered by a {@link HTTPNotFoundCache} without calling the server
+   */
+  public long getNotFoundCacheHitCount() {
+    return notFoundHits.get();
+  }
+  
+  /**
+   * @return the number of existence checks which went through a {@link HTTPNotFoundCache} and had to call the server
+   */
+  public long getNotFoundCacheMissCount() {
+    return notFoundMisses.get();
+  }
+  
+  /**
+   * @return hits / (hits + misses) of the {@link HTTPNotFoundCache not found caches}, or 0 if no check went through one yet
+   */
+  public double getNotFoundCacheHitRatio() {
+    long h = notFoundHits.get();
+    long total = h + notFoundMisses.get();
+    return total == 0 ? 0 : (double) h / total;
+  }
+  
+  /**
+   * Sets all the counters to zero.
+   */
+  public void reset() {
+    requests.set(0);
+    retries.set(0);
+    shortCircuits.set(0);
+    coalesced.set(0);
+    notFoundHits.set(0);
+    notFoundMisses.set(0);
+  }
+  
+  void request() {
+    requests.incrementAndGet();
+  }
+  
+  void retry() {
+    retries.incrementAndGet();
+  }
+  
+  void shortCircuit() {
+    shortCircuits.incrementAndGet();
+  }
+  
+  void coalesced() {
+    coalesced.incrementAndGet();
+  }
+  
+  void notFoundHit() {
+    notFoundHits.incrementAndGet();
+  }
+  
+  void notFoundMiss() {
+    notFoundMisses.incrementAndGet();
+  }
+  
+  @Override
+  public String toString() {
+    return "requests=" + requests + ", retries=" + retries + ", shortCircuits=" + shortCircuits + ", coalesced=" + coalesced + ", notFoundCacheHits=" + notFoundHits
+        + ", notFoundCacheMisses=" + notFoundMisses;
+  }
+}
@@ -0,0 +1,225 @@
+/*
+ *  GeoServer-Manager - Simple Manager Library for GeoServer
+ *  
+ *  Copyright (C) 2007,2016 GeoSolutions S.A.S.
+ *  http://www.geo-solutions.it
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package it.geosolutions.geoserver.rest.http;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Short lived cache of the existence checks answered with <TT>404 Not Found</TT>, so that asking again whether a missing object exists does not
+ * call the server until the entry expires.
+ * <P>
+ * The cache listens to the writes of the engines it is registered on: a successful write evicts the entries of the objects it may have created,
+ * i.e. the written URL itself, its ancestors, its direct children (e.g. a POST to <TT>/rest/workspaces</TT> creating a workspace) and, for a
+ * write into a store, the resources which may have been configured and the layers which may have been published. As each workspace has a
+ * namespace of the same name, writing either evicts the entries of both.
+ * <P>
+ * Hits and misses are counted in the {@link HTTPMetrics} of the engine performing the checks.
+ * 
+ * @see HTTPEngine#exists(String, String, String, HTTPNotFoundCache)
+ */
+public class HTTPNotFoundCache implements HTTPWriteListener {
+  
+  /** Default time to live of the entries, in milliseconds */
+  public static final long DEFAULT_TIME_TO_LIVE = 5000;
+  
+  public static final int DEFAULT_MAX_ENTRIES = 1024;
+  
+  private final long timeToLive;
+  
+  private final Map<Key, Long> entries;
+  
+  public HTTPNotFoundCache() {
+    this(DEFAULT_TIME_TO_LIVE, DEFAULT_MAX_ENTRIES);
+  }
+  
+  /**
+   * @param timeToLive
+   *          how long, in milliseconds, a missing object is reported as such without asking the server
+   * @param maxEntries
+   *          the number of entries kept; the least recently used ones are evicted first.
+   */
+  public HTTPNotFoundCache(long timeToLive, final int maxEntries) {
+    if (timeToLive <= 0) throw new IllegalArgumentException("The time to live must be positive");
+    if (maxEntries < 1) throw new IllegalArgumentException("The cache size must be positive");
+    this.timeToLive = timeToLive;
+    this.entries = new LinkedHashMap<Key, Long>(16, 0.75f, true) {
+      private static final long serialVersionUID = 1L;
+      
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<Key, Long> eldest) {
+        return size() > maxEntries;
+      }
+    };
+  }
+  
+  public long getTimeToLive() {
+    return timeToLive;
+  }
+  
+  public synchronized int size() {
+    return entries.size();
+  }
+  
+  /**
+   * Removes all the entries.
+   */
+  public synchronized void clear() {
+    entries.clear();
+  }
+  
+  /**
+   * Removes the entries of the objects a successful write may have created.
+   */
+  public void written(HTTPRequest.Method method, String url) {
+    invalidate(url);
+  }
+  
+  /**
+   * Removes the entries of the given URL, of its ancestors and of its direct children, and the same for the namespace matching a workspace or
+   * the reverse. If the URL is a store or lies within one, the entries of all the resources of the store and of all the layers are removed as
+   * well. Calls to the whole catalog such as <TT>/rest/reload</TT> or <TT>/rest/imports</TT> clear the cache.
+   */
+  public synchronized void invalidate(String url) {
+    String written = normalize(url);
+    int rest = written.indexOf("/rest/");
+    if (rest >= 0 && isGlobal(written.substring(rest + "/rest/".length()))) {
+      entries.clear();
+      return;
+    }
+    String alias = written;
+    if (written.contains("/rest/namespaces")) {
+      alias = written.replace("/rest/namespaces", "/rest/workspaces");
+    } else if (written.contains("/rest/workspaces")) {
+      alias = written.replace("/rest/workspaces", "/rest/namespaces");
+    }
+    String store = rest >= 0 ? storeOf(written, rest) : null;
+    Iterator<Key> keys = entries.keySet().iterator();
+    while (keys.hasNext()) {
+      String path = keys.next().path;
+      if (affects(written, path) || affects(alias, path)
+          || (store != null && (path.startsWith(written.substring(0, rest) + "/rest/layers/") || isResourceOf(store, path)))) {
+        keys.remove();
+      }
+    }
+  }
+  
+  private static boolean affects(String written, String path) {
+    if (path.equals(written) || written.startsWith(path + "/")) return true;
+    return path.startsWith(written + "/") && path.indexOf('/', written.length() + 1) < 0;
+  }
+  
+  private static boolean isGlobal(String path) {
+    return path.startsWith("reload") || path.startsWith("reset") || path.startsWith("imports") || path.startsWith("bkprst");
+  }
+  
+  /**
+   * @return the URL of the store the given URL is, or lies within, or <TT>null</TT> if it is not part of a store
+   */
+  private static String storeOf(String url, int rest) {
+    String[] segments = url.substring(rest).split("/");
+    // e.g. /rest/workspaces/topp/datastores/states
+    if (segments.length < 6 || !segments[2].equals("workspaces") || !segments[4].endsWith("stores")) return null;
+    int end = rest;
+    for (int i = 1; i < 6; i++) {
+      end += segments[i].length() + 1;
+    }
+    return url.substring(0, end);
+  }
+  
+  /**
+   * @return whether the given path is a resource of the store, or lies within one (e.g. the granules of a coverage)
+   */
+  private static boolean isResourceOf(String store, String path) {
+    return path.startsWith(store + "/featuretypes/") || path.startsWith(store + "/coverages/") || path.startsWith(store + "/wmslayers/");
+  }
+  
+  /**
+   * @return <TT>true</TT> if the given URL was reported missing for the given user less than the time to live ago
+   */
+  synchronized boolean isMissing(String url, String username) {
+    Key key = new Key(normalize(url), username);
+    Long expires = entries.get(key);
+    if (expires == null) return false;
+    if (expires.longValue() - now() > 0) return true;
+    entries.remove(key);
+    return false;
+  }
+  
+  synchronized void missing(String url, String username) {
+    entries.put(new Key(normalize(url), username), Long.valueOf(now() + timeToLive));
+  }
+  
+  synchronized void found(String url, String username) {
+    entries.remove(new Key(normalize(url), username));
+  }
+  
+  /**
+   * @return the URL without query string and format extension
+   */
+  private static String normalize(String url) {
+    int query = url.indexOf('?');
+    String path = query < 0 ? url : url.substring(0, query);
+    int dot = path.lastIndexOf('.');
+    if (dot > path.lastIndexOf('/')) {
+      String ext = path.substring(dot + 1);
+      if (ext.equals("xml") || ext.equals("json") || ext.equals("sld") || ext.equals("html")) return path.substring(0, dot);
+    }
+    return path;
+  }
+  
+  /**
+   * @return the current time in milliseconds
+   */
+  protected long now() {
+    return System.currentTimeMillis();
+  }
+  
+  private static class Key {
+    
+    final String path;
+    
+    final String username;
+    
+    Key(String path, String username) {
+      this.path = path;
+      this.username = username != null ? username : "";
+    }
+    
+    @Override
+    public boolean equals(Object obj) {
+      if (!(obj instanceof Key)) return false;
+      Key other = (Key) obj;
+      return path.equals(other.path) && username.equals(other.username);
+    }
+    
+    @Override
+    public int hashCode() {
+      return 31 * path.hashCode() + username.hashCode();
+    }
+  }
+}
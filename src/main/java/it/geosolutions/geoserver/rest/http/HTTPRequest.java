@@ -0,0 +1,142 @@
+/*
+ *  GeoServer-Manager - Simple Manager Library for GeoServer
+ *  
+ *  Copyright (C) 2007,2016 GeoSolutions S.A.S.
+ *  http://www.geo-solutions.it
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package it.geosolutions.geoserver.rest.http;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.apache.commons.httpclient.methods.RequestEntity;
+
+/**
+ * A request to be sent by a {@link HTTPTransport}.
+ * <P>
+ * The request body is a {@link RequestEntity}, which is written straight to the connection: this is the same body type accepted by the
+ * {@link HTTPEngine} methods and it is not tied to any specific transport.
+ */
+public class HTTPRequest {
+  
+  public enum Method {
+    GET, HEAD, PUT, POST, DELETE
+  }
+  
+  private final Method method;
+  
+  private final String url;
+  
+  private final String username;
+  
+  private final String password;
+  
+  private RequestEntity body;
+  
+  private boolean probe;
+  
+  private final Map<String, String> headers = new LinkedHashMap<String, String>();
+  
+  /**
+   * @param username
+   *          the basic auth user; credentials are only sent if both username and password are not <TT>null</TT>.
+   * @param password
+   *          the basic auth password
+   */
+  public HTTPRequest(Method method, String url, String username, String password) {
+    if (method == null) throw new IllegalArgumentException("The method may not be null");
+    if (url == null) throw new IllegalArgumentException("The URL may not be null");
+    this.method = method;
+    this.url = url;
+    this.username = username;
+    this.password = password;
+  }
+  
+  public Method getMethod() {
+    return method;
+  }
+  
+  public String getUrl() {
+    return url;
+  }
+  
+  public String getUsername() {
+    return username;
+  }
+  
+  public String getPassword() {
+    return password;
+  }
+  
+  /**
+   * @return <TT>true</TT> if both username and password are set
+   */
+  public boolean hasCredentials() {
+    return username != null && password != null;
+  }
+  
+  public RequestEntity getBody() {
+    return body;
+  }
+  
+  /**
+   * Sets the request body; only meaningful for PUT and POST requests.
+   */
+  public HTTPRequest setBody(RequestEntity body) {
+    this.body = body;
+    return this;
+  }
+  
+  /**
+   * @return whether this request is a liveness or existence check, which transports may fail faster (e.g. with a shorter connection timeout)
+   */
+  public boolean isProbe() {
+    return probe;
+  }
+  
+  public HTTPRequest setProbe(boolean probe) {
+    this.probe = probe;
+    return this;
+  }
+  
+  /**
+   * @return the request headers, in insertion order
+   */
+  public Map<String, String> getHeaders() {
+    return Collections.unmodifiableMap(headers);
+  }
+  
+  public String getHeader(String name) {
+    return headers.get(name);
+  }
+  
+  public HTTPRequest setHeader(String name, String value) {
+    headers.put(name, value);
+    return this;
+  }
+  
+  @Override
+  public String toString() {
+    return method + " " + url;
+  }
+}
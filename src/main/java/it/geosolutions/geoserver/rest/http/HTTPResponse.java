@@ -0,0 +1,96 @@
+/*
+ *  GeoServer-Manager - Simple Manager Library for GeoServer
+ *  
+ *  Copyright (C) 2007,2016 GeoSolutions S.A.S.
+ *  http://www.geo-solutions.it
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package it.geosolutions.geoserver.rest.http;
+
+/**
+ * Outcome of a single HTTP call.
+ * <P>
+ * Instances are immutable, so they can be freely handed over between threads. A response is successful only if the call reached the server and the
+ * returned status was accepted by the caller; in any other case {@link #getError()} describes the problem.
+ */
+public class HTTPResponse {
+  
+  /** Status code used when no response at all was received from the server */
+  public static final int NO_RESPONSE = -1;
+  
+  private final int status;
+  
+  private final String statusText;
+  
+  private final String body;
+  
+  private final String error;
+  
+  public HTTPResponse(int status, String statusText, String body, String error) {
+    this.status = status;
+    this.statusText = statusText;
+    this.body = body;
+    this.error = error;
+  }
+  
+  /**
+   * Creates a response for a call that did not reach the server.
+   */
+  public static HTTPResponse failure(String error) {
+    return new HTTPResponse(NO_RESPONSE, null, null, error);
+  }
+  
+  /**
+   * @return true if the call succeeded, i.e. no error has been recorded.
+   */
+  public boolean isSuccess() {
+    return error == null;
+  }
+  
+  /**
+   * @return the HTTP status code, or {@link #NO_RESPONSE} if the server could not be reached.
+   */
+  public int getStatus() {
+    return status;
+  }
+  
+  public String getStatusText() {
+    return statusText;
+  }
+  
+  /**
+   * @return the response body, or <TT>null</TT> if it was not read.
+   */
+  public String getBody() {
+    return body;
+  }
+  
+  /**
+   * @return the error message, or <TT>null</TT> on success.
+   */
+  public String getError() {
+    return error;
+  }
+  
+  @Override
+  public String toString() {
+    return "HTTPResponse[status=" + status + (error != null ? ", error=" + error : "") + "]";
+  }
+}
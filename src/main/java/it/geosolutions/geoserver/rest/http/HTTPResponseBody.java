@@ -0,0 +1,64 @@
+/*
+ *  GeoServer-Manager - Simple Manager Library for GeoServer
+ *  
+ *  Copyright (C) 2007,2016 GeoSolutions S.A.S.
+ *  http://www.geo-solutions.it
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package it.geosolutions.geoserver.rest.http;
+
+import java.io.FilterInputStream;
+import java.io.InputStream;
+
+/**
+ * The response body handed by the {@link HTTPEngine} to a {@link HTTPResponseHandler}.
+ * <P>
+ * Closing a response whose body has not been read to the end drains the rest of it, so that the connection can be reused. A handler stopping
+ * early on a large body calls {@link #abort(InputStream)} instead: the connection is then closed without reading the rest of the body.
+ */
+public class HTTPResponseBody extends FilterInputStream {
+  
+  private volatile boolean aborted;
+  
+  HTTPResponseBody(InputStream in) {
+    super(in);
+  }
+  
+  /**
+   * Asks the engine to drop the connection the given body is read from, rather than reading the rest of it. Does nothing if the stream is not a
+   * response body read through an engine.
+   * 
+   * @param body
+   *          the stream handed to a {@link HTTPResponseHandler}
+   */
+  public static void abort(InputStream body) {
+    if (body instanceof HTTPResponseBody) {
+      ((HTTPResponseBody) body).aborted = true;
+    }
+  }
+  
+  /**
+   * @return whether the handler reading this body asked to drop the connection
+   */
+  boolean isAborted() {
+    return aborted;
+  }
+}
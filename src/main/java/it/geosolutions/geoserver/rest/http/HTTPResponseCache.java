@@ -0,0 +1,196 @@
+/*
+ *  GeoServer-Manager - Simple Manager Library for GeoServer
+ *  
+ *  Copyright (C) 2007,2016 GeoSolutions S.A.S.
+ *  http://www.geo-solutions.it
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package it.geosolutions.geoserver.rest.http;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Size bounded LRU cache of decoded GET responses, revalidated through HTTP conditional requests.
+ * <P>
+ * For each URL (and user) the cache keeps the <TT>ETag</TT> and <TT>Last-Modified</TT> validators sent by the server together with the object
+ * decoded from the response. The next GET of the same URL sends them back as <TT>If-None-Match</TT> / <TT>If-Modified-Since</TT>: on a
+ * <TT>304 Not Modified</TT> answer the cached object is returned as it is, without downloading nor parsing the document again. Responses without
+ * validators are not cached.
+ * <P>
+ * Cached objects are shared by all the callers, which must not modify them.
+ * 
+ * @see HTTPEngine#get(String, String, String, HTTPResponseHandler, HTTPResponseCache)
+ */
+public class HTTPResponseCache {
+  
+  public static final int DEFAULT_MAX_ENTRIES = 256;
+  
+  private final int maxEntries;
+  
+  private final Map<Key, Entry> entries;
+  
+  private final AtomicLong hits = new AtomicLong();
+  
+  private final AtomicLong misses = new AtomicLong();
+  
+  public HTTPResponseCache() {
+    this(DEFAULT_MAX_ENTRIES);
+  }
+  
+  /**
+   * @param maxEntries
+   *          the number of responses kept; the least recently used ones are evicted first.
+   */
+  public HTTPResponseCache(final int maxEntries) {
+    if (maxEntries < 1) throw new IllegalArgumentException("The cache size must be positive");
+    this.maxEntries = maxEntries;
+    this.entries = new LinkedHashMap<Key, Entry>(16, 0.75f, true) {
+      private static final long serialVersionUID = 1L;
+      
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+        return size() > maxEntries;
+      }
+    };
+  }
+  
+  public int getMaxEntries() {
+    return maxEntries;
+  }
+  
+  public synchronized int size() {
+    return entries.size();
+  }
+  
+  /**
+   * @return the number of GETs answered by a cached object after a <TT>304 Not Modified</TT>
+   */
+  public long getHitCount() {
+    return hits.get();
+  }
+  
+  /**
+   * @return the number of GETs for which the whole document was downloaded and decoded
+   */
+  public long getMissCount() {
+    return misses.get();
+  }
+  
+  /**
+   * @return hits / (hits + misses), or 0 if no call went through the cache yet
+   */
+  public double getHitRatio() {
+    long h = hits.get();
+    long total = h + misses.get();
+    return total == 0 ? 0 : (double) h / total;
+  }
+  
+  /**
+   * Removes the responses cached for the given URL, for any user.
+   */
+  public synchronized void invalidate(String url) {
+    Iterator<Key> keys = entries.keySet().iterator();
+    while (keys.hasNext()) {
+      if (keys.next().url.equals(url)) {
+        keys.remove();
+      }
+    }
+  }
+  
+  /**
+   * Removes all the cached responses. The counters are left untouched.
+   */
+  public synchronized void clear() {
+    entries.clear();
+  }
+  
+  /**
+   * @return the entry cached for the given URL and user, if it was decoded by the given handler
+   */
+  synchronized Entry lookup(String url, String username, HTTPResponseHandler<?> handler) {
+    Entry entry = entries.get(new Key(url, username));
+    return entry != null && entry.handler == handler ? entry : null;
+  }
+  
+  synchronized void store(String url, String username, Entry entry) {
+    entries.put(new Key(url, username), entry);
+  }
+  
+  synchronized void remove(String url, String username) {
+    entries.remove(new Key(url, username));
+  }
+  
+  void hit() {
+    hits.incrementAndGet();
+  }
+  
+  void miss() {
+    misses.incrementAndGet();
+  }
+  
+  /**
+   * A decoded response with its validators.
+   */
+  static class Entry {
+    
+    final HTTPResponseHandler<?> handler;
+    
+    final String etag;
+    
+    final String lastModified;
+    
+    final Object value;
+    
+    Entry(HTTPResponseHandler<?> handler, String etag, String lastModified, Object value) {
+      this.handler = handler;
+      this.etag = etag;
+      this.lastModified = lastModified;
+      this.value = value;
+    }
+  }
+  
+  private static class Key {
+    
+    final String url;
+    
+    final String username;
+    
+    Key(String url, String username) {
+      this.url = url;
+      this.username = username != null ? username : "";
+    }
+    
+    @Override
+    public boolean equals(Object obj) {
+      if (!(obj instanceof Key)) return false;
+      Key other = (Key) obj;
+      return url.equals(other.url) && username.equals(other.username);
+    }
+    
+    @Override
+    public int hashCode() {
+      return 31 * url.hashCode() + username.hashCode();
+    }
+  }
+}
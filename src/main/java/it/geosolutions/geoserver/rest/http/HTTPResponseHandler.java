@@ -0,0 +1,49 @@
+/*
+ *  GeoServer-Manager - Simple Manager Library for GeoServer
+ *  
+ *  Copyright (C) 2007,2016 GeoSolutions S.A.S.
+ *  http://www.geo-solutions.it
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package it.geosolutions.geoserver.rest.http;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Consumes a response body as a stream, turning it into an object without buffering the whole body in memory.
+ * 
+ * @param <T>
+ *          the type of the decoded object
+ */
+public interface HTTPResponseHandler<T> {
+  
+  /**
+   * Decodes the response body. The stream is closed by the caller; a handler not reading it to the end may {@link HTTPResponseBody#abort abort}
+   * it, so that the rest of the body is not read.
+   * 
+   * @param body
+   *          the response body
+   * @param charset
+   *          the charset declared in the <TT>Content-Type</TT> response header, or <TT>null</TT> if none was declared
+   * @return the decoded object, or <TT>null</TT> if the body could not be decoded
+   */
+  T handle(InputStream body, String charset) throws IOException;
+}
@@ -0,0 +1,131 @@
+/*
+ *  GeoServer-Manager - Simple Manager Library for GeoServer
+ *  
+ *  Copyright (C) 2007,2016 GeoSolutions S.A.S.
+ *  http://www.geo-solutions.it
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package it.geosolutions.geoserver.rest.http;
+
+import java.util.Random;
+
+/**
+ * When and how often a failed call is retried by an {@link HTTPEngine}.
+ * <P>
+ * Only idempotent requests (GET, HEAD, PUT and DELETE, the latter two only with a repeatable body) are retried, and only when the server could
+ * not be reached, timed out, or answered 502 (Bad Gateway), 503 (Service Unavailable) or 504 (Gateway Timeout). The n-th retry waits for a random
+ * delay between half and the whole of <TT>initialDelay * 2^(n-1)</TT>, capped by <TT>maxDelay</TT>; a <TT>Retry-After</TT> header sent by the
+ * server is honoured, within the same cap.
+ */
+public class HTTPRetryPolicy {
+  
+  public static final int DEFAULT_MAX_RETRIES = 3;
+  
+  /** Delay before the first retry, in milliseconds */
+  public static final long DEFAULT_INITIAL_DELAY = 200;
+  
+  /** Maximum delay between two attempts, in milliseconds */
+  public static final long DEFAULT_MAX_DELAY = 10000;
+  
+  private final int maxRetries;
+  
+  private final long initialDelay;
+  
+  private final long maxDelay;
+  
+  private final Random random = new Random();
+  
+  public HTTPRetryPolicy() {
+    this(DEFAULT_MAX_RETRIES, DEFAULT_INITIAL_DELAY, DEFAULT_MAX_DELAY);
+  }
+  
+  /**
+   * @param maxRetries
+   *          the maximum number of retries after the first attempt
+   * @param initialDelay
+   *          the delay before the first retry, in milliseconds
+   * @param maxDelay
+   *          the maximum delay between two attempts, in milliseconds
+   */
+  public HTTPRetryPolicy(int maxRetries, long initialDelay, long maxDelay) {
+    if (maxRetries < 0) throw new IllegalArgumentException("The number of retries may not be negative");
+    if (initialDelay < 0 || maxDelay < initialDelay) throw new IllegalArgumentException("Invalid retry delays");
+    this.maxRetries = maxRetries;
+    this.initialDelay = initialDelay;
+    this.maxDelay = maxDelay;
+  }
+  
+  public int getMaxRetries() {
+    return maxRetries;
+  }
+  
+  public long getInitialDelay() {
+    return initialDelay;
+  }
+  
+  public long getMaxDelay() {
+    return maxDelay;
+  }
+  
+  /**
+   * @return <TT>true</TT> if the request can safely be sent more than once
+   */
+  public boolean isRetryable(HTTPRequest request) {
+    switch (request.getMethod()) {
+      case GET:
+      case HEAD:
+        return true;
+      case PUT:
+      case DELETE:
+        return request.getBody() == null || request.getBody().isRepeatable();
+      default:
+        return false;
+    }
+  }
+  
+  /**
+   * @return <TT>true</TT> if the response status denotes a temporary failure worth a retry
+   */
+  public boolean isRetryable(int status) {
+    return status == 502 || status == 503 || status == 504;
+  }
+  
+  /**
+   * @param retry
+   *          the retry about to be performed, starting from 1
+   * @param retryAfter
+   *          the delay requested by the server in milliseconds, or a negative value if none
+   * @return the time to wait before the retry, in milliseconds
+   */
+  public long getDelay(int retry, long retryAfter) {
+    if (retryAfter >= 0) {
+      return Math.min(retryAfter, maxDelay);
+    }
+    long delay = initialDelay << Math.min(retry - 1, 30);
+    if (delay > maxDelay || delay < 0) {
+      delay = maxDelay;
+    }
+    long half = delay / 2;
+    synchronized (random) {
+      return half + (long) (random.nextDouble() * (delay - half));
+    }
+  }
+}
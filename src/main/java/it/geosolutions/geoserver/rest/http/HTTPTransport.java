@@ -0,0 +1,53 @@
+/*
+ *  GeoServer-Manager - Simple Manager Library for GeoServer
+ *  
+ *  Copyright (C) 2007,2016 GeoSolutions S.A.S.
+ *  http://www.geo-solutions.it
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package it.geosolutions.geoserver.rest.http;
+
+import java.io.IOException;
+
+/**
+ * The HTTP client library actually performing the calls of an {@link HTTPEngine}.
+ * <P>
+ * A transport only moves bytes: it sends the request, with preemptive basic authentication when credentials are given, and returns the raw
+ * response with its body still to be read. Status code checks, error reporting and body decoding are left to the engine.
+ * <P>
+ * Implementations must be thread safe.
+ */
+public interface HTTPTransport {
+  
+  /**
+   * Sends the request and returns as soon as the response headers are available.
+   * 
+   * @return the response; the caller must {@link HTTPTransportResponse#close() close} it.
+   * @throws IOException
+   *           if the server could not be reached or the exchange failed
+   */
+  HTTPTransportResponse execute(HTTPRequest request) throws IOException;
+  
+  /**
+   * @return the number of calls that can run concurrently against a single host without waiting for the transport (e.g. for a free connection).
+   */
+  int getMaxConcurrentCallsPerHost();
+}
@@ -0,0 +1,60 @@
+/*
+ *  GeoServer-Manager - Simple Manager Library for GeoServer
+ *  
+ *  Copyright (C) 2007,2016 GeoSolutions S.A.S.
+ *  http://www.geo-solutions.it
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package it.geosolutions.geoserver.rest.http;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * A response returned by a {@link HTTPTransport}, whose body is read from the connection.
+ */
+public interface HTTPTransportResponse {
+  
+  int getStatus();
+  
+  String getStatusText();
+  
+  /**
+   * @return the value of the given response header, or <TT>null</TT> if missing.
+   */
+  String getHeader(String name);
+  
+  /**
+   * @return the response body, or <TT>null</TT> if the response has none.
+   */
+  InputStream getBody() throws IOException;
+  
+  /**
+   * Releases the underlying connection. The body can not be read anymore.
+   */
+  void close();
+  
+  /**
+   * Closes the underlying connection without reading the rest of the body, e.g. when the caller stopped reading a large body early. The response
+   * must still be {@link #close() closed}.
+   */
+  void abort();
+}
@@ -24,7 +24,9 @@
  */
 package it.geosolutions.geoserver.rest.manager;
 
+import it.geosolutions.geoserver.rest.GeoServerRESTCatalogCache;
 import it.geosolutions.geoserver.rest.HTTPUtils;
+import it.geosolutions.geoserver.rest.http.HTTPEngine;
 
 import java.net.MalformedURLException;
 import java.net.URL;
@@ -41,6 +43,11 @@ public abstract class GeoServerRESTAbstractManager {
   protected final String gsuser;
   protected final String gspass;
   
+  /** The engine all the HTTP calls of this manager go through */
+  protected final HTTPEngine http;
+  
+  private volatile GeoServerRESTCatalogCache catalogCache;
+  
   /**
    * Default constructor.
    * 
@@ -54,6 +61,26 @@ public abstract class GeoServerRESTAbstractManager {
    *          GeoServer REST API password for the former username
    */
   public GeoServerRESTAbstractManager(URL restURL, String username, String password) throws IllegalArgumentException {
+    this(restURL, username, password, new HTTPEngine());
+  }
+  
+  /**
+   * Indicates connection parameters to remote GeoServer instance and the HTTP engine to use.
+   * <P>
+   * The same engine can be shared among managers, readers and publishers.
+   * 
+   * @param restURL
+   *          GeoServer REST API endpoint
+   * @param username
+   *          GeoServer REST API authorized username
+   * @param password
+   *          GeoServer REST API password for the former username
+   * @param engine
+   *          the HTTP engine used for all the calls
+   */
+  public GeoServerRESTAbstractManager(URL restURL, String username, String password, HTTPEngine engine) throws IllegalArgumentException {
+    if (engine == null) throw new IllegalArgumentException("Unable to create the manager using a null HTTP engine");
+    this.http = engine;
     try {
       if (restURL == null || username == null || password == null) throw new IllegalArgumentException("Unable to create the manager using a null argument");
       
@@ -66,4 +93,32 @@ public abstract class GeoServerRESTAbstractManager {
       throw new IllegalArgumentException("URL can't be parsed properly", ex);
     }
   }
+  
+  /**
+   * @return the HTTP engine used by this manager
+   */
+  public HTTPEngine getHTTPEngine() {
+    return http;
+  }
+  
+  /**
+   * @return the catalog cache invalidated by the writes of this manager, or <TT>null</TT>
+   */
+  public GeoServerRESTCatalogCache getCatalogCache() {
+    return catalogCache;
+  }
+  
+  /**
+   * Registers a catalog cache on the HTTP engine of this manager, so that every successful write (e.g. creating or removing a store) evicts the
+   * cached objects it affects.
+   * 
+   * @param cache
+   *          the cache to keep in sync, or <TT>null</TT> to release the registration of the current one
+   * @see it.geosolutions.geoserver.rest.GeoServerRESTPublisher#setCatalogCache(GeoServerRESTCatalogCache)
+   */
+  public synchronized void setCatalogCache(GeoServerRESTCatalogCache cache) {
+    if (catalogCache != null) http.removeWriteListener(catalogCache);
+    if (cache != null) http.addWriteListener(cache);
+    this.catalogCache = cache;
+  }
 }
@@ -0,0 +1,192 @@
+/*
+ *  GeoServer-Manager - Simple Manager Library for GeoServer
+ *  
+ *  Copyright (C) 2007,2016 GeoSolutions S.A.S.
+ *  http://www.geo-solutions.it
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package it.geosolutions.geoserver.rest.manager;
+
+import it.geosolutions.geoserver.rest.decoder.RESTStructuredCoverageGranulesList.GranuleHandler;
+import it.geosolutions.geoserver.rest.decoder.RESTStructuredCoverageGranulesList.RESTStructuredCoverageGranule;
+
+import java.io.Closeable;
+import java.io.UnsupportedEncodingException;
+import java.net.MalformedURLException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Iterates over the granules of a structured coverage, page after page: while the granules of a page are consumed, the following pages are
+ * already being fetched, up to the number of pages requested in parallel. The iteration ends after the first page shorter than the page size.
+ * <P>
+ * The pages are fetched on the given executor (by default the daemon threads shared by the concurrent lookups of
+ * {@link it.geosolutions.geoserver.rest.Util}), at most <TT>parallelPages</TT> at a time. At most <TT>parallelPages + 1</TT> pages are held in
+ * memory. If a page can not be loaded the iteration ends early, which {@link #isFailed()}
+ * then reports. Cursors which are not iterated to the end should be {@link #close() closed}, to release the pages being fetched.
+ * 
+ * @see GeoServerRESTStructuredGridCoverageReaderManager#getGranuleCursor(String, String, String, String, int, int)
+ */
+public class GeoServerRESTGranuleCursor implements Iterator<RESTStructuredCoverageGranule>, Closeable {
+  
+  private final static Logger LOGGER = LoggerFactory.getLogger(GeoServerRESTGranuleCursor.class);
+  
+  private final GeoServerRESTStructuredGridCoverageReaderManager manager;
+  
+  private final String workspace;
+  
+  private final String coverageStore;
+  
+  private final String coverage;
+  
+  private final String filter;
+  
+  private final int pageSize;
+  
+  private final Executor executor;
+  
+  /** The pages being fetched, in order */
+  private final LinkedList<Future<List<RESTStructuredCoverageGranule>>> pages = new LinkedList<Future<List<RESTStructuredCoverageGranule>>>();
+  
+  private int nextPage;
+  
+  private Iterator<RESTStructuredCoverageGranule> current;
+  
+  private boolean last;
+  
+  private boolean failed;
+  
+  private boolean closed;
+  
+  GeoServerRESTGranuleCursor(GeoServerRESTStructuredGridCoverageReaderManager manager, String workspace, String coverageStore, String coverage,
+      String filter, int pageSize, int parallelPages, Executor executor) {
+    if (pageSize < 1) throw new IllegalArgumentException("The page size must be positive");
+    if (parallelPages < 1) throw new IllegalArgumentException("The number of parallel pages must be positive");
+    if (executor == null) throw new IllegalArgumentException("The executor may not be null");
+    this.manager = manager;
+    this.workspace = workspace;
+    this.coverageStore = coverageStore;
+    this.coverage = coverage;
+    this.filter = filter;
+    this.pageSize = pageSize;
+    this.executor = executor;
+    for (int i = 0; i < parallelPages; i++) {
+      fetchNextPage();
+    }
+  }
+  
+  /**
+   * @return the number of granules per page
+   */
+  public int getPageSize() {
+    return pageSize;
+  }
+  
+  /**
+   * @return whether the iteration ended because a page could not be loaded
+   */
+  public synchronized boolean isFailed() {
+    return failed;
+  }
+  
+  public synchronized boolean hasNext() {
+    while ((current == null || !current.hasNext()) && !last && !closed) {
+      current = takePage().iterator();
+    }
+    return current != null && current.hasNext();
+  }
+  
+  public synchronized RESTStructuredCoverageGranule next() {
+    if (!hasNext()) throw new NoSuchElementException();
+    return current.next();
+  }
+  
+  public void remove() {
+    throw new UnsupportedOperationException();
+  }
+  
+  /**
+   * Stops fetching pages; the granules not consumed yet are discarded.
+   */
+  public synchronized void close() {
+    closed = true;
+    current = null;
+    for (Future<?> page : pages) {
+      page.cancel(false);
+    }
+    pages.clear();
+  }
+  
+  private void fetchNextPage() {
+    final int offset = nextPage++ * pageSize;
+    FutureTask<List<RESTStructuredCoverageGranule>> page = new FutureTask<List<RESTStructuredCoverageGranule>>(new Callable<List<RESTStructuredCoverageGranule>>() {
+      public List<RESTStructuredCoverageGranule> call() throws MalformedURLException, UnsupportedEncodingException {
+        final List<RESTStructuredCoverageGranule> page = new ArrayList<RESTStructuredCoverageGranule>(pageSize);
+        int count = manager.getGranules(workspace, coverageStore, coverage, filter, offset, pageSize, new GranuleHandler() {
+          public boolean handle(RESTStructuredCoverageGranule granule) {
+            page.add(granule);
+            return true;
+          }
+        });
+        return count < 0 ? null : page;
+      }
+    });
+    pages.add(page);
+    executor.execute(page);
+  }
+  
+  /**
+   * Waits for the next page and starts fetching the one after the pages already requested.
+   */
+  private List<RESTStructuredCoverageGranule> takePage() {
+    List<RESTStructuredCoverageGranule> page = null;
+    try {
+      page = pages.removeFirst().get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } catch (ExecutionException e) {
+      LOGGER.warn("Unable to load the granules of " + coverage + ": " + e.getCause());
+    }
+    if (page == null) {
+      failed = true;
+      page = new ArrayList<RESTStructuredCoverageGranule>(0);
+    }
+    if (failed || page.size() < pageSize) {
+      // a short page is the last one
+      last = true;
+      close();
+    } else {
+      fetchNextPage();
+    }
+    return page;
+  }
+}
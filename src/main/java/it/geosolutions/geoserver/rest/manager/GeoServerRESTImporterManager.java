@@ -25,6 +25,7 @@
 package it.geosolutions.geoserver.rest.manager;
 
 import it.geosolutions.geoserver.rest.HTTPUtils;
+import it.geosolutions.geoserver.rest.http.HTTPEngine;
 
 import java.io.File;
 import java.io.IOException;
@@ -60,6 +61,20 @@ public class GeoServerRESTImporterManager extends GeoServerRESTAbstractManager {
     super(restURL, username, password);
   }
   
+  /**
+   * @param restURL
+   *          GeoServer REST API endpoint
+   * @param username
+   *          GeoServer REST API authorized username
+   * @param password
+   *          GeoServer REST API password for the former username
+   * @param engine
+   *          the HTTP engine used for all the calls
+   */
+  public GeoServerRESTImporterManager(URL restURL, String username, String password, HTTPEngine engine) throws IllegalArgumentException {
+    super(restURL, username, password, engine);
+  }
+  
   /**
    * Retrieves the Import JSON Object given its identifier
    * 
@@ -67,7 +82,7 @@ public class GeoServerRESTImporterManager extends GeoServerRESTAbstractManager {
    *          int: Import context number ID
    */
   public JsonObject getImport(int imp) throws Exception {
-    JsonElement json = HTTPUtils.getAsJSON(String.format(buildUrl() + "/%d", imp), gsuser, gspass);
+    JsonElement json = http.getAsJSON(String.format(buildUrl() + "/%d", imp), gsuser, gspass);
     return json.getAsJsonObject().getAsJsonObject("import");
   }
   
@@ -80,7 +95,7 @@ public class GeoServerRESTImporterManager extends GeoServerRESTAbstractManager {
    *          int: Task number
    */
   public JsonObject getTask(int imp, int task) throws Exception {
-    JsonElement json = HTTPUtils.getAsJSON(String.format(buildUrl() + "/%d/tasks/%d?expand=all", imp, task), gsuser, gspass);
+    JsonElement json = http.getAsJSON(String.format(buildUrl() + "/%d/tasks/%d?expand=all", imp, task), gsuser, gspass);
     return json.getAsJsonObject().getAsJsonObject("task");
   }
   
@@ -133,8 +148,8 @@ public class GeoServerRESTImporterManager extends GeoServerRESTAbstractManager {
    * @throws Exception
    */
   public void putTask(int imp, int task, final String json) throws Exception {
-    // HTTPUtils.putJson(String.format(buildUrl()+"/%d/tasks/%d", imp, task), json, gsuser, gspass);
-    HTTPUtils.put(String.format(buildUrl() + "/%d/tasks/%d", imp, task), json, "text/plain", gsuser, gspass);
+    // http.putJson(String.format(buildUrl()+"/%d/tasks/%d", imp, task), json, gsuser, gspass);
+    http.put(String.format(buildUrl() + "/%d/tasks/%d", imp, task), json, "text/plain", gsuser, gspass);
   }
   
   /**
@@ -155,7 +170,7 @@ public class GeoServerRESTImporterManager extends GeoServerRESTAbstractManager {
    * @throws Exception
    */
   public void putTaskLayer(int imp, int task, final String json) throws Exception {
-    HTTPUtils.putJson(String.format(buildUrl() + "/%d/tasks/%d/layer", imp, task), json, gsuser, gspass);
+    http.putJson(String.format(buildUrl() + "/%d/tasks/%d/layer", imp, task), json, gsuser, gspass);
   }
   
   /**
@@ -176,7 +191,7 @@ public class GeoServerRESTImporterManager extends GeoServerRESTAbstractManager {
    * @throws Exception
    */
   public void postTaskTransform(int imp, int task, final String json) throws Exception {
-    HTTPUtils.postJson(String.format(buildUrl() + "/%d/tasks/%d/transforms", imp, task), json, gsuser, gspass);
+    http.postJson(String.format(buildUrl() + "/%d/tasks/%d/transforms", imp, task), json, gsuser, gspass);
   }
   
   /**
@@ -202,7 +217,7 @@ public class GeoServerRESTImporterManager extends GeoServerRESTAbstractManager {
    * @throws Exception
    */
   public int postNewImport(String body) throws Exception {
-    String resp = body == null ? HTTPUtils.post(buildUrl(), "", "text/plain", gsuser, gspass) : HTTPUtils.postJson(buildUrl(), body, gsuser, gspass);
+    String resp = body == null ? http.post(buildUrl(), "", "text/plain", gsuser, gspass) : http.postJson(buildUrl(), body, gsuser, gspass);
     
     JsonObject json = HTTPUtils.json(resp).getAsJsonObject();
     JsonObject imprt = json.getAsJsonObject("import");
@@ -217,7 +232,7 @@ public class GeoServerRESTImporterManager extends GeoServerRESTAbstractManager {
    * @throws Exception
    */
   public void postImport(int imp) throws Exception {
-    HTTPUtils.post(buildUrl() + "/" + imp + "?exec=true", "", "text/plain", gsuser, gspass);
+    http.post(buildUrl() + "/" + imp + "?exec=true", "", "text/plain", gsuser, gspass);
   }
   
   /**
@@ -229,7 +244,7 @@ public class GeoServerRESTImporterManager extends GeoServerRESTAbstractManager {
    * @throws Exception
    */
   public int postNewTaskAsMultiPartForm(int imp, String data) throws Exception {
-    String resp = HTTPUtils.postMultipartForm(buildUrl() + "/" + imp + "/tasks", unpack(data), gsuser, gspass);
+    String resp = http.postMultipartForm(buildUrl() + "/" + imp + "/tasks", unpack(data), gsuser, gspass);
     
     JsonObject json = HTTPUtils.json(resp).getAsJsonObject();
     
@@ -249,7 +264,7 @@ public class GeoServerRESTImporterManager extends GeoServerRESTAbstractManager {
   public int putNewTask(int imp, String path) throws Exception {
     File zip = new File(path);
     
-    String resp = HTTPUtils.put(buildUrl() + "/" + imp + "/tasks/" + zip.getName(), zip, MediaType.APPLICATION_ZIP.toString(), gsuser, gspass);
+    String resp = http.put(buildUrl() + "/" + imp + "/tasks/" + zip.getName(), zip, MediaType.APPLICATION_ZIP.toString(), gsuser, gspass);
     
     JsonObject json = HTTPUtils.json(resp).getAsJsonObject();
     
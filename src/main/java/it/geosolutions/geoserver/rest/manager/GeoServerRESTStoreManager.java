@@ -28,6 +28,7 @@ import it.geosolutions.geoserver.rest.GeoServerRESTPublisher.Format;
 import it.geosolutions.geoserver.rest.HTTPUtils;
 import it.geosolutions.geoserver.rest.encoder.GSAbstractStoreEncoder;
 import it.geosolutions.geoserver.rest.encoder.datastore.GSAbstractDatastoreEncoder;
+import it.geosolutions.geoserver.rest.http.HTTPEngine;
 
 import java.net.MalformedURLException;
 import java.net.URL;
@@ -57,6 +58,20 @@ public class GeoServerRESTStoreManager extends GeoServerRESTAbstractManager {
     super(restURL, username, password);
   }
   
+  /**
+   * @param restURL
+   *          GeoServer REST API endpoint
+   * @param username
+   *          GeoServer REST API authorized username
+   * @param password
+   *          GeoServer REST API password for the former username
+   * @param engine
+   *          the HTTP engine used for all the calls
+   */
+  public GeoServerRESTStoreManager(URL restURL, String username, String password, HTTPEngine engine) throws IllegalArgumentException {
+    super(restURL, username, password, engine);
+  }
+  
   /**
    * Create a store.
    * 
@@ -69,7 +84,7 @@ public class GeoServerRESTStoreManager extends GeoServerRESTAbstractManager {
   public boolean create(String workspace, GSAbstractStoreEncoder store) {
     String sUrl = HTTPUtils.append(gsBaseUrl, "/rest/workspaces/", workspace, "/", store.getStoreType().toString(), ".", Format.XML.toString()).toString();
     String xml = store.toString();
-    String result = HTTPUtils.postXml(sUrl, xml, gsuser, gspass);
+    String result = http.postXml(sUrl, xml, gsuser, gspass);
     return result != null;
   }
   
@@ -85,7 +100,7 @@ public class GeoServerRESTStoreManager extends GeoServerRESTAbstractManager {
   public boolean update(String workspace, GSAbstractStoreEncoder store) {
     String sUrl = HTTPUtils.append(gsBaseUrl, "/rest/workspaces/", workspace, "/", store.getStoreType().toString(), "/", store.getName(), ".", Format.XML.toString()).toString();
     String xml = store.toString();
-    String result = HTTPUtils.putXml(sUrl, xml, gsuser, gspass);
+    String result = http.putXml(sUrl, xml, gsuser, gspass);
     return result != null;
   }
   
@@ -111,7 +126,7 @@ public class GeoServerRESTStoreManager extends GeoServerRESTAbstractManager {
     if (recurse) url.append("?recurse=true");
     final URL deleteStore = new URL(url.toString());
     
-    boolean deleted = HTTPUtils.delete(deleteStore.toExternalForm(), gsuser, gspass);
+    boolean deleted = http.delete(deleteStore.toExternalForm(), gsuser, gspass);
     // if (!deleted) {
     // LOGGER.warn("Could not delete CoverageStore " + workspace + ":" + storename);
     // } else {
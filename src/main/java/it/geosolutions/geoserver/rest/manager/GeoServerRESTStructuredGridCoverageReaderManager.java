@@ -26,8 +26,15 @@ package it.geosolutions.geoserver.rest.manager;
 
 import it.geosolutions.geoserver.rest.GeoServerRESTPublisher.UploadMethod;
 import it.geosolutions.geoserver.rest.HTTPUtils;
+import it.geosolutions.geoserver.rest.Util;
+import it.geosolutions.geoserver.rest.decoder.RESTStructuredCoverageGranulesColumns;
 import it.geosolutions.geoserver.rest.decoder.RESTStructuredCoverageGranulesList;
+import it.geosolutions.geoserver.rest.decoder.RESTStructuredCoverageGranulesList.GranuleHandler;
 import it.geosolutions.geoserver.rest.decoder.RESTStructuredCoverageIndexSchema;
+import it.geosolutions.geoserver.rest.decoder.utils.GranuleColumnsResponseHandler;
+import it.geosolutions.geoserver.rest.decoder.utils.GranulesResponseHandler;
+import it.geosolutions.geoserver.rest.decoder.utils.JDOMResponseHandler;
+import it.geosolutions.geoserver.rest.http.HTTPEngine;
 
 import java.io.File;
 import java.io.IOException;
@@ -35,8 +42,10 @@ import java.io.UnsupportedEncodingException;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.net.URLEncoder;
+import java.util.concurrent.Executor;
 import java.util.zip.ZipFile;
 
+import org.jdom.Element;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -81,6 +90,20 @@ public class GeoServerRESTStructuredGridCoverageReaderManager extends GeoServerR
     super(restURL, username, password);
   }
   
+  /**
+   * @param restURL
+   *          GeoServer REST API endpoint
+   * @param username
+   *          GeoServer REST API authorized username
+   * @param password
+   *          GeoServer REST API password for the former username
+   * @param engine
+   *          the HTTP engine used for all the calls
+   */
+  public GeoServerRESTStructuredGridCoverageReaderManager(URL restURL, String username, String password, HTTPEngine engine) throws IllegalArgumentException {
+    super(restURL, username, password, engine);
+  }
+  
   /**
    * Create a new ImageMosaic with the provided configuration provided as a zip file.
    * 
@@ -161,7 +184,7 @@ public class GeoServerRESTStructuredGridCoverageReaderManager extends GeoServerR
     String sUrl = ss.toString();
     
     // POST request
-    String result = HTTPUtils.put(sUrl, zipFile, "application/zip", gsuser, gspass);
+    String result = http.put(sUrl, zipFile, "application/zip", gsuser, gspass);
     return result != null;
   }
   
@@ -191,7 +214,7 @@ public class GeoServerRESTStructuredGridCoverageReaderManager extends GeoServerR
     String sUrl = HTTPUtils.append(gsBaseUrl, "/rest/workspaces/", workspace, "/coveragestores/", coverageStore, "/", UploadMethod.EXTERNAL.toString(), ".", format).toString();
     
     // POST request
-    String result = HTTPUtils.post(sUrl, "file://" + path, "text/plain", gsuser, gspass);
+    String result = http.post(sUrl, "file://" + path, "text/plain", gsuser, gspass);
     return result != null;
   }
   
@@ -262,7 +285,7 @@ public class GeoServerRESTStructuredGridCoverageReaderManager extends GeoServerR
     
     // method
     String sUrl = HTTPUtils.append(gsBaseUrl, "/rest/workspaces/", workspace, "/coveragestores", "/", coverageStore, "/coverages/", coverage, "/index/granules?filter=", URLEncoder.encode(filter, "UTF-8")).toString();
-    if (!HTTPUtils.delete(sUrl, gsuser, gspass)) {
+    if (!http.delete(sUrl, gsuser, gspass)) {
       return false;
     }
     
@@ -333,7 +356,7 @@ public class GeoServerRESTStructuredGridCoverageReaderManager extends GeoServerR
     
     // delete
     String sUrl = HTTPUtils.append(gsBaseUrl, "/rest/workspaces/", workspace, "/coveragestores", "/", coverageStore, "/coverages/", coverage, "/index/granules/", granuleId).toString();
-    if (!HTTPUtils.delete(sUrl, gsuser, gspass)) {
+    if (!http.delete(sUrl, gsuser, gspass)) {
       return false;
     }
     
@@ -383,7 +406,7 @@ public class GeoServerRESTStructuredGridCoverageReaderManager extends GeoServerR
     
     // create URL and then call it
     String sUrl = HTTPUtils.append(gsBaseUrl, "/rest/workspaces/", workspace, "/coveragestores/", coverageStore, "/coverages/", coverage, "/index.xml").toString();
-    String result = HTTPUtils.get(sUrl, gsuser, gspass);
+    Element result = http.get(sUrl, gsuser, gspass, JDOMResponseHandler.INSTANCE);
     if (result != null) {
       return RESTStructuredCoverageIndexSchema.build(result);
     }
@@ -440,7 +463,153 @@ public class GeoServerRESTStructuredGridCoverageReaderManager extends GeoServerR
     checkString(coverage);
     checkString(coverageStore);
     
-    // method
+    String sUrl = granulesUrl(workspace, coverageStore, coverage, filter, offset, limit);
+    Element result = http.get(sUrl, gsuser, gspass, JDOMResponseHandler.INSTANCE);
+    if (result != null) {
+      return RESTStructuredCoverageGranulesList.build(result);
+    }
+    return null;
+  }
+  
+  /**
+   * Streams the granules of a coverage, with optional filter and paging, to the given handler as they are read from GeoServer. Unlike
+   * {@link #getGranules(String, String, String, String, Integer, Integer)}, the response is never held in memory as a whole, so that any number of
+   * granules can be read.
+   * 
+   * @param workspace
+   *          the GeoServer workspace
+   * @param coverageStore
+   *          the GeoServer coverageStore
+   * @param coverage
+   *          the name of the target coverage
+   * @param filter
+   *          the CQL filter selecting the granules, can be <code>null</code> to include all the granules
+   * @param offset
+   *          the start page, can be <code>null</code> or an integer
+   * @param limit
+   *          the dimension of the page, can be <code>null</code> or a positive integer
+   * @param handler
+   *          the handler receiving the granules, on the calling thread
+   * 
+   * @return the number of granules handled, or <code>-1</code> in case the call does not succeed; granules may have been handled anyway if the
+   *         connection failed while reading them.
+   * 
+   * @throws MalformedURLException
+   * @throws UnsupportedEncodingException
+   */
+  public int getGranules(final String workspace, String coverageStore, String coverage, String filter, Integer offset, Integer limit, GranuleHandler handler) throws MalformedURLException, UnsupportedEncodingException {
+    // checks
+    checkString(workspace);
+    checkString(coverage);
+    checkString(coverageStore);
+    
+    String sUrl = granulesUrl(workspace, coverageStore, coverage, filter, offset, limit);
+    Integer count = http.get(sUrl, gsuser, gspass, new GranulesResponseHandler(handler));
+    return count != null ? count : -1;
+  }
+  
+  /**
+   * Decodes the granules of a coverage, with optional filter and paging, into typed columns as they are read from GeoServer: see
+   * {@link RESTStructuredCoverageGranulesColumns}. The index schema is read first to get the bindings of the attributes.
+   * 
+   * @param workspace
+   *          the GeoServer workspace
+   * @param coverageStore
+   *          the GeoServer coverageStore
+   * @param coverage
+   *          the name of the target coverage
+   * @param filter
+   *          the CQL filter selecting the granules, can be <code>null</code> to include all the granules
+   * @param offset
+   *          the start page, can be <code>null</code> or an integer
+   * @param limit
+   *          the dimension of the page, can be <code>null</code> or a positive integer
+   * 
+   * @return <code>null</code> in case the schema or the granules could not be read, or the columns of the granules.
+   * 
+   * @throws MalformedURLException
+   * @throws UnsupportedEncodingException
+   */
+  public RESTStructuredCoverageGranulesColumns getGranuleColumns(final String workspace, String coverageStore, String coverage, String filter, Integer offset, Integer limit) throws MalformedURLException, UnsupportedEncodingException {
+    RESTStructuredCoverageIndexSchema schema = getGranuleIndexSchema(workspace, coverageStore, coverage);
+    if (schema == null) {
+      return null;
+    }
+    return getGranuleColumns(workspace, coverageStore, coverage, schema, filter, offset, limit);
+  }
+  
+  /**
+   * Decodes the granules of a coverage into typed columns, using an index schema already read by
+   * {@link #getGranuleIndexSchema(String, String, String)}; see {@link #getGranuleColumns(String, String, String, String, Integer, Integer)}.
+   * 
+   * @return <code>null</code> in case the call does not succeed, or the columns of the granules.
+   * 
+   * @throws MalformedURLException
+   * @throws UnsupportedEncodingException
+   */
+  public RESTStructuredCoverageGranulesColumns getGranuleColumns(final String workspace, String coverageStore, String coverage, RESTStructuredCoverageIndexSchema schema, String filter, Integer offset, Integer limit) throws MalformedURLException, UnsupportedEncodingException {
+    // checks
+    checkString(workspace);
+    checkString(coverage);
+    checkString(coverageStore);
+    
+    String sUrl = granulesUrl(workspace, coverageStore, coverage, filter, offset, limit);
+    return http.get(sUrl, gsuser, gspass, new GranuleColumnsResponseHandler(schema));
+  }
+  
+  /**
+   * Opens a cursor iterating over the granules of a coverage page after page, prefetching the next pages while the current one is consumed.
+   * 
+   * @param workspace
+   *          the GeoServer workspace
+   * @param coverageStore
+   *          the GeoServer coverageStore
+   * @param coverage
+   *          the name of the target coverage
+   * @param filter
+   *          the CQL filter selecting the granules, can be <code>null</code> to include all the granules
+   * @param pageSize
+   *          the number of granules requested per call
+   * @param parallelPages
+   *          the number of pages fetched concurrently ahead of the one consumed; 1 only prefetches the next page.
+   * 
+   * @return the cursor, which must be closed if it is not iterated to the end
+   */
+  public GeoServerRESTGranuleCursor getGranuleCursor(final String workspace, String coverageStore, String coverage, String filter, int pageSize, int parallelPages) {
+    return getGranuleCursor(workspace, coverageStore, coverage, filter, pageSize, parallelPages, Util.searchPool());
+  }
+  
+  /**
+   * Opens a cursor iterating over the granules of a coverage page after page, fetching the pages on the given executor.
+   * 
+   * @param workspace
+   *          the GeoServer workspace
+   * @param coverageStore
+   *          the GeoServer coverageStore
+   * @param coverage
+   *          the name of the target coverage
+   * @param filter
+   *          the CQL filter selecting the granules, can be <code>null</code> to include all the granules
+   * @param pageSize
+   *          the number of granules requested per call
+   * @param parallelPages
+   *          the number of pages fetched concurrently ahead of the one consumed; 1 only prefetches the next page.
+   * @param executor
+   *          the executor fetching the pages, which receives at most <TT>parallelPages</TT> tasks at a time
+   * 
+   * @return the cursor, which must be closed if it is not iterated to the end
+   */
+  public GeoServerRESTGranuleCursor getGranuleCursor(final String workspace, String coverageStore, String coverage, String filter, int pageSize, int parallelPages,
+      Executor executor) {
+    // checks
+    checkString(workspace);
+    checkString(coverage);
+    checkString(coverageStore);
+    
+    return new GeoServerRESTGranuleCursor(this, workspace, coverageStore, coverage, filter, pageSize, parallelPages, executor);
+  }
+  
+  private String granulesUrl(final String workspace, String coverageStore, String coverage, String filter, Integer offset, Integer limit) throws UnsupportedEncodingException {
     boolean append = false;
     String sUrl = HTTPUtils.append(gsBaseUrl, "/rest/workspaces/", workspace, "/coveragestores/", coverageStore, "/coverages/", coverage, "/index/granules.xml").toString();
     if (filter != null && !filter.isEmpty()) {
@@ -459,11 +628,7 @@ public class GeoServerRESTStructuredGridCoverageReaderManager extends GeoServerR
       sUrl = HTTPUtils.append(sUrl, append ? "&limit=" : "?limit=", limit.toString()).toString();
       append = true;
     }
-    String result = HTTPUtils.get(sUrl, gsuser, gspass);
-    if (result != null) {
-      return RESTStructuredCoverageGranulesList.build(result);
-    }
-    return null;
+    return sUrl;
   }
   
   /**
@@ -501,7 +666,7 @@ public class GeoServerRESTStructuredGridCoverageReaderManager extends GeoServerR
     
     // method
     String sUrl = HTTPUtils.append(gsBaseUrl, "/rest/workspaces/", workspace, "/coveragestores/", coverageStore, "/coverages/", coverage, "/index/granules/", id, ".xml").toString();
-    String result = HTTPUtils.get(sUrl, gsuser, gspass);
+    Element result = http.get(sUrl, gsuser, gspass, JDOMResponseHandler.INSTANCE);
     if (result != null) {
       return RESTStructuredCoverageGranulesList.build(result);
     }
@@ -24,33 +24,41 @@
  */
 package it.geosolutions.geoserver.rest.manager;
 
+import it.geosolutions.geoserver.rest.GeoServerRESTCatalogCache;
 import it.geosolutions.geoserver.rest.GeoServerRESTPublisher;
-import it.geosolutions.geoserver.rest.HTTPUtils;
 import it.geosolutions.geoserver.rest.Util;
 import it.geosolutions.geoserver.rest.decoder.RESTStyle;
 import it.geosolutions.geoserver.rest.decoder.RESTStyleList;
+import it.geosolutions.geoserver.rest.decoder.utils.JDOMResponseHandler;
+import it.geosolutions.geoserver.rest.http.HTTPEngine;
+import it.geosolutions.geoserver.rest.http.HTTPNotFoundCache;
 
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URL;
 import java.net.URLEncoder;
 import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
-import javax.xml.parsers.ParserConfigurationException;
-import javax.xml.xpath.XPath;
-import javax.xml.xpath.XPathConstants;
-import javax.xml.xpath.XPathExpression;
-import javax.xml.xpath.XPathExpressionException;
-import javax.xml.xpath.XPathFactory;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 
+import org.jdom.Element;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.w3c.dom.Document;
-import org.xml.sax.SAXException;
 
 /**
  *
@@ -60,6 +68,21 @@ public class GeoServerRESTStyleManager extends GeoServerRESTAbstractManager {
   
   private final static Logger LOGGER = LoggerFactory.getLogger(GeoServerRESTStyleManager.class);
   
+  private static final Charset UTF8 = Charset.forName("UTF-8");
+  
+  private static final XMLInputFactory XML_INPUT = XMLInputFactory.newInstance();
+  
+  static {
+    XML_INPUT.setProperty(XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
+    XML_INPUT.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, Boolean.FALSE);
+    XML_INPUT.setProperty(XMLInputFactory.IS_COALESCING, Boolean.TRUE);
+  }
+  
+  private volatile HTTPNotFoundCache notFoundCache;
+  
+  /** The digests of the SLD bodies known to GeoServer, by qualified style name */
+  private final Map<String, String> styleDigests = new ConcurrentHashMap<String, String>();
+  
   /**
    * Default constructor.
    *
@@ -74,6 +97,40 @@ public class GeoServerRESTStyleManager extends GeoServerRESTAbstractManager {
     super(restURL, username, password);
   }
   
+  /**
+   * @param restURL
+   *          GeoServer REST API endpoint
+   * @param username
+   *          GeoServer REST API authorized username
+   * @param password
+   *          GeoServer REST API password for the former username
+   * @param engine
+   *          the HTTP engine used for all the calls
+   */
+  public GeoServerRESTStyleManager(URL restURL, String username, String password, HTTPEngine engine) throws IllegalArgumentException {
+    super(restURL, username, password, engine);
+  }
+  
+  /**
+   * @return the cache of the styles found missing, or <TT>null</TT> if disabled
+   */
+  public HTTPNotFoundCache getNotFoundCache() {
+    return notFoundCache;
+  }
+  
+  /**
+   * Enables the caching of the styles found missing by the <TT>existsStyle</TT> methods. The cache is registered on the HTTP engine of this
+   * manager, so that styles published through the engine are no longer reported missing.
+   * 
+   * @param cache
+   *          the cache, or <TT>null</TT> to always ask GeoServer
+   */
+  public synchronized void setNotFoundCache(HTTPNotFoundCache cache) {
+    if (notFoundCache != null) http.removeWriteListener(notFoundCache);
+    if (cache != null) http.addWriteListener(cache);
+    this.notFoundCache = cache;
+  }
+  
   /**
    * Check if a Style exists in the configured GeoServer instance.
    * 
@@ -101,7 +158,7 @@ public class GeoServerRESTStyleManager extends GeoServerRESTAbstractManager {
   public boolean existsStyle(String name, boolean quietOnNotFound) {
     String url = buildXmlUrl(null, name);
     String composed = Util.appendQuietOnNotFound(quietOnNotFound, url);
-    return HTTPUtils.exists(composed, gsuser, gspass);
+    return http.exists(composed, gsuser, gspass, notFoundCache);
   }
   
   /**
@@ -115,8 +172,7 @@ public class GeoServerRESTStyleManager extends GeoServerRESTAbstractManager {
       LOGGER.debug("### Retrieving Styles list from " + url);
     }
     
-    String response = HTTPUtils.get(gsBaseUrl + url, gsuser, gspass);
-    return RESTStyleList.build(response);
+    return loadStyles(gsBaseUrl + url);
   }
   
   public RESTStyle getStyle(String name) {
@@ -125,8 +181,7 @@ public class GeoServerRESTStyleManager extends GeoServerRESTAbstractManager {
       LOGGER.debug("### Retrieving Style " + name + " from " + url);
     }
     
-    String response = HTTPUtils.get(url, gsuser, gspass);
-    return RESTStyle.build(response);
+    return loadStyle(url);
   }
   
   /**
@@ -137,7 +192,7 @@ public class GeoServerRESTStyleManager extends GeoServerRESTAbstractManager {
     if (LOGGER.isDebugEnabled()) {
       LOGGER.debug("### Retrieving SLD body from " + url);
     }
-    return HTTPUtils.get(url, gsuser, gspass);
+    return http.get(url, gsuser, gspass);
   }
   
   // =========================================================================
@@ -159,7 +214,7 @@ public class GeoServerRESTStyleManager extends GeoServerRESTAbstractManager {
   public boolean existsStyle(String workspace, String name, boolean quietOnNotFound) {
     String url = buildXmlUrl(workspace, name);
     String composed = Util.appendQuietOnNotFound(quietOnNotFound, url);
-    return HTTPUtils.exists(composed, gsuser, gspass);
+    return http.exists(composed, gsuser, gspass, notFoundCache);
   }
   
   /**
@@ -174,8 +229,7 @@ public class GeoServerRESTStyleManager extends GeoServerRESTAbstractManager {
       LOGGER.debug("### Retrieving Styles list from " + url);
     }
     
-    String response = HTTPUtils.get(gsBaseUrl + url, gsuser, gspass);
-    return RESTStyleList.build(response);
+    return loadStyles(gsBaseUrl + url);
   }
   
   /**
@@ -188,8 +242,36 @@ public class GeoServerRESTStyleManager extends GeoServerRESTAbstractManager {
       LOGGER.debug("### Retrieving Style " + name + " from " + url);
     }
     
-    String response = HTTPUtils.get(url, gsuser, gspass);
-    return RESTStyle.build(response);
+    return loadStyle(url);
+  }
+  
+  /**
+   * Loads a style through the {@link #getCatalogCache() catalog cache}, if any, so that styles already resolved by a reader or manager sharing
+   * the cache are not fetched again.
+   */
+  private RESTStyle loadStyle(String url) {
+    GeoServerRESTCatalogCache cache = getCatalogCache();
+    RESTStyle style = cache != null ? cache.get(url, RESTStyle.class) : null;
+    if (style == null) {
+      Element response = http.get(url, gsuser, gspass, JDOMResponseHandler.INSTANCE);
+      style = RESTStyle.build(response);
+      if (cache != null) cache.put(url, response, style);
+    }
+    return style;
+  }
+  
+  /**
+   * Loads a style list through the {@link #getCatalogCache() catalog cache}, if any.
+   */
+  private RESTStyleList loadStyles(String url) {
+    GeoServerRESTCatalogCache cache = getCatalogCache();
+    RESTStyleList styles = cache != null ? cache.get(url, RESTStyleList.class) : null;
+    if (styles == null) {
+      Element response = http.get(url, gsuser, gspass, JDOMResponseHandler.INSTANCE);
+      styles = RESTStyleList.build(response);
+      if (cache != null) cache.put(url, response, styles);
+    }
+    return styles;
   }
   
   /**
@@ -202,7 +284,7 @@ public class GeoServerRESTStyleManager extends GeoServerRESTAbstractManager {
     if (LOGGER.isDebugEnabled()) {
       LOGGER.debug("### Retrieving SLD body from " + url);
     }
-    return HTTPUtils.get(url, gsuser, gspass);
+    return http.get(url, gsuser, gspass);
   }
   
   // =========================================================================
@@ -257,12 +339,12 @@ public class GeoServerRESTStyleManager extends GeoServerRESTAbstractManager {
     
     String sUrl = buildPostUrl(null, name);
     
-    final String result = HTTPUtils.post(sUrl, sldBody, "application/vnd.ogc.sld+xml", gsuser, gspass);
+    final String result = http.post(sUrl, sldBody, "application/vnd.ogc.sld+xml", gsuser, gspass);
     return result != null;
   }
   
   public String getLastError() {
-    return HTTPUtils.getLastError();
+    return http.getLastError();
   }
   
   /**
@@ -290,7 +372,7 @@ public class GeoServerRESTStyleManager extends GeoServerRESTAbstractManager {
   public boolean publishStyle(File sldFile, String name) {
     String sUrl = buildPostUrl(null, name);
     LOGGER.debug("POSTing new style " + name + " to " + sUrl);
-    String result = HTTPUtils.post(sUrl, sldFile, GeoServerRESTPublisher.Format.SLD.getContentType(), gsuser, gspass);
+    String result = http.post(sUrl, sldFile, GeoServerRESTPublisher.Format.SLD.getContentType(), gsuser, gspass);
     return result != null;
   }
   
@@ -323,7 +405,7 @@ public class GeoServerRESTStyleManager extends GeoServerRESTAbstractManager {
       contentType = GeoServerRESTPublisher.Format.SLD_1_1_0.getContentType();
     }
     LOGGER.debug("POSTing new style " + name + " to " + sUrl + " using version: " + contentType);
-    String result = HTTPUtils.post(sUrl.toString(), sldBody, contentType, gsuser, gspass);
+    String result = http.post(sUrl.toString(), sldBody, contentType, gsuser, gspass);
     return result != null;
   }
   
@@ -352,7 +434,7 @@ public class GeoServerRESTStyleManager extends GeoServerRESTAbstractManager {
       contentType = GeoServerRESTPublisher.Format.SLD_1_1_0.getContentType();
     }
     LOGGER.debug("POSTing new style " + name + " to " + sUrl + " using version: " + contentType);
-    String result = HTTPUtils.post(sUrl.toString(), sldFile, contentType, gsuser, gspass);
+    String result = http.post(sUrl.toString(), sldFile, contentType, gsuser, gspass);
     return result != null;
   }
   
@@ -389,7 +471,7 @@ public class GeoServerRESTStyleManager extends GeoServerRESTAbstractManager {
       contentType = GeoServerRESTPublisher.Format.SLD_1_1_0.getContentType();
     }
     LOGGER.debug("PUTting style " + name + " to " + sUrl + " using version: " + contentType);
-    String result = HTTPUtils.put(sUrl.toString(), sldFile, contentType, gsuser, gspass);
+    String result = http.put(sUrl.toString(), sldFile, contentType, gsuser, gspass);
     return result != null;
   }
   
@@ -426,7 +508,7 @@ public class GeoServerRESTStyleManager extends GeoServerRESTAbstractManager {
       contentType = GeoServerRESTPublisher.Format.SLD_1_1_0.getContentType();
     }
     LOGGER.debug("PUTting style " + name + " to " + sUrl + " using version: " + contentType);
-    String result = HTTPUtils.put(sUrl.toString(), sldBody, contentType, gsuser, gspass);
+    String result = http.put(sUrl.toString(), sldBody, contentType, gsuser, gspass);
     return result != null;
   }
   
@@ -456,7 +538,7 @@ public class GeoServerRESTStyleManager extends GeoServerRESTAbstractManager {
     
     final String sUrl = buildUrl(null, name, null);
     
-    final String result = HTTPUtils.put(sUrl, sldBody, "application/vnd.ogc.sld+xml", gsuser, gspass);
+    final String result = http.put(sUrl, sldBody, "application/vnd.ogc.sld+xml", gsuser, gspass);
     return result != null;
   }
   
@@ -482,7 +564,7 @@ public class GeoServerRESTStyleManager extends GeoServerRESTAbstractManager {
     
     final String sUrl = buildUrl(null, name, null);
     
-    final String result = HTTPUtils.put(sUrl, sldFile, "application/vnd.ogc.sld+xml", gsuser, gspass);
+    final String result = http.put(sUrl, sldFile, "application/vnd.ogc.sld+xml", gsuser, gspass);
     return result != null;
     
   }
@@ -518,7 +600,7 @@ public class GeoServerRESTStyleManager extends GeoServerRESTAbstractManager {
       sUrl += "?purge=true";
     }
     
-    return HTTPUtils.delete(sUrl, gsuser, gspass);
+    return http.delete(sUrl, gsuser, gspass);
   }
   
   /**
@@ -585,7 +667,7 @@ public class GeoServerRESTStyleManager extends GeoServerRESTAbstractManager {
       throw new IllegalArgumentException("The style body may not be null or empty");
     }
     String sUrl = buildPostUrl(workspace, name);
-    final String result = HTTPUtils.post(sUrl, sldBody, "application/vnd.ogc.sld+xml", gsuser, gspass);
+    final String result = http.post(sUrl, sldBody, "application/vnd.ogc.sld+xml", gsuser, gspass);
     return result != null;
   }
   
@@ -616,7 +698,7 @@ public class GeoServerRESTStyleManager extends GeoServerRESTAbstractManager {
   public boolean publishStyleInWorkspace(final String workspace, File sldFile, String name) {
     String sUrl = buildPostUrl(workspace, name);
     LOGGER.debug("POSTing new style " + name + " to " + sUrl);
-    String result = HTTPUtils.post(sUrl, sldFile, GeoServerRESTPublisher.Format.SLD.getContentType(), gsuser, gspass);
+    String result = http.post(sUrl, sldFile, GeoServerRESTPublisher.Format.SLD.getContentType(), gsuser, gspass);
     return result != null;
   }
   
@@ -642,7 +724,7 @@ public class GeoServerRESTStyleManager extends GeoServerRESTAbstractManager {
     
     final String sUrl = buildUrl(workspace, name, null);
     
-    final String result = HTTPUtils.put(sUrl, sldBody, "application/vnd.ogc.sld+xml", gsuser, gspass);
+    final String result = http.put(sUrl, sldBody, "application/vnd.ogc.sld+xml", gsuser, gspass);
     return result != null;
   }
   
@@ -669,7 +751,7 @@ public class GeoServerRESTStyleManager extends GeoServerRESTAbstractManager {
     
     final String sUrl = buildUrl(workspace, name, null);
     
-    final String result = HTTPUtils.put(sUrl, sldFile, "application/vnd.ogc.sld+xml", gsuser, gspass);
+    final String result = http.put(sUrl, sldFile, "application/vnd.ogc.sld+xml", gsuser, gspass);
     return result != null;
   }
   
@@ -704,7 +786,7 @@ public class GeoServerRESTStyleManager extends GeoServerRESTAbstractManager {
       sUrl += "?purge=true";
     }
     
-    return HTTPUtils.delete(sUrl, gsuser, gspass);
+    return http.delete(sUrl, gsuser, gspass);
   }
   
   /**
@@ -729,6 +811,243 @@ public class GeoServerRESTStyleManager extends GeoServerRESTAbstractManager {
     return false;
   }
   
+  // =========================================================================
+  // Synchronization
+  // =========================================================================
+  
+  /**
+   * The outcome of a {@link GeoServerRESTStyleManager#syncStyles(String, Map, boolean) style synchronization}.
+   */
+  public static class SyncReport {
+    
+    private int uploaded;
+    
+    private int skipped;
+    
+    private final List<String> failed = new ArrayList<String>();
+    
+    /**
+     * @return the number of styles published or updated
+     */
+    public int getUploaded() {
+      return uploaded;
+    }
+    
+    /**
+     * @return the number of styles not uploaded because GeoServer already had the same SLD body
+     */
+    public int getSkipped() {
+      return skipped;
+    }
+    
+    /**
+     * @return the names of the styles which could not be uploaded
+     */
+    public List<String> getFailed() {
+      return Collections.unmodifiableList(failed);
+    }
+    
+    @Override
+    public String toString() {
+      return "uploaded=" + uploaded + ", skipped=" + skipped + ", failed=" + failed;
+    }
+  }
+  
+  /**
+   * Publishes or updates the given styles, skipping the ones whose SLD body did not change.
+   * <P>
+   * The SHA-256 digest of each body is compared with the one of the body last synchronized by this manager: only the styles with a different
+   * digest are uploaded. The digests can be saved across runs through {@link #getStyleDigests()} and {@link #setStyleDigests(Map)}.
+   * <P>
+   * When no digest is known, the body is compared with the one returned by {@link #getSLD(String, String)}, ignoring the formatting: the
+   * namespace prefixes and declarations, the order of the attributes, the comments and the whitespace between the elements. Styles uploaded
+   * with <TT>raw</TT> set to <TT>false</TT> are rewritten by GeoServer, which may also add default values or change the SLD version: such
+   * styles are uploaded again by a manager not knowing their digest, once, after which their digest is known.
+   * 
+   * @param workspace
+   *          the workspace of the styles, or <TT>null</TT> for the global ones
+   * @param styles
+   *          the SLD files by style name
+   * @param raw
+   *          whether the SLD bodies are stored as they are, without being reformatted by GeoServer
+   * @return the number of styles uploaded, skipped and failed
+   */
+  public SyncReport syncStyles(final String workspace, final Map<String, File> styles, final boolean raw) {
+    SyncReport report = new SyncReport();
+    for (Map.Entry<String, File> style : styles.entrySet()) {
+      byte[] body;
+      try {
+        body = read(style.getValue());
+      } catch (IOException e) {
+        LOGGER.error("Unable to read the SLD file " + style.getValue() + ": " + e);
+        report.failed.add(style.getKey());
+        continue;
+      }
+      sync(workspace, style.getKey(), body, raw, report);
+    }
+    if (LOGGER.isInfoEnabled()) {
+      LOGGER.info("Styles synchronized: " + report);
+    }
+    return report;
+  }
+  
+  /**
+   * Publishes or updates a style, unless its SLD body did not change.
+   * 
+   * @return <TT>true</TT> if the style was uploaded or skipped, <TT>false</TT> if the upload failed
+   * @see #syncStyles(String, Map, boolean)
+   */
+  public boolean syncStyle(final String workspace, final String name, final String sldBody, final boolean raw) {
+    if (sldBody == null || sldBody.isEmpty()) {
+      throw new IllegalArgumentException("The style body may not be null or empty");
+    }
+    SyncReport report = new SyncReport();
+    sync(workspace, name, sldBody.getBytes(UTF8), raw, report);
+    return report.failed.isEmpty();
+  }
+  
+  /**
+   * @return a copy of the digests of the SLD bodies synchronized, by style name (prefixed by the workspace and ':' for the workspace styles)
+   */
+  public Map<String, String> getStyleDigests() {
+    return new HashMap<String, String>(styleDigests);
+  }
+  
+  /**
+   * Replaces the digests of the SLD bodies known to GeoServer, e.g. with the ones saved by a previous run, so that the synchronization does
+   * not need to fetch them.
+   * 
+   * @see #getStyleDigests()
+   */
+  public void setStyleDigests(Map<String, String> digests) {
+    styleDigests.clear();
+    styleDigests.putAll(digests);
+  }
+  
+  private void sync(final String workspace, final String name, final byte[] body, final boolean raw, final SyncReport report) {
+    if (name == null || name.isEmpty()) {
+      throw new IllegalArgumentException("The style name may not be null or empty");
+    }
+    final String key = workspace != null ? workspace + ":" + name : name;
+    final String digest = digest(body);
+    String known = styleDigests.get(key);
+    boolean exists = known != null;
+    if (known == null) {
+      String remote = workspace != null ? getSLD(workspace, name) : getSLD(name);
+      if (remote != null) {
+        String content = contentDigest(body);
+        known = content != null && content.equals(contentDigest(remote.getBytes(UTF8))) ? digest : digest(remote.getBytes(UTF8));
+        exists = true;
+      }
+    }
+    if (digest.equals(known)) {
+      styleDigests.put(key, digest);
+      report.skipped++;
+      return;
+    }
+    
+    final String contentType = checkSLD10Version(new ByteArrayInputStream(body)) ? GeoServerRESTPublisher.Format.SLD.getContentType()
+        : GeoServerRESTPublisher.Format.SLD_1_1_0.getContentType();
+    final String sldBody = new String(body, UTF8);
+    final String result;
+    if (exists) {
+      StringBuilder sUrl = new StringBuilder(buildUrl(workspace, name, null));
+      Util.appendParameter(sUrl, "raw", "" + raw);
+      LOGGER.debug("PUTting changed style " + key + " to " + sUrl);
+      result = http.put(sUrl.toString(), sldBody, contentType, gsuser, gspass);
+    } else {
+      StringBuilder sUrl = new StringBuilder(buildPostUrl(workspace, name));
+      Util.appendParameter(sUrl, "raw", "" + raw);
+      LOGGER.debug("POSTing new style " + key + " to " + sUrl);
+      result = http.post(sUrl.toString(), sldBody, contentType, gsuser, gspass);
+    }
+    if (result != null) {
+      styleDigests.put(key, digest);
+      report.uploaded++;
+    } else {
+      styleDigests.remove(key);
+      report.failed.add(name);
+    }
+  }
+  
+  private static String digest(byte[] body) {
+    try {
+      byte[] hash = MessageDigest.getInstance("SHA-256").digest(body);
+      StringBuilder hex = new StringBuilder(hash.length * 2);
+      for (byte b : hash) {
+        hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+      }
+      return hex.toString();
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 is not available", e);
+    }
+  }
+  
+  /**
+   * @return the digest of the elements, attributes and text of an XML document, regardless of its formatting and namespace prefixes; or
+   *         <TT>null</TT> if the document could not be parsed
+   */
+  private static String contentDigest(byte[] body) {
+    StringBuilder content = new StringBuilder(body.length);
+    XMLStreamReader reader = null;
+    try {
+      reader = XML_INPUT.createXMLStreamReader(new ByteArrayInputStream(body));
+      while (reader.hasNext()) {
+        switch (reader.next()) {
+        case XMLStreamConstants.START_ELEMENT:
+          content.append('<').append(reader.getLocalName());
+          List<String> attributes = new ArrayList<String>(reader.getAttributeCount());
+          for (int i = 0; i < reader.getAttributeCount(); i++) {
+            if (!"schemaLocation".equals(reader.getAttributeLocalName(i))) {
+              attributes.add(reader.getAttributeLocalName(i) + "=\"" + reader.getAttributeValue(i) + "\"");
+            }
+          }
+          Collections.sort(attributes);
+          for (String attribute : attributes) {
+            content.append(' ').append(attribute);
+          }
+          content.append('>');
+          break;
+        case XMLStreamConstants.CHARACTERS:
+        case XMLStreamConstants.CDATA:
+          String text = reader.getText().trim();
+          if (!text.isEmpty()) content.append(text.replace("<", "&lt;"));
+          break;
+        case XMLStreamConstants.END_ELEMENT:
+          content.append("</>");
+          break;
+        default:
+          break;
+        }
+      }
+    } catch (XMLStreamException e) {
+      return null;
+    } finally {
+      if (reader != null) {
+        try {
+          reader.close();
+        } catch (XMLStreamException e) {
+          // nothing to release
+        }
+      }
+    }
+    return digest(content.toString().getBytes(UTF8));
+  }
+  
+  private static byte[] read(File file) throws IOException {
+    InputStream in = new FileInputStream(file);
+    try {
+      ByteArrayOutputStream out = new ByteArrayOutputStream((int) file.length());
+      byte[] buffer = new byte[8192];
+      for (int n = in.read(buffer); n >= 0; n = in.read(buffer)) {
+        out.write(buffer, 0, n);
+      }
+      return out.toByteArray();
+    } finally {
+      in.close();
+    }
+  }
+  
   // =========================================================================
   // Util methods
   // =========================================================================
@@ -783,51 +1102,52 @@ public class GeoServerRESTStyleManager extends GeoServerRESTAbstractManager {
   }
   
   private boolean checkSLD10Version(String sldBody) {
-    boolean result = false;
-    DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
-    try {
-      DocumentBuilder builder = factory.newDocumentBuilder();
-      InputStream stream = new ByteArrayInputStream(sldBody.getBytes(Charset.forName("UTF-8")));
-      Document doc = builder.parse(stream);
-      result = this.checkSLD10Version(doc);
-    } catch (SAXException ex) {
-      LOGGER.error("Error parsing SLD file: " + ex);
-    } catch (IOException ex) {
-      LOGGER.error("Error parsing SLD file: " + ex);
-    } catch (ParserConfigurationException ex) {
-      LOGGER.error("Error parsing SLD file: " + ex);
-    }
-    return result;
+    return checkSLD10Version(new ByteArrayInputStream(sldBody.getBytes(UTF8)));
   }
   
   private boolean checkSLD10Version(File fileSLD) {
-    boolean result = false;
-    DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
     try {
-      DocumentBuilder builder = factory.newDocumentBuilder();
-      Document doc = builder.parse(fileSLD);
-      result = this.checkSLD10Version(doc);
-    } catch (SAXException ex) {
-      LOGGER.error("Error parsing SLD file: " + ex);
+      InputStream in = new FileInputStream(fileSLD);
+      try {
+        return checkSLD10Version(in);
+      } finally {
+        in.close();
+      }
     } catch (IOException ex) {
       LOGGER.error("Error parsing SLD file: " + ex);
-    } catch (ParserConfigurationException ex) {
-      LOGGER.error("Error parsing SLD file: " + ex);
+      return false;
     }
-    return result;
   }
   
-  private boolean checkSLD10Version(Document doc) {
-    boolean result = false;
+  /**
+   * Streams the SLD document until a <TT>version="1.0.0"</TT> attribute is found, usually on the root element, without building a DOM.
+   */
+  private boolean checkSLD10Version(InputStream in) {
+    XMLStreamReader reader = null;
     try {
-      XPathFactory xPathfactory = XPathFactory.newInstance();
-      XPath xpath = xPathfactory.newXPath();
-      XPathExpression expr = xpath.compile("//@version='1.0.0'");
-      result = (Boolean) expr.evaluate(doc, XPathConstants.BOOLEAN);
-    } catch (XPathExpressionException ex) {
+      reader = XML_INPUT.createXMLStreamReader(in);
+      while (reader.hasNext()) {
+        if (reader.next() == XMLStreamConstants.START_ELEMENT) {
+          for (int i = 0; i < reader.getAttributeCount(); i++) {
+            String ns = reader.getAttributeNamespace(i);
+            if ((ns == null || ns.isEmpty()) && "version".equals(reader.getAttributeLocalName(i)) && "1.0.0".equals(reader.getAttributeValue(i))) {
+              return true;
+            }
+          }
+        }
+      }
+    } catch (XMLStreamException ex) {
       LOGGER.error("Error parsing SLD file: " + ex);
+    } finally {
+      if (reader != null) {
+        try {
+          reader.close();
+        } catch (XMLStreamException ex) {
+          // ignore
+        }
+      }
     }
-    return result;
+    return false;
   }
   
 }
@@ -0,0 +1,179 @@
+/*
+ *  GeoServer-Manager - Simple Manager Library for GeoServer
+ *  
+ *  Copyright (C) 2007,2016 GeoSolutions S.A.S.
+ *  http://www.geo-solutions.it
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package it.geosolutions.geoserver.rest;
+
+import it.geosolutions.geoserver.rest.http.HTTPEngine;
+import it.geosolutions.geoserver.rest.manager.GeoServerRESTAbstractManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Runs REST calls on virtual threads, one thread per call. <BR>
+ * Bulk operations (e.g. thousands of {@link GeoServerRESTPublisher#publishDBLayer}, {@link GeoServerRESTPublisher#configureLayer} or
+ * {@link GeoServerRESTPublisher#removeLayer} calls) can then be written as ordinary blocking code, while running concurrently:
+ * 
+ * <PRE>
+ * try (GeoServerRESTVirtualThreadExecutor executor = new GeoServerRESTVirtualThreadExecutor(manager, 16)) {
+ *   for (final String layer : layers) {
+ *     executor.submit(() -&gt; manager.getPublisher().removeLayer(workspace, layer));
+ *   }
+ * }
+ * </PRE>
+ * 
+ * At most <TT>maxConcurrentCalls</TT> of the calls submitted to an executor run at the same time; the other virtual threads park until one of
+ * them completes. The limit is owned by the executor: the HTTP engine, and the {@link it.geosolutions.geoserver.rest.http.HTTPConcurrencyLimiter}
+ * possibly set on it, are left untouched, so that the other users of the engine are not affected.
+ * <P>
+ * <B>This class requires Java 21</B> and is only built by the <TT>jdk21</TT> Maven profile.
+ */
+public class GeoServerRESTVirtualThreadExecutor implements AutoCloseable {
+  
+  private final static Logger LOGGER = LoggerFactory.getLogger(GeoServerRESTVirtualThreadExecutor.class);
+  
+  private final int maxConcurrentCalls;
+  
+  private final Semaphore slots;
+  
+  private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+  
+  /**
+   * Runs the calls of the given manager (or of any of its publisher, reader and managers), with as many concurrent calls as allowed by the
+   * concurrency limiter of its engine or, if none, by the per-host capacity of its transport.
+   */
+  public GeoServerRESTVirtualThreadExecutor(GeoServerRESTAbstractManager manager) {
+    this(manager.getHTTPEngine());
+  }
+  
+  /**
+   * Runs the calls of the given manager (or of any of its publisher, reader and managers), with at most <TT>maxConcurrentCalls</TT> calls
+   * running at the same time.
+   */
+  public GeoServerRESTVirtualThreadExecutor(GeoServerRESTAbstractManager manager, int maxConcurrentCalls) {
+    this(manager.getHTTPEngine(), maxConcurrentCalls);
+  }
+  
+  /**
+   * Runs the calls of the given publisher, with at most <TT>maxConcurrentCalls</TT> calls running at the same time.
+   */
+  public GeoServerRESTVirtualThreadExecutor(GeoServerRESTPublisher publisher, int maxConcurrentCalls) {
+    this(publisher.getHTTPEngine(), maxConcurrentCalls);
+  }
+  
+  /**
+   * Runs calls made through the given engine, with as many concurrent calls as allowed by its concurrency limiter or, if none, by the per-host
+   * capacity of its transport.
+   */
+  public GeoServerRESTVirtualThreadExecutor(HTTPEngine engine) {
+    this(engine, engine.getConcurrencyLimiter() != null ? engine.getConcurrencyLimiter().getMaxConcurrentCalls()
+        : engine.getTransport().getMaxConcurrentCallsPerHost());
+  }
+  
+  /**
+   * Runs calls made through the given engine, with at most <TT>maxConcurrentCalls</TT> calls running at the same time.
+   */
+  public GeoServerRESTVirtualThreadExecutor(HTTPEngine engine, int maxConcurrentCalls) {
+    if (engine == null) throw new IllegalArgumentException("The HTTP engine may not be null");
+    if (maxConcurrentCalls < 1) throw new IllegalArgumentException("The number of concurrent calls must be positive");
+    this.maxConcurrentCalls = maxConcurrentCalls;
+    this.slots = new Semaphore(maxConcurrentCalls, true);
+    if (maxConcurrentCalls > engine.getTransport().getMaxConcurrentCallsPerHost()) {
+      LOGGER.warn("The concurrency limit (" + maxConcurrentCalls + ") exceeds the concurrent calls per host of the transport ("
+          + engine.getTransport().getMaxConcurrentCallsPerHost() + "): virtual threads may be pinned while waiting for a connection");
+    }
+  }
+  
+  /**
+   * @return the maximum number of calls of this executor running at the same time
+   */
+  public int getMaxConcurrentCalls() {
+    return maxConcurrentCalls;
+  }
+  
+  /**
+   * Runs the given call on a new virtual thread, as soon as a slot is free.
+   */
+  public <T> Future<T> submit(Callable<T> call) {
+    return executor.submit(throttled(call));
+  }
+  
+  /**
+   * Runs the given call on a new virtual thread, as soon as a slot is free.
+   */
+  public Future<?> submit(Runnable call) {
+    return executor.submit(throttled(Executors.callable(call)));
+  }
+  
+  /**
+   * Runs all the given calls, each one on its own virtual thread, and waits for them to complete.
+   * 
+   * @return the results, in the same order as the calls
+   * @throws ExecutionException
+   *           wrapping the exception thrown by the first failed call
+   */
+  public <T> List<T> invokeAll(Collection<? extends Callable<T>> calls) throws InterruptedException, ExecutionException {
+    List<Callable<T>> throttled = new ArrayList<Callable<T>>(calls.size());
+    for (Callable<T> call : calls) {
+      throttled.add(throttled(call));
+    }
+    List<Future<T>> futures = executor.invokeAll(throttled);
+    List<T> results = new ArrayList<T>(futures.size());
+    for (Future<T> future : futures) {
+      results.add(future.get());
+    }
+    return results;
+  }
+  
+  private <T> Callable<T> throttled(final Callable<T> call) {
+    return new Callable<T>() {
+      public T call() throws Exception {
+        slots.acquire();
+        try {
+          return call.call();
+        } finally {
+          slots.release();
+        }
+      }
+    };
+  }
+  
+  /**
+   * Waits for the submitted calls to complete, then stops accepting new ones.
+   */
+  public void close() {
+    executor.close();
+  }
+}
@@ -0,0 +1,209 @@
+/*
+ *  GeoServer-Manager - Simple Manager Library for GeoServer
+ *  
+ *  Copyright (C) 2007,2016 GeoSolutions S.A.S.
+ *  http://www.geo-solutions.it
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package it.geosolutions.geoserver.rest.http;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.net.ConnectException;
+import java.net.SocketTimeoutException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpConnectTimeoutException;
+import java.net.http.HttpRequest;
+import java.net.http.HttpRequest.BodyPublisher;
+import java.net.http.HttpRequest.BodyPublishers;
+import java.net.http.HttpResponse;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.net.http.HttpTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Map;
+
+import org.apache.commons.httpclient.HttpStatus;
+import org.apache.commons.httpclient.methods.RequestEntity;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * {@link HTTPTransport} backed by the JDK {@link HttpClient}. <BR>
+ * The default transport speaks HTTP/1.1, one call per connection, and reports as many concurrent calls per host as the default
+ * {@link HTTPConnectionPool}. A client preferring HTTP/2 can be passed to {@link #JDKHTTPTransport(HttpClient, int)}, together with the number of
+ * concurrent streams the server allows; HTTP/2 is not tested by this library.
+ * <P>
+ * Request bodies are streamed to the connection and response bodies are read from it, as for the {@link CommonsHTTPTransport}.
+ * <P>
+ * <B>This class requires Java 21</B> and is only built by the <TT>jdk21</TT> Maven profile.
+ */
+public class JDKHTTPTransport implements HTTPTransport {
+  
+  private static final Logger LOGGER = LoggerFactory.getLogger(JDKHTTPTransport.class);
+  
+  /** Concurrent calls per host of the default transport, one per HTTP/1.1 connection */
+  public static final int DEFAULT_MAX_CONCURRENT_CALLS_PER_HOST = HTTPConnectionPool.DEFAULT_MAX_CONNECTIONS_PER_HOST;
+  
+  /** Size of the buffer between the thread writing a request body and the client sending it */
+  private static final int PIPE_SIZE = 64 * 1024;
+  
+  private final HttpClient client;
+  
+  private final int maxConcurrentCallsPerHost;
+  
+  /**
+   * Creates an HTTP/1.1 transport, with the same connection timeout as the default {@link HTTPConnectionPool}.
+   */
+  public JDKHTTPTransport() {
+    this(HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).followRedirects(HttpClient.Redirect.NORMAL)
+        .connectTimeout(Duration.ofMillis(HTTPConnectionPool.DEFAULT_CONNECTION_TIMEOUT)).build(), DEFAULT_MAX_CONCURRENT_CALLS_PER_HOST);
+  }
+  
+  /**
+   * @param client
+   *          the client performing the calls
+   * @param maxConcurrentCallsPerHost
+   *          the number of calls the client can run concurrently against a single host (for HTTP/2, the maximum number of concurrent streams
+   *          allowed by the server)
+   */
+  public JDKHTTPTransport(HttpClient client, int maxConcurrentCallsPerHost) {
+    if (client == null) throw new IllegalArgumentException("The HTTP client may not be null");
+    if (maxConcurrentCallsPerHost < 1) throw new IllegalArgumentException("The maximum number of concurrent calls must be positive");
+    this.client = client;
+    this.maxConcurrentCallsPerHost = maxConcurrentCallsPerHost;
+  }
+  
+  public HttpClient getClient() {
+    return client;
+  }
+  
+  public int getMaxConcurrentCallsPerHost() {
+    return maxConcurrentCallsPerHost;
+  }
+  
+  public HTTPTransportResponse execute(HTTPRequest request) throws IOException {
+    HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(request.getUrl()));
+    for (Map.Entry<String, String> header : request.getHeaders().entrySet()) {
+      builder.header(header.getKey(), header.getValue());
+    }
+    if (request.hasCredentials()) {
+      String credentials = request.getUsername() + ":" + request.getPassword();
+      builder.header("Authorization", "Basic " + Base64.getEncoder().encodeToString(credentials.getBytes(StandardCharsets.UTF_8)));
+    } else if (LOGGER.isDebugEnabled()) {
+      LOGGER.debug("Not setting credentials to access to " + request.getUrl());
+    }
+    RequestEntity body = request.getBody();
+    if (body != null && body.getContentType() != null) {
+      builder.header("Content-Type", body.getContentType());
+    }
+    builder.method(request.getMethod().name(), publisher(request));
+    
+    try {
+      return new Response(client.send(builder.build(), BodyHandlers.ofInputStream()));
+    } catch (HttpConnectTimeoutException e) {
+      // report timeouts as the commons transport does, so that they are retried by the engine
+      throw (ConnectException) new ConnectException(e.getMessage()).initCause(e);
+    } catch (HttpTimeoutException e) {
+      throw (SocketTimeoutException) new SocketTimeoutException(e.getMessage()).initCause(e);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while calling " + request.getUrl());
+    }
+  }
+  
+  private static BodyPublisher publisher(final HTTPRequest request) {
+    final RequestEntity body = request.getBody();
+    if (body == null) {
+      return BodyPublishers.noBody();
+    }
+    BodyPublisher publisher = BodyPublishers.ofInputStream(() -> {
+      try {
+        return stream(request.getUrl(), body);
+      } catch (IOException e) {
+        throw new IllegalStateException("Unable to stream the request body to " + request.getUrl(), e);
+      }
+    });
+    long length = body.getContentLength();
+    return length >= 0 ? BodyPublishers.fromPublisher(publisher, length) : publisher;
+  }
+  
+  /**
+   * Streams the entity, written on a virtual thread, to the client.
+   */
+  private static InputStream stream(final String url, final RequestEntity body) throws IOException {
+    PipedInputStream in = new PipedInputStream(PIPE_SIZE);
+    final PipedOutputStream out = new PipedOutputStream(in);
+    Thread.ofVirtual().name("geoserver-manager-body-writer").start(() -> {
+      try (OutputStream os = out) {
+        body.writeRequest(os);
+      } catch (IOException e) {
+        LOGGER.warn("Error writing the request body to " + url, e);
+      }
+    });
+    return in;
+  }
+  
+  private static class Response implements HTTPTransportResponse {
+    
+    private final HttpResponse<InputStream> response;
+    
+    Response(HttpResponse<InputStream> response) {
+      this.response = response;
+    }
+    
+    public int getStatus() {
+      return response.statusCode();
+    }
+    
+    public String getStatusText() {
+      // the client does not expose the reason phrase, which HTTP/2 does not carry anyway
+      return HttpStatus.getStatusText(response.statusCode());
+    }
+    
+    public String getHeader(String name) {
+      return response.headers().firstValue(name).orElse(null);
+    }
+    
+    public InputStream getBody() {
+      return response.body();
+    }
+    
+    public void close() {
+      try {
+        response.body().close();
+      } catch (IOException e) {
+        LOGGER.debug("Error closing the response of " + response.uri(), e);
+      }
+    }
+    
+    public void abort() {
+      // the client drops the connection of a body closed before its end
+      close();
+    }
+  }
+}
@@ -0,0 +1,517 @@
+/*
+ *  GeoServer-Manager - Simple Manager Library for GeoServer
+ *  
+ *  Copyright (C) 2007,2016 GeoSolutions S.A.S.
+ *  http://www.geo-solutions.it
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package it.geosolutions.geoserver.rest;
+
+import it.geosolutions.geoserver.rest.decoder.RESTCoverage;
+import it.geosolutions.geoserver.rest.decoder.RESTCoverageList;
+import it.geosolutions.geoserver.rest.decoder.RESTCoverageStore;
+import it.geosolutions.geoserver.rest.decoder.RESTCoverageStoreList;
+import it.geosolutions.geoserver.rest.decoder.RESTDataStore;
+import it.geosolutions.geoserver.rest.decoder.RESTDataStoreList;
+import it.geosolutions.geoserver.rest.decoder.RESTFeatureType;
+import it.geosolutions.geoserver.rest.decoder.RESTFeatureTypeList;
+import it.geosolutions.geoserver.rest.decoder.RESTLayer;
+import it.geosolutions.geoserver.rest.decoder.RESTLayerGroup;
+import it.geosolutions.geoserver.rest.decoder.RESTLayerGroupList;
+import it.geosolutions.geoserver.rest.decoder.RESTLayerList;
+import it.geosolutions.geoserver.rest.decoder.RESTNamespace;
+import it.geosolutions.geoserver.rest.decoder.RESTNamespaceList;
+import it.geosolutions.geoserver.rest.decoder.RESTResource;
+import it.geosolutions.geoserver.rest.decoder.RESTStructuredCoverageGranulesList;
+import it.geosolutions.geoserver.rest.decoder.RESTStructuredCoverageIndexSchema;
+import it.geosolutions.geoserver.rest.decoder.RESTStyle;
+import it.geosolutions.geoserver.rest.decoder.RESTStyleList;
+import it.geosolutions.geoserver.rest.decoder.RESTWms;
+import it.geosolutions.geoserver.rest.decoder.RESTWmsList;
+import it.geosolutions.geoserver.rest.decoder.RESTWmsStore;
+import it.geosolutions.geoserver.rest.decoder.RESTWmsStoreList;
+import it.geosolutions.geoserver.rest.decoder.RESTWorkspaceList;
+import it.geosolutions.geoserver.rest.decoder.about.GSVersionDecoder;
+
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Asynchronous facade over a {@link GeoServerRESTReader}. <BR>
+ * Each call is run on an executor and immediately returns a {@link CompletableFuture}, so that callers can fan out many lookups and compose them
+ * (e.g. {@link #getLayer(String, String)} followed by {@link #getResource(RESTLayer)}) without blocking their own threads.
+ * <P>
+ * At most <TT>maxInFlight</TT> calls are running at any time; further calls are queued, without blocking the caller, and dispatched as the running
+ * ones complete. The calls go through the transport of the wrapped reader's {@link it.geosolutions.geoserver.rest.http.HTTPEngine}, so
+ * <TT>maxInFlight</TT> should not exceed the number of calls the transport can run concurrently against a single host.
+ * <P>
+ * As for the blocking reader, a failed lookup completes the future with <TT>null</TT>; the future completes exceptionally only if the reader threw.
+ * <P>
+ * <B>This class requires Java 8</B> and is only built by the <TT>jdk8</TT> and <TT>jdk21</TT> Maven profiles.
+ */
+public class GeoServerRESTAsyncReader {
+  
+  private final GeoServerRESTReader reader;
+  
+  private final Executor executor;
+  
+  private final ExecutorService ownedExecutor;
+  
+  private final Semaphore inFlight;
+  
+  private final int maxInFlight;
+  
+  private final Queue<Task<?>> pending = new ConcurrentLinkedQueue<>();
+  
+  /**
+   * Creates an async reader running at most as many calls as the reader's transport can run against a single host, on its own daemon threads.
+   * 
+   * @param reader
+   *          the reader performing the calls
+   */
+  public GeoServerRESTAsyncReader(GeoServerRESTReader reader) {
+    this(reader, reader.getHTTPEngine().getTransport().getMaxConcurrentCallsPerHost());
+  }
+  
+  /**
+   * Creates an async reader running at most <TT>maxInFlight</TT> calls, on its own daemon threads. Call {@link #shutdown()} to release them.
+   * 
+   * @param reader
+   *          the reader performing the calls
+   * @param maxInFlight
+   *          the maximum number of concurrent calls
+   */
+  public GeoServerRESTAsyncReader(GeoServerRESTReader reader, int maxInFlight) {
+    this(reader, null, maxInFlight);
+  }
+  
+  /**
+   * Creates an async reader running at most <TT>maxInFlight</TT> calls on the given executor.
+   * 
+   * @param reader
+   *          the reader performing the calls
+   * @param executor
+   *          the executor running the calls; if <TT>null</TT>, a fixed pool of <TT>maxInFlight</TT> daemon threads is created and owned by this
+   *          reader.
+   * @param maxInFlight
+   *          the maximum number of concurrent calls
+   */
+  public GeoServerRESTAsyncReader(GeoServerRESTReader reader, Executor executor, int maxInFlight) {
+    if (reader == null) throw new IllegalArgumentException("The reader may not be null");
+    if (maxInFlight < 1) throw new IllegalArgumentException("The maximum number of in-flight calls must be positive");
+    this.reader = reader;
+    this.maxInFlight = maxInFlight;
+    this.inFlight = new Semaphore(maxInFlight);
+    if (executor == null) {
+      this.ownedExecutor = Executors.newFixedThreadPool(maxInFlight, Util.daemonThreads("geoserver-manager-async-"));
+      this.executor = ownedExecutor;
+    } else {
+      this.ownedExecutor = null;
+      this.executor = executor;
+    }
+  }
+  
+  /**
+   * @return the wrapped blocking reader
+   */
+  public GeoServerRESTReader getReader() {
+    return reader;
+  }
+  
+  /**
+   * @return the maximum number of concurrent calls
+   */
+  public int getMaxInFlight() {
+    return maxInFlight;
+  }
+  
+  /**
+   * @return the number of calls currently waiting for a free slot
+   */
+  public int getPendingCount() {
+    return pending.size();
+  }
+  
+  /**
+   * Releases the threads created by this reader, if any. Executors passed by the caller are left untouched.
+   */
+  public void shutdown() {
+    if (ownedExecutor != null) {
+      ownedExecutor.shutdown();
+    }
+  }
+  
+  /**
+   * Runs an arbitrary call, typically on the wrapped reader, within the in-flight limit of this async reader.
+   * 
+   * @param call
+   *          the call to run
+   * @return a future completed with the result of the call
+   */
+  public <T> CompletableFuture<T> submit(Callable<T> call) {
+    Task<T> task = new Task<>(call);
+    pending.add(task);
+    dispatch();
+    return task.future;
+  }
+  
+  private void dispatch() {
+    while (!pending.isEmpty() && inFlight.tryAcquire()) {
+      Task<?> task = pending.poll();
+      if (task == null) {
+        inFlight.release();
+        continue;
+      }
+      try {
+        executor.execute(task);
+      } catch (RejectedExecutionException e) {
+        inFlight.release();
+        task.future.completeExceptionally(e);
+      }
+    }
+  }
+  
+  private class Task<T> implements Runnable {
+    
+    private final Callable<T> call;
+    
+    private final CompletableFuture<T> future = new CompletableFuture<>();
+    
+    Task(Callable<T> call) {
+      this.call = call;
+    }
+    
+    public void run() {
+      try {
+        if (!future.isDone()) {
+          future.complete(call.call());
+        }
+      } catch (Throwable t) {
+        future.completeExceptionally(t);
+      } finally {
+        inFlight.release();
+        dispatch();
+      }
+    }
+  }
+  
+  // ==========================================================================
+  // === READER CALLS
+  // ==========================================================================
+  
+  /**
+   * @see GeoServerRESTReader#existGeoserver()
+   */
+  public CompletableFuture<Boolean> existGeoserver() {
+    return submit(reader::existGeoserver);
+  }
+  
+  /**
+   * @see GeoServerRESTReader#getGeoserverVersion()
+   */
+  public CompletableFuture<GSVersionDecoder> getGeoserverVersion() {
+    return submit(reader::getGeoserverVersion);
+  }
+  
+  /**
+   * @see GeoServerRESTReader#getStyle(String)
+   */
+  public CompletableFuture<RESTStyle> getStyle(String name) {
+    return submit(() -> reader.getStyle(name));
+  }
+  
+  /**
+   * @see GeoServerRESTReader#getStyle(String, String)
+   */
+  public CompletableFuture<RESTStyle> getStyle(String workspace, String name) {
+    return submit(() -> reader.getStyle(workspace, name));
+  }
+  
+  /**
+   * @see GeoServerRESTReader#getStyles()
+   */
+  public CompletableFuture<RESTStyleList> getStyles() {
+    return submit(reader::getStyles);
+  }
+  
+  /**
+   * @see GeoServerRESTReader#getStyles(String)
+   */
+  public CompletableFuture<RESTStyleList> getStyles(String workspace) {
+    return submit(() -> reader.getStyles(workspace));
+  }
+  
+  /**
+   * @see GeoServerRESTReader#getSLD(String)
+   */
+  public CompletableFuture<String> getSLD(String styleName) {
+    return submit(() -> reader.getSLD(styleName));
+  }
+  
+  /**
+   * @see GeoServerRESTReader#getSLD(String, String)
+   */
+  public CompletableFuture<String> getSLD(String workspace, String styleName) {
+    return submit(() -> reader.getSLD(workspace, styleName));
+  }
+  
+  /**
+   * @see GeoServerRESTReader#getDatastores(String)
+   */
+  public CompletableFuture<RESTDataStoreList> getDatastores(String workspace) {
+    return submit(() -> reader.getDatastores(workspace));
+  }
+  
+  /**
+   * @see GeoServerRESTReader#getDatastore(String, String)
+   */
+  public CompletableFuture<RESTDataStore> getDatastore(String workspace, String dsName) {
+    return submit(() -> reader.getDatastore(workspace, dsName));
+  }
+  
+  /**
+   * @see GeoServerRESTReader#getDatastore(RESTFeatureType)
+   */
+  public CompletableFuture<RESTDataStore> getDatastore(RESTFeatureType featureType) {
+    return submit(() -> reader.getDatastore(featureType));
+  }
+  
+  /**
+   * @see GeoServerRESTReader#getFeatureType(RESTLayer)
+   */
+  public CompletableFuture<RESTFeatureType> getFeatureType(RESTLayer layer) {
+    return submit(() -> reader.getFeatureType(layer));
+  }
+  
+  /**
+   * @see GeoServerRESTReader#getFeatureTypes(String)
+   */
+  public CompletableFuture<RESTFeatureTypeList> getFeatureTypes(String workspace) {
+    return submit(() -> reader.getFeatureTypes(workspace));
+  }
+  
+  /**
+   * @see GeoServerRESTReader#getCoverageStores(String)
+   */
+  public CompletableFuture<RESTCoverageStoreList> getCoverageStores(String workspace) {
+    return submit(() -> reader.getCoverageStores(workspace));
+  }
+  
+  /**
+   * @see GeoServerRESTReader#getCoverageStore(String, String)
+   */
+  public CompletableFuture<RESTCoverageStore> getCoverageStore(String workspace, String csName) {
+    return submit(() -> reader.getCoverageStore(workspace, csName));
+  }
+  
+  /**
+   * @see GeoServerRESTReader#getCoverageStore(RESTCoverage)
+   */
+  public CompletableFuture<RESTCoverageStore> getCoverageStore(RESTCoverage coverage) {
+    return submit(() -> reader.getCoverageStore(coverage));
+  }
+  
+  /**
+   * @see GeoServerRESTReader#getCoverages(String, String)
+   */
+  public CompletableFuture<RESTCoverageList> getCoverages(String workspace, String csName) {
+    return submit(() -> reader.getCoverages(workspace, csName));
+  }
+  
+  /**
+   * @see GeoServerRESTReader#getCoverage(String, String, String)
+   */
+  public CompletableFuture<RESTCoverage> getCoverage(String workspace, String store, String name) {
+    return submit(() -> reader.getCoverage(workspace, store, name));
+  }
+  
+  /**
+   * @see GeoServerRESTReader#getCoverage(RESTLayer)
+   */
+  public CompletableFuture<RESTCoverage> getCoverage(RESTLayer layer) {
+    return submit(() -> reader.getCoverage(layer));
+  }
+  
+  /**
+   * @see GeoServerRESTReader#getWmsStores(String)
+   */
+  public CompletableFuture<RESTWmsStoreList> getWmsStores(String workspace) {
+    return submit(() -> reader.getWmsStores(workspace));
+  }
+  
+  /**
+   * @see GeoServerRESTReader#getWmsStore(String, String)
+   */
+  public CompletableFuture<RESTWmsStore> getWmsStore(String workspace, String wsName) {
+    return submit(() -> reader.getWmsStore(workspace, wsName));
+  }
+  
+  /**
+   * @see GeoServerRESTReader#getWmsStore(RESTWms)
+   */
+  public CompletableFuture<RESTWmsStore> getWmsStore(RESTWms wms) {
+    return submit(() -> reader.getWmsStore(wms));
+  }
+  
+  /**
+   * @see GeoServerRESTReader#getWms(String, String)
+   */
+  public CompletableFuture<RESTWmsList> getWms(String workspace, String wsName) {
+    return submit(() -> reader.getWms(workspace, wsName));
+  }
+  
+  /**
+   * @see GeoServerRESTReader#getWms(String, String, String)
+   */
+  public CompletableFuture<RESTWms> getWms(String workspace, String store, String name) {
+    return submit(() -> reader.getWms(workspace, store, name));
+  }
+  
+  /**
+   * @see GeoServerRESTReader#getWms(RESTLayer)
+   */
+  public CompletableFuture<RESTWms> getWms(RESTLayer layer) {
+    return submit(() -> reader.getWms(layer));
+  }
+  
+  /**
+   * @see GeoServerRESTReader#getResource(RESTLayer)
+   */
+  public CompletableFuture<RESTResource> getResource(RESTLayer layer) {
+    return submit(() -> reader.getResource(layer));
+  }
+  
+  /**
+   * @see GeoServerRESTReader#getLayerGroups()
+   */
+  public CompletableFuture<RESTLayerGroupList> getLayerGroups() {
+    return submit(reader::getLayerGroups);
+  }
+  
+  /**
+   * @see GeoServerRESTReader#getLayerGroups(String)
+   */
+  public CompletableFuture<RESTLayerGroupList> getLayerGroups(String workspace) {
+    return submit(() -> reader.getLayerGroups(workspace));
+  }
+  
+  /**
+   * @see GeoServerRESTReader#getLayerGroup(String)
+   */
+  public CompletableFuture<RESTLayerGroup> getLayerGroup(String name) {
+    return submit(() -> reader.getLayerGroup(name));
+  }
+  
+  /**
+   * @see GeoServerRESTReader#getLayerGroup(String, String)
+   */
+  public CompletableFuture<RESTLayerGroup> getLayerGroup(String workspace, String name) {
+    return submit(() -> reader.getLayerGroup(workspace, name));
+  }
+  
+  /**
+   * @see GeoServerRESTReader#getLayers()
+   */
+  public CompletableFuture<RESTLayerList> getLayers() {
+    return submit(reader::getLayers);
+  }
+  
+  /**
+   * @see GeoServerRESTReader#getLayer(String)
+   */
+  public CompletableFuture<RESTLayer> getLayer(String name) {
+    return submit(() -> reader.getLayer(name));
+  }
+  
+  /**
+   * @see GeoServerRESTReader#getLayer(String, String)
+   */
+  public CompletableFuture<RESTLayer> getLayer(String workspace, String name) {
+    return submit(() -> reader.getLayer(workspace, name));
+  }
+  
+  /**
+   * @see GeoServerRESTReader#getNamespace(String)
+   */
+  public CompletableFuture<RESTNamespace> getNamespace(String prefix) {
+    return submit(() -> reader.getNamespace(prefix));
+  }
+  
+  /**
+   * @see GeoServerRESTReader#getNamespaces()
+   */
+  public CompletableFuture<RESTNamespaceList> getNamespaces() {
+    return submit(reader::getNamespaces);
+  }
+  
+  /**
+   * @see GeoServerRESTReader#getNamespaceNames()
+   */
+  public CompletableFuture<List<String>> getNamespaceNames() {
+    return submit(reader::getNamespaceNames);
+  }
+  
+  /**
+   * @see GeoServerRESTReader#getWorkspaces()
+   */
+  public CompletableFuture<RESTWorkspaceList> getWorkspaces() {
+    return submit(reader::getWorkspaces);
+  }
+  
+  /**
+   * @see GeoServerRESTReader#getWorkspaceNames()
+   */
+  public CompletableFuture<List<String>> getWorkspaceNames() {
+    return submit(reader::getWorkspaceNames);
+  }
+  
+  /**
+   * @see GeoServerRESTReader#getGranuleIndexSchema(String, String, String)
+   */
+  public CompletableFuture<RESTStructuredCoverageIndexSchema> getGranuleIndexSchema(String workspace, String coverageStore,
+      String coverage) {
+    return submit(() -> reader.getGranuleIndexSchema(workspace, coverageStore, coverage));
+  }
+  
+  /**
+   * @see GeoServerRESTReader#getGranules(String, String, String, String, Integer, Integer)
+   */
+  public CompletableFuture<RESTStructuredCoverageGranulesList> getGranules(String workspace, String coverageStore,
+      String coverage, String filter, Integer offset, Integer limit) {
+    return submit(() -> reader.getGranules(workspace, coverageStore, coverage, filter, offset, limit));
+  }
+  
+  /**
+   * @see GeoServerRESTReader#getGranuleById(String, String, String, String)
+   */
+  public CompletableFuture<RESTStructuredCoverageGranulesList> getGranuleById(String workspace, String coverageStore,
+      String coverage, String id) {
+    return submit(() -> reader.getGranuleById(workspace, coverageStore, coverage, id));
+  }
+}
@@ -40,6 +40,7 @@ public class LayerDecoder21Test {
   @Test
   public void testAdvertised() {
     Assert.assertEquals(true, layer.getAdvertised());
+    Assert.assertEquals(true, layer.snapshot().getAdvertised());
   }
   
   @Test
@@ -1,12 +1,14 @@
 package it.geosolutions.geoserver.decoder;
 
 import it.geosolutions.geoserver.rest.decoder.RESTLayer;
+import it.geosolutions.geoserver.rest.decoder.RESTLayerSnapshot;
 import it.geosolutions.geoserver.rest.decoder.RESTStyleList;
 import it.geosolutions.geoserver.rest.encoder.authorityurl.GSAuthorityURLInfoEncoder;
 import it.geosolutions.geoserver.rest.encoder.identifier.GSIdentifierInfoEncoder;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.List;
 
 import junit.framework.Assert;
@@ -98,4 +100,20 @@ public class LayerDecoderTest {
     Assert.assertEquals("identifier2", authorityURLs.get(1).getIdentifier());
   }
   
+  @Test
+  public void testSnapshot() {
+    RESTLayerSnapshot snapshot = layer.snapshot();
+    Assert.assertEquals(layer.getName(), snapshot.getName());
+    Assert.assertEquals(RESTLayer.Type.VECTOR, snapshot.getType());
+    Assert.assertTrue(snapshot.getEnabled());
+    Assert.assertTrue(snapshot.getQueryable());
+    Assert.assertTrue(snapshot.getAdvertised());
+    Assert.assertEquals(layer.getDefaultStyle(), snapshot.getDefaultStyle());
+    Assert.assertEquals(layer.getDefaultStyleUrl(), snapshot.getDefaultStyleUrl());
+    Assert.assertEquals(layer.getStyles().getNames(), Arrays.asList(snapshot.getStyles()));
+    Assert.assertEquals(layer.getResourceUrl(), snapshot.getResourceUrl());
+    Assert.assertEquals("featureType", snapshot.getResourceClass());
+    Assert.assertNull(snapshot.getNameSpace());
+  }
+  
 }
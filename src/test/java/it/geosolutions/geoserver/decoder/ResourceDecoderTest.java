@@ -2,11 +2,19 @@ package it.geosolutions.geoserver.decoder;
 
 import it.geosolutions.geoserver.rest.decoder.RESTBoundingBox;
 import it.geosolutions.geoserver.rest.decoder.RESTCoverage;
+import it.geosolutions.geoserver.rest.decoder.RESTCoverageSnapshot;
+import it.geosolutions.geoserver.rest.decoder.RESTDataStore;
+import it.geosolutions.geoserver.rest.decoder.RESTDataStoreSnapshot;
+import it.geosolutions.geoserver.rest.decoder.RESTFeatureType;
+import it.geosolutions.geoserver.rest.decoder.RESTFeatureTypeSnapshot;
+import it.geosolutions.geoserver.rest.decoder.RESTResourceSnapshot;
 import it.geosolutions.geoserver.rest.encoder.dimensions.GSCoverageDimensionEncoder;
+import it.geosolutions.geoserver.rest.encoder.feature.FeatureTypeAttribute;
 import it.geosolutions.geoserver.rest.encoder.metadatalink.GSMetadataLinkInfoEncoder;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.List;
 
 import org.apache.commons.io.FileUtils;
@@ -155,4 +163,61 @@ public class ResourceDecoderTest {
     Assert.assertEquals("REAL_32BITS", coverageDimension1.getDimensionTypeName());
   }
   
+  @Test
+  public void testSnapshot() {
+    RESTCoverageSnapshot snapshot = coverage.snapshot();
+    Assert.assertEquals(coverage.getName(), snapshot.getName());
+    Assert.assertEquals(coverage.getAbstract(), snapshot.getAbstract());
+    Assert.assertEquals(coverage.getKeywords(), Arrays.asList(snapshot.getKeywords()));
+    Assert.assertEquals(coverage.getNameSpace(), snapshot.getNameSpace());
+    Assert.assertEquals(coverage.getStoreType(), snapshot.getStoreType());
+    Assert.assertEquals(coverage.getStoreUrl(), snapshot.getStoreUrl());
+    Assert.assertEquals(coverage.getNativeCRS(), snapshot.getNativeCRS());
+    Assert.assertEquals(coverage.getSRS(), snapshot.getSRS());
+    Assert.assertEquals(coverage.getNativeFormat(), snapshot.getNativeFormat());
+    Assert.assertEquals(coverage.getParametersList(), snapshot.getParameters());
+    
+    RESTBoundingBox bbox = coverage.getLatLonBoundingBox();
+    RESTResourceSnapshot.BoundingBox latLon = snapshot.getLatLonBoundingBox();
+    Assert.assertEquals(bbox.getCRS(), latLon.getCRS());
+    Assert.assertEquals(bbox.getMinX(), latLon.getMinX(), 0);
+    Assert.assertEquals(bbox.getMaxX(), latLon.getMaxX(), 0);
+    Assert.assertEquals(bbox.getMinY(), latLon.getMinY(), 0);
+    Assert.assertEquals(bbox.getMaxY(), latLon.getMaxY(), 0);
+    Assert.assertEquals(latLon, snapshot.getNativeBoundingBox());
+  }
+  
+  @Test
+  public void testFeatureTypeSnapshot() {
+    RESTFeatureType featureType = RESTFeatureType.build("<featureType><name>roads</name><namespace><name>topp</name></namespace>"
+        + "<store class=\"dataStore\"><name>taz_shapes</name></store><attributes>"
+        + "<attribute><name>the_geom</name><minOccurs>0</minOccurs><binding>com.vividsolutions.jts.geom.MultiLineString</binding></attribute>"
+        + "<attribute><name>TYPE</name><nillable>true</nillable><binding>java.lang.String</binding></attribute>"
+        + "</attributes></featureType>");
+    RESTFeatureTypeSnapshot snapshot = featureType.snapshot();
+    Assert.assertEquals("roads", snapshot.getName());
+    Assert.assertEquals("taz_shapes", snapshot.getStoreName());
+    Assert.assertNull(snapshot.getStoreUrl());
+    Assert.assertNull(snapshot.getLatLonBoundingBox());
+    Assert.assertEquals(2, snapshot.getAttributeCount());
+    Assert.assertArrayEquals(new String[] { "the_geom", "TYPE" }, snapshot.getAttributeNames());
+    Assert.assertEquals("java.lang.String", snapshot.getAttributeBindings()[1]);
+    Assert.assertEquals("0", snapshot.getAttribute(0, FeatureTypeAttribute.minOccurs));
+    Assert.assertNull(snapshot.getAttribute(1, FeatureTypeAttribute.minOccurs));
+    Assert.assertEquals(featureType.getAttributeList().get(1).get(FeatureTypeAttribute.nillable), snapshot.getAttribute(1, FeatureTypeAttribute.nillable));
+  }
+  
+  @Test
+  public void testDataStoreSnapshot() {
+    RESTDataStore dataStore = RESTDataStore.build("<dataStore><name>pg</name><type>PostGIS</type><enabled>true</enabled>"
+        + "<workspace><name>topp</name></workspace><connectionParameters><entry key=\"host\">localhost</entry>"
+        + "<entry key=\"dbtype\">postgis</entry></connectionParameters></dataStore>");
+    RESTDataStoreSnapshot snapshot = dataStore.snapshot();
+    Assert.assertEquals("pg", snapshot.getName());
+    Assert.assertEquals("topp", snapshot.getWorkspaceName());
+    Assert.assertTrue(snapshot.isEnabled());
+    Assert.assertEquals(dataStore.getConnectionParameters(), snapshot.getConnectionParameters());
+    Assert.assertEquals(RESTDataStore.DBType.POSTGIS, snapshot.getType());
+  }
+  
 }
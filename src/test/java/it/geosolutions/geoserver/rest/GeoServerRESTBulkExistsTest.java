@@ -0,0 +1,135 @@
+/*
+ *  GeoServer-Manager - Simple Manager Library for GeoServer
+ *  
+ *  Copyright (C) 2007,2016 GeoSolutions S.A.S.
+ *  http://www.geo-solutions.it
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package it.geosolutions.geoserver.rest;
+
+import static org.junit.Assert.*;
+import it.geosolutions.geoserver.rest.http.MockHTTPServer;
+
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests the bulk existence checks of the {@link GeoServerRESTReader}, without a GeoServer.
+ */
+public class GeoServerRESTBulkExistsTest {
+  
+  private MockHTTPServer server;
+  
+  private GeoServerRESTReader reader;
+  
+  @Before
+  public void setUp() throws Exception {
+    server = new MockHTTPServer();
+    reader = new GeoServerRESTReader(new URL(server.url("")), "admin", "geoserver");
+    server.reply("/rest/workspaces/topp/datastores/states/featuretypes.xml", new MockHTTPServer.Reply(200,
+        "<featureTypes><featureType><name>states</name></featureType><featureType><name>roads</name></featureType></featureTypes>"));
+    server.reply("/rest/workspaces/topp/datastores/states/featuretypes/roads.xml", new MockHTTPServer.Reply(200, "<featureType/>"));
+    server.reply("/rest/workspaces/nurc/coveragestores/mosaic/coverages.xml", new MockHTTPServer.Reply(200,
+        "<coverages><coverage><name>mosaic</name></coverage></coverages>"));
+    server.reply("/rest/layers.xml", new MockHTTPServer.Reply(200,
+        "<layers><layer><name>topp:states</name></layer><layer><name>nurc:mosaic</name></layer></layers>"));
+  }
+  
+  @After
+  public void tearDown() {
+    server.stop();
+  }
+  
+  private static List<String> candidates(String... existing) {
+    List<String> names = new ArrayList<String>();
+    for (int i = 0; i < 50; i++) {
+      names.add("missing" + i);
+    }
+    names.addAll(Arrays.asList(existing));
+    return names;
+  }
+  
+  @Test
+  public void testListing() {
+    assertEquals(Arrays.asList("roads", "states"),
+        new ArrayList<String>(reader.existingFeatureTypes("topp", "states", candidates("roads", "states"))));
+    assertEquals(Collections.singleton("mosaic"), reader.existingCoverages("nurc", "mosaic", candidates("mosaic")));
+    assertEquals(Collections.singleton("states"), reader.existingLayers("topp", candidates("states", "mosaic")));
+    assertEquals(Collections.singleton("nurc:mosaic"), reader.existingLayers(null, candidates("nurc:mosaic", "mosaic")));
+    
+    // one listing per call, no check per name
+    assertEquals(4, server.getRequestCount());
+  }
+  
+  @Test
+  public void testMissingStore() {
+    server.reply("/rest/workspaces/topp/datastores/missing.xml", new MockHTTPServer.Reply(404, ""));
+    assertTrue(reader.existingFeatureTypes("topp", "missing", candidates("states")).isEmpty());
+    assertEquals(2, server.getRequestCount());
+  }
+  
+  @Test
+  public void testFewCandidates() {
+    assertEquals(Collections.singleton("roads"), reader.existingFeatureTypes("topp", "states", Arrays.asList("roads", "other")));
+    assertEquals(0, server.getRequestCount("GET", "/rest/workspaces/topp/datastores/states/featuretypes.xml"));
+    assertEquals(1, server.getRequestCount("HEAD", "/rest/workspaces/topp/datastores/states/featuretypes/roads.xml"));
+    
+    reader.setBulkExistsThreshold(0);
+    assertEquals(Collections.singleton("roads"), reader.existingFeatureTypes("topp", "states", Arrays.asList("roads", "other")));
+    assertEquals(1, server.getRequestCount("GET", "/rest/workspaces/topp/datastores/states/featuretypes.xml"));
+  }
+  
+  @Test
+  public void testKnownListingSize() {
+    // a small listing, once loaded, is cheaper than checking even a couple of names
+    reader.existingFeatureTypes("topp", "states", candidates("roads"));
+    assertEquals(Collections.singleton("roads"), reader.existingFeatureTypes("topp", "states", Arrays.asList("roads", "other")));
+    assertEquals(2, server.getRequestCount("GET", "/rest/workspaces/topp/datastores/states/featuretypes.xml"));
+    assertEquals(0, server.getRequestCount("HEAD", "/rest/workspaces/topp/datastores/states/featuretypes/roads.xml"));
+    
+    // a large listing is not loaded for a few names
+    StringBuilder layers = new StringBuilder("<layers>");
+    for (int i = 0; i < 1000; i++) {
+      layers.append("<layer><name>topp:layer").append(i).append("</name></layer>");
+    }
+    server.reply("/rest/layers.xml", new MockHTTPServer.Reply(200, layers.append("</layers>").toString()));
+    server.reply("/rest/layers/topp:layer1.xml", new MockHTTPServer.Reply(200, "<layer/>"));
+    assertEquals(Collections.singleton("layer1"), reader.existingLayers("topp", candidates("layer1")));
+    assertEquals(Collections.singleton("layer1"), reader.existingLayers("topp", Arrays.asList("layer1", "other")));
+    assertEquals(1, server.getRequestCount("GET", "/rest/layers.xml"));
+    assertEquals(1, server.getRequestCount("HEAD", "/rest/layers/topp:layer1.xml"));
+  }
+  
+  @Test
+  public void testThresholdPerCall() {
+    assertEquals(Collections.singleton("roads"), reader.existingFeatureTypes("topp", "states", candidates("roads"), Integer.MAX_VALUE));
+    assertEquals(0, server.getRequestCount("GET", "/rest/workspaces/topp/datastores/states/featuretypes.xml"));
+    assertEquals(Collections.singleton("mosaic"), reader.existingCoverages("nurc", "mosaic", Arrays.asList("mosaic"), 0));
+    assertEquals(1, server.getRequestCount("GET", "/rest/workspaces/nurc/coveragestores/mosaic/coverages.xml"));
+  }
+}
@@ -0,0 +1,215 @@
+/*
+ *  GeoServer-Manager - Simple Manager Library for GeoServer
+ *  
+ *  Copyright (C) 2007,2016 GeoSolutions S.A.S.
+ *  http://www.geo-solutions.it
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package it.geosolutions.geoserver.rest;
+
+import static org.junit.Assert.*;
+import it.geosolutions.geoserver.rest.decoder.RESTLayer;
+import it.geosolutions.geoserver.rest.http.MockHTTPServer;
+
+import java.net.URI;
+import java.net.URL;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests the {@link GeoServerRESTBulkReader}, without a GeoServer.
+ */
+public class GeoServerRESTBulkReaderTest {
+  
+  private MockHTTPServer server;
+  
+  private GeoServerRESTBulkReader bulk;
+  
+  @Before
+  public void setUp() throws Exception {
+    server = new MockHTTPServer();
+    server.reply("/rest/about/version.xml", new MockHTTPServer.Reply(200,
+        "<about><resource name=\"GeoServer\"><Version>2.8.1</Version></resource></about>"));
+    StringBuilder layers = new StringBuilder("<layers>");
+    for (String name : new String[] { "topp:a", "topp:b", "topp:c", "topp:d", "nurc:e" }) {
+      layers.append("<layer><name>").append(name).append("</name></layer>");
+      String ws = name.substring(0, name.indexOf(':'));
+      String local = name.substring(name.indexOf(':') + 1);
+      String resource = "/rest/workspaces/" + ws + "/datastores/store/featuretypes/" + local + ".xml";
+      server.reply("/rest/layers/" + name + ".xml", new MockHTTPServer.Reply(200, "<layer><name>" + local + "</name><type>VECTOR</type>"
+          + "<resource class=\"featureType\"><name>" + local + "</name><atom:link xmlns:atom=\"http://www.w3.org/2005/Atom\" rel=\"alternate\" href=\""
+          + server.url(resource) + "\"/></resource></layer>"));
+      server.reply(resource, new MockHTTPServer.Reply(200, "<featureType><name>" + local + "</name></featureType>"));
+    }
+    server.reply("/rest/layers.xml", new MockHTTPServer.Reply(200, layers.append("</layers>").toString()));
+    // the resource of d is missing
+    server.reply("/rest/workspaces/topp/datastores/store/featuretypes/d.xml", new MockHTTPServer.Reply(404, ""));
+    
+    bulk = new GeoServerRESTBulkReader(new GeoServerRESTReader(new URL(server.url("")), "admin", "geoserver"), 3);
+  }
+  
+  @After
+  public void tearDown() {
+    server.stop();
+  }
+  
+  @Test
+  public void testExpandAll() {
+    Set<String> resolved = new HashSet<String>();
+    Set<String> unresolved = new HashSet<String>();
+    Iterator<GeoServerRESTBulkReader.ExpandedLayer> layers = bulk.expandLayers();
+    while (layers.hasNext()) {
+      GeoServerRESTBulkReader.ExpandedLayer layer = layers.next();
+      if (layer.isResolved()) {
+        assertEquals(layer.getLayer().getName(), layer.getResource().getName());
+        resolved.add(layer.getName());
+      } else {
+        assertNotNull(layer.getLayer());
+        unresolved.add(layer.getName());
+      }
+    }
+    assertEquals(new HashSet<String>(Arrays.asList("topp:a", "topp:b", "topp:c", "nurc:e")), resolved);
+    assertEquals(new HashSet<String>(Arrays.asList("topp:d")), unresolved);
+  }
+  
+  @Test
+  public void testExpandWorkspace() {
+    final Set<String> names = new HashSet<String>();
+    bulk.expandLayers("nurc", new GeoServerRESTBulkReader.ExpandedLayerHandler() {
+      public void handle(GeoServerRESTBulkReader.ExpandedLayer layer) {
+        names.add(layer.getResource().getName());
+      }
+    });
+    assertEquals(new HashSet<String>(Arrays.asList("e")), names);
+    assertEquals(0, server.getRequestCount("GET", "/rest/layers/topp:a.xml"));
+  }
+  
+  @Test
+  public void testExpandNames() {
+    Iterator<GeoServerRESTBulkReader.ExpandedLayer> layers = bulk.expandLayers(Arrays.asList("topp:b", "topp:missing"));
+    int resolved = 0;
+    for (int i = 0; i < 2; i++) {
+      GeoServerRESTBulkReader.ExpandedLayer layer = layers.next();
+      if (layer.isResolved()) resolved++;
+      else assertNull(layer.getLayer());
+    }
+    assertFalse(layers.hasNext());
+    assertEquals(1, resolved);
+  }
+  
+  @Test
+  public void testInjectedExecutor() throws Exception {
+    final ExecutorService pool = Executors.newFixedThreadPool(2);
+    final AtomicInteger workers = new AtomicInteger();
+    try {
+      GeoServerRESTBulkReader injected = new GeoServerRESTBulkReader(new GeoServerRESTReader(new URL(server.url("")), "admin", "geoserver"), 3,
+          new Executor() {
+            public void execute(Runnable command) {
+              workers.incrementAndGet();
+              pool.execute(command);
+            }
+          });
+      Iterator<GeoServerRESTBulkReader.ExpandedLayer> layers = injected.expandLayers(Arrays.asList("topp:a", "topp:b", "topp:c", "nurc:e", "d"));
+      Set<String> resolved = new HashSet<String>();
+      while (layers.hasNext()) {
+        GeoServerRESTBulkReader.ExpandedLayer layer = layers.next();
+        if (layer.isResolved()) resolved.add(layer.getName());
+      }
+      assertEquals(new HashSet<String>(Arrays.asList("topp:a", "topp:b", "topp:c", "nurc:e")), resolved);
+      // one worker per concurrent call, and names not qualified by a workspace are not loaded
+      assertEquals(3, workers.get());
+      assertEquals(0, server.getRequestCount("GET", "/rest/layers/d.xml"));
+    } finally {
+      pool.shutdown();
+    }
+  }
+  
+  @Test
+  public void testClose() throws Exception {
+    final CountDownLatch release = new CountDownLatch(1);
+    server.respond("/rest/layers/topp:b.xml", new MockHTTPServer.Responder() {
+      public MockHTTPServer.Reply respond(String method, URI uri) {
+        try {
+          release.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+        return new MockHTTPServer.Reply(404, "");
+      }
+    });
+    ExecutorService pool = Executors.newSingleThreadExecutor();
+    try {
+      GeoServerRESTBulkReader sequential = new GeoServerRESTBulkReader(new GeoServerRESTReader(new URL(server.url("")), "admin", "geoserver"), 1,
+          pool);
+      GeoServerRESTBulkReader.ExpandedLayerIterator layers = sequential.expandLayers(Arrays.asList("topp:a", "topp:b", "topp:c", "nurc:e"));
+      assertEquals("topp:a", layers.next().getName());
+      layers.close();
+      assertFalse(layers.hasNext());
+      release.countDown();
+    } finally {
+      pool.shutdown();
+    }
+    assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+    // the layers not started when the iterator was closed are skipped
+    assertEquals(0, server.getRequestCount("GET", "/rest/layers/topp:c.xml"));
+    assertEquals(0, server.getRequestCount("GET", "/rest/layers/nurc:e.xml"));
+  }
+  
+  @Test
+  public void testWorkerError() throws Exception {
+    GeoServerRESTReader failing = new GeoServerRESTReader(new URL(server.url("")), "admin", "geoserver") {
+      @Override
+      public RESTLayer getLayer(String workspace, String name) {
+        if (name.equals("b")) throw new AssertionError("broken");
+        return super.getLayer(workspace, name);
+      }
+    };
+    ExecutorService pool = Executors.newSingleThreadExecutor();
+    try {
+      Iterator<GeoServerRESTBulkReader.ExpandedLayer> layers = new GeoServerRESTBulkReader(failing, 1, pool).expandLayers(Arrays.asList("topp:a",
+          "topp:b", "topp:c"));
+      Set<String> resolved = new HashSet<String>();
+      Set<String> unresolved = new HashSet<String>();
+      while (layers.hasNext()) {
+        GeoServerRESTBulkReader.ExpandedLayer layer = layers.next();
+        (layer.isResolved() ? resolved : unresolved).add(layer.getName());
+      }
+      // the failed layer, and the ones left to the worker which died, are returned unresolved
+      assertEquals(Collections.singleton("topp:a"), resolved);
+      assertEquals(new HashSet<String>(Arrays.asList("topp:b", "topp:c")), unresolved);
+    } finally {
+      pool.shutdown();
+    }
+  }
+}
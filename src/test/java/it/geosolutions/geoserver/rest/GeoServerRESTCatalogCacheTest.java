@@ -0,0 +1,317 @@
+/*
+ *  GeoServer-Manager - Simple Manager Library for GeoServer
+ *  
+ *  Copyright (C) 2007,2016 GeoSolutions S.A.S.
+ *  http://www.geo-solutions.it
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package it.geosolutions.geoserver.rest;
+
+import static org.junit.Assert.*;
+import it.geosolutions.geoserver.rest.decoder.RESTDataStore;
+import it.geosolutions.geoserver.rest.decoder.RESTLayer;
+import it.geosolutions.geoserver.rest.decoder.RESTStyle;
+import it.geosolutions.geoserver.rest.decoder.RESTStyleList;
+import it.geosolutions.geoserver.rest.http.MockHTTPServer;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.DeflaterOutputStream;
+
+import org.jdom.Element;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests the {@link GeoServerRESTCatalogCache} read through by the reader and invalidated by the publisher writes.
+ */
+public class GeoServerRESTCatalogCacheTest {
+  
+  private MockHTTPServer server;
+  
+  private GeoServerRESTManager manager;
+  
+  private GeoServerRESTReader reader;
+  
+  @Before
+  public void setUp() throws Exception {
+    server = new MockHTTPServer();
+    manager = new GeoServerRESTManager(new URL(server.url("")), "admin", "geoserver");
+    manager.setCatalogCache(new GeoServerRESTCatalogCache());
+    reader = manager.getReader();
+    
+    server.reply("/rest/about/version.xml", new MockHTTPServer.Reply(200,
+        "<about><resource name=\"GeoServer\"><Version>2.8.1</Version></resource></about>"));
+    server.reply("/rest/layers.xml", new MockHTTPServer.Reply(200, "<layers><layer><name>topp:states</name></layer></layers>"));
+    server.reply("/rest/layers/topp:states.xml", new MockHTTPServer.Reply(200, "<layer><name>states</name><type>VECTOR</type><resource class=\"featureType\">"
+        + "<name>states</name><atom:link xmlns:atom=\"http://www.w3.org/2005/Atom\" rel=\"alternate\" href=\""
+        + server.url("/rest/workspaces/topp/datastores/states/featuretypes/states.xml") + "\"/></resource></layer>"));
+    server.reply("/rest/workspaces/topp/datastores/states/featuretypes/states.xml", new MockHTTPServer.Reply(200,
+        "<featureType><name>states</name></featureType>"));
+    server.reply("/rest/workspaces/topp/datastores/states.xml", new MockHTTPServer.Reply(200, "<dataStore><name>states</name></dataStore>"));
+    server.reply("/rest/workspaces/topp/datastores/roads.xml", new MockHTTPServer.Reply(200, "<dataStore><name>roads</name></dataStore>"));
+    server.reply("/rest/layergroups/tasmania.xml", new MockHTTPServer.Reply(200, "<layerGroup><name>tasmania</name><publishables>"
+        + "<published type=\"layer\"><name>topp:states</name></published></publishables></layerGroup>"));
+    server.reply("/rest/layergroups/world.xml", new MockHTTPServer.Reply(200, "<layerGroup><name>world</name><publishables>"
+        + "<published type=\"layer\"><name>nurc:roads</name></published></publishables></layerGroup>"));
+  }
+  
+  @After
+  public void tearDown() {
+    server.stop();
+  }
+  
+  @Test
+  public void testReadThrough() {
+    RESTDataStore store = reader.getDatastore("topp", "states");
+    assertEquals("states", store.getName());
+    assertSame(store, reader.getDatastore("topp", "states"));
+    assertEquals(1, server.getRequestCount("GET", "/rest/workspaces/topp/datastores/states.xml"));
+    assertEquals(0.5, reader.getCatalogCache().getHitRatio(), 0.001);
+    
+    // missing objects are not cached
+    assertNull(reader.getDatastore("topp", "missing"));
+    assertNull(reader.getDatastore("topp", "missing"));
+    assertEquals(2, server.getRequestCount("GET", "/rest/workspaces/topp/datastores/missing.xml"));
+  }
+  
+  @Test
+  public void testRemoveLayerEvictsGroups() {
+    server.reply("DELETE", "/rest/layers/topp:states", new MockHTTPServer.Reply(200, ""));
+    reader.getLayer("topp", "states");
+    reader.getLayers();
+    reader.getLayerGroup("tasmania");
+    reader.getLayerGroup("world");
+    reader.getDatastore("topp", "states");
+    
+    assertTrue(manager.getPublisher().removeLayer("topp", "states"));
+    reader.getLayer("topp", "states");
+    reader.getLayers();
+    reader.getLayerGroup("tasmania");
+    reader.getLayerGroup("world");
+    reader.getDatastore("topp", "states");
+    
+    assertEquals(2, server.getRequestCount("GET", "/rest/layers/topp:states.xml"));
+    assertEquals(2, server.getRequestCount("GET", "/rest/layers.xml"));
+    assertEquals(2, server.getRequestCount("GET", "/rest/layergroups/tasmania.xml"));
+    assertEquals(1, server.getRequestCount("GET", "/rest/layergroups/world.xml"));
+    assertEquals(1, server.getRequestCount("GET", "/rest/workspaces/topp/datastores/states.xml"));
+  }
+  
+  @Test
+  public void testUnsetOnOneComponentKeepsTheSharedRegistration() {
+    server.reply("DELETE", "/rest/layers/topp:states", new MockHTTPServer.Reply(200, ""));
+    manager.getStyleManager().setCatalogCache(null);
+    manager.getPublisher().setCatalogCache(null);
+    reader.getLayer("topp", "states");
+    
+    // the reader and the other managers still hold the cache on the shared engine
+    assertTrue(manager.getPublisher().removeLayer("topp", "states"));
+    reader.getLayer("topp", "states");
+    assertEquals(2, server.getRequestCount("GET", "/rest/layers/topp:states.xml"));
+  }
+  
+  @Test
+  public void testReaderSharesStylesWithStyleManager() {
+    server.reply("/rest/workspaces/topp/styles/line.xml", new MockHTTPServer.Reply(200, "<style><name>line</name></style>"));
+    server.reply("/rest/workspaces/topp/styles.xml", new MockHTTPServer.Reply(200, "<styles><style><name>line</name></style></styles>"));
+    
+    RESTStyle style = reader.getStyle("topp", "line");
+    assertSame(style, manager.getStyleManager().getStyle("topp", "line"));
+    RESTStyleList styles = manager.getStyleManager().getStyles("topp");
+    assertSame(styles, reader.getStyles("topp"));
+    
+    assertEquals(1, server.getRequestCount("GET", "/rest/workspaces/topp/styles/line.xml"));
+    assertEquals(1, server.getRequestCount("GET", "/rest/workspaces/topp/styles.xml"));
+  }
+  
+  @Test
+  public void testResolvedLinks() {
+    server.reply("/rest/layers/topp:roads.xml", new MockHTTPServer.Reply(200, "<layer><name>roads</name><type>VECTOR</type>"
+        + "<defaultStyle><name>line</name><atom:link xmlns:atom=\"http://www.w3.org/2005/Atom\" rel=\"alternate\" href=\""
+        + server.url("/rest/styles/line.xml") + "\"/></defaultStyle><resource class=\"featureType\"><name>states</name>"
+        + "<atom:link xmlns:atom=\"http://www.w3.org/2005/Atom\" rel=\"alternate\" href=\""
+        + server.url("/rest/workspaces/topp/datastores/states/featuretypes/states.xml") + "\"/></resource></layer>"));
+    server.reply("/rest/styles/line.xml", new MockHTTPServer.Reply(200, "<style><name>line</name></style>"));
+    
+    // the same resource, followed from two layers and decoded as different types, is fetched once
+    RESTLayer states = reader.getLayer("topp", "states");
+    RESTLayer roads = reader.getLayer("topp", "roads");
+    assertEquals("states", reader.getResource(states).getName());
+    assertEquals("states", reader.getFeatureType(roads).getName());
+    assertEquals("states", reader.getResource(roads).getName());
+    assertEquals(1, server.getRequestCount("GET", "/rest/workspaces/topp/datastores/states/featuretypes/states.xml"));
+    
+    // the default style resolved by the reader is shared with the style manager
+    assertEquals("line", reader.getDefaultStyle(roads).getName());
+    assertSame(reader.getDefaultStyle(roads), manager.getStyleManager().getStyle("line"));
+    assertEquals(1, server.getRequestCount("GET", "/rest/styles/line.xml"));
+    assertNull(reader.getDefaultStyle(states));
+  }
+  
+  @Test
+  public void testRemoveStoreEvictsResources() {
+    server.reply("DELETE", "/rest/workspaces/topp/datastores/states", new MockHTTPServer.Reply(200, ""));
+    RESTLayer layer = reader.getLayer("topp", "states");
+    reader.getFeatureType(layer);
+    reader.getDatastore("topp", "states");
+    reader.getDatastore("topp", "roads");
+    reader.getLayerGroup("tasmania");
+    reader.getLayerGroup("world");
+    
+    assertTrue(manager.getPublisher().removeDatastore("topp", "states", true));
+    reader.getLayer("topp", "states");
+    reader.getFeatureType(layer);
+    reader.getDatastore("topp", "states");
+    reader.getDatastore("topp", "roads");
+    reader.getLayerGroup("tasmania");
+    reader.getLayerGroup("world");
+    
+    assertEquals(2, server.getRequestCount("GET", "/rest/layers/topp:states.xml"));
+    assertEquals(2, server.getRequestCount("GET", "/rest/workspaces/topp/datastores/states/featuretypes/states.xml"));
+    assertEquals(2, server.getRequestCount("GET", "/rest/workspaces/topp/datastores/states.xml"));
+    assertEquals(1, server.getRequestCount("GET", "/rest/workspaces/topp/datastores/roads.xml"));
+    assertEquals(2, server.getRequestCount("GET", "/rest/layergroups/tasmania.xml"));
+    assertEquals(1, server.getRequestCount("GET", "/rest/layergroups/world.xml"));
+  }
+  
+  @Test
+  public void testExpiry() {
+    final long[] clock = { 0 };
+    manager.setCatalogCache(new GeoServerRESTCatalogCache(1000) {
+      @Override
+      protected long now() {
+        return clock[0];
+      }
+    });
+    reader.getDatastore("topp", "states");
+    clock[0] = 999;
+    reader.getDatastore("topp", "states");
+    clock[0] = 1000;
+    reader.getDatastore("topp", "states");
+    assertEquals(2, server.getRequestCount("GET", "/rest/workspaces/topp/datastores/states.xml"));
+  }
+  
+  @Test
+  public void testBounded() {
+    final long[] clock = { 0 };
+    GeoServerRESTCatalogCache cache = new GeoServerRESTCatalogCache(1000, 3) {
+      @Override
+      protected long now() {
+        return clock[0];
+      }
+    };
+    cache.put("/rest/workspaces/a.xml", null, "a");
+    cache.put("/rest/workspaces/b.xml", null, "b");
+    cache.put("/rest/workspaces/c.xml", null, "c");
+    assertEquals("a", cache.get("/rest/workspaces/a.xml", String.class));
+    
+    // the least recently used entry makes room
+    cache.put("/rest/workspaces/d.xml", null, "d");
+    assertEquals(3, cache.size());
+    assertNull(cache.get("/rest/workspaces/b.xml", String.class));
+    assertEquals("a", cache.get("/rest/workspaces/a.xml", String.class));
+    
+    // expired entries are dropped on put, even if never read again
+    clock[0] = 1000;
+    cache.put("/rest/workspaces/e.xml", null, "e");
+    assertEquals(1, cache.size());
+    assertEquals("e", cache.get("/rest/workspaces/e.xml", String.class));
+  }
+  
+  @Test
+  public void testSnapshot() throws Exception {
+    server.reply("/rest/styles.xml", new MockHTTPServer.Reply(200, "<styles><style><name>line</name></style></styles>"));
+    reader.getLayer("topp", "states");
+    reader.getDatastore("topp", "states");
+    reader.getStyles();
+    File file = File.createTempFile("catalog", ".snapshot");
+    try {
+      assertEquals(3, reader.getCatalogCache().save(file));
+      
+      GeoServerRESTReader restarted = new GeoServerRESTReader(new URL(server.url("")), "admin", "geoserver");
+      GeoServerRESTCatalogCache cache = new GeoServerRESTCatalogCache();
+      restarted.setCatalogCache(cache);
+      assertEquals(3, cache.load(file));
+      server.reply("/rest/workspaces/topp/datastores/states.xml", new MockHTTPServer.Reply(200, "<dataStore><name>states2</name></dataStore>"));
+      assertEquals("states", restarted.getLayer("topp", "states").getName());
+      assertEquals("states", restarted.getDatastore("topp", "states").getName());
+      assertEquals("line", restarted.getStyles().get(0).getName());
+      assertEquals(1, server.getRequestCount("GET", "/rest/about/version.xml"));
+      
+      assertEquals(Integer.valueOf(3), cache.revalidate(restarted).get(10, TimeUnit.SECONDS));
+      assertEquals("states2", restarted.getDatastore("topp", "states").getName());
+      assertTrue(restarted.getLayer("topp", "states") instanceof RESTLayer);
+      assertEquals(2, server.getRequestCount("GET", "/rest/workspaces/topp/datastores/states.xml"));
+    } finally {
+      file.delete();
+    }
+  }
+  
+  static volatile boolean hostileTouched;
+  
+  /** A class a tampered snapshot could name: it must never be initialized */
+  public static class Hostile {
+    
+    static {
+      hostileTouched = true;
+    }
+    
+    public static Object build(Element elem) {
+      hostileTouched = true;
+      return new Object();
+    }
+  }
+  
+  private static void writeEntry(DataOutputStream data, String key, String type, String xml) throws IOException {
+    byte[] bytes = xml.getBytes("UTF-8");
+    data.writeUTF(key);
+    data.writeUTF(type);
+    data.writeInt(bytes.length);
+    data.write(bytes);
+  }
+  
+  @Test
+  public void testSnapshotOnlyLoadsCatalogDecoders() throws Exception {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    DeflaterOutputStream deflater = new DeflaterOutputStream(bytes);
+    DataOutputStream data = new DataOutputStream(deflater);
+    data.writeInt(0x47534d43);
+    data.writeInt(1);
+    data.writeInt(2);
+    writeEntry(data, "/rest/styles.xml", "it.geosolutions.geoserver.rest.decoder.RESTStyleList", "<styles><style><name>line</name></style></styles>");
+    writeEntry(data, "/rest/layers.xml", Hostile.class.getName(), "<layers/>");
+    data.flush();
+    deflater.finish();
+    
+    GeoServerRESTCatalogCache cache = new GeoServerRESTCatalogCache();
+    assertEquals(1, cache.load(new ByteArrayInputStream(bytes.toByteArray())));
+    assertFalse(hostileTouched);
+    assertNotNull(cache.get("/rest/styles.xml", RESTStyleList.class));
+    assertNull(cache.get("/rest/layers.xml", Object.class));
+  }
+}
@@ -0,0 +1,93 @@
+/*
+ *  GeoServer-Manager - Simple Manager Library for GeoServer
+ *  
+ *  Copyright (C) 2007,2016 GeoSolutions S.A.S.
+ *  http://www.geo-solutions.it
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package it.geosolutions.geoserver.rest;
+
+import static org.junit.Assert.*;
+import it.geosolutions.geoserver.rest.decoder.RESTLayer21;
+import it.geosolutions.geoserver.rest.decoder.about.GSVersionDecoder;
+import it.geosolutions.geoserver.rest.http.MockHTTPServer;
+
+import java.net.URL;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests the version probe of the {@link GeoServerRESTReader}.
+ */
+public class GeoServerRESTReaderVersionTest {
+  
+  private static final String VERSION = "/rest/about/version.xml";
+  
+  private MockHTTPServer server;
+  
+  private GeoServerRESTReader reader;
+  
+  @Before
+  public void setUp() throws Exception {
+    server = new MockHTTPServer();
+    reader = new GeoServerRESTReader(new URL(server.url("")), "admin", "geoserver");
+    server.reply("/rest/layers/topp:states.xml", new MockHTTPServer.Reply(200, "<layer><name>states</name></layer>"));
+  }
+  
+  @After
+  public void tearDown() {
+    server.stop();
+  }
+  
+  @Test
+  public void testProbedOnce() {
+    server.reply(VERSION, new MockHTTPServer.Reply(200, "<about><resource name=\"GeoServer\"><Version>2.8.1</Version></resource></about>"));
+    for (int i = 0; i < 3; i++) {
+      assertEquals("states", reader.getLayer("topp", "states").getName());
+    }
+    assertEquals(GSVersionDecoder.VERSION.v28, reader.getGeoserverVersion().getVersion());
+    assertEquals(1, server.getRequestCount("GET", VERSION));
+    assertEquals(3, server.getRequestCount("GET", "/rest/layers/topp:states.xml"));
+    
+    server.reply(VERSION, new MockHTTPServer.Reply(200, "<about><resource name=\"GeoServer\"><Version>2.7.2</Version></resource></about>"));
+    assertEquals(GSVersionDecoder.VERSION.v27, reader.refreshGeoserverVersion().getVersion());
+    assertEquals(GSVersionDecoder.VERSION.v27, reader.getGeoserverVersion().getVersion());
+    assertEquals(2, server.getRequestCount("GET", VERSION));
+  }
+  
+  @Test
+  public void testUnversionedServer() {
+    server.reply("/rest/", new MockHTTPServer.Reply(200, "<html/>"));
+    assertTrue(reader.getLayer("topp", "states") instanceof RESTLayer21);
+    assertTrue(reader.getLayer("topp", "states") instanceof RESTLayer21);
+    assertEquals(1, server.getRequestCount("GET", VERSION));
+  }
+  
+  @Test
+  public void testFailedProbeNotRemembered() {
+    server.reply("/rest/", new MockHTTPServer.Reply(503, "down"));
+    assertEquals(GSVersionDecoder.VERSION.UNRECOGNIZED, reader.getGeoserverVersion().getVersion());
+    server.reply(VERSION, new MockHTTPServer.Reply(200, "<about><resource name=\"GeoServer\"><Version>2.8.1</Version></resource></about>"));
+    assertEquals(GSVersionDecoder.VERSION.v28, reader.getGeoserverVersion().getVersion());
+  }
+}
@@ -0,0 +1,254 @@
+/*
+ *  GeoServer-Manager - Simple Manager Library for GeoServer
+ *  
+ *  Copyright (C) 2007,2016 GeoSolutions S.A.S.
+ *  http://www.geo-solutions.it
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package it.geosolutions.geoserver.rest;
+
+import static org.junit.Assert.*;
+import it.geosolutions.geoserver.rest.decoder.RESTStyle;
+import it.geosolutions.geoserver.rest.http.HTTPRequest;
+import it.geosolutions.geoserver.rest.http.MockHTTPServer;
+
+import java.net.URI;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests the concurrent {@link Util#searchStyles(GeoServerRESTReader, String)} and the {@link GeoServerRESTStyleIndex}, without a GeoServer.
+ */
+public class StyleSearchTest {
+  
+  private static final int WORKSPACES = 12;
+  
+  private MockHTTPServer server;
+  
+  private GeoServerRESTReader reader;
+  
+  @Before
+  public void setUp() throws Exception {
+    server = new MockHTTPServer();
+    reader = new GeoServerRESTReader(new URL(server.url("")), "admin", "geoserver");
+    StringBuilder workspaces = new StringBuilder("<workspaces>");
+    for (int i = 0; i < WORKSPACES; i++) {
+      workspaces.append("<workspace><name>ws").append(i).append("</name></workspace>");
+      server.reply("/rest/workspaces/ws" + i + "/styles.xml", new MockHTTPServer.Reply(200, "<styles/>"));
+    }
+    server.reply("/rest/workspaces.xml", new MockHTTPServer.Reply(200, workspaces.append("</workspaces>").toString()));
+    
+    server.reply("/rest/styles.xml", new MockHTTPServer.Reply(200, "<styles><style><name>line</name></style></styles>"));
+    server.reply("/rest/styles/line.xml", new MockHTTPServer.Reply(200, "<style><name>line</name></style>"));
+    for (int i : new int[] { 3, 7 }) {
+      server.reply("/rest/workspaces/ws" + i + "/styles.xml", new MockHTTPServer.Reply(200, "<styles><style><name>line</name></style></styles>"));
+      server.reply("/rest/workspaces/ws" + i + "/styles/line.xml", new MockHTTPServer.Reply(200, "<style><name>line</name><workspace><name>ws"
+          + i + "</name></workspace></style>"));
+    }
+  }
+  
+  @After
+  public void tearDown() {
+    server.stop();
+  }
+  
+  private static String[] workspaces(List<RESTStyle> styles) {
+    String[] workspaces = new String[styles.size()];
+    for (int i = 0; i < workspaces.length; i++) {
+      workspaces[i] = styles.get(i).getWorkspace();
+    }
+    return workspaces;
+  }
+  
+  @Test
+  public void testSearchAll() {
+    String[] expected = { null, "ws3", "ws7" };
+    assertArrayEquals(expected, workspaces(Util.searchStyles(reader, "line")));
+    assertArrayEquals(expected, workspaces(Util.searchStyles(reader, "line", 4, Util.StyleSearch.ALL_MATCHES)));
+    assertArrayEquals(expected, workspaces(Util.searchStyles(reader, "line", 1, Util.StyleSearch.ALL_MATCHES)));
+    assertEquals(3, server.getRequestCount("GET", "/rest/workspaces/ws0/styles/line.xml"));
+    assertTrue(Util.searchStyles(reader, "missing", 4, Util.StyleSearch.ALL_MATCHES).isEmpty());
+  }
+  
+  @Test
+  public void testSearchFirst() {
+    assertEquals(1, Util.searchStyles(reader, "line", 4, Util.StyleSearch.FIRST_MATCH).size());
+    
+    // sequentially, the search stops at the global style
+    assertArrayEquals(new String[] { null }, workspaces(Util.searchStyles(reader, "line", 1, Util.StyleSearch.FIRST_MATCH)));
+    assertEquals(1, server.getRequestCount("GET", "/rest/workspaces/ws0/styles/line.xml"));
+  }
+  
+  @Test
+  public void testIndex() {
+    GeoServerRESTStyleIndex index = GeoServerRESTStyleIndex.create(reader);
+    try {
+      assertTrue(index.isGlobal("line"));
+      assertEquals(Arrays.asList("ws3", "ws7"), index.getWorkspaces("line"));
+      assertArrayEquals(new String[] { null, "ws3", "ws7" }, workspaces(index.searchStyles("line")));
+      assertTrue(index.searchStyles("missing").isEmpty());
+      
+      // only the styles listed are fetched, and the listings are loaded once
+      assertEquals(0, server.getRequestCount("GET", "/rest/workspaces/ws0/styles/line.xml"));
+      assertEquals(1, server.getRequestCount("GET", "/rest/workspaces/ws0/styles.xml"));
+      
+      // publishing a style in a workspace rebuilds the index
+      server.reply("POST", "/rest/workspaces/ws0/styles", new MockHTTPServer.Reply(201, ""));
+      server.reply("/rest/workspaces/ws0/styles.xml", new MockHTTPServer.Reply(200, "<styles><style><name>line</name></style></styles>"));
+      GeoServerRESTPublisher publisher = new GeoServerRESTPublisher(server.url(""), "admin", "geoserver", reader.getHTTPEngine());
+      assertTrue(publisher.publishStyleInWorkspace("ws0", "<StyledLayerDescriptor version=\"1.0.0\"/>", "line"));
+      assertEquals(Arrays.asList("ws0", "ws3", "ws7"), index.getWorkspaces("line"));
+      assertEquals(2, server.getRequestCount("GET", "/rest/workspaces/ws0/styles.xml"));
+    } finally {
+      index.close();
+    }
+  }
+  
+  @Test
+  public void testWriteDuringBuild() {
+    final GeoServerRESTStyleIndex index = GeoServerRESTStyleIndex.create(reader);
+    try {
+      server.respond("/rest/workspaces/ws0/styles.xml", new MockHTTPServer.Responder() {
+        public MockHTTPServer.Reply respond(String method, URI uri) {
+          // a style is published in ws0 once its listing was served
+          String styles = "<styles/>";
+          if (server.getRequestCount("GET", "/rest/workspaces/ws0/styles.xml") > 1) {
+            styles = "<styles><style><name>line</name></style></styles>";
+          } else {
+            index.written(HTTPRequest.Method.POST, server.url("/rest/workspaces/ws0/styles"));
+          }
+          return new MockHTTPServer.Reply(200, styles);
+        }
+      });
+      assertEquals(Arrays.asList("ws3", "ws7"), index.getWorkspaces("line"));
+      
+      // the index built before the write is not kept
+      assertEquals(Arrays.asList("ws0", "ws3", "ws7"), index.getWorkspaces("line"));
+      assertEquals(2, server.getRequestCount("GET", "/rest/workspaces/ws0/styles.xml"));
+    } finally {
+      index.close();
+    }
+  }
+  
+  @Test
+  public void testIncompleteIndex() {
+    final long[] clock = { 0 };
+    GeoServerRESTStyleIndex index = new GeoServerRESTStyleIndex(reader, 60000, 4) {
+      @Override
+      protected long now() {
+        return clock[0];
+      }
+    };
+    server.reply("/rest/workspaces/ws5/styles.xml", new MockHTTPServer.Reply(500, "failed"));
+    assertEquals(Arrays.asList("ws3", "ws7"), index.getWorkspaces("line"));
+    
+    // the index is used while the listing keeps failing, then the listings are loaded again
+    clock[0] = GeoServerRESTStyleIndex.INCOMPLETE_TIME_TO_LIVE - 1;
+    assertEquals(Arrays.asList("ws3", "ws7"), index.getWorkspaces("line"));
+    assertEquals(1, server.getRequestCount("GET", "/rest/workspaces/ws5/styles.xml"));
+    server.reply("/rest/workspaces/ws5/styles.xml", new MockHTTPServer.Reply(200, "<styles><style><name>line</name></style></styles>"));
+    clock[0] = GeoServerRESTStyleIndex.INCOMPLETE_TIME_TO_LIVE;
+    assertEquals(Arrays.asList("ws3", "ws5", "ws7"), index.getWorkspaces("line"));
+    assertEquals(2, server.getRequestCount("GET", "/rest/workspaces/ws5/styles.xml"));
+    
+    // a complete index lives its full time to live
+    clock[0] = 60000;
+    index.getWorkspaces("line");
+    assertEquals(2, server.getRequestCount("GET", "/rest/workspaces/ws5/styles.xml"));
+  }
+  
+  @Test
+  public void testSingleBuild() throws Exception {
+    server.respond("/rest/workspaces.xml", new MockHTTPServer.Responder() {
+      public MockHTTPServer.Reply respond(String method, URI uri) {
+        try {
+          Thread.sleep(200);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+        return new MockHTTPServer.Reply(200, "<workspaces><workspace><name>ws3</name></workspace></workspaces>");
+      }
+    });
+    final GeoServerRESTStyleIndex index = new GeoServerRESTStyleIndex(reader, 60000, 4);
+    final CountDownLatch start = new CountDownLatch(1);
+    final List<List<String>> results = Collections.synchronizedList(new ArrayList<List<String>>());
+    List<Thread> searches = new ArrayList<Thread>();
+    for (int i = 0; i < 4; i++) {
+      Thread search = new Thread() {
+        @Override
+        public void run() {
+          try {
+            start.await();
+            results.add(index.getWorkspaces("line"));
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+          }
+        }
+      };
+      search.start();
+      searches.add(search);
+    }
+    start.countDown();
+    for (Thread search : searches) {
+      search.join(10000);
+    }
+    assertEquals(Collections.nCopies(4, Arrays.asList("ws3")), results);
+    assertEquals(1, server.getRequestCount("GET", "/rest/workspaces.xml"));
+  }
+  
+  @Test
+  public void testFanOutOnSharedThreads() {
+    final AtomicInteger running = new AtomicInteger();
+    final AtomicInteger peak = new AtomicInteger();
+    final Set<Thread> threads = Collections.synchronizedSet(new HashSet<Thread>());
+    List<Callable<Integer>> calls = new ArrayList<Callable<Integer>>();
+    for (int i = 0; i < 6; i++) {
+      final int result = i;
+      calls.add(new Callable<Integer>() {
+        public Integer call() throws InterruptedException {
+          synchronized (peak) {
+            peak.set(Math.max(peak.get(), running.incrementAndGet()));
+          }
+          threads.add(Thread.currentThread());
+          Thread.sleep(20);
+          running.decrementAndGet();
+          return result;
+        }
+      });
+    }
+    assertEquals(Arrays.asList(0, 1, 2, 3, 4, 5), Util.fanOut(calls, 2, false));
+    assertTrue(peak.get() <= 2);
+    assertTrue(threads.size() <= 2);
+    assertSame(Util.searchPool(), Util.searchPool());
+  }
+}
@@ -0,0 +1,117 @@
+/*
+ *  GeoServer-Manager - Simple Manager Library for GeoServer
+ *  
+ *  Copyright (C) 2007,2016 GeoSolutions S.A.S.
+ *  http://www.geo-solutions.it
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package it.geosolutions.geoserver.rest.decoder;
+
+import static org.junit.Assert.*;
+import it.geosolutions.geoserver.rest.GeoServerRESTReader;
+import it.geosolutions.geoserver.rest.decoder.utils.CompactListResponseHandler;
+import it.geosolutions.geoserver.rest.http.MockHTTPServer;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.util.Arrays;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Test;
+
+/**
+ * Tests the {@link RESTCompactList} decoding of listings.
+ */
+public class RESTCompactListTest {
+  
+  private static final String LINK = "http://localhost:8080/geoserver/rest/workspaces/topp/featuretypes/";
+  
+  private static String example() throws IOException {
+    InputStream is = RESTCompactListTest.class.getResourceAsStream("/testdata/featureTypeListExample.xml");
+    try {
+      return IOUtils.toString(is, "UTF-8");
+    } finally {
+      is.close();
+    }
+  }
+  
+  private static void assertExample(RESTCompactList list) throws IOException {
+    assertEquals("featureType", list.getItemName());
+    assertEquals(RESTFeatureTypeList.build(example()).getNames(), list.getNames());
+    assertEquals(5, list.size());
+    assertEquals("tasmania_roads", list.getName(2));
+    assertEquals(LINK + "tasmania_roads.xml", list.getLink(2));
+    assertEquals(4, list.indexOf("tasmania_water_bodies"));
+    assertFalse(list.contains("missing"));
+  }
+  
+  @Test
+  public void testFromDocument() throws IOException {
+    assertExample(RESTCompactList.build(example()));
+    assertExample(RESTFeatureTypeList.build(example()).compact());
+  }
+  
+  @Test
+  public void testStreamed() throws IOException {
+    RESTCompactList list = CompactListResponseHandler.parse(new ByteArrayInputStream(example().getBytes("UTF-8")), "UTF-8");
+    assertExample(list);
+    int i = 0;
+    for (String name : list) {
+      assertEquals(list.getName(i++), name);
+    }
+    assertEquals(5, i);
+  }
+  
+  @Test
+  public void testEmpty() throws IOException {
+    RESTCompactList list = CompactListResponseHandler.parse(new ByteArrayInputStream("<layers/>".getBytes("UTF-8")), null);
+    assertTrue(list.isEmpty());
+    assertNull(list.getItemName());
+    assertTrue(RESTCompactList.build("<layers/>").isEmpty());
+  }
+  
+  @Test
+  public void testNoLink() throws IOException {
+    RESTCompactList list = CompactListResponseHandler.parse(new ByteArrayInputStream("<styles><style><name>line</name></style></styles>".getBytes("UTF-8")), null);
+    assertEquals(Arrays.asList("line"), list.getNames());
+    assertNull(list.getLink(0));
+  }
+  
+  @Test(expected = IOException.class)
+  public void testMismatching() throws IOException {
+    CompactListResponseHandler.parse(new ByteArrayInputStream("<layers><layer><name>a</name></layer><style><name>b</name></style></layers>".getBytes("UTF-8")), null);
+  }
+  
+  @Test
+  public void testReader() throws Exception {
+    MockHTTPServer server = new MockHTTPServer();
+    try {
+      server.reply("/rest/workspaces/topp/featuretypes.xml", new MockHTTPServer.Reply(200, example()));
+      GeoServerRESTReader reader = new GeoServerRESTReader(new URL(server.url("")), "admin", "geoserver");
+      assertExample(reader.getCompactList("/rest/workspaces/topp/featuretypes.xml"));
+      assertNull(reader.getCompactList("/rest/workspaces/missing/featuretypes.xml"));
+    } finally {
+      server.stop();
+    }
+  }
+}
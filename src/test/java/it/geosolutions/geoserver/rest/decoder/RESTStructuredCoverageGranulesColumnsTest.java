@@ -0,0 +1,165 @@
+/*
+ *  GeoServer-Manager - Simple Manager Library for GeoServer
+ *  
+ *  Copyright (C) 2007,2016 GeoSolutions S.A.S.
+ *  http://www.geo-solutions.it
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package it.geosolutions.geoserver.rest.decoder;
+
+import static org.junit.Assert.*;
+import it.geosolutions.geoserver.rest.decoder.RESTStructuredCoverageGranulesColumns.ColumnType;
+import it.geosolutions.geoserver.rest.decoder.utils.GranuleColumnsResponseHandler;
+import it.geosolutions.geoserver.rest.http.MockHTTPServer;
+import it.geosolutions.geoserver.rest.manager.GeoServerRESTStructuredGridCoverageReaderManager;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Test;
+
+/**
+ * Tests the decoding of granules into {@link RESTStructuredCoverageGranulesColumns}.
+ */
+public class RESTStructuredCoverageGranulesColumnsTest {
+  
+  private static final String SCHEMA = "<Schema><attributes>" + attribute("the_geom", "com.vividsolutions.jts.geom.Polygon")
+      + attribute("location", "java.lang.String") + attribute("imageindex", "java.lang.Integer") + attribute("time", "java.sql.Timestamp")
+      + attribute("elevation", "java.lang.Double") + "</attributes></Schema>";
+  
+  private static String attribute(String name, String binding) {
+    return "<Attribute><name>" + name + "</name><minOccurs>0</minOccurs><maxOccurs>1</maxOccurs><nillable>true</nillable><binding>" + binding
+        + "</binding></Attribute>";
+  }
+  
+  private static String example() throws IOException {
+    InputStream is = RESTStructuredCoverageGranulesColumnsTest.class.getResourceAsStream("/testdata/granulesExample.xml");
+    try {
+      return IOUtils.toString(is, "UTF-8");
+    } finally {
+      is.close();
+    }
+  }
+  
+  private static void assertExample(RESTStructuredCoverageGranulesColumns columns) {
+    assertEquals(3, columns.size());
+    assertEquals(ColumnType.OTHER, columns.getColumnType(columns.getColumnIndex("the_geom")));
+    assertEquals("V.2", columns.getFid(1));
+    
+    int time = columns.getColumnIndex("time");
+    assertEquals(ColumnType.TIME, columns.getColumnType(time));
+    // 2013-02-28T23:00:00Z
+    assertEquals(1362092400000L, columns.getTime(time, 0));
+    assertArrayEquals(new long[] { 1362092400000L, 1362178800000L, 1362265200000L }, columns.getTimes("time"));
+    
+    assertEquals(35.0, columns.getDouble(columns.getColumnIndex("elevation"), 1), 0);
+    assertArrayEquals(new long[] { 672, 673, 674 }, columns.getLongs("imageindex"));
+    assertEquals("polyphemus_20130303.nc", columns.getString(columns.getColumnIndex("location"), 2));
+    assertFalse(columns.isNull(time, 2));
+    assertEquals(-1, columns.getColumnIndex("missing"));
+  }
+  
+  @Test
+  public void testStreamed() throws IOException {
+    RESTStructuredCoverageIndexSchema schema = RESTStructuredCoverageIndexSchema.build(SCHEMA);
+    assertExample(GranuleColumnsResponseHandler.parse(new ByteArrayInputStream(example().getBytes("UTF-8")), "UTF-8", schema));
+  }
+  
+  @Test
+  public void testFromGranules() throws IOException {
+    RESTStructuredCoverageGranulesColumns columns = new RESTStructuredCoverageGranulesColumns(RESTStructuredCoverageIndexSchema.build(SCHEMA));
+    for (RESTStructuredCoverageGranulesList.RESTStructuredCoverageGranule granule : RESTStructuredCoverageGranulesList.build(example())) {
+      columns.handle(granule);
+    }
+    assertExample(columns);
+  }
+  
+  @Test
+  public void testNullsAndGrowth() throws IOException {
+    StringBuilder xml = new StringBuilder("<wfs:FeatureCollection xmlns:gf=\"http://www.geoserver.org/rest/granules\" "
+        + "xmlns:wfs=\"http://www.opengis.net/wfs\" xmlns:gml=\"http://www.opengis.net/gml\">");
+    for (int i = 0; i < 1000; i++) {
+      xml.append("<gml:featureMember><gf:V fid=\"V.").append(i).append("\">");
+      if (i % 2 == 0) {
+        xml.append("<gf:elevation>").append(i).append(".5</gf:elevation>");
+      }
+      xml.append("<gf:time>not a time</gf:time></gf:V></gml:featureMember>");
+    }
+    xml.append("</wfs:FeatureCollection>");
+    RESTStructuredCoverageGranulesColumns columns = GranuleColumnsResponseHandler.parse(new ByteArrayInputStream(xml.toString().getBytes("UTF-8")),
+        null, RESTStructuredCoverageIndexSchema.build(SCHEMA));
+    assertEquals(1000, columns.size());
+    int elevation = columns.getColumnIndex("elevation");
+    assertEquals(998.5, columns.getDouble(elevation, 998), 0);
+    assertTrue(columns.isNull(elevation, 999));
+    assertTrue(columns.isNull(columns.getColumnIndex("time"), 0));
+    assertTrue(columns.isNull(columns.getColumnIndex("location"), 0));
+  }
+  
+  @Test(expected = IllegalArgumentException.class)
+  public void testWrongType() throws IOException {
+    GranuleColumnsResponseHandler.parse(new ByteArrayInputStream(example().getBytes("UTF-8")), null, RESTStructuredCoverageIndexSchema.build(SCHEMA))
+        .getTimes("elevation");
+  }
+  
+  @Test
+  public void testParseTime() {
+    assertEquals(0L, RESTStructuredCoverageGranulesColumns.parseTime("1970-01-01"));
+    assertEquals(1362180600125L, RESTStructuredCoverageGranulesColumns.parseTime("2013-03-01T23:30:00.125Z"));
+    assertEquals(1362180600000L, RESTStructuredCoverageGranulesColumns.parseTime("2013-03-02T00:30:00+01:00"));
+    assertEquals(1362180600000L, RESTStructuredCoverageGranulesColumns.parseTime("2013-03-01T23:30:00"));
+    assertEquals(-86400000L, RESTStructuredCoverageGranulesColumns.parseTime("1969-12-31T00:00:00Z"));
+    assertEquals(951782400000L, RESTStructuredCoverageGranulesColumns.parseTime("2000-02-29T00:00:00Z"));
+  }
+  
+  @Test
+  public void testParseLong() {
+    assertEquals(672L, RESTStructuredCoverageGranulesColumns.parseLong("+672"));
+    assertEquals(Long.MAX_VALUE, RESTStructuredCoverageGranulesColumns.parseLong("9223372036854775807"));
+    assertEquals(Long.MIN_VALUE, RESTStructuredCoverageGranulesColumns.parseLong("-9223372036854775808"));
+    for (String overflow : new String[] { "9223372036854775808", "-9223372036854775809", "99999999999999999999" }) {
+      try {
+        RESTStructuredCoverageGranulesColumns.parseLong(overflow);
+        fail(overflow + " should overflow");
+      } catch (NumberFormatException e) {
+        // expected
+      }
+    }
+  }
+  
+  @Test
+  public void testManager() throws Exception {
+    MockHTTPServer server = new MockHTTPServer();
+    try {
+      server.reply("/rest/workspaces/nurc/coveragestores/mosaic/coverages/mosaic/index.xml", new MockHTTPServer.Reply(200, SCHEMA));
+      server.reply("/rest/workspaces/nurc/coveragestores/mosaic/coverages/mosaic/index/granules.xml", new MockHTTPServer.Reply(200, example()));
+      GeoServerRESTStructuredGridCoverageReaderManager manager = new GeoServerRESTStructuredGridCoverageReaderManager(new URL(server.url("")),
+          "admin", "geoserver");
+      assertExample(manager.getGranuleColumns("nurc", "mosaic", "mosaic", null, null, null));
+      assertNull(manager.getGranuleColumns("nurc", "mosaic", "missing", null, null, null));
+    } finally {
+      server.stop();
+    }
+  }
+}
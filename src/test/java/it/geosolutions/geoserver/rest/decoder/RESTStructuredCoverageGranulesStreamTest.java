@@ -0,0 +1,211 @@
+/*
+ *  GeoServer-Manager - Simple Manager Library for GeoServer
+ *  
+ *  Copyright (C) 2007,2016 GeoSolutions S.A.S.
+ *  http://www.geo-solutions.it
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package it.geosolutions.geoserver.rest.decoder;
+
+import static org.junit.Assert.*;
+import it.geosolutions.geoserver.rest.decoder.RESTStructuredCoverageGranulesList.GranuleHandler;
+import it.geosolutions.geoserver.rest.decoder.RESTStructuredCoverageGranulesList.RESTStructuredCoverageGranule;
+import it.geosolutions.geoserver.rest.decoder.utils.GranulesResponseHandler;
+import it.geosolutions.geoserver.rest.http.HTTPEngine;
+import it.geosolutions.geoserver.rest.http.HTTPRequest;
+import it.geosolutions.geoserver.rest.http.HTTPTransport;
+import it.geosolutions.geoserver.rest.http.HTTPTransportResponse;
+import it.geosolutions.geoserver.rest.http.MockHTTPServer;
+import it.geosolutions.geoserver.rest.manager.GeoServerRESTStructuredGridCoverageReaderManager;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Enumeration;
+import java.util.List;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Test;
+
+/**
+ * Tests the streaming of granules by the {@link GranulesResponseHandler}.
+ */
+public class RESTStructuredCoverageGranulesStreamTest {
+  
+  private static String example() throws IOException {
+    InputStream is = RESTStructuredCoverageGranulesStreamTest.class.getResourceAsStream("/testdata/granulesExample.xml");
+    try {
+      return IOUtils.toString(is, "UTF-8");
+    } finally {
+      is.close();
+    }
+  }
+  
+  private static class Collector implements GranuleHandler {
+    
+    final List<RESTStructuredCoverageGranule> granules = new ArrayList<RESTStructuredCoverageGranule>();
+    
+    final int max;
+    
+    Collector(int max) {
+      this.max = max;
+    }
+    
+    public boolean handle(RESTStructuredCoverageGranule granule) {
+      granules.add(granule);
+      return granules.size() < max;
+    }
+  }
+  
+  @Test
+  public void testSameAsList() throws IOException {
+    String xml = example();
+    RESTStructuredCoverageGranulesList list = RESTStructuredCoverageGranulesList.build(xml);
+    Collector collector = new Collector(Integer.MAX_VALUE);
+    assertEquals(3, GranulesResponseHandler.parse(new ByteArrayInputStream(xml.getBytes("UTF-8")), "UTF-8", collector));
+    
+    assertEquals(list.size(), collector.granules.size());
+    for (int i = 0; i < list.size(); i++) {
+      RESTStructuredCoverageGranule expected = list.get(i);
+      RESTStructuredCoverageGranule streamed = collector.granules.get(i);
+      assertEquals(expected.getFid(), streamed.getFid());
+      assertEquals(expected.getAttributeByName("location"), streamed.getAttributeByName("location"));
+      assertEquals(expected.getAttributeByIndex(3), streamed.getAttributeByIndex(3));
+      assertEquals(expected.toString(), streamed.toString());
+    }
+  }
+  
+  @Test
+  public void testStop() throws IOException {
+    Collector collector = new Collector(2);
+    assertEquals(2, GranulesResponseHandler.parse(new ByteArrayInputStream(example().getBytes("UTF-8")), null, collector));
+    assertEquals("V.2", collector.granules.get(1).getFid());
+  }
+  
+  @Test(expected = IOException.class)
+  public void testNotACollection() throws IOException {
+    GranulesResponseHandler.parse(new ByteArrayInputStream("<layers/>".getBytes("UTF-8")), null, new Collector(1));
+  }
+  
+  @Test
+  public void testLargeResponse() throws IOException {
+    final int granules = 200000;
+    final byte[] member = ("<gml:featureMember><gf:V fid=\"V.1\"><gf:location>granule.tif</gf:location><gf:time>2013-03-01T23:00:00Z</gf:time>"
+        + "</gf:V></gml:featureMember>").getBytes("UTF-8");
+    // the response is generated while it is read, and never held in memory
+    Enumeration<InputStream> parts = new Enumeration<InputStream>() {
+      
+      int part = -1;
+      
+      public boolean hasMoreElements() {
+        return part <= granules;
+      }
+      
+      public InputStream nextElement() {
+        part++;
+        if (part == 0) {
+          return new ByteArrayInputStream(("<wfs:FeatureCollection xmlns:gf=\"http://www.geoserver.org/rest/granules\" "
+              + "xmlns:wfs=\"http://www.opengis.net/wfs\" xmlns:gml=\"http://www.opengis.net/gml\">").getBytes());
+        }
+        return new ByteArrayInputStream(part <= granules ? member : "</wfs:FeatureCollection>".getBytes());
+      }
+    };
+    final int[] count = new int[1];
+    int handled = GranulesResponseHandler.parse(new SequenceInputStream(parts), "UTF-8", new GranuleHandler() {
+      public boolean handle(RESTStructuredCoverageGranule granule) {
+        assertEquals("granule.tif", granule.getAttributeByName("location"));
+        count[0]++;
+        return true;
+      }
+    });
+    assertEquals(granules, handled);
+    assertEquals(granules, count[0]);
+  }
+  
+  @Test
+  public void testStopAbortsTheConnection() throws IOException {
+    final byte[] xml = example().getBytes("UTF-8");
+    final List<String> calls = new ArrayList<String>();
+    HTTPEngine engine = new HTTPEngine(new HTTPTransport() {
+      public HTTPTransportResponse execute(HTTPRequest request) {
+        return new HTTPTransportResponse() {
+          public int getStatus() {
+            return 200;
+          }
+          
+          public String getStatusText() {
+            return "OK";
+          }
+          
+          public String getHeader(String name) {
+            return null;
+          }
+          
+          public InputStream getBody() {
+            return new ByteArrayInputStream(xml);
+          }
+          
+          public void close() {
+            calls.add("close");
+          }
+          
+          public void abort() {
+            calls.add("abort");
+          }
+        };
+      }
+      
+      public int getMaxConcurrentCallsPerHost() {
+        return 1;
+      }
+    });
+    
+    assertEquals(Integer.valueOf(1), engine.get("http://localhost/granules.xml", null, null, new GranulesResponseHandler(new Collector(1))));
+    assertEquals(Arrays.asList("abort", "close"), calls);
+    
+    // a body read to the end is released for reuse
+    calls.clear();
+    assertEquals(Integer.valueOf(3), engine.get("http://localhost/granules.xml", null, null, new GranulesResponseHandler(new Collector(Integer.MAX_VALUE))));
+    assertEquals(Arrays.asList("close"), calls);
+  }
+  
+  @Test
+  public void testManager() throws Exception {
+    MockHTTPServer server = new MockHTTPServer();
+    try {
+      server.reply("/rest/workspaces/nurc/coveragestores/mosaic/coverages/mosaic/index/granules.xml", new MockHTTPServer.Reply(200, example()));
+      GeoServerRESTStructuredGridCoverageReaderManager manager = new GeoServerRESTStructuredGridCoverageReaderManager(new URL(server.url("")),
+          "admin", "geoserver");
+      // stopping early drops the connection, the next call opens a new one
+      assertEquals(1, manager.getGranules("nurc", "mosaic", "mosaic", null, null, null, new Collector(1)));
+      Collector collector = new Collector(Integer.MAX_VALUE);
+      assertEquals(3, manager.getGranules("nurc", "mosaic", "mosaic", null, null, null, collector));
+      assertEquals("V.3", collector.granules.get(2).getFid());
+      assertEquals(-1, manager.getGranules("nurc", "mosaic", "missing", null, null, null, collector));
+    } finally {
+      server.stop();
+    }
+  }
+}
@@ -0,0 +1,219 @@
+/*
+ *  GeoServer-Manager - Simple Manager Library for GeoServer
+ *  
+ *  Copyright (C) 2007,2016 GeoSolutions S.A.S.
+ *  http://www.geo-solutions.it
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package it.geosolutions.geoserver.rest.http;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests the coalescing of identical concurrent GETs by the {@link HTTPEngine}.
+ */
+public class HTTPCoalescingTest {
+  
+  private static final int CALLERS = 8;
+  
+  private MockHTTPServer server;
+  
+  private ExecutorService executor;
+  
+  @Before
+  public void setUp() throws Exception {
+    server = new MockHTTPServer();
+    executor = Executors.newFixedThreadPool(CALLERS);
+  }
+  
+  @After
+  public void tearDown() {
+    executor.shutdownNow();
+    server.stop();
+  }
+  
+  /**
+   * A handler which does not decode anything until released, so that the other callers can join the GET in progress.
+   */
+  private static class GatedHandler implements HTTPResponseHandler<Object> {
+    
+    final CountDownLatch gate = new CountDownLatch(1);
+    
+    public Object handle(InputStream body, String charset) throws IOException {
+      try {
+        gate.await(10, TimeUnit.SECONDS);
+      } catch (InterruptedException e) {
+        throw new IOException(e.toString());
+      }
+      while (body.read() >= 0) {
+        // drain
+      }
+      return new Object();
+    }
+  }
+  
+  private List<Future<Object>> getAll(final HTTPEngine engine, final String url, final String user, final HTTPResponseHandler<Object> handler)
+      throws Exception {
+    List<Future<Object>> results = new ArrayList<Future<Object>>();
+    for (int i = 0; i < CALLERS; i++) {
+      results.add(executor.submit(new Callable<Object>() {
+        public Object call() throws Exception {
+          return engine.get(url, user, "pw", handler);
+        }
+      }));
+    }
+    return results;
+  }
+  
+  private static void awaitCoalesced(HTTPEngine engine, long count) throws InterruptedException {
+    long deadline = System.currentTimeMillis() + 10000;
+    while (engine.getMetrics().getCoalescedCount() < count && System.currentTimeMillis() < deadline) {
+      Thread.sleep(10);
+    }
+  }
+  
+  @Test
+  public void testSingleRequest() throws Exception {
+    server.reply("/layer.xml", new MockHTTPServer.Reply(200, "<layer/>"));
+    HTTPEngine engine = new HTTPEngine();
+    GatedHandler handler = new GatedHandler();
+    List<Future<Object>> results = getAll(engine, server.url("/layer.xml"), "admin", handler);
+    awaitCoalesced(engine, CALLERS - 1);
+    handler.gate.countDown();
+    
+    Object first = results.get(0).get(10, TimeUnit.SECONDS);
+    assertNotNull(first);
+    for (Future<Object> result : results) {
+      assertSame(first, result.get(10, TimeUnit.SECONDS));
+    }
+    assertEquals(1, server.getRequestCount());
+    assertEquals(CALLERS - 1, engine.getMetrics().getCoalescedCount());
+    
+    // the flight is over: the next GET goes to the server again
+    assertNotSame(first, engine.get(server.url("/layer.xml"), "admin", "pw", handler));
+    assertEquals(2, server.getRequestCount());
+  }
+  
+  @Test
+  public void testErrorShared() throws Exception {
+    server.reply("/missing.xml", new MockHTTPServer.Reply(404, "no such layer"));
+    final HTTPEngine engine = new HTTPEngine();
+    final GatedHandler handler = new GatedHandler();
+    final String url = server.url("/missing.xml");
+    List<Future<String>> errors = new ArrayList<Future<String>>();
+    for (int i = 0; i < CALLERS; i++) {
+      errors.add(executor.submit(new Callable<String>() {
+        public String call() throws Exception {
+          assertNull(engine.get(url, "admin", "pw", handler));
+          return engine.getLastError();
+        }
+      }));
+    }
+    for (Future<String> error : errors) {
+      assertNotNull(error.get(10, TimeUnit.SECONDS));
+      assertTrue(error.get().contains("404"));
+    }
+    assertTrue(server.getRequestCount() <= CALLERS);
+  }
+  
+  @Test
+  public void testCredentialsNotShared() throws Exception {
+    server.reply("/layer.xml", new MockHTTPServer.Reply(200, "<layer/>"));
+    final HTTPEngine engine = new HTTPEngine();
+    final GatedHandler handler = new GatedHandler();
+    final String url = server.url("/layer.xml");
+    Future<Object> admin = executor.submit(new Callable<Object>() {
+      public Object call() throws Exception {
+        return engine.get(url, "admin", "pw", handler);
+      }
+    });
+    Future<Object> guest = executor.submit(new Callable<Object>() {
+      public Object call() throws Exception {
+        return engine.get(url, "guest", "pw", handler);
+      }
+    });
+    Thread.sleep(200);
+    handler.gate.countDown();
+    assertNotSame(admin.get(10, TimeUnit.SECONDS), guest.get(10, TimeUnit.SECONDS));
+    assertEquals(2, server.getRequestCount());
+    assertEquals(0, engine.getMetrics().getCoalescedCount());
+  }
+  
+  @Test
+  public void testCachesNotShared() throws Exception {
+    server.reply("/layer.xml", new MockHTTPServer.Reply(200, "<layer/>").header("ETag", "\"1\""));
+    final HTTPEngine engine = new HTTPEngine();
+    final GatedHandler handler = new GatedHandler();
+    final String url = server.url("/layer.xml");
+    final HTTPResponseCache first = new HTTPResponseCache();
+    final HTTPResponseCache second = new HTTPResponseCache();
+    List<Future<Object>> results = new ArrayList<Future<Object>>();
+    for (final HTTPResponseCache cache : new HTTPResponseCache[] { first, second, first }) {
+      results.add(executor.submit(new Callable<Object>() {
+        public Object call() throws Exception {
+          return engine.get(url, "admin", "pw", handler, cache);
+        }
+      }));
+    }
+    awaitCoalesced(engine, 1);
+    Thread.sleep(100);
+    handler.gate.countDown();
+    for (Future<Object> result : results) {
+      assertNotNull(result.get(10, TimeUnit.SECONDS));
+    }
+    
+    // the callers of the same cache shared a GET, and each cache got the response
+    assertEquals(2, server.getRequestCount());
+    assertEquals(1, engine.getMetrics().getCoalescedCount());
+    assertEquals(1, first.size());
+    assertEquals(1, second.size());
+  }
+  
+  @Test
+  public void testDisabled() throws Exception {
+    server.reply("/layer.xml", new MockHTTPServer.Reply(200, "<layer/>"));
+    HTTPEngine engine = new HTTPEngine();
+    engine.setCoalesceReads(false);
+    GatedHandler handler = new GatedHandler();
+    List<Future<Object>> results = getAll(engine, server.url("/layer.xml"), "admin", handler);
+    handler.gate.countDown();
+    for (Future<Object> result : results) {
+      assertNotNull(result.get(10, TimeUnit.SECONDS));
+    }
+    assertEquals(CALLERS, server.getRequestCount());
+    assertEquals(0, engine.getMetrics().getCoalescedCount());
+  }
+}
@@ -0,0 +1,112 @@
+/*
+ *  GeoServer-Manager - Simple Manager Library for GeoServer
+ *  
+ *  Copyright (C) 2007,2016 GeoSolutions S.A.S.
+ *  http://www.geo-solutions.it
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package it.geosolutions.geoserver.rest.http;
+
+import static org.junit.Assert.*;
+import it.geosolutions.geoserver.rest.decoder.utils.JDOMResponseHandler;
+
+import org.jdom.Element;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests the response and request compression of the {@link HTTPEngine}.
+ */
+public class HTTPCompressionTest {
+  
+  private MockHTTPServer server;
+  
+  private HTTPEngine engine;
+  
+  private String largeXml;
+  
+  @Before
+  public void setUp() throws Exception {
+    server = new MockHTTPServer();
+    engine = new HTTPEngine();
+    StringBuilder sb = new StringBuilder("<layerGroup><publishables>");
+    for (int i = 0; i < 1000; i++) {
+      sb.append("<published type=\"layer\"><name>layer").append(i).append("</name></published>");
+    }
+    largeXml = sb.append("</publishables></layerGroup>").toString();
+  }
+  
+  @After
+  public void tearDown() {
+    server.stop();
+  }
+  
+  @Test
+  public void testCompressedResponses() {
+    server.reply("/layers.xml", new MockHTTPServer.Reply(200, largeXml).gzip());
+    assertEquals(largeXml, engine.get(server.url("/layers.xml"), null, null));
+    assertEquals("gzip, deflate", server.getLastExchange().getRequestHeaders().getFirst("Accept-Encoding"));
+    
+    Element group = engine.get(server.url("/layers.xml"), null, null, JDOMResponseHandler.INSTANCE);
+    assertEquals(1000, group.getChild("publishables").getChildren().size());
+    
+    engine.setAcceptCompressed(false);
+    server.reply("/plain.xml", new MockHTTPServer.Reply(200, "<ok/>"));
+    assertEquals("<ok/>", engine.get(server.url("/plain.xml"), null, null));
+    assertNull(server.getLastExchange().getRequestHeaders().getFirst("Accept-Encoding"));
+  }
+  
+  @Test
+  public void testCompressedRequests() {
+    server.reply("PUT", "/group.xml", new MockHTTPServer.Reply(200, ""));
+    
+    // disabled by default
+    engine.putXml(server.url("/group.xml"), largeXml, null, null);
+    assertNull(server.getLastExchange().getRequestHeaders().getFirst("Content-Encoding"));
+    
+    engine.setRequestCompressionThreshold(1024);
+    engine.putXml(server.url("/group.xml"), largeXml, null, null);
+    assertEquals("gzip", server.getLastExchange().getRequestHeaders().getFirst("Content-Encoding"));
+    assertEquals(largeXml, server.getLastRequestBody());
+    
+    // small and binary bodies are sent as they are
+    engine.putXml(server.url("/group.xml"), "<layerGroup/>", null, null);
+    assertNull(server.getLastExchange().getRequestHeaders().getFirst("Content-Encoding"));
+    engine.put(server.url("/group.xml"), largeXml, "application/zip", null, null);
+    assertNull(server.getLastExchange().getRequestHeaders().getFirst("Content-Encoding"));
+  }
+  
+  @Test
+  public void testUnsupportedCompressedRequests() throws Exception {
+    engine.setRequestCompressionThreshold(0);
+    server.reply("PUT", "/style.sld", new MockHTTPServer.Reply(415, "Unsupported Media Type"));
+    assertNull(engine.putXml(server.url("/style.sld"), largeXml, null, null));
+    // the retry without compression was refused as well
+    assertNull(server.getLastExchange().getRequestHeaders().getFirst("Content-Encoding"));
+    assertEquals(2, server.getRequestCount());
+    
+    server.reply("PUT", "/style.sld", new MockHTTPServer.Reply(200, "ok"));
+    assertEquals("ok", engine.putXml(server.url("/style.sld"), largeXml, null, null));
+    assertNull(server.getLastExchange().getRequestHeaders().getFirst("Content-Encoding"));
+    assertEquals(3, server.getRequestCount());
+  }
+}
@@ -0,0 +1,87 @@
+/*
+ *  GeoServer-Manager - Simple Manager Library for GeoServer
+ *  
+ *  Copyright (C) 2007,2016 GeoSolutions S.A.S.
+ *  http://www.geo-solutions.it
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package it.geosolutions.geoserver.rest.http;
+
+import static org.junit.Assert.*;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+/**
+ * Tests the {@link HTTPConcurrencyLimiter}.
+ */
+public class HTTPConcurrencyLimiterTest {
+  
+  @Test
+  public void testLimitPerServer() throws Exception {
+    final HTTPConcurrencyLimiter limiter = new HTTPConcurrencyLimiter(2);
+    limiter.acquire("http://gs1:8080/geoserver/rest/layers.xml");
+    limiter.acquire("http://GS1:8080/geoserver/rest/styles.xml");
+    assertEquals(2, limiter.getActiveCalls("http://gs1:8080/"));
+    
+    // other servers are not affected; the default port is made explicit
+    limiter.acquire("http://gs2/geoserver/rest/layers.xml");
+    assertEquals(1, limiter.getActiveCalls("http://gs2:80/geoserver"));
+    
+    final CountDownLatch acquired = new CountDownLatch(1);
+    Thread waiting = new Thread() {
+      public void run() {
+        try {
+          limiter.acquire("http://gs1:8080/geoserver/rest/workspaces.xml");
+          acquired.countDown();
+        } catch (InterruptedException e) {
+          // test failure
+        }
+      }
+    };
+    waiting.start();
+    assertFalse(acquired.await(200, TimeUnit.MILLISECONDS));
+    
+    limiter.release("http://gs1:8080/geoserver/rest/layers.xml");
+    assertTrue(acquired.await(10, TimeUnit.SECONDS));
+    assertEquals(2, limiter.getActiveCalls("http://gs1:8080/"));
+  }
+  
+  @Test
+  public void testEngineReleasesPermits() throws Exception {
+    MockHTTPServer server = new MockHTTPServer();
+    try {
+      server.reply("/ok.xml", new MockHTTPServer.Reply(200, "<ok/>"));
+      HTTPEngine engine = new HTTPEngine();
+      HTTPConcurrencyLimiter limiter = new HTTPConcurrencyLimiter(1);
+      engine.setConcurrencyLimiter(limiter);
+      for (int i = 0; i < 3; i++) {
+        assertEquals("<ok/>", engine.get(server.url("/ok.xml"), null, null));
+        assertFalse(engine.exists(server.url("/missing.xml"), null, null));
+      }
+      assertEquals(0, limiter.getActiveCalls(server.url("/")));
+    } finally {
+      server.stop();
+    }
+  }
+}
@@ -0,0 +1,117 @@
+/*
+ *  GeoServer-Manager - Simple Manager Library for GeoServer
+ *  
+ *  Copyright (C) 2007,2016 GeoSolutions S.A.S.
+ *  http://www.geo-solutions.it
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package it.geosolutions.geoserver.rest.http;
+
+import static org.junit.Assert.*;
+import it.geosolutions.geoserver.rest.decoder.utils.JDOMResponseHandler;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.jdom.Element;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests the {@link HTTPEngine} against an in-process server.
+ */
+public class HTTPEngineTest {
+  
+  private MockHTTPServer server;
+  
+  private HTTPEngine engine;
+  
+  @Before
+  public void setUp() throws Exception {
+    server = new MockHTTPServer();
+    server.reply("/ok.xml", new MockHTTPServer.Reply(200, "<ok/>"));
+    engine = new HTTPEngine();
+  }
+  
+  @After
+  public void tearDown() {
+    server.stop();
+  }
+  
+  @Test
+  public void testResponses() {
+    HTTPResponse ok = engine.executeGet(server.url("/ok.xml"), "admin", "geoserver");
+    assertTrue(ok.isSuccess());
+    assertEquals(200, ok.getStatus());
+    assertEquals("<ok/>", ok.getBody());
+    
+    HTTPResponse missing = engine.executeGet(server.url("/missing.xml"), "admin", "geoserver");
+    assertFalse(missing.isSuccess());
+    assertEquals(404, missing.getStatus());
+    assertNotNull(missing.getError());
+  }
+  
+  @Test
+  public void testStreamingGet() {
+    server.reply("/latin.xml", new MockHTTPServer.Reply(200, "<name>caf\u00e9</name>").encoding("ISO-8859-1")
+        .header("Content-Type", "application/xml; charset=ISO-8859-1"));
+    Element latin = engine.get(server.url("/latin.xml"), null, null, JDOMResponseHandler.INSTANCE);
+    assertNotNull(latin);
+    assertEquals("caf\u00e9", latin.getText());
+    assertNull(engine.getLastError());
+    
+    // no charset in the headers: the parser falls back to the XML prolog
+    server.reply("/utf8.xml", new MockHTTPServer.Reply(200, "<?xml version=\"1.0\" encoding=\"UTF-8\"?><name>caf\u00e9</name>"));
+    assertEquals("caf\u00e9", engine.get(server.url("/utf8.xml"), null, null, JDOMResponseHandler.INSTANCE).getText());
+    
+    assertNull(engine.get(server.url("/missing.xml"), null, null, JDOMResponseHandler.INSTANCE));
+    assertNotNull(engine.getLastError());
+  }
+  
+  @Test
+  public void testExists() {
+    assertTrue(engine.exists(server.url("/ok.xml"), null, null));
+    assertFalse(engine.exists(server.url("/missing.xml"), null, null));
+  }
+  
+  @Test
+  public void testLastErrorIsThreadConfined() throws Exception {
+    assertNull(engine.get(server.url("/missing.xml"), null, null));
+    assertNotNull(engine.getLastError());
+    
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      Future<String> otherThreadError = executor.submit(new Callable<String>() {
+        public String call() throws Exception {
+          assertEquals("<ok/>", engine.get(server.url("/ok.xml"), null, null));
+          return engine.getLastError();
+        }
+      });
+      assertNull(otherThreadError.get());
+    } finally {
+      executor.shutdown();
+    }
+    // the successful call in the other thread did not clear the error of this one
+    assertNotNull(engine.getLastError());
+  }
+}
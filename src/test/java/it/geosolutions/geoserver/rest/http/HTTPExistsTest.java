@@ -0,0 +1,125 @@
+/*
+ *  GeoServer-Manager - Simple Manager Library for GeoServer
+ *  
+ *  Copyright (C) 2007,2016 GeoSolutions S.A.S.
+ *  http://www.geo-solutions.it
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package it.geosolutions.geoserver.rest.http;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests the HEAD based existence checks of the {@link HTTPEngine}.
+ */
+public class HTTPExistsTest {
+  
+  private MockHTTPServer server;
+  
+  private HTTPEngine engine;
+  
+  @Before
+  public void setUp() throws Exception {
+    server = new MockHTTPServer();
+    engine = new HTTPEngine();
+  }
+  
+  @After
+  public void tearDown() {
+    server.stop();
+  }
+  
+  @Test
+  public void testExistsThroughHead() {
+    server.reply("/rest/layers/roads.xml", new MockHTTPServer.Reply(200, "<layer/>"));
+    assertTrue(engine.exists(server.url("/rest/layers/roads.xml"), null, null));
+    assertEquals("HEAD", server.getLastExchange().getRequestMethod());
+    assertFalse(engine.exists(server.url("/rest/layers/rivers.xml"), null, null));
+    assertEquals("HEAD", server.getLastExchange().getRequestMethod());
+    assertTrue(engine.httpPing(server.url("/rest/layers/roads.xml"), null, null));
+    assertEquals("HEAD", server.getLastExchange().getRequestMethod());
+  }
+  
+  @Test
+  public void testFallbackToGet() {
+    server.reply("HEAD", "/rest/styles/line.xml", new MockHTTPServer.Reply(405, null));
+    server.reply("GET", "/rest/styles/line.xml", new MockHTTPServer.Reply(200, "<style/>"));
+    server.reply("HEAD", "/rest/styles/point.xml", new MockHTTPServer.Reply(405, null));
+    assertTrue(engine.exists(server.url("/rest/styles/line.xml"), null, null));
+    assertEquals("GET", server.getLastExchange().getRequestMethod());
+    assertEquals(2, server.getRequestCount());
+    
+    // the endpoint is remembered, and only receives GETs
+    assertFalse(engine.exists(server.url("/rest/styles/point.xml"), null, null));
+    assertEquals("GET", server.getLastExchange().getRequestMethod());
+    assertEquals(3, server.getRequestCount());
+  }
+  
+  @Test
+  public void testHeadDisabled() {
+    server.reply("/rest/layers/roads.xml", new MockHTTPServer.Reply(200, "<layer/>"));
+    engine.setUseHead(false);
+    assertTrue(engine.exists(server.url("/rest/layers/roads.xml"), null, null));
+    assertEquals("GET", server.getLastExchange().getRequestMethod());
+  }
+  
+  @Test
+  public void testProbesConnectWithShorterTimeout() {
+    final List<String> probes = new ArrayList<String>();
+    final CommonsHTTPTransport delegate = new CommonsHTTPTransport();
+    engine = new HTTPEngine(new HTTPTransport() {
+      public HTTPTransportResponse execute(HTTPRequest request) throws IOException {
+        probes.add(request.getMethod() + " " + request.isProbe());
+        return delegate.execute(request);
+      }
+      
+      public int getMaxConcurrentCallsPerHost() {
+        return delegate.getMaxConcurrentCallsPerHost();
+      }
+    });
+    server.reply("/rest/layers/roads.xml", new MockHTTPServer.Reply(200, "<layer/>"));
+    assertTrue(engine.exists(server.url("/rest/layers/roads.xml"), null, null));
+    assertTrue(engine.httpPing(server.url("/rest/layers/roads.xml"), null, null));
+    assertEquals("<layer/>", engine.get(server.url("/rest/layers/roads.xml"), null, null));
+    assertEquals("[HEAD true, HEAD true, GET false]", probes.toString());
+    
+    HTTPConnectionPool pool = new HTTPConnectionPool();
+    try {
+      assertEquals(HTTPConnectionPool.DEFAULT_CONNECTION_TIMEOUT,
+          pool.createClient().getHttpConnectionManager().getParams().getConnectionTimeout());
+      assertEquals(HTTPConnectionPool.DEFAULT_PROBE_CONNECTION_TIMEOUT, pool.getProbeConnectionTimeout());
+      assertEquals(HTTPConnectionPool.DEFAULT_PROBE_CONNECTION_TIMEOUT,
+          pool.createProbeClient().getHttpConnectionManager().getParams().getConnectionTimeout());
+      pool.setProbeConnectionTimeout(500);
+      assertEquals(500, pool.createProbeClient().getHttpConnectionManager().getParams().getConnectionTimeout());
+    } finally {
+      pool.shutdown();
+    }
+  }
+}
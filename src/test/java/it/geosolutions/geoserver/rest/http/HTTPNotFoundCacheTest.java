@@ -0,0 +1,154 @@
+/*
+ *  GeoServer-Manager - Simple Manager Library for GeoServer
+ *  
+ *  Copyright (C) 2007,2016 GeoSolutions S.A.S.
+ *  http://www.geo-solutions.it
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package it.geosolutions.geoserver.rest.http;
+
+import static org.junit.Assert.*;
+import it.geosolutions.geoserver.rest.GeoServerRESTManager;
+import it.geosolutions.geoserver.rest.GeoServerRESTReader;
+
+import java.net.URL;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests the {@link HTTPNotFoundCache} used by the reader and the style manager, and invalidated by the publisher.
+ */
+public class HTTPNotFoundCacheTest {
+  
+  private MockHTTPServer server;
+  
+  private GeoServerRESTManager manager;
+  
+  private GeoServerRESTReader reader;
+  
+  @Before
+  public void setUp() throws Exception {
+    server = new MockHTTPServer();
+    manager = new GeoServerRESTManager(new URL(server.url("")), "admin", "geoserver");
+    manager.setNotFoundCache(new HTTPNotFoundCache());
+    reader = manager.getReader();
+  }
+  
+  @After
+  public void tearDown() {
+    server.stop();
+  }
+  
+  @Test
+  public void testMissingRemembered() {
+    assertFalse(reader.existsWorkspace("topp"));
+    assertFalse(reader.existsWorkspace("topp", true));
+    assertEquals(1, server.getRequestCount("HEAD", "/rest/workspaces/topp.xml"));
+    
+    HTTPMetrics metrics = manager.getHTTPEngine().getMetrics();
+    assertEquals(1, metrics.getNotFoundCacheHitCount());
+    assertEquals(1, metrics.getNotFoundCacheMissCount());
+    assertEquals(0.5, metrics.getNotFoundCacheHitRatio(), 0.001);
+  }
+  
+  @Test
+  public void testCreateInvalidates() {
+    assertFalse(reader.existsWorkspace("topp"));
+    assertFalse(reader.existsDatastore("topp", "states"));
+    
+    server.reply("POST", "/rest/workspaces", new MockHTTPServer.Reply(201, ""));
+    assertTrue(manager.getPublisher().createWorkspace("topp"));
+    server.reply("/rest/workspaces/topp.xml", new MockHTTPServer.Reply(200, "<workspace/>"));
+    
+    assertTrue(reader.existsWorkspace("topp"));
+    assertFalse(reader.existsDatastore("topp", "states"));
+    assertEquals(2, server.getRequestCount("HEAD", "/rest/workspaces/topp.xml"));
+    assertEquals(1, server.getRequestCount("HEAD", "/rest/workspaces/topp/datastores/states.xml"));
+  }
+  
+  @Test
+  public void testStyles() {
+    assertFalse(manager.getStyleManager().existsStyle("roads"));
+    assertFalse(reader.existsStyle("roads"));
+    assertEquals(1, server.getRequestCount("HEAD", "/rest/styles/roads.xml"));
+    
+    server.reply("POST", "/rest/styles", new MockHTTPServer.Reply(201, "roads"));
+    assertTrue(manager.getPublisher().publishStyle("<StyledLayerDescriptor/>", "roads"));
+    server.reply("/rest/styles/roads.xml", new MockHTTPServer.Reply(200, "<style/>"));
+    assertTrue(reader.existsStyle("roads"));
+  }
+  
+  @Test
+  public void testStoreWriteEvictsResources() {
+    HTTPNotFoundCache cache = new HTTPNotFoundCache();
+    String mosaic = server.url("/rest/workspaces/topp/coveragestores/mosaic");
+    String other = server.url("/rest/workspaces/topp/coveragestores/other");
+    cache.missing(mosaic + "/coverages/mosaic.xml", "admin");
+    cache.missing(mosaic + "/coverages/mosaic/index/granules.xml", "admin");
+    cache.missing(other + "/coverages/other.xml", "admin");
+    cache.missing(server.url("/rest/workspaces/topp/datastores/states/featuretypes/states.xml"), "admin");
+    
+    // harvesting a file configures the coverage, two levels below the written URL
+    cache.written(HTTPRequest.Method.PUT, mosaic + "/file.imagemosaic?configure=all");
+    assertFalse(cache.isMissing(mosaic + "/coverages/mosaic.xml", "admin"));
+    assertFalse(cache.isMissing(mosaic + "/coverages/mosaic/index/granules.xml", "admin"));
+    assertTrue(cache.isMissing(other + "/coverages/other.xml", "admin"));
+    
+    cache.written(HTTPRequest.Method.PUT, server.url("/rest/workspaces/topp/datastores/states/external.shp"));
+    assertFalse(cache.isMissing(server.url("/rest/workspaces/topp/datastores/states/featuretypes/states.xml"), "admin"));
+    assertEquals(1, cache.size());
+  }
+  
+  @Test
+  public void testWorkspaceAndNamespace() {
+    assertFalse(reader.existsNamespace("topp"));
+    server.reply("POST", "/rest/workspaces", new MockHTTPServer.Reply(201, ""));
+    assertTrue(manager.getPublisher().createWorkspace("topp"));
+    server.reply("/rest/namespaces/topp.xml", new MockHTTPServer.Reply(200, "<namespace/>"));
+    assertTrue(reader.existsNamespace("topp"));
+    
+    HTTPNotFoundCache cache = new HTTPNotFoundCache();
+    cache.missing(server.url("/rest/workspaces/nurc.xml"), "admin");
+    cache.written(HTTPRequest.Method.POST, server.url("/rest/namespaces"));
+    assertFalse(cache.isMissing(server.url("/rest/workspaces/nurc.xml"), "admin"));
+  }
+  
+  @Test
+  public void testExpiry() {
+    final long[] clock = { 0 };
+    HTTPNotFoundCache cache = new HTTPNotFoundCache(1000, 10) {
+      @Override
+      protected long now() {
+        return clock[0];
+      }
+    };
+    HTTPEngine engine = new HTTPEngine();
+    String url = server.url("/rest/layers/topp:states.xml");
+    assertFalse(engine.exists(url, null, null, cache));
+    clock[0] = 999;
+    assertFalse(engine.exists(url, null, null, cache));
+    clock[0] = 1000;
+    assertFalse(engine.exists(url, null, null, cache));
+    assertEquals(2, server.getRequestCount("HEAD", "/rest/layers/topp:states.xml"));
+  }
+}
@@ -0,0 +1,245 @@
+/*
+ *  GeoServer-Manager - Simple Manager Library for GeoServer
+ *  
+ *  Copyright (C) 2007,2016 GeoSolutions S.A.S.
+ *  http://www.geo-solutions.it
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package it.geosolutions.geoserver.rest.http;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.URI;
+import java.util.LinkedList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests the retries and the circuit breaker of the {@link HTTPEngine}.
+ */
+public class HTTPResilienceTest {
+  
+  private MockHTTPServer server;
+  
+  private HTTPEngine engine;
+  
+  @Before
+  public void setUp() throws Exception {
+    server = new MockHTTPServer();
+    engine = new HTTPEngine();
+    engine.setRetryPolicy(new HTTPRetryPolicy(2, 1, 10));
+  }
+  
+  @After
+  public void tearDown() {
+    server.stop();
+  }
+  
+  @Test
+  public void testRetryOnUnavailable() {
+    server.replies("/layers.xml", new MockHTTPServer.Reply(503, "busy"), new MockHTTPServer.Reply(502, "proxy"),
+        new MockHTTPServer.Reply(200, "<layers/>"));
+    assertEquals("<layers/>", engine.get(server.url("/layers.xml"), null, null));
+    assertEquals(3, server.getRequestCount());
+    assertEquals(1, engine.getMetrics().getRequestCount());
+    assertEquals(2, engine.getMetrics().getRetryCount());
+    
+    // retries are bounded
+    server.replies("/styles.xml", new MockHTTPServer.Reply(504, "timeout"));
+    assertNull(engine.get(server.url("/styles.xml"), null, null));
+    assertTrue(engine.getLastError().startsWith("(504)"));
+    assertEquals(6, server.getRequestCount());
+    
+    // other failures are not retried
+    assertNull(engine.get(server.url("/missing.xml"), null, null));
+    assertEquals(7, server.getRequestCount());
+  }
+  
+  @Test
+  public void testNonIdempotentCallsAreNotRetried() {
+    server.replies("/layers.xml", new MockHTTPServer.Reply(503, "busy"), new MockHTTPServer.Reply(201, "created"));
+    assertNull(engine.postXml(server.url("/layers.xml"), "<layer/>", null, null));
+    assertEquals(1, server.getRequestCount());
+    assertEquals(0, engine.getMetrics().getRetryCount());
+  }
+  
+  @Test
+  public void testRetryOnConnectionFailure() throws Exception {
+    MockHTTPServer down = new MockHTTPServer();
+    String url = down.url("/layers.xml");
+    down.stop();
+    assertNull(engine.get(url, null, null));
+    assertEquals("Couldn't connect to [" + url + "]", engine.getLastError());
+    assertEquals(2, engine.getMetrics().getRetryCount());
+  }
+  
+  @Test
+  public void testCircuitBreaker() throws Exception {
+    engine.setRetryPolicy(null);
+    HTTPCircuitBreaker breaker = new HTTPCircuitBreaker(2, 200);
+    engine.setCircuitBreaker(breaker);
+    String host = "localhost:" + server.url("").replaceAll(".*:", "");
+    
+    server.replies("/layers.xml", new MockHTTPServer.Reply(503, "busy"), new MockHTTPServer.Reply(503, "busy"),
+        new MockHTTPServer.Reply(200, "<layers/>"));
+    assertNull(engine.get(server.url("/layers.xml"), null, null));
+    assertEquals(HTTPCircuitBreaker.State.CLOSED, breaker.getState(host));
+    assertNull(engine.get(server.url("/layers.xml"), null, null));
+    assertEquals(HTTPCircuitBreaker.State.OPEN, breaker.getState(host));
+    
+    // fails fast, without reaching the server
+    assertNull(engine.get(server.url("/layers.xml"), null, null));
+    assertEquals(2, server.getRequestCount());
+    assertEquals(1, engine.getMetrics().getShortCircuitCount());
+    
+    Thread.sleep(250);
+    assertEquals(HTTPCircuitBreaker.State.HALF_OPEN, breaker.getState(host));
+    assertEquals("<layers/>", engine.get(server.url("/layers.xml"), null, null));
+    assertEquals(HTTPCircuitBreaker.State.CLOSED, breaker.getState(host));
+  }
+  
+  @Test
+  public void testFailedTrialReopensTheCircuit() throws Exception {
+    final LinkedList<Exception> failures = new LinkedList<Exception>();
+    final HTTPTransport delegate = new CommonsHTTPTransport();
+    engine = new HTTPEngine(new HTTPTransport() {
+      public HTTPTransportResponse execute(HTTPRequest request) throws IOException {
+        Exception failure = failures.poll();
+        if (failure instanceof IOException) throw (IOException) failure;
+        if (failure != null) throw (RuntimeException) failure;
+        return delegate.execute(request);
+      }
+      
+      public int getMaxConcurrentCallsPerHost() {
+        return delegate.getMaxConcurrentCallsPerHost();
+      }
+    });
+    // open long enough for the state to be checked before the circuit is half open again, even on a loaded machine
+    HTTPCircuitBreaker breaker = new HTTPCircuitBreaker(1, 200);
+    engine.setCircuitBreaker(breaker);
+    String host = "localhost:" + server.url("").replaceAll(".*:", "");
+    server.reply("/layers.xml", new MockHTTPServer.Reply(200, "<layers/>"));
+    
+    failures.add(new ConnectException("refused"));
+    assertNull(engine.get(server.url("/layers.xml"), null, null));
+    assertEquals(HTTPCircuitBreaker.State.OPEN, breaker.getState(host));
+    
+    // trials failing with errors that are not retried must settle the circuit as well
+    Thread.sleep(250);
+    failures.add(new IOException("broken"));
+    assertNull(engine.get(server.url("/layers.xml"), null, null));
+    assertEquals(HTTPCircuitBreaker.State.OPEN, breaker.getState(host));
+    
+    Thread.sleep(250);
+    failures.add(new IllegalStateException("bug"));
+    try {
+      engine.get(server.url("/layers.xml"), null, null);
+    } catch (IllegalStateException e) {
+      // propagated or not, the trial failed
+    }
+    assertEquals(HTTPCircuitBreaker.State.OPEN, breaker.getState(host));
+    
+    Thread.sleep(250);
+    assertEquals("<layers/>", engine.get(server.url("/layers.xml"), null, null));
+    assertEquals(HTTPCircuitBreaker.State.CLOSED, breaker.getState(host));
+    assertEquals(1, server.getRequestCount());
+  }
+  
+  @Test
+  public void testReadTimeoutIsRetried() throws Exception {
+    HTTPConnectionPool pool = new HTTPConnectionPool(10, 5, 1000, 100, 60000);
+    try {
+      engine = new HTTPEngine(pool);
+      engine.setRetryPolicy(new HTTPRetryPolicy(2, 1, 10));
+      HTTPCircuitBreaker breaker = new HTTPCircuitBreaker(3, 60000);
+      engine.setCircuitBreaker(breaker);
+      // the node accepts the connection, but hangs
+      server.respond("/layers.xml", new MockHTTPServer.Responder() {
+        public MockHTTPServer.Reply respond(String method, URI uri) {
+          try {
+            Thread.sleep(500);
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+          }
+          return new MockHTTPServer.Reply(200, "<layers/>");
+        }
+      });
+      long start = System.currentTimeMillis();
+      assertNull(engine.get(server.url("/layers.xml"), null, null));
+      assertTrue(System.currentTimeMillis() - start < 1500);
+      assertEquals(2, engine.getMetrics().getRetryCount());
+      assertEquals(HTTPCircuitBreaker.State.OPEN, breaker.getState("localhost:" + server.url("").replaceAll(".*:", "")));
+    } finally {
+      pool.shutdown();
+    }
+  }
+  
+  @Test
+  public void testNoHiddenRetries() throws Exception {
+    // a server reading the requests, but closing the connections without answering
+    final ServerSocket socket = new ServerSocket(0);
+    final AtomicInteger accepted = new AtomicInteger();
+    Thread acceptor = new Thread() {
+      public void run() {
+        while (!socket.isClosed()) {
+          try {
+            Socket connection = socket.accept();
+            accepted.incrementAndGet();
+            connection.getInputStream().read(new byte[1024]);
+            connection.close();
+          } catch (IOException e) {
+            // closed
+          }
+        }
+      }
+    };
+    acceptor.setDaemon(true);
+    acceptor.start();
+    try {
+      assertNull(engine.get("http://localhost:" + socket.getLocalPort() + "/layers.xml", null, null));
+      assertEquals(1, accepted.get());
+    } finally {
+      socket.close();
+    }
+  }
+  
+  @Test
+  public void testBackoff() {
+    HTTPRetryPolicy policy = new HTTPRetryPolicy(5, 100, 1000);
+    for (int i = 0; i < 100; i++) {
+      long first = policy.getDelay(1, -1);
+      assertTrue(first >= 50 && first <= 100);
+      long third = policy.getDelay(3, -1);
+      assertTrue(third >= 200 && third <= 400);
+      long capped = policy.getDelay(10, -1);
+      assertTrue(capped >= 500 && capped <= 1000);
+    }
+    assertEquals(1000, policy.getDelay(1, 5000));
+    assertEquals(300, policy.getDelay(1, 300));
+  }
+}
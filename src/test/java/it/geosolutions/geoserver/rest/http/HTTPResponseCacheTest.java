@@ -0,0 +1,125 @@
+/*
+ *  GeoServer-Manager - Simple Manager Library for GeoServer
+ *  
+ *  Copyright (C) 2007,2016 GeoSolutions S.A.S.
+ *  http://www.geo-solutions.it
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package it.geosolutions.geoserver.rest.http;
+
+import static org.junit.Assert.*;
+import it.geosolutions.geoserver.rest.GeoServerRESTReader;
+import it.geosolutions.geoserver.rest.decoder.RESTLayerList;
+import it.geosolutions.geoserver.rest.decoder.utils.JDOMResponseHandler;
+
+import java.net.URL;
+
+import org.jdom.Element;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests the conditional GETs performed through a {@link HTTPResponseCache}.
+ */
+public class HTTPResponseCacheTest {
+  
+  private MockHTTPServer server;
+  
+  private HTTPEngine engine;
+  
+  @Before
+  public void setUp() throws Exception {
+    server = new MockHTTPServer();
+    engine = new HTTPEngine();
+  }
+  
+  @After
+  public void tearDown() {
+    server.stop();
+  }
+  
+  @Test
+  public void testRevalidation() {
+    HTTPResponseCache cache = new HTTPResponseCache();
+    server.reply("/layers.xml", new MockHTTPServer.Reply(200, "<layers/>").header("ETag", "\"v1\""));
+    
+    Element first = engine.get(server.url("/layers.xml"), "admin", "geoserver", JDOMResponseHandler.INSTANCE, cache);
+    assertNull(server.getLastExchange().getRequestHeaders().getFirst("If-None-Match"));
+    Element second = engine.get(server.url("/layers.xml"), "admin", "geoserver", JDOMResponseHandler.INSTANCE, cache);
+    assertEquals("\"v1\"", server.getLastExchange().getRequestHeaders().getFirst("If-None-Match"));
+    assertSame(first, second);
+    assertNull(engine.getLastError());
+    assertEquals(1, cache.getHitCount());
+    assertEquals(1, cache.getMissCount());
+    
+    // another user does not share the cached document
+    engine.get(server.url("/layers.xml"), "other", "pw", JDOMResponseHandler.INSTANCE, cache);
+    assertNull(server.getLastExchange().getRequestHeaders().getFirst("If-None-Match"));
+    
+    // changed on the server
+    server.reply("/layers.xml", new MockHTTPServer.Reply(200, "<layers><layer/></layers>").header("ETag", "\"v2\""));
+    Element changed = engine.get(server.url("/layers.xml"), "admin", "geoserver", JDOMResponseHandler.INSTANCE, cache);
+    assertEquals(1, changed.getChildren().size());
+    assertEquals(1, cache.getHitCount());
+    
+    cache.invalidate(server.url("/layers.xml"));
+    assertEquals(0, cache.size());
+  }
+  
+  @Test
+  public void testLastModifiedAndEviction() {
+    HTTPResponseCache cache = new HTTPResponseCache(2);
+    String lastModified = "Wed, 21 Oct 2015 07:28:00 GMT";
+    for (String path : new String[] { "/a.xml", "/b.xml", "/c.xml" }) {
+      server.reply(path, new MockHTTPServer.Reply(200, "<doc/>").header("Last-Modified", lastModified));
+      engine.get(server.url(path), null, null, JDOMResponseHandler.INSTANCE, cache);
+    }
+    assertEquals(2, cache.size());
+    
+    // a.xml was evicted
+    engine.get(server.url("/a.xml"), null, null, JDOMResponseHandler.INSTANCE, cache);
+    assertNull(server.getLastExchange().getRequestHeaders().getFirst("If-Modified-Since"));
+    engine.get(server.url("/c.xml"), null, null, JDOMResponseHandler.INSTANCE, cache);
+    assertEquals(lastModified, server.getLastExchange().getRequestHeaders().getFirst("If-Modified-Since"));
+    assertEquals(1, cache.getHitCount());
+    
+    // responses without validators are not cached
+    server.reply("/plain.xml", new MockHTTPServer.Reply(200, "<doc/>"));
+    cache.clear();
+    engine.get(server.url("/plain.xml"), null, null, JDOMResponseHandler.INSTANCE, cache);
+    assertEquals(0, cache.size());
+  }
+  
+  @Test
+  public void testReader() throws Exception {
+    server.reply("/rest/layers.xml", new MockHTTPServer.Reply(200, "<layers><layer><name>states</name></layer></layers>").header("ETag", "\"1\""));
+    GeoServerRESTReader reader = new GeoServerRESTReader(new URL(server.url("")), "admin", "geoserver");
+    reader.setResponseCache(new HTTPResponseCache());
+    
+    for (int i = 0; i < 3; i++) {
+      RESTLayerList layers = reader.getLayers();
+      assertEquals("states", layers.get(0).getName());
+    }
+    assertEquals(2, reader.getResponseCache().getHitCount());
+    assertEquals(1, reader.getResponseCache().getMissCount());
+  }
+}
@@ -0,0 +1,247 @@
+/*
+ *  GeoServer-Manager - Simple Manager Library for GeoServer
+ *  
+ *  Copyright (C) 2007,2016 GeoSolutions S.A.S.
+ *  http://www.geo-solutions.it
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package it.geosolutions.geoserver.rest.http;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.commons.io.IOUtils;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Minimal in-process HTTP server answering canned responses, used to test the HTTP layer without a running GeoServer.
+ */
+public class MockHTTPServer {
+  
+  /**
+   * A canned response.
+   */
+  public static class Reply {
+    final int status;
+    
+    final String body;
+    
+    final Map<String, String> headers = new HashMap<String, String>();
+    
+    String encoding = "UTF-8";
+    
+    boolean gzip;
+    
+    public Reply(int status, String body) {
+      this.status = status;
+      this.body = body;
+    }
+    
+    public Reply header(String name, String value) {
+      headers.put(name, value);
+      return this;
+    }
+    
+    public Reply encoding(String charset) {
+      this.encoding = charset;
+      return this;
+    }
+    
+    /**
+     * Gzips the body, declaring it in the <TT>Content-Encoding</TT> header.
+     */
+    public Reply gzip() {
+      this.gzip = true;
+      return header("Content-Encoding", "gzip");
+    }
+  }
+  
+  /**
+   * Computes the response to a request, e.g. from its query string.
+   */
+  public interface Responder {
+    Reply respond(String method, URI uri);
+  }
+  
+  private final HttpServer server;
+  
+  private final Map<String, Responder> responders = new HashMap<String, Responder>();
+  
+  private final Map<String, Reply> replies = new HashMap<String, Reply>();
+  
+  private final Map<String, Queue<Reply>> sequences = new HashMap<String, Queue<Reply>>();
+  
+  private final AtomicInteger requestCount = new AtomicInteger();
+  
+  private final Map<String, AtomicInteger> pathCounts = new ConcurrentHashMap<String, AtomicInteger>();
+  
+  private volatile HttpExchange lastExchange;
+  
+  private volatile String lastRequestBody;
+  
+  public MockHTTPServer() throws IOException {
+    server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+    server.createContext("/", new HttpHandler() {
+      public void handle(HttpExchange exchange) throws IOException {
+        requestCount.incrementAndGet();
+        count(exchange.getRequestMethod() + " " + exchange.getRequestURI().getPath());
+        lastExchange = exchange;
+        InputStream in = exchange.getRequestBody();
+        if ("gzip".equals(exchange.getRequestHeaders().getFirst("Content-Encoding"))) {
+          in = new GZIPInputStream(in);
+        }
+        lastRequestBody = IOUtils.toString(in, "UTF-8");
+        in.close();
+        Reply reply = replyFor(exchange.getRequestMethod(), exchange.getRequestURI());
+        if (isNotModified(exchange, reply)) {
+          reply = new Reply(304, null).header("ETag", reply.headers.get("ETag"));
+        }
+        for (Map.Entry<String, String> header : reply.headers.entrySet()) {
+          if (header.getValue() != null) exchange.getResponseHeaders().set(header.getKey(), header.getValue());
+        }
+        byte[] bytes = reply.body == null ? new byte[0] : reply.body.getBytes(reply.encoding);
+        if (reply.gzip && bytes.length > 0) {
+          ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+          GZIPOutputStream gzip = new GZIPOutputStream(compressed);
+          gzip.write(bytes);
+          gzip.close();
+          bytes = compressed.toByteArray();
+        }
+        boolean noBody = reply.body == null || "HEAD".equals(exchange.getRequestMethod()) || reply.status == 304;
+        exchange.sendResponseHeaders(reply.status, noBody ? -1 : bytes.length);
+        if (!noBody) {
+          OutputStream out = exchange.getResponseBody();
+          out.write(bytes);
+          out.close();
+        }
+        exchange.close();
+      }
+    });
+    server.start();
+  }
+  
+  private static boolean isNotModified(HttpExchange exchange, Reply reply) {
+    String etag = reply.headers.get("ETag");
+    String lastModified = reply.headers.get("Last-Modified");
+    String ifNoneMatch = exchange.getRequestHeaders().getFirst("If-None-Match");
+    String ifModifiedSince = exchange.getRequestHeaders().getFirst("If-Modified-Since");
+    return (etag != null && etag.equals(ifNoneMatch)) || (lastModified != null && lastModified.equals(ifModifiedSince));
+  }
+  
+  private Reply replyFor(String method, URI uri) {
+    Responder responder;
+    synchronized (this) {
+      responder = responders.get(uri.getPath());
+    }
+    return responder != null ? responder.respond(method, uri) : replyFor(method, uri.getPath());
+  }
+  
+  private synchronized Reply replyFor(String method, String path) {
+    Queue<Reply> sequence = sequences.get(path);
+    if (sequence != null) {
+      return sequence.size() > 1 ? sequence.poll() : sequence.peek();
+    }
+    Reply reply = replies.get(method + " " + path);
+    if (reply == null) reply = replies.get(path);
+    return reply != null ? reply : new Reply(404, "Not found: " + path);
+  }
+  
+  /**
+   * Sets the reply for any method on the given path.
+   */
+  public synchronized MockHTTPServer reply(String path, Reply reply) {
+    replies.put(path, reply);
+    return this;
+  }
+  
+  /**
+   * Sets the replies to successive requests on the given path; the last one is repeated once the others have been sent.
+   */
+  public synchronized MockHTTPServer replies(String path, Reply... sequence) {
+    sequences.put(path, new LinkedList<Reply>(Arrays.asList(sequence)));
+    return this;
+  }
+  
+  /**
+   * Sets the responder computing the replies to any method on the given path. Responders are called concurrently.
+   */
+  public synchronized MockHTTPServer respond(String path, Responder responder) {
+    responders.put(path, responder);
+    return this;
+  }
+  
+  /**
+   * Sets the reply for the given method on the given path.
+   */
+  public synchronized MockHTTPServer reply(String method, String path, Reply reply) {
+    replies.put(method + " " + path, reply);
+    return this;
+  }
+  
+  public String url(String path) {
+    return "http://localhost:" + server.getAddress().getPort() + path;
+  }
+  
+  public int getRequestCount() {
+    return requestCount.get();
+  }
+  
+  /**
+   * @return the number of requests received with the given method on the given path
+   */
+  public int getRequestCount(String method, String path) {
+    AtomicInteger count = pathCounts.get(method + " " + path);
+    return count == null ? 0 : count.get();
+  }
+  
+  private synchronized void count(String key) {
+    AtomicInteger count = pathCounts.get(key);
+    if (count == null) pathCounts.put(key, count = new AtomicInteger());
+    count.incrementAndGet();
+  }
+  
+  public HttpExchange getLastExchange() {
+    return lastExchange;
+  }
+  
+  public String getLastRequestBody() {
+    return lastRequestBody;
+  }
+  
+  public void stop() {
+    server.stop(0);
+  }
+}
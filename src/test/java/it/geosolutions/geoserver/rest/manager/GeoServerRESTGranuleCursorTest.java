@@ -0,0 +1,172 @@
+/*
+ *  GeoServer-Manager - Simple Manager Library for GeoServer
+ *  
+ *  Copyright (C) 2007,2016 GeoSolutions S.A.S.
+ *  http://www.geo-solutions.it
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package it.geosolutions.geoserver.rest.manager;
+
+import static org.junit.Assert.*;
+import it.geosolutions.geoserver.rest.decoder.RESTStructuredCoverageGranulesList.RESTStructuredCoverageGranule;
+import it.geosolutions.geoserver.rest.http.MockHTTPServer;
+
+import java.net.URI;
+import java.net.URL;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests the paging of the {@link GeoServerRESTGranuleCursor}, without a GeoServer.
+ */
+public class GeoServerRESTGranuleCursorTest {
+  
+  private static final String GRANULES = "/rest/workspaces/nurc/coveragestores/mosaic/coverages/mosaic/index/granules.xml";
+  
+  private MockHTTPServer server;
+  
+  private GeoServerRESTStructuredGridCoverageReaderManager manager;
+  
+  private final AtomicInteger pagesServed = new AtomicInteger();
+  
+  /** Blocks the pages after the first one until released */
+  private final CountDownLatch release = new CountDownLatch(1);
+  
+  private volatile int granules = 25;
+  
+  @Before
+  public void setUp() throws Exception {
+    server = new MockHTTPServer();
+    server.respond(GRANULES, new MockHTTPServer.Responder() {
+      public MockHTTPServer.Reply respond(String method, URI uri) {
+        int offset = Integer.parseInt(parameter(uri, "offset"));
+        int limit = Integer.parseInt(parameter(uri, "limit"));
+        pagesServed.incrementAndGet();
+        if (offset > 0) {
+          try {
+            release.await(10, TimeUnit.SECONDS);
+          } catch (InterruptedException e) {
+            // test failure
+          }
+        }
+        StringBuilder xml = new StringBuilder("<wfs:FeatureCollection xmlns:gf=\"http://www.geoserver.org/rest/granules\" "
+            + "xmlns:wfs=\"http://www.opengis.net/wfs\" xmlns:gml=\"http://www.opengis.net/gml\">");
+        for (int i = offset; i < Math.min(offset + limit, granules); i++) {
+          xml.append("<gml:featureMember><gf:V fid=\"V.").append(i).append("\"><gf:location>").append(i).append(".tif</gf:location></gf:V></gml:featureMember>");
+        }
+        return new MockHTTPServer.Reply(200, xml.append("</wfs:FeatureCollection>").toString());
+      }
+    });
+    manager = new GeoServerRESTStructuredGridCoverageReaderManager(new URL(server.url("")), "admin", "geoserver");
+  }
+  
+  @After
+  public void tearDown() {
+    release.countDown();
+    server.stop();
+  }
+  
+  private static String parameter(URI uri, String name) {
+    for (String parameter : uri.getQuery().split("&")) {
+      if (parameter.startsWith(name + "=")) return parameter.substring(name.length() + 1);
+    }
+    return null;
+  }
+  
+  private static int iterate(GeoServerRESTGranuleCursor cursor) {
+    int count = 0;
+    while (cursor.hasNext()) {
+      RESTStructuredCoverageGranule granule = cursor.next();
+      assertEquals("V." + count, granule.getFid());
+      count++;
+    }
+    return count;
+  }
+  
+  @Test
+  public void testShortPage() {
+    release.countDown();
+    GeoServerRESTGranuleCursor cursor = manager.getGranuleCursor("nurc", "mosaic", "mosaic", null, 10, 1);
+    assertEquals(25, iterate(cursor));
+    assertFalse(cursor.isFailed());
+    assertEquals(3, pagesServed.get());
+  }
+  
+  @Test
+  public void testFullLastPage() {
+    release.countDown();
+    granules = 20;
+    GeoServerRESTGranuleCursor cursor = manager.getGranuleCursor("nurc", "mosaic", "mosaic", null, 10, 1);
+    assertEquals(20, iterate(cursor));
+    // the empty page ends the iteration
+    assertEquals(3, pagesServed.get());
+  }
+  
+  @Test
+  public void testPrefetch() throws Exception {
+    granules = 100;
+    GeoServerRESTGranuleCursor cursor = manager.getGranuleCursor("nurc", "mosaic", "mosaic", null, 10, 3);
+    // the first page is available while the next two are being fetched in parallel
+    assertEquals("V.0", cursor.next().getFid());
+    long deadline = System.currentTimeMillis() + 10000;
+    while (pagesServed.get() < 3 && System.currentTimeMillis() < deadline) {
+      Thread.sleep(10);
+    }
+    assertEquals(3, pagesServed.get());
+    release.countDown();
+    
+    int count = 1;
+    while (cursor.hasNext()) {
+      assertEquals("V." + count++, cursor.next().getFid());
+    }
+    assertEquals(100, count);
+  }
+  
+  @Test
+  public void testFailure() {
+    release.countDown();
+    GeoServerRESTGranuleCursor cursor = manager.getGranuleCursor("nurc", "mosaic", "missing", null, 10, 2);
+    assertFalse(cursor.hasNext());
+    assertTrue(cursor.isFailed());
+  }
+  
+  @Test
+  public void testExecutor() {
+    release.countDown();
+    final AtomicInteger tasks = new AtomicInteger();
+    Executor executor = new Executor() {
+      public void execute(Runnable command) {
+        tasks.incrementAndGet();
+        command.run();
+      }
+    };
+    GeoServerRESTGranuleCursor cursor = manager.getGranuleCursor("nurc", "mosaic", "mosaic", null, 10, 2, executor);
+    assertEquals(25, iterate(cursor));
+    // the three pages, and a fourth one prefetched before the short page was read
+    assertEquals(4, tasks.get());
+  }
+}
@@ -0,0 +1,144 @@
+/*
+ *  GeoServer-Manager - Simple Manager Library for GeoServer
+ *  
+ *  Copyright (C) 2007,2016 GeoSolutions S.A.S.
+ *  http://www.geo-solutions.it
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package it.geosolutions.geoserver.rest.manager;
+
+import static org.junit.Assert.*;
+import it.geosolutions.geoserver.rest.GeoServerRESTPublisher;
+import it.geosolutions.geoserver.rest.http.MockHTTPServer;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.net.URL;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests the synchronization of styles by the {@link GeoServerRESTStyleManager}, without a GeoServer.
+ */
+public class GeoServerRESTStyleSyncTest {
+  
+  private static final String SLD_10 = "<StyledLayerDescriptor version=\"1.0.0\"><NamedLayer><Name>a</Name></NamedLayer></StyledLayerDescriptor>";
+  
+  private static final String SLD_11 = "<StyledLayerDescriptor version=\"1.1.0\"><NamedLayer><Name>b</Name></NamedLayer></StyledLayerDescriptor>";
+  
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+  
+  private MockHTTPServer server;
+  
+  private GeoServerRESTStyleManager manager;
+  
+  @Before
+  public void setUp() throws Exception {
+    server = new MockHTTPServer();
+    server.reply("GET", "/rest/styles/same.sld", new MockHTTPServer.Reply(200, SLD_10));
+    server.reply("GET", "/rest/styles/changed.sld", new MockHTTPServer.Reply(200, SLD_10));
+    server.reply("PUT", "/rest/styles/changed", new MockHTTPServer.Reply(200, ""));
+    server.reply("POST", "/rest/styles", new MockHTTPServer.Reply(201, "created"));
+    manager = new GeoServerRESTStyleManager(new URL(server.url("")), "admin", "geoserver");
+  }
+  
+  @After
+  public void tearDown() {
+    server.stop();
+  }
+  
+  private File sld(String name, String body) throws IOException {
+    File file = folder.newFile(name + ".sld");
+    FileOutputStream out = new FileOutputStream(file);
+    out.write(body.getBytes("UTF-8"));
+    out.close();
+    return file;
+  }
+  
+  @Test
+  public void testSkipUnchanged() throws Exception {
+    Map<String, File> styles = new LinkedHashMap<String, File>();
+    styles.put("same", sld("same", SLD_10));
+    styles.put("changed", sld("changed", SLD_11));
+    styles.put("added", sld("added", SLD_10));
+    
+    GeoServerRESTStyleManager.SyncReport report = manager.syncStyles(null, styles, true);
+    assertEquals(1, report.getSkipped());
+    assertEquals(2, report.getUploaded());
+    assertTrue(report.getFailed().isEmpty());
+    assertEquals(1, server.getRequestCount("PUT", "/rest/styles/changed"));
+    assertEquals(1, server.getRequestCount("POST", "/rest/styles"));
+    assertEquals(GeoServerRESTPublisher.Format.SLD.getContentType(), server.getLastExchange().getRequestHeaders().getFirst("Content-Type"));
+    assertEquals(3, manager.getStyleDigests().size());
+    
+    // the digests are now known: nothing is fetched nor uploaded
+    int requests = server.getRequestCount();
+    report = manager.syncStyles(null, styles, true);
+    assertEquals(3, report.getSkipped());
+    assertEquals(0, report.getUploaded());
+    assertEquals(requests, server.getRequestCount());
+  }
+  
+  @Test
+  public void testSavedDigests() throws Exception {
+    manager.syncStyle(null, "changed", SLD_11, true);
+    assertEquals(1, server.getRequestCount("GET", "/rest/styles/changed.sld"));
+    assertEquals(GeoServerRESTPublisher.Format.SLD_1_1_0.getContentType(), server.getLastExchange().getRequestHeaders().getFirst("Content-Type"));
+    
+    GeoServerRESTStyleManager other = new GeoServerRESTStyleManager(new URL(server.url("")), "admin", "geoserver");
+    other.setStyleDigests(manager.getStyleDigests());
+    assertTrue(other.syncStyle(null, "changed", SLD_11, true));
+    assertEquals(1, server.getRequestCount("GET", "/rest/styles/changed.sld"));
+    assertEquals(1, server.getRequestCount("PUT", "/rest/styles/changed"));
+  }
+  
+  @Test
+  public void testFailedUpload() throws Exception {
+    server.reply("POST", "/rest/workspaces/topp/styles", new MockHTTPServer.Reply(500, "error"));
+    assertFalse(manager.syncStyle("topp", "broken", SLD_10, false));
+    assertTrue(manager.getStyleDigests().isEmpty());
+  }
+  
+  @Test
+  public void testReformattedRemote() throws Exception {
+    // the SLD as rewritten by GeoServer when uploaded with raw=false
+    server.reply("GET", "/rest/styles/rewritten.sld", new MockHTTPServer.Reply(200, "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+        + "<sld:StyledLayerDescriptor xmlns:sld=\"http://www.opengis.net/sld\" version=\"1.0.0\">\n"
+        + "  <!-- reformatted -->\n  <sld:NamedLayer>\n    <sld:Name>a</sld:Name>\n  </sld:NamedLayer>\n</sld:StyledLayerDescriptor>\n"));
+    server.reply("PUT", "/rest/styles/rewritten", new MockHTTPServer.Reply(200, ""));
+    assertTrue(manager.syncStyle(null, "rewritten", SLD_10, false));
+    assertEquals(0, server.getRequestCount("PUT", "/rest/styles/rewritten"));
+    assertEquals(1, manager.getStyleDigests().size());
+    
+    // a different content is still uploaded
+    GeoServerRESTStyleManager other = new GeoServerRESTStyleManager(new URL(server.url("")), "admin", "geoserver");
+    assertTrue(other.syncStyle(null, "rewritten", SLD_10.replace("<Name>a</Name>", "<Name>b</Name>"), false));
+    assertEquals(1, server.getRequestCount("PUT", "/rest/styles/rewritten"));
+  }
+}
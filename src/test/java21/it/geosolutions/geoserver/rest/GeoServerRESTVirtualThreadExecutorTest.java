@@ -0,0 +1,71 @@
+/*
+ *  GeoServer-Manager - Simple Manager Library for GeoServer
+ *  
+ *  Copyright (C) 2007,2016 GeoSolutions S.A.S.
+ *  http://www.geo-solutions.it
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package it.geosolutions.geoserver.rest;
+
+import static org.junit.Assert.*;
+import it.geosolutions.geoserver.rest.http.HTTPConcurrencyLimiter;
+import it.geosolutions.geoserver.rest.http.HTTPEngine;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+/**
+ * Tests the throttling of the {@link GeoServerRESTVirtualThreadExecutor}.
+ */
+public class GeoServerRESTVirtualThreadExecutorTest {
+  
+  @Test
+  public void testThrottling() throws Exception {
+    HTTPEngine engine = new HTTPEngine();
+    HTTPConcurrencyLimiter limiter = new HTTPConcurrencyLimiter(2);
+    engine.setConcurrencyLimiter(limiter);
+    
+    final AtomicInteger running = new AtomicInteger();
+    final AtomicInteger peak = new AtomicInteger();
+    List<Callable<Integer>> calls = new ArrayList<Callable<Integer>>();
+    for (int i = 0; i < 50; i++) {
+      final int n = i;
+      calls.add(() -> {
+        peak.accumulateAndGet(running.incrementAndGet(), Math::max);
+        Thread.sleep(5);
+        running.decrementAndGet();
+        return n;
+      });
+    }
+    try (GeoServerRESTVirtualThreadExecutor executor = new GeoServerRESTVirtualThreadExecutor(engine, 4)) {
+      List<Integer> results = executor.invokeAll(calls);
+      assertEquals(50, results.size());
+      assertEquals(Integer.valueOf(49), results.get(49));
+    }
+    assertTrue(peak.get() <= 4);
+    // the engine shared with the other components is left untouched
+    assertSame(limiter, engine.getConcurrencyLimiter());
+  }
+}
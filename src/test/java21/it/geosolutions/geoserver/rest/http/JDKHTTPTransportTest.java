@@ -0,0 +1,99 @@
+/*
+ *  GeoServer-Manager - Simple Manager Library for GeoServer
+ *  
+ *  Copyright (C) 2007,2016 GeoSolutions S.A.S.
+ *  http://www.geo-solutions.it
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package it.geosolutions.geoserver.rest.http;
+
+import static org.junit.Assert.*;
+import it.geosolutions.geoserver.rest.decoder.utils.JDOMResponseHandler;
+
+import java.net.http.HttpClient;
+
+import org.jdom.Element;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests the {@link HTTPEngine} running on the {@link JDKHTTPTransport}.
+ */
+public class JDKHTTPTransportTest {
+  
+  private MockHTTPServer server;
+  
+  private HTTPEngine engine;
+  
+  @Before
+  public void setUp() throws Exception {
+    server = new MockHTTPServer();
+    server.reply("/ok.xml", new MockHTTPServer.Reply(200, "<ok/>").header("Content-Type", "application/xml; charset=UTF-8"));
+    engine = new HTTPEngine(new JDKHTTPTransport());
+  }
+  
+  @After
+  public void tearDown() {
+    server.stop();
+  }
+  
+  @Test
+  public void testGet() {
+    assertEquals("<ok/>", engine.get(server.url("/ok.xml"), "admin", "geoserver"));
+    assertEquals("Basic YWRtaW46Z2Vvc2VydmVy", server.getLastExchange().getRequestHeaders().getFirst("Authorization"));
+    
+    Element ok = engine.get(server.url("/ok.xml"), null, null, JDOMResponseHandler.INSTANCE);
+    assertEquals("ok", ok.getName());
+    assertNull(server.getLastExchange().getRequestHeaders().getFirst("Authorization"));
+    
+    assertNull(engine.get(server.url("/missing.xml"), null, null));
+    assertTrue(engine.getLastError().startsWith("(404)"));
+    assertTrue(engine.exists(server.url("/ok.xml"), null, null));
+    assertFalse(engine.exists(server.url("/missing.xml"), null, null));
+  }
+  
+  @Test
+  public void testHttp11() {
+    JDKHTTPTransport transport = new JDKHTTPTransport();
+    assertEquals(HttpClient.Version.HTTP_1_1, transport.getClient().version());
+    assertEquals(HTTPConnectionPool.DEFAULT_MAX_CONNECTIONS_PER_HOST, transport.getMaxConcurrentCallsPerHost());
+    assertEquals("<ok/>", engine.get(server.url("/ok.xml"), null, null));
+    assertEquals("HTTP/1.1", server.getLastExchange().getProtocol());
+  }
+  
+  @Test
+  public void testSend() {
+    server.reply("PUT", "/put.xml", new MockHTTPServer.Reply(200, "updated"));
+    server.reply("POST", "/post.xml", new MockHTTPServer.Reply(201, "created"));
+    server.reply("DELETE", "/delete.xml", new MockHTTPServer.Reply(200, ""));
+    
+    assertEquals("updated", engine.putXml(server.url("/put.xml"), "<layer/>", "admin", "geoserver"));
+    assertEquals("<layer/>", server.getLastRequestBody());
+    assertEquals("text/xml", server.getLastExchange().getRequestHeaders().getFirst("Content-Type"));
+    
+    assertEquals("created", engine.postJson(server.url("/post.xml"), "{}", "admin", "geoserver"));
+    assertEquals("{}", server.getLastRequestBody());
+    
+    assertTrue(engine.delete(server.url("/delete.xml"), "admin", "geoserver"));
+    assertEquals("DELETE", server.getLastExchange().getRequestMethod());
+  }
+}
@@ -0,0 +1,152 @@
+/*
+ *  GeoServer-Manager - Simple Manager Library for GeoServer
+ *  
+ *  Copyright (C) 2007,2016 GeoSolutions S.A.S.
+ *  http://www.geo-solutions.it
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package it.geosolutions.geoserver.rest;
+
+import static org.junit.Assert.*;
+import it.geosolutions.geoserver.rest.decoder.RESTLayer;
+import it.geosolutions.geoserver.rest.decoder.RESTResource;
+import it.geosolutions.geoserver.rest.http.MockHTTPServer;
+
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests the {@link GeoServerRESTAsyncReader} against an in-process server.
+ */
+public class GeoServerRESTAsyncReaderTest {
+  
+  private MockHTTPServer server;
+  
+  private GeoServerRESTAsyncReader async;
+  
+  @Before
+  public void setUp() throws Exception {
+    server = new MockHTTPServer();
+    GeoServerRESTReader reader = new GeoServerRESTReader(new URL(server.url("")), "admin", "geoserver");
+    async = new GeoServerRESTAsyncReader(reader, 2);
+  }
+  
+  @After
+  public void tearDown() {
+    async.shutdown();
+    server.stop();
+  }
+  
+  @Test
+  public void testCompose() throws Exception {
+    server.reply("/rest/about/version.xml", new MockHTTPServer.Reply(200,
+        "<about><resource name=\"GeoServer\"><Version>2.8.1</Version></resource></about>"));
+    server.reply("/rest/layers/topp:states.xml", new MockHTTPServer.Reply(200, "<layer><name>states</name><resource class=\"featureType\">"
+        + "<name>states</name><atom:link xmlns:atom=\"http://www.w3.org/2005/Atom\" rel=\"alternate\" href=\""
+        + server.url("/rest/workspaces/topp/datastores/states/featuretypes/states.xml") + "\"/></resource></layer>"));
+    server.reply("/rest/workspaces/topp/datastores/states/featuretypes/states.xml", new MockHTTPServer.Reply(200,
+        "<featureType><name>states</name><nativeName>states_native</nativeName></featureType>"));
+    
+    CompletableFuture<RESTResource> resource = async.getLayer("topp", "states").thenCompose(
+        new Function<RESTLayer, CompletableFuture<RESTResource>>() {
+          public CompletableFuture<RESTResource> apply(RESTLayer layer) {
+            return async.getResource(layer);
+          }
+        });
+    assertEquals("states_native", resource.get(10, TimeUnit.SECONDS).getNativeName());
+    
+    assertNull(async.getLayer("topp", "missing").get(10, TimeUnit.SECONDS));
+  }
+  
+  @Test
+  public void testInFlightIsBounded() throws Exception {
+    final AtomicInteger running = new AtomicInteger();
+    final AtomicInteger maxRunning = new AtomicInteger();
+    List<CompletableFuture<Integer>> futures = new ArrayList<CompletableFuture<Integer>>();
+    for (int i = 0; i < 20; i++) {
+      final int n = i;
+      futures.add(async.submit(new Callable<Integer>() {
+        public Integer call() throws Exception {
+          int now = running.incrementAndGet();
+          synchronized (maxRunning) {
+            maxRunning.set(Math.max(maxRunning.get(), now));
+          }
+          Thread.sleep(10);
+          running.decrementAndGet();
+          return n;
+        }
+      }));
+    }
+    for (int i = 0; i < futures.size(); i++) {
+      assertEquals(Integer.valueOf(i), futures.get(i).get(10, TimeUnit.SECONDS));
+    }
+    assertTrue(maxRunning.get() <= 2);
+    assertEquals(0, async.getPendingCount());
+  }
+  
+  @Test
+  public void testFailuresCompleteExceptionally() throws Exception {
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    GeoServerRESTAsyncReader custom = new GeoServerRESTAsyncReader(async.getReader(), executor, 1);
+    try {
+      custom.submit(new Callable<Object>() {
+        public Object call() {
+          throw new IllegalStateException("boom");
+        }
+      }).get(10, TimeUnit.SECONDS);
+      fail("The failure was not propagated");
+    } catch (ExecutionException e) {
+      assertTrue(e.getCause() instanceof IllegalStateException);
+    }
+    
+    // the slot of the failed call was released
+    assertEquals("ok", custom.submit(new Callable<String>() {
+      public String call() {
+        return "ok";
+      }
+    }).get(10, TimeUnit.SECONDS));
+    
+    executor.shutdown();
+    try {
+      custom.submit(new Callable<String>() {
+        public String call() {
+          return "ok";
+        }
+      }).get(10, TimeUnit.SECONDS);
+      fail("The rejection was not propagated");
+    } catch (ExecutionException e) {
+      // rejected by the executor
+    }
+  }
+}